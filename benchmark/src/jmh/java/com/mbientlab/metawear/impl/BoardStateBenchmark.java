@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.impl.platform.BtleGatt;
+import com.mbientlab.metawear.impl.platform.IO;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import bolts.Task;
+
+/**
+ * Measures restoring a fleet of boards from saved state.  The legacy benchmark reads the Java serialized states
+ * the unit tests use, the snapshot benchmarks read the same states rewritten in the binary snapshot format.  The
+ * snapshot benchmark only verifies the snapshots and leaves the modules and routes to be decoded on first use, the
+ * snapshotAndLoad benchmark touches a route on every board so it pays for decoding everything, as an eager restore
+ * would.  The serialize benchmark writes a restored board back out in the snapshot format.  Only states whose
+ * subscribers do not reference the unit test classes can be read here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BoardStateBenchmark {
+    private static final int BOARDS = 20;
+
+    static final IO NO_OP_IO = new IO() {
+        @Override
+        public void localSave(String key, byte[] data) { }
+
+        @Override
+        public InputStream localRetrieve(String key) {
+            return null;
+        }
+
+        @Override
+        public Task<File> downloadFileAsync(String srcUrl, String dest) {
+            return Task.forError(new UnsupportedOperationException());
+        }
+
+        @Override
+        public File findDownloadedFile(String filename) {
+            return null;
+        }
+
+        @Override
+        public void logWarn(String tag, String message) { }
+
+        @Override
+        public void logWarn(String tag, String message, Throwable tr) { }
+    };
+
+    @Param({"dc_observer", "timer"})
+    public String state;
+
+    private byte[] legacy, snapshot;
+    private JseMetaWearBoard[] boards;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, ClassNotFoundException {
+        try (InputStream ins = BoardStateBenchmark.class.getResourceAsStream("/board_state_" + state)) {
+            legacy = BoardSnapshot.readFully(ins);
+        }
+
+        boards = new JseMetaWearBoard[BOARDS];
+        for(int i = 0; i < BOARDS; i++) {
+            BtleGatt gatt = (BtleGatt) Proxy.newProxyInstance(BtleGatt.class.getClassLoader(), new Class<?>[] {BtleGatt.class},
+                    (proxy, method, args) -> null);
+            boards[i] = new JseMetaWearBoard(gatt, NO_OP_IO, String.format("CB:B7:49:BF:27:%02X", i), "3.5.0");
+        }
+
+        boards[0].deserialize(new ByteArrayInputStream(legacy));
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        boards[0].serialize(buffer);
+        snapshot = buffer.toByteArray();
+    }
+
+    @Benchmark
+    public JseMetaWearBoard[] legacy() throws IOException, ClassNotFoundException {
+        for(JseMetaWearBoard it: boards) {
+            it.deserialize(new ByteArrayInputStream(legacy));
+        }
+        return boards;
+    }
+
+    @Benchmark
+    public JseMetaWearBoard[] snapshot() throws IOException, ClassNotFoundException {
+        for(JseMetaWearBoard it: boards) {
+            it.deserialize(new ByteArrayInputStream(snapshot));
+        }
+        return boards;
+    }
+
+    @Benchmark
+    public JseMetaWearBoard[] snapshotAndLoad() throws IOException, ClassNotFoundException {
+        for(JseMetaWearBoard it: boards) {
+            it.deserialize(new ByteArrayInputStream(snapshot));
+            it.lookupRoute(0);
+        }
+        return boards;
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        out.reset();
+        boards[0].serialize(out);
+        return out.size();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.Data;
+import com.mbientlab.metawear.module.Accelerometer;
+import com.mbientlab.metawear.module.AccelerometerBosch;
+import com.mbientlab.metawear.module.BarometerBosch;
+import com.mbientlab.metawear.module.Gyro;
+import com.mbientlab.metawear.module.MagnetometerBmm150;
+import com.mbientlab.metawear.module.SensorFusionBosch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.mbientlab.metawear.impl.Constant.Module.ACCELEROMETER;
+import static com.mbientlab.metawear.impl.Constant.Module.BAROMETER;
+import static com.mbientlab.metawear.impl.Constant.Module.GYRO;
+import static com.mbientlab.metawear.impl.Constant.Module.MAGNETOMETER;
+import static com.mbientlab.metawear.impl.Constant.Module.SENSOR_FUSION;
+
+/**
+ * Measures {@link DataTypeBase#createMessage} for each family of sensor data, including reading the value since
+ * values are decoded on first access.  The data types are the ones the module implementations register, captured
+ * from a stub {@link MetaWearBoardPrivate}.  Run with the gc profiler to see the allocations per sample.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DataMessageBenchmark {
+    private static final Map<String, String> PRODUCERS = new HashMap<>();
+    static {
+        PRODUCERS.put("acceleration", "com.mbientlab.metawear.impl.AccelerometerBoschImpl.ACCEL_PRODUCER");
+        PRODUCERS.put("packed_acceleration", "com.mbientlab.metawear.impl.AccelerometerBoschImpl.ACCEL_PACKED_PRODUCER");
+        PRODUCERS.put("angular_velocity", "com.mbientlab.metawear.impl.GyroBmi160Impl.ROT_PRODUCER");
+        PRODUCERS.put("packed_angular_velocity", "com.mbientlab.metawear.impl.GyroBmi160Impl.ROT_PACKED_PRODUCER");
+        PRODUCERS.put("magnetic_field", "com.mbientlab.metawear.impl.MagnetometerBmm150Impl.BFIELD_PRODUCER");
+        PRODUCERS.put("packed_magnetic_field", "com.mbientlab.metawear.impl.MagnetometerBmm150Impl.BFIELD_PACKED_PRODUCER");
+        PRODUCERS.put("quaternion", "com.mbientlab.metawear.impl.SensorFusionBoschImpl.QUATERNION_PRODUCER");
+        PRODUCERS.put("euler_angles", "com.mbientlab.metawear.impl.SensorFusionBoschImpl.EULER_ANGLES_PRODUCER");
+        PRODUCERS.put("pressure", "com.mbientlab.metawear.impl.BarometerBoschImpl.PRESSURE_PRODUCER");
+    }
+
+    @Param({"acceleration", "packed_acceleration", "angular_velocity", "packed_angular_velocity", "magnetic_field",
+            "packed_magnetic_field", "quaternion", "euler_angles", "pressure"})
+    public String family;
+
+    private MetaWearBoardPrivate mwPrivate;
+    private DataTypeBase dataType;
+    private byte[] sample;
+    private long timestamp;
+
+    @Setup
+    public void setup() {
+        final Map<String, DataTypeBase> producers = new HashMap<>();
+        final Map<Class<?>, Object> modules = new HashMap<>();
+        final Map<Constant.Module, ModuleInfo> moduleInfo = new HashMap<>();
+        moduleInfo.put(ACCELEROMETER, new ModuleInfo(new byte[] {ACCELEROMETER.id, (byte) 0x80, 0x01, 0x01}));
+        moduleInfo.put(GYRO, new ModuleInfo(new byte[] {GYRO.id, (byte) 0x80, 0x00, 0x01}));
+        moduleInfo.put(MAGNETOMETER, new ModuleInfo(new byte[] {MAGNETOMETER.id, (byte) 0x80, 0x00, 0x01}));
+        moduleInfo.put(BAROMETER, new ModuleInfo(new byte[] {BAROMETER.id, (byte) 0x80, 0x00, 0x00}));
+        moduleInfo.put(SENSOR_FUSION, new ModuleInfo(new byte[] {SENSOR_FUSION.id, (byte) 0x80, 0x00, 0x00, 0x03, 0x00, 0x06, 0x00, 0x02, 0x00, 0x01, 0x00}));
+
+        mwPrivate = (MetaWearBoardPrivate) Proxy.newProxyInstance(MetaWearBoardPrivate.class.getClassLoader(),
+                new Class<?>[] {MetaWearBoardPrivate.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "tagProducer":
+                            producers.put((String) args[0], (DataTypeBase) args[1]);
+                            return null;
+                        case "getModules":
+                            return modules;
+                        case "lookupModuleInfo":
+                            return moduleInfo.get((Constant.Module) args[0]);
+                        default:
+                            // primitive results cannot be null
+                            return method.getReturnType() == boolean.class ? false :
+                                    (method.getReturnType() == int.class ? 0 :
+                                    (method.getReturnType() == long.class ? 0L : null));
+                    }
+                });
+
+        AccelerometerBmi160Impl acc = new AccelerometerBmi160Impl(mwPrivate);
+        modules.put(Accelerometer.class, acc);
+        modules.put(AccelerometerBosch.class, acc);
+        modules.put(Gyro.class, new GyroBmi160Impl(mwPrivate));
+        modules.put(MagnetometerBmm150.class, new MagnetometerBmm150Impl(mwPrivate));
+        modules.put(BarometerBosch.class, new BarometerBmp280Impl(mwPrivate));
+        modules.put(SensorFusionBosch.class, new SensorFusionBoschImpl(mwPrivate));
+
+        dataType = producers.get(PRODUCERS.get(family));
+        // one unit of the data type, packed types are decoded one unit at a time
+        sample = new byte[dataType.attributes.unitLength()];
+        for(int i = 0; i < sample.length; i++) {
+            sample[i] = (byte) (i * 17 + 3);
+        }
+    }
+
+    @Benchmark
+    public Object createMessage() {
+        Data data = dataType.createMessage(false, mwPrivate, sample, ++timestamp, null);
+        return data.value(data.types()[0]);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.Fleet;
+import com.mbientlab.metawear.MetaWearBoard;
+import com.mbientlab.metawear.module.Accelerometer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import bolts.Task;
+
+/**
+ * Measures provisioning a fleet of 50 boards that have not been connected to before: module discovery, one
+ * configuration write, and one streaming route per board.  The boards run on a {@link JseSimulator}, which answers
+ * commands once per connection interval like a real board.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FleetBenchmark {
+    private static final int BOARDS = 50;
+
+    @Param({"1", "8"})
+    public int concurrency;
+
+    private final List<JseSimulator> simulators = new ArrayList<>();
+    private Fleet fleet;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        final List<MetaWearBoard> boards = new ArrayList<>();
+        for(int i = 0; i < BOARDS; i++) {
+            JseSimulator simulator = new JseSimulator();
+            simulators.add(simulator);
+            boards.add(new JseMetaWearBoard(simulator, simulator, String.format(Locale.US, "CB:B7:49:BF:28:%02X", i), "3.5.0"));
+        }
+
+        fleet = new JseFleet(boards).setConcurrency(concurrency)
+                .configure(board -> {
+                    board.getModuleOrThrow(Accelerometer.class).configure().odr(50f).commit();
+                    return Task.forResult(null);
+                })
+                .addRouteTemplate(board -> board.getModuleOrThrow(Accelerometer.class).acceleration(), source -> source.stream(null));
+    }
+
+    @Benchmark
+    public Fleet.Result provision() throws InterruptedException {
+        Task<Fleet.Result> task = fleet.provisionAsync();
+        task.waitForCompletion();
+
+        if (!task.getResult().failures.isEmpty()) {
+            throw new IllegalStateException("Boards failed to provision: " + task.getResult().failures);
+        }
+        return task.getResult();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        for(JseSimulator it: simulators) {
+            it.close();
+        }
+        simulators.clear();
+    }
+}
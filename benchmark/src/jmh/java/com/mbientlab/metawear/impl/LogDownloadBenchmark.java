@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.impl.JseMetaWearBoard.RegisterResponseHandler;
+import com.mbientlab.metawear.impl.LoggingImpl.DataLogger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import bolts.Capture;
+
+import static com.mbientlab.metawear.impl.Constant.Module.LOGGING;
+
+/**
+ * Replays a log download through {@link LoggingImpl}.  The download is a 6 byte, 3 axis signal split across 2 log ids,
+ * the same layout as logged accelerometer data.  Run with the gc profiler to see the allocations per replayed download.
+ * The timestamp benchmark measures converting one log tick to time on its own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LogDownloadBenchmark {
+    private static final byte READOUT_NOTIFY = 7;
+    // ~1.46ms per tick, 100Hz sampling
+    private static final int TICKS_PER_SAMPLE = 7;
+
+    @Param({"10000"})
+    public int samples;
+
+    private byte[][] download;
+    private RegisterResponseHandler readoutHandler;
+    private LoggingImpl logging;
+    private long received, tick;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        final Map<Pair<Byte, Byte>, RegisterResponseHandler> handlers = new HashMap<>();
+        final Capture<Byte> nextLogId = new Capture<>((byte) 0);
+
+        final MetaWearBoardPrivate mwPrivate = (MetaWearBoardPrivate) Proxy.newProxyInstance(MetaWearBoardPrivate.class.getClassLoader(),
+                new Class<?>[] {MetaWearBoardPrivate.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "addResponseHandler":
+                            handlers.put((Pair<Byte, Byte>) args[0], (RegisterResponseHandler) args[1]);
+                            return null;
+                        case "receivedEpochMillis":
+                            return System.currentTimeMillis();
+                        case "lookupModuleInfo":
+                            return new ModuleInfo(new byte[] {LOGGING.id, (byte) 0x80, 0x00, 0x02, 0x08, (byte) 0x80, 0x2b, 0x00, 0x00});
+                        case "sendCommand":
+                            byte[] command = (byte[]) args[0];
+                            if (command[0] == LOGGING.id && command[1] == 0x2) {
+                                handlers.get(new Pair<>(LOGGING.id, (byte) 0x2)).onResponseReceived(new byte[] {LOGGING.id, 0x2, nextLogId.get()});
+                                nextLogId.set((byte) (nextLogId.get() + 1));
+                            }
+                            return null;
+                        default:
+                            // primitive results cannot be null
+                            return method.getReturnType() == boolean.class ? false :
+                                    (method.getReturnType() == int.class ? 0 :
+                                    (method.getReturnType() == long.class ? 0L : null));
+                    }
+                });
+
+        logging = new LoggingImpl(mwPrivate);
+        handlers.get(new Pair<>(LOGGING.id, Util.setRead((byte) 0x4))).onResponseReceived(new byte[] {LOGGING.id, (byte) 0x84, 0x00, 0x00, 0x00, 0x00, 0x00});
+
+        Queue<DataTypeBase> producers = new LinkedList<>();
+        producers.add(new UintData(Constant.Module.ACCELEROMETER, (byte) 0x4, new DataAttributes(new byte[] {2, 2, 2}, (byte) 1, (byte) 0, true)));
+        DataLogger logger = logging.queueLoggers(producers).getResult().peek();
+        logger.subscriber = (data, env) -> received++;
+
+        readoutHandler = handlers.get(new Pair<>(LOGGING.id, READOUT_NOTIFY));
+
+        // each readout notification carries both log entries of one sample
+        download = new byte[samples][];
+        for(int i = 0; i < samples; i++) {
+            int tick = i * TICKS_PER_SAMPLE;
+            byte[] packet = new byte[20];
+            packet[0] = LOGGING.id;
+            packet[1] = READOUT_NOTIFY;
+            for(int j = 0; j < 2; j++) {
+                int offset = 2 + 9 * j;
+                packet[offset] = (byte) j;
+                packet[offset + 1] = (byte) tick;
+                packet[offset + 2] = (byte) (tick >> 8);
+                packet[offset + 3] = (byte) (tick >> 16);
+                packet[offset + 4] = (byte) (tick >> 24);
+                for(int k = 0; k < 4; k++) {
+                    packet[offset + 5 + k] = (byte) (i + k);
+                }
+            }
+            download[i] = packet;
+        }
+    }
+
+    @Benchmark
+    public long replayDownload() {
+        for(byte[] it: download) {
+            readoutHandler.onResponseReceived(it);
+        }
+        return received;
+    }
+
+    @Benchmark
+    public long computeEpochMillis() {
+        tick += TICKS_PER_SAMPLE;
+        return logging.computeEpochMillis((byte) 0, tick);
+    }
+}
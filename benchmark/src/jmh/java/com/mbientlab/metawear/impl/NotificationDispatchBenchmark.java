@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.impl.JseMetaWearBoard.RegisterResponseHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per packet cost of routing notifications to data handlers.  Run with the gc profiler; the
+ * {@link NotificationDispatcher} benchmark should report a normalized allocation rate of 0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NotificationDispatchBenchmark {
+    // packed accelerometer and gyro data, plus a data processor notification that uses a data id
+    private static final byte[][] PACKETS = new byte[][] {
+            {0x03, 0x1c, 0x1b, 0x00, 0x32, 0x00, (byte) 0xf0, 0x3f, 0x1c, 0x00, 0x31, 0x00, (byte) 0xef, 0x3f, 0x1a, 0x00, 0x30, 0x00, (byte) 0xf1, 0x3f},
+            {0x13, 0x07, 0x01, 0x00, 0x02, 0x00, 0x03, 0x00, 0x01, 0x00, 0x02, 0x00, 0x03, 0x00, 0x01, 0x00, 0x02, 0x00, 0x03, 0x00},
+            {0x09, 0x03, 0x02, 0x1f, 0x00, 0x00, 0x00}
+    };
+
+    private NotificationDispatcher dispatcher;
+
+    private final HashSet<Pair<Byte, Byte>> dataIdHeaders = new HashSet<>();
+    private final Map<Tuple3<Byte, Byte, Byte>, LinkedHashSet<RegisterResponseHandler>> dataHandlers = new HashMap<>();
+    private final Map<Pair<Byte, Byte>, RegisterResponseHandler> registerResponseHandlers = new HashMap<>();
+
+    private long received;
+    private int index;
+
+    @Setup
+    public void setup() {
+        RegisterResponseHandler handler = response -> received += response.length;
+
+        dispatcher = new NotificationDispatcher();
+        dispatcher.addDataHandler((byte) 0x03, (byte) 0x1c, DataTypeBase.NO_DATA_ID, handler);
+        dispatcher.addDataHandler((byte) 0x13, (byte) 0x07, DataTypeBase.NO_DATA_ID, handler);
+        dispatcher.addDataIdHeader((byte) 0x09, (byte) 0x03);
+        dispatcher.addDataHandler((byte) 0x09, (byte) 0x03, (byte) 0x02, handler);
+        dispatcher.addResponseHandler((byte) 0x0b, (byte) 0x07, handler);
+
+        for(byte[] it: new byte[][] {{0x03, 0x1c, DataTypeBase.NO_DATA_ID}, {0x13, 0x07, DataTypeBase.NO_DATA_ID}, {0x09, 0x03, 0x02}}) {
+            LinkedHashSet<RegisterResponseHandler> handlers = new LinkedHashSet<>();
+            handlers.add(handler);
+            dataHandlers.put(new Tuple3<>(it[0], it[1], it[2]), handlers);
+        }
+        dataIdHeaders.add(new Pair<>((byte) 0x09, (byte) 0x03));
+        registerResponseHandlers.put(new Pair<>((byte) 0x0b, (byte) 0x07), handler);
+    }
+
+    private byte[] nextPacket() {
+        byte[] packet = PACKETS[index];
+        index = index + 1 == PACKETS.length ? 0 : index + 1;
+        return packet;
+    }
+
+    @Benchmark
+    public long dispatchTable() {
+        dispatcher.dispatch(nextPacket());
+        return received;
+    }
+
+    /**
+     * Replica of the boxed key lookup the dispatcher replaced, kept as a point of comparison
+     */
+    @Benchmark
+    public long dispatchHashMap() {
+        byte[] value = nextPacket();
+        Pair<Byte, Byte> header = new Pair<>(value[0], value[1]);
+        Tuple3<Byte, Byte, Byte> dataHandlerKey = new Tuple3<>(value[0], value[1], dataIdHeaders.contains(header) ? value[2] : DataTypeBase.NO_DATA_ID);
+
+        if (dataHandlers.containsKey(dataHandlerKey)) {
+            for(RegisterResponseHandler handler: dataHandlers.get(dataHandlerKey)) {
+                handler.onResponseReceived(value);
+            }
+        } else if (registerResponseHandlers.containsKey(header)) {
+            registerResponseHandlers.get(header).onResponseReceived(value);
+        }
+        return received;
+    }
+}
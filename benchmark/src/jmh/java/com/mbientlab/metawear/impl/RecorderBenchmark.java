@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.Data;
+import com.mbientlab.metawear.Recorder;
+import com.mbientlab.metawear.Subscriber;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast a {@link JseRecorder} channel appends samples.  The megabytes counter is the rate sample bytes
+ * are recorded at, in MB/s, and does not include the timestamp and length columns.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RecorderBenchmark {
+    private static final int BATCH = 1024;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Written {
+        public double megabytes;
+    }
+
+    // 6 bytes is one acceleration sample, 18 bytes is a packed batch of 3
+    @Param({"6", "18"})
+    public int sampleSize;
+
+    private File directory;
+    private Recorder recorder;
+    private Subscriber channel;
+    private Data[] batch;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("recorder").toFile();
+        recorder = new JseRecorder(directory);
+        channel = recorder.channel("acc");
+
+        batch = new Data[BATCH];
+        for(int i = 0; i < BATCH; i++) {
+            byte[] value = new byte[sampleSize];
+            for(int j = 0; j < sampleSize; j++) {
+                value[j] = (byte) (i + j);
+            }
+            batch[i] = new DataPrivate(1500000000000L + i * 10L, value, null) {
+                @Override
+                public Class<?>[] types() {
+                    return new Class<?>[] {byte[].class};
+                }
+            };
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        recorder.close();
+
+        File[] channels = directory.listFiles();
+        if (channels != null) {
+            for(File it: channels) {
+                File[] files = it.listFiles();
+                if (files != null) {
+                    for(File file: files) {
+                        file.delete();
+                    }
+                }
+                it.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public void append(Written written) {
+        for(Data it: batch) {
+            channel.apply(it);
+        }
+        written.megabytes += BATCH * sampleSize / 1e6;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.MetaWearBoard;
+import com.mbientlab.metawear.data.Acceleration;
+import com.mbientlab.metawear.impl.platform.BtleGattCharacteristic;
+import com.mbientlab.metawear.module.Accelerometer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+import bolts.Task;
+
+/**
+ * Measures a notification's trip from the GATT callback to the subscriber of a connected board: the dispatch in
+ * {@link JseMetaWearBoard}, the {@link StreamedDataConsumer}, and decoding the acceleration.  The chain param picks
+ * what the accelerometer data went through on the board, the accelerometer's own packed register, or pack and account
+ * data processors.  Run with the gc profiler to see the allocations per notification.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StreamedDataBenchmark {
+    /**
+     * Keeps the notification listener the board registers so packets can be fed to it directly
+     */
+    static class CapturingSimulator extends JseSimulator {
+        NotificationListener listener;
+
+        @Override
+        public Task<Void> enableNotificationsAsync(BtleGattCharacteristic characteristic, NotificationListener listener) {
+            this.listener = listener;
+            return super.enableNotificationsAsync(characteristic, listener);
+        }
+    }
+
+    // one acceleration sample, 6 bytes
+    private static final byte[] SAMPLE = new byte[] {0x1b, 0x00, 0x32, 0x00, (byte) 0xf0, 0x3f};
+    private static final byte[] TICK = new byte[] {0x10, 0x27, 0x00, 0x00};
+
+    @Param({"raw", "packed", "pack", "account"})
+    public String chain;
+
+    private CapturingSimulator simulator;
+    private byte[] packet;
+    private float received;
+
+    private static byte[] packet(byte[] header, byte[]... parts) {
+        int length = header.length;
+        for(byte[] it: parts) {
+            length += it.length;
+        }
+
+        byte[] packet = new byte[length];
+        System.arraycopy(header, 0, packet, 0, header.length);
+        int offset = header.length;
+        for(byte[] it: parts) {
+            System.arraycopy(it, 0, packet, offset, it.length);
+            offset += it.length;
+        }
+        return packet;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        simulator = new CapturingSimulator();
+        MetaWearBoard board = new JseMetaWearBoard(simulator, simulator, "CB:B7:49:BF:27:33", "3.5.0");
+        board.connectAsync().waitForCompletion();
+
+        Accelerometer acc = board.getModule(Accelerometer.class);
+        Task<?> route;
+        // processors are numbered from 0 on a freshly created simulator
+        switch (chain) {
+            case "packed":
+                route = acc.packedAcceleration().addRouteAsync(source -> source.stream((data, env) -> received += data.value(Acceleration.class).x()));
+                packet = packet(new byte[] {0x03, 0x1c}, SAMPLE, SAMPLE, SAMPLE);
+                break;
+            case "pack":
+                route = acc.acceleration().addRouteAsync(source -> source.pack((byte) 2).stream((data, env) -> received += data.value(Acceleration.class).x()));
+                packet = packet(new byte[] {0x09, 0x03, 0x00}, SAMPLE, SAMPLE);
+                break;
+            case "account":
+                route = acc.acceleration().addRouteAsync(source -> source.account().stream((data, env) -> received += data.value(Acceleration.class).x()));
+                packet = packet(new byte[] {0x09, 0x03, 0x00}, TICK, SAMPLE);
+                break;
+            default:
+                route = acc.acceleration().addRouteAsync(source -> source.stream((data, env) -> received += data.value(Acceleration.class).x()));
+                packet = packet(new byte[] {0x03, 0x04}, SAMPLE);
+                break;
+        }
+        route.waitForCompletion();
+        if (route.isFaulted()) {
+            throw new IllegalStateException("Cannot create the " + chain + " route", route.getError());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        simulator.close();
+    }
+
+    @Benchmark
+    public float notification() {
+        simulator.listener.onChange(packet);
+        return received;
+    }
+}
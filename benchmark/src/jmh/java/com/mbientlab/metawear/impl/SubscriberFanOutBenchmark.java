@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.AsyncDataProducer;
+import com.mbientlab.metawear.MetaWearBoard;
+import com.mbientlab.metawear.data.Acceleration;
+import com.mbientlab.metawear.module.Accelerometer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+import bolts.Task;
+
+/**
+ * Measures how the cost of a notification grows with the number of routes subscribed to the same acceleration data.
+ * Each route has its own consumer and handler but the packet is decoded once and the samples are shared, so the cost
+ * past the first subscriber should be the dispatch and the subscriber itself.  The chain param picks a single sample
+ * per notification or the accelerometer's packed register.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SubscriberFanOutBenchmark {
+    private static final byte[] SAMPLE = new byte[] {0x1b, 0x00, 0x32, 0x00, (byte) 0xf0, 0x3f};
+
+    @Param({"1", "2", "4", "8"})
+    public int subscribers;
+
+    @Param({"raw", "packed"})
+    public String chain;
+
+    private StreamedDataBenchmark.CapturingSimulator simulator;
+    private byte[] packet;
+    private float received;
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        simulator = new StreamedDataBenchmark.CapturingSimulator();
+        MetaWearBoard board = new JseMetaWearBoard(simulator, simulator, "CB:B7:49:BF:27:33", "3.5.0");
+        board.connectAsync().waitForCompletion();
+
+        Accelerometer acc = board.getModule(Accelerometer.class);
+        AsyncDataProducer producer;
+        if (chain.equals("packed")) {
+            producer = acc.packedAcceleration();
+            packet = new byte[2 + 3 * SAMPLE.length];
+            packet[0] = 0x03;
+            packet[1] = 0x1c;
+            for(int i = 0; i < 3; i++) {
+                System.arraycopy(SAMPLE, 0, packet, 2 + i * SAMPLE.length, SAMPLE.length);
+            }
+        } else {
+            producer = acc.acceleration();
+            packet = new byte[2 + SAMPLE.length];
+            packet[0] = 0x03;
+            packet[1] = 0x04;
+            System.arraycopy(SAMPLE, 0, packet, 2, SAMPLE.length);
+        }
+
+        for(int i = 0; i < subscribers; i++) {
+            Task<?> route = producer.addRouteAsync(source -> source.stream((data, env) -> received += data.value(Acceleration.class).x()));
+            route.waitForCompletion();
+            if (route.isFaulted()) {
+                throw new IllegalStateException("Cannot create the " + chain + " route", route.getError());
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        simulator.close();
+    }
+
+    @Benchmark
+    public float notification() {
+        simulator.listener.onChange(packet);
+        return received;
+    }
+}
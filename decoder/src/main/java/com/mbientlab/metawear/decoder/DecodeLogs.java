@@ -0,0 +1,223 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.decoder;
+
+import com.mbientlab.metawear.LogDecoder;
+import com.mbientlab.metawear.SampleBatch;
+import com.mbientlab.metawear.impl.JseLogDecoder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import bolts.Task;
+
+/**
+ * Command line tool that decodes log dumps into one CSV file per logged producer.  Inputs are either dumps written by
+ * {@link com.mbientlab.metawear.module.Logging#dumpAsync(java.io.OutputStream)}, or readout captures paired with the
+ * board state passed with <code>-s</code>.  Captures are the length prefixed packets that follow the state in a dump,
+ * or text with one packet per line written as a JSON array of bytes.  Files are decoded one after another, the loggers
+ * in a file are decoded in parallel.
+ */
+public class DecodeLogs {
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "usage: metawear-decode [-t threads] [-o dir] [-s state] input...",
+            "  -t threads    loggers to decode at the same time, defaults to the number of processors",
+            "  -o dir        directory to write to, each input gets a sub-directory named after it",
+            "  -s state      board state the following inputs are readout captures of, instead of dumps"
+    );
+
+    /**
+     * Writes each producer's batches to its own CSV file
+     */
+    private static final class CsvOutput implements LogDecoder.BatchHandler {
+        private final File directory;
+        private final Map<String, Writer> writers = new ConcurrentHashMap<>();
+        private IOException error;
+
+        CsvOutput(File directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public void receivedBatch(String producer, SampleBatch batch) {
+            Writer writer = writers.computeIfAbsent(producer, key -> open(key, batch.columns()));
+            if (writer == null) {
+                return;
+            }
+
+            synchronized (writer) {
+                try {
+                    StringBuilder line = new StringBuilder(64);
+                    for(int i = 0; i < batch.size(); i++) {
+                        line.setLength(0);
+                        line.append(batch.epochMillis()[i]);
+                        for(int j = 0; j < batch.columns(); j++) {
+                            line.append(',').append(batch.column(j)[i]);
+                        }
+                        writer.write(line.append('\n').toString());
+                    }
+                } catch (IOException e) {
+                    failed(e);
+                }
+            }
+        }
+
+        private Writer open(String producer, int columns) {
+            try {
+                Writer writer = new BufferedWriter(new FileWriter(new File(directory, producer.replaceAll("[^A-Za-z0-9._-]", "_") + ".csv")));
+                writer.write("epoch_millis");
+                for(int i = 0; i < columns; i++) {
+                    writer.write(",v" + i);
+                }
+                writer.write('\n');
+                return writer;
+            } catch (IOException e) {
+                failed(e);
+                return null;
+            }
+        }
+
+        private synchronized void failed(IOException e) {
+            if (error == null) {
+                error = e;
+            }
+        }
+
+        void close() throws IOException {
+            for(Writer it: writers.values()) {
+                try {
+                    it.close();
+                } catch (IOException e) {
+                    failed(e);
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+
+    /**
+     * Converts a text capture to length prefixed packets, binary captures are returned as they are
+     */
+    static InputStream readCapture(File capture) throws IOException {
+        InputStream ins = new BufferedInputStream(new FileInputStream(capture));
+        ins.mark(1);
+        int first = ins.read();
+        ins.reset();
+        if (first != '[') {
+            return ins;
+        }
+
+        ByteArrayOutputStream packets = new ByteArrayOutputStream();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ins, StandardCharsets.UTF_8))) {
+            String line;
+            while((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                String[] values = line.substring(1, line.length() - 1).split(",");
+                packets.write(values.length);
+                for(String it: values) {
+                    packets.write(Integer.parseInt(it.trim()));
+                }
+            }
+        }
+        return new ByteArrayInputStream(packets.toByteArray());
+    }
+
+    private static void decode(File input, byte[] state, int threads, File outDir) throws IOException, InterruptedException {
+        final JseLogDecoder decoder;
+        try (InputStream ins = state == null ? new FileInputStream(input) : readCapture(input)) {
+            decoder = state == null ? new JseLogDecoder(ins, threads) : new JseLogDecoder(state, ins, threads);
+        }
+
+        File directory = new File(outDir, input.getName());
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory: " + directory.getAbsolutePath());
+        }
+
+        CsvOutput output = new CsvOutput(directory);
+        Task<Long> task = decoder.decodeBatchesAsync(output);
+        task.waitForCompletion();
+        output.close();
+        if (task.isFaulted()) {
+            throw new IOException("Cannot decode " + input.getName(), task.getError());
+        }
+
+        System.out.println(String.format(Locale.US, "%s: %d samples from %d producers, %d unknown entries",
+                input.getName(), task.getResult(), decoder.producers().size(), decoder.unknownEntries()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors(), inputs = 0;
+        File outDir = new File(".");
+        byte[] state = null;
+
+        for(int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-t":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-o":
+                    outDir = new File(args[++i]);
+                    break;
+                case "-s":
+                    state = Files.readAllBytes(new File(args[++i]).toPath());
+                    break;
+                case "-h":
+                case "--help":
+                    System.out.println(USAGE);
+                    return;
+                default:
+                    decode(new File(args[i]), state, threads, outDir);
+                    inputs++;
+                    break;
+            }
+        }
+
+        if (inputs == 0) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+    }
+}
@@ -36,6 +36,14 @@ public interface Data {
      * @return Data timestamp
      */
     Calendar timestamp();
+    /**
+     * Same time as {@link #timestamp()} in milliseconds since the epoch.  Use this over {@link #timestamp()} when
+     * handling data at high sample rates as it does not create a {@link Calendar} object.
+     * @return Data timestamp in milliseconds
+     */
+    default long epochMillis() {
+        return timestamp().getTimeInMillis();
+    }
     /**
      * String representation of the timestamp in the format <code>YYYY-MM-DDTHH:MM:SS.LLL</code>.  The timezone
      * of the string will be the local device's current timezone.
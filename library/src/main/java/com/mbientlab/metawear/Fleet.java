@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import com.mbientlab.metawear.builder.RouteBuilder;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import bolts.Task;
+
+/**
+ * Connects to, configures, and adds routes to a group of boards.  Boards are provisioned in parallel, up to the
+ * concurrency limit, and a failure on one board does not stop the others.
+ */
+public interface Fleet {
+    /**
+     * Configures a board after it has been connected to
+     */
+    interface Configurator {
+        /**
+         * Called once per board, in the order the configurators were added
+         * @param board    Connected board to configure
+         * @return Task that is completed when the board is configured
+         * @throws Exception If the board cannot be configured
+         */
+        Task<Void> configure(MetaWearBoard board) throws Exception;
+    }
+    /**
+     * Picks the data producer a shared route template is added to
+     */
+    interface ProducerSelector {
+        /**
+         * Selects the producer on the given board
+         * @param board    Connected board to add the route to
+         * @return Data producer to add the route to
+         * @throws UnsupportedModuleException If the board does not have the required module
+         */
+        DataProducer select(MetaWearBoard board) throws UnsupportedModuleException;
+    }
+
+    /**
+     * Provisioning status, reported every time a board finishes
+     */
+    final class Progress {
+        /** Number of boards in the fleet */
+        public final int total;
+        /** Number of boards that were provisioned */
+        public final int provisioned;
+        /** Number of boards that failed */
+        public final int failed;
+        /** Board that just finished */
+        public final MetaWearBoard board;
+        /** Reason the board failed, null if it was provisioned */
+        public final Exception error;
+
+        public Progress(int total, int provisioned, int failed, MetaWearBoard board, Exception error) {
+            this.total = total;
+            this.provisioned = provisioned;
+            this.failed = failed;
+            this.board = board;
+            this.error = error;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "{total: %d, provisioned: %d, failed: %d, board: %s}", total, provisioned, failed, board.getMacAddress());
+        }
+    }
+    /**
+     * Handler for provisioning progress
+     */
+    interface ProgressHandler {
+        /**
+         * Called when a board finishes, successfully or not.  Calls can come from multiple threads.
+         * @param progress    Current status
+         */
+        void progress(Progress progress);
+    }
+
+    /**
+     * Outcome of a {@link #provisionAsync()} call
+     */
+    final class Result {
+        /** Boards that were connected to and configured, in fleet order */
+        public final List<MetaWearBoard> provisioned;
+        /** Boards that failed and why */
+        public final Map<MetaWearBoard, Exception> failures;
+        /** Routes created from the templates, in the order the templates were added */
+        public final Map<MetaWearBoard, List<Route>> routes;
+        /** Time, in milliseconds, the fleet took to provision */
+        public final long elapsed;
+
+        public Result(List<MetaWearBoard> provisioned, Map<MetaWearBoard, Exception> failures, Map<MetaWearBoard, List<Route>> routes, long elapsed) {
+            this.provisioned = provisioned;
+            this.failures = failures;
+            this.routes = routes;
+            this.elapsed = elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "{provisioned: %d, failed: %d, elapsed: %dms}", provisioned.size(), failures.size(), elapsed);
+        }
+    }
+
+    /**
+     * Retrieves the boards in the fleet
+     * @return Unmodifiable list of boards
+     */
+    List<MetaWearBoard> boards();
+    /**
+     * Sets how many boards are provisioned at the same time, defaults to 4
+     * @param boards    Max number of boards, must be at least 1
+     * @return Calling object
+     */
+    Fleet setConcurrency(int boards);
+    /**
+     * Sets how many times a board is connected to before it is marked as failed, defaults to 3
+     * @param retries    Number of connect attempts
+     * @return Calling object
+     * @see MetaWearBoard#connectWithRetryAsync(int)
+     */
+    Fleet setRetries(int retries);
+    /**
+     * Adds a configuration step that runs on every board after it is connected to
+     * @param configurator    Configuration step
+     * @return Calling object
+     */
+    Fleet configure(Configurator configurator);
+    /**
+     * Adds a route that is created on every board after it is configured
+     * @param producer    Selects the producer to add the route to
+     * @param builder     Route shared by all boards
+     * @return Calling object
+     */
+    Fleet addRouteTemplate(ProducerSelector producer, RouteBuilder builder);
+    /**
+     * Sets a handler to receive provisioning progress
+     * @param handler    Progress handler
+     */
+    void onProgress(ProgressHandler handler);
+
+    /**
+     * Connects to, configures, and adds the route templates to every board
+     * @return Task holding the result, it is never faulted; failed boards are listed in the result
+     */
+    Task<Result> provisionAsync();
+    /**
+     * Disconnects from every board
+     * @return Task that is completed when all boards are disconnected
+     */
+    Task<Void> disconnectAsync();
+}
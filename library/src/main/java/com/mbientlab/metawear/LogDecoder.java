@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import java.util.Set;
+
+import bolts.Task;
+
+/**
+ * Decodes a log dump written by {@link com.mbientlab.metawear.module.Logging#dumpAsync(java.io.OutputStream)}.  The
+ * dump carries the board state so it can be decoded without the board, e.g. on a server.  Each logger's entries are
+ * decoded independently, with different loggers decoded in parallel.
+ */
+public interface LogDecoder {
+    /**
+     * Receives the decoded data
+     */
+    interface DataHandler {
+        /**
+         * Called for every decoded sample.  Samples from one producer are passed in the order they were logged, samples
+         * from different producers may be passed at the same time from different threads
+         * @param producer    Identifier of the producer that was logged, e.g. "acceleration"
+         * @param data        Decoded sample
+         */
+        void receivedData(String producer, Data data);
+    }
+    /**
+     * Receives the decoded data as primitive columns
+     */
+    interface BatchHandler {
+        /**
+         * Called with blocks of decoded samples, with the same ordering as {@link DataHandler#receivedData(String, Data)}.
+         * The batch is reused once the method returns
+         * @param producer    Identifier of the producer that was logged
+         * @param batch       Decoded samples
+         */
+        void receivedBatch(String producer, SampleBatch batch);
+    }
+
+    /**
+     * Gets the producers that were logged
+     * @return Set of producer identifiers
+     */
+    Set<String> producers();
+    /**
+     * Decodes the dump
+     * @param handler    Handler to receive the decoded samples
+     * @return Task holding the number of decoded samples
+     */
+    Task<Long> decodeAsync(DataHandler handler);
+    /**
+     * Decodes the dump into primitive columns, which skips creating a {@link Data} object per sample
+     * @param handler    Handler to receive the decoded samples
+     * @return Task holding the number of decoded samples
+     */
+    Task<Long> decodeBatchesAsync(BatchHandler handler);
+}
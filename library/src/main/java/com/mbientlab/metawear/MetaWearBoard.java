@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 import bolts.Task;
@@ -171,6 +172,42 @@ public interface MetaWearBoard {
      * @return Task holding the result of the disconnect attempt
      */
     Task<Void> disconnectAsync();
+    /**
+     * Sets if {@link #connectAsync()} should trust the cached board information on reconnects.  When enabled and the
+     * board was connected to before, notifications are enabled while the firmware revision is read, the module
+     * discovery and board information save are skipped if the firmware has not changed, and active data streams
+     * are re-enabled once the connection is established.
+     * @param enable    True to use the fast reconnect path
+     */
+    void setFastReconnect(boolean enable);
+
+    /**
+     * Time, in milliseconds, taken by the most recent {@link #connectAsync()} call
+     */
+    final class ConnectTimes {
+        /** True if the cached board information was trusted */
+        public final boolean fastReconnect;
+        /** Time from the connect call until the board was ready */
+        public final long connect;
+        /** Time from the connect call until the first data sample was received, -1 if no data has been received */
+        public final long firstSample;
+
+        public ConnectTimes(boolean fastReconnect, long connect, long firstSample) {
+            this.fastReconnect = fastReconnect;
+            this.connect = connect;
+            this.firstSample = firstSample;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "{fastReconnect: %s, connect: %dms, firstSample: %dms}", fastReconnect, connect, firstSample);
+        }
+    }
+    /**
+     * Retrieves how long the most recent connection attempt took
+     * @return Connect times, null if the board has not been connected to
+     */
+    ConnectTimes connectTimes();
 
     /**
      * Handler for when the API is not expecting a disconnect event
@@ -272,6 +309,21 @@ public interface MetaWearBoard {
      */
     void deserialize(InputStream ins) throws IOException, ClassNotFoundException;
 
+    /**
+     * Sets how module info is queried when the board is connected to for the first time or its firmware changes.  Modules
+     * are queried one at a time by default; concurrent discovery sends every query at once and matches the responses
+     * by module id, which cuts down the first connection time.
+     * @param enable    True to query all modules at once
+     */
+    void setConcurrentModuleDiscovery(boolean enable);
+    /**
+     * Sets if routes fall back to running data processors on the local device when the board runs out of them.  The
+     * processors the board could create stay on the board and the remaining low-pass, high-pass, math, comparison,
+     * threshold, differential, pulse, counter, and accumulator processors run on the data streamed from the board.
+     * Processors that are named, logged, or used by reactions or feedback always run on the board.
+     * @param enable    True to fall back to local processors
+     */
+    void setLocalProcessorFallback(boolean enable);
     /**
      * Queries all info registers.  If the task times out, you can run the task again using the partially
      * completed result from the previous execution so the function does not need to query all modules again.
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Records the raw bytes and timestamps of data samples to disk.  Each channel is a {@link Subscriber} for one data
+ * producer and is passed to {@link com.mbientlab.metawear.builder.RouteComponent#stream(Subscriber)} or
+ * {@link com.mbientlab.metawear.builder.RouteComponent#log(Subscriber)}.  Samples are not decoded while recording,
+ * instead the producer's type information is saved alongside the samples so they can be decoded later.
+ */
+public interface Recorder extends Closeable {
+    /**
+     * Iterates over the samples recorded by a channel.  The cursor reuses its buffers, reading a sample does not
+     * allocate any objects
+     */
+    interface Cursor extends Closeable {
+        /**
+         * Gets the identifier of the data producer the channel was attached to
+         * @return Producer identifier, null if the channel was never attached to a route
+         */
+        String identifier();
+        /**
+         * Gets the number of samples that can be read
+         * @return Number of samples
+         */
+        long size();
+        /**
+         * Moves to the next sample
+         * @return True if there is another sample, false if all samples have been read
+         */
+        boolean next() throws IOException;
+        /**
+         * Moves back to the first sample
+         */
+        void rewind() throws IOException;
+        /**
+         * Gets when the current sample was created
+         * @return Sample time, as milliseconds since the epoch
+         */
+        long epochMillis();
+        /**
+         * Gets the number of bytes in the current sample
+         * @return Sample length
+         */
+        int length();
+        /**
+         * Gets one byte of the current sample
+         * @param index    Byte to retrieve, between [0, {@link #length()})
+         * @return Byte at the index
+         */
+        byte get(int index);
+        /**
+         * Copies the current sample into a buffer
+         * @param dst    Buffer to copy to, must be at least {@link #length()} bytes long
+         * @return Number of bytes copied
+         */
+        int read(byte[] dst);
+    }
+
+    /**
+     * Gets the subscriber that records samples to the named channel, creating the channel if it does not exist.
+     * A channel should only be attached to one data producer
+     * @param name    Channel name, must be usable as a file name
+     * @return Subscriber for the channel
+     */
+    Subscriber channel(String name);
+    /**
+     * Gets the names of the channels that have recorded samples, including channels from previous sessions
+     * @return Set of channel names
+     */
+    Set<String> channels();
+    /**
+     * Gets the number of sample bytes recorded by this object, not counting timestamps and lengths
+     * @return Number of bytes recorded
+     */
+    long bytesRecorded();
+    /**
+     * Writes recorded samples to the storage device
+     * @throws IOException If the samples cannot be written
+     */
+    void flush() throws IOException;
+    /**
+     * Opens a cursor for reading a channel's samples.  Samples recorded after the cursor is opened may not be visible
+     * @param name    Channel to read
+     * @return Cursor positioned before the first sample
+     * @throws IOException If the channel's files cannot be read
+     */
+    Cursor open(String name) throws IOException;
+}
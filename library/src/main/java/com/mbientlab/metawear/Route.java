@@ -24,11 +24,97 @@
 
 package com.mbientlab.metawear;
 
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
 /**
  * Defines how data flows from a data producer to an endpoint
  * @author Eric Tsai
  */
 public interface Route {
+    /**
+     * Time, in milliseconds, spent in each phase of creating the route on the board
+     */
+    final class CreationTimes {
+        /** Time spent creating the data processors */
+        public final long processors;
+        /** Time spent creating the loggers */
+        public final long loggers;
+        /** Time spent creating the event commands */
+        public final long events;
+
+        public CreationTimes(long processors, long loggers, long events) {
+            this.processors = processors;
+            this.loggers = loggers;
+            this.events = events;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "{processors: %dms, loggers: %dms, events: %dms}", processors, loggers, events);
+        }
+    }
+
+    /**
+     * Snapshot of how packets are queued when the route delivers its data off the notification thread
+     */
+    final class DeliveryMetrics {
+        /** Packets waiting to be delivered, including the one being delivered */
+        public final int queued;
+        /** Most packets that were waiting at once */
+        public final int maxQueued;
+        /** Packets delivered so far */
+        public final long delivered;
+        /** Packets dropped so far because a stream's buffer was full */
+        public final long dropped;
+        /** Average time, in microseconds, packets waited between arriving and being decoded */
+        public final long meanDwell;
+        /** Longest time, in microseconds, a packet waited between arriving and being decoded */
+        public final long maxDwell;
+
+        public DeliveryMetrics(int queued, int maxQueued, long delivered, long dropped, long meanDwell, long maxDwell) {
+            this.queued = queued;
+            this.maxQueued = maxQueued;
+            this.delivered = delivered;
+            this.dropped = dropped;
+            this.meanDwell = meanDwell;
+            this.maxDwell = maxDwell;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "{queued: %d, maxQueued: %d, delivered: %d, dropped: %d, meanDwell: %dus, maxDwell: %dus}",
+                    queued, maxQueued, delivered, dropped, meanDwell, maxDwell);
+        }
+    }
+
+    /**
+     * What to do with a stream's packets when its buffer is full
+     */
+    enum Overflow {
+        /** Discard the oldest waiting packet to make room for the new one */
+        DROP_OLDEST,
+        /** Discard the packet that just arrived */
+        DROP_NEWEST,
+        /** Only keep the newest packet, the buffer capacity is ignored */
+        KEEP_LATEST,
+        /** Only keep the newest packet and only pass on its newest sample, for streams that only display the current value */
+        CONFLATE
+    }
+
+    /**
+     * Handler notified when a stream drops packets
+     */
+    interface DropHandler {
+        /**
+         * Called on the delivery executor, at the end of the drain that found the stream's dropped packets, when packets
+         * were dropped since the previous call
+         * @param pos      Numerical position of the subscriber that missed the packets
+         * @param count    Number of packets dropped since the previous call
+         */
+        void dropped(int pos, long count);
+    }
+
     /**
      * Generates a string identifying the data producer chain the subscriber is receiving data from.
      * This value can be matched with the output from {@link AnonymousRoute#identifier()} if syncing data
@@ -66,6 +152,34 @@ public interface Route {
      */
     boolean resubscribe(int pos, Subscriber subscriber);
 
+    /**
+     * Decodes the streamed data and calls the subscribers on the executor instead of the thread receiving the
+     * notifications.  Packets are queued per route, so the route's subscribers still see the data in the order it
+     * arrived, one sample at a time, while slow subscribers no longer hold up the notification thread or other routes.
+     * Any executor works, including one creating a virtual thread per task.  Packets queued when the executor is changed
+     * are still delivered before newer ones.  The setting is not saved with the board state and does not apply to logged data.
+     * @param executor    Executor to run the subscribers on, null to call them on the notification thread
+     */
+    void setDeliveryExecutor(Executor executor);
+    /**
+     * Bounds how many of the stream's packets can wait for the subscriber when data is delivered on an executor, see
+     * {@link #setDeliveryExecutor(Executor)}.  Packets are dropped according to the overflow policy once the buffer is
+     * full; dropped packets are not decoded and not kept.  A packet that replaces a dropped one is delivered in the dropped
+     * packet's place, ahead of packets other streams received in between.  The setting is not saved with the board state.
+     * @param pos         Numerical position of the subscriber to interact with, starting at 0
+     * @param capacity    Maximum number of waiting packets, one packet can hold multiple samples
+     * @param overflow    What to do once the buffer is full, null to remove the bound
+     * @param handler     Handler notified of dropped packets, can be null
+     * @return True if operation succeeded, false if the position is out of bounds or the subscriber is handling log data
+     * or data processed on the host
+     */
+    boolean setBackpressure(int pos, int capacity, Overflow overflow, DropHandler handler);
+    /**
+     * Retrieves the queue depth and dwell times of the route's data
+     * @return Delivery metrics, null if the data is delivered on the notification thread
+     */
+    DeliveryMetrics deliveryMetrics();
+
     /**
      * Removes the route and marks the object as inactive
      */
@@ -81,4 +195,10 @@ public interface Route {
      * @return Numerical ID identifying the route
      */
     int id();
+    /**
+     * Retrieves how long each phase of the route creation took.  Routes restored from serialized state do not
+     * have this information.
+     * @return Creation times, null if the route was restored from serialized state
+     */
+    CreationTimes creationTimes();
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+/**
+ * Block of samples stored as primitive columns.  The arrays are reused between calls to
+ * {@link BatchSubscriber#apply(SampleBatch, Object...) apply} and only the first {@link #size()} entries are valid,
+ * so copy out any values that need to outlive the callback.
+ */
+public interface SampleBatch {
+    /**
+     * Number of samples in the batch
+     * @return Number of valid entries in each column
+     */
+    int size();
+    /**
+     * Number of value columns, 3 for vector data such as acceleration and 1 for scalar data
+     * @return Number of value columns
+     */
+    int columns();
+    /**
+     * Sample timestamps as milliseconds since the epoch
+     * @return Timestamp column
+     */
+    long[] epochMillis();
+    /**
+     * Values of one component of the samples
+     * @param index    Column index, starting at 0
+     * @return Value column
+     */
+    float[] column(int index);
+    /**
+     * Shortcut for <code>column(0)</code>, the x component of vector data
+     * @return X component column
+     */
+    float[] x();
+    /**
+     * Shortcut for <code>column(1)</code>, the y component of vector data
+     * @return Y component column
+     */
+    float[] y();
+    /**
+     * Shortcut for <code>column(2)</code>, the z component of vector data
+     * @return Z component column
+     */
+    float[] z();
+}
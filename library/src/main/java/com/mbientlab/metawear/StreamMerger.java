@@ -0,0 +1,266 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import java.util.Locale;
+
+/**
+ * Merges time ordered samples from several sources, typically the same sensor on different boards, into one stream
+ * ordered by timestamp.  Each source is buffered in primitive columns and a heap of source indices, keyed by the
+ * timestamp of each source's oldest sample, picks the next sample to emit.  A sample is emitted once every source has
+ * newer data or once it is more than the max latency older than the newest sample seen, so a source that stops
+ * sending only delays the output by the max latency.
+ * <p>
+ * Samples from one source must arrive in timestamp order.  For boards streaming with a time accounter, call
+ * {@link com.mbientlab.metawear.module.Logging#syncClockAsync()} periodically so board ticks are converted to a
+ * shared timebase.  All methods are thread safe and the output is called while the merger's lock is held.
+ */
+public final class StreamMerger {
+    /**
+     * Receives the merged samples
+     */
+    public interface Output {
+        /**
+         * Called for each sample, in timestamp order
+         * @param source         Index of the source the sample came from
+         * @param epochMillis    Sample timestamp
+         * @param values         Sample values, reused between calls
+         */
+        void apply(int source, long epochMillis, float[] values);
+    }
+
+    /**
+     * Growable ring buffer of samples from one source
+     */
+    private static final class SourceBuffer {
+        long[] timestamps;
+        float[] values;
+        int head, size;
+
+        SourceBuffer(int capacity, int columns) {
+            timestamps = new long[capacity];
+            values = new float[capacity * columns];
+        }
+
+        void add(long epochMillis, int columns, float[][] batchColumns, int index) {
+            if (size == timestamps.length) {
+                grow(columns);
+            }
+
+            int tail = (head + size) % timestamps.length;
+            timestamps[tail] = epochMillis;
+            for(int c = 0; c < columns; c++) {
+                values[tail * columns + c] = batchColumns[c][index];
+            }
+            size++;
+        }
+
+        private void grow(int columns) {
+            long[] newTimestamps = new long[timestamps.length * 2];
+            float[] newValues = new float[newTimestamps.length * columns];
+            for(int i = 0; i < size; i++) {
+                int from = (head + i) % timestamps.length;
+                newTimestamps[i] = timestamps[from];
+                System.arraycopy(values, from * columns, newValues, i * columns, columns);
+            }
+            timestamps = newTimestamps;
+            values = newValues;
+            head = 0;
+        }
+
+        long peek() {
+            return timestamps[head];
+        }
+    }
+
+    private final int columns;
+    private final long maxLatency;
+    private final Output output;
+    private final SourceBuffer[] buffers;
+    private final float[][] single, batchColumns;
+    private final float[] scratch;
+
+    // min heap of sources with buffered samples, keyed by their oldest timestamp
+    private final int[] heap;
+    private int heapSize;
+    private long newest = Long.MIN_VALUE;
+
+    /**
+     * Creates a merger
+     * @param sources       Number of sources
+     * @param columns       Number of values per sample, 3 for vector data such as acceleration
+     * @param maxLatency    How long, in milliseconds of sample time, to wait on sources with no buffered samples
+     * @param output        Receives the merged samples
+     */
+    public StreamMerger(int sources, int columns, long maxLatency, Output output) {
+        this.columns = columns;
+        this.maxLatency = maxLatency;
+        this.output = output;
+
+        buffers = new SourceBuffer[sources];
+        for(int i = 0; i < sources; i++) {
+            buffers[i] = new SourceBuffer(64, columns);
+        }
+        heap = new int[sources];
+        single = new float[columns][1];
+        batchColumns = new float[columns][];
+        scratch = new float[columns];
+    }
+
+    /**
+     * Creates a subscriber that feeds the batches it receives into the merger
+     * @param source    Index of the source
+     * @return Subscriber to pass to {@link com.mbientlab.metawear.builder.RouteComponent#streamBatch(BatchSubscriber)}
+     */
+    public BatchSubscriber input(final int source) {
+        return (batch, env) -> add(source, batch);
+    }
+
+    /**
+     * Adds a batch of samples from a source
+     * @param source    Index of the source
+     * @param batch     Samples to add, must have the same number of columns as the merger
+     */
+    public synchronized void add(int source, SampleBatch batch) {
+        if (batch.columns() != columns) {
+            throw new IllegalArgumentException(String.format(Locale.US, "Expected %d columns, batch has %d", columns, batch.columns()));
+        }
+
+        for(int c = 0; c < columns; c++) {
+            batchColumns[c] = batch.column(c);
+        }
+
+        final long[] timestamps = batch.epochMillis();
+        for(int i = 0; i < batch.size(); i++) {
+            push(source, timestamps[i], batchColumns, i);
+        }
+        drain(false);
+    }
+
+    /**
+     * Adds one sample from a source
+     * @param source         Index of the source
+     * @param epochMillis    Sample timestamp
+     * @param values         Sample values, copied before the function returns
+     */
+    public synchronized void add(int source, long epochMillis, float ... values) {
+        for(int c = 0; c < columns; c++) {
+            single[c][0] = values[c];
+        }
+        push(source, epochMillis, single, 0);
+        drain(false);
+    }
+
+    /**
+     * Emits every buffered sample regardless of the max latency, call when the streams are stopped
+     */
+    public synchronized void flush() {
+        drain(true);
+    }
+
+    /**
+     * Number of samples waiting to be emitted
+     * @return Buffered sample count
+     */
+    public synchronized int pending() {
+        int total = 0;
+        for(SourceBuffer it: buffers) {
+            total += it.size;
+        }
+        return total;
+    }
+
+    private void push(int source, long epochMillis, float[][] batchColumns, int index) {
+        final SourceBuffer buffer = buffers[source];
+        buffer.add(epochMillis, columns, batchColumns, index);
+        if (buffer.size == 1) {
+            heap[heapSize] = source;
+            siftUp(heapSize++);
+        }
+        newest = Math.max(newest, epochMillis);
+    }
+
+    private void drain(boolean all) {
+        while(heapSize > 0) {
+            final int source = heap[0];
+            final SourceBuffer buffer = buffers[source];
+            final long timestamp = buffer.peek();
+
+            // a source with nothing buffered could still send an older sample
+            if (!all && heapSize < buffers.length && newest - timestamp < maxLatency) {
+                break;
+            }
+
+            System.arraycopy(buffer.values, buffer.head * columns, scratch, 0, columns);
+            buffer.head = (buffer.head + 1) % buffer.timestamps.length;
+            buffer.size--;
+
+            if (buffer.size == 0) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(0);
+
+            output.apply(source, timestamp, scratch);
+        }
+    }
+
+    private long key(int pos) {
+        return buffers[heap[pos]].peek();
+    }
+
+    private void siftUp(int pos) {
+        while(pos > 0) {
+            int parent = (pos - 1) >> 1;
+            if (key(parent) <= key(pos)) {
+                break;
+            }
+            swap(pos, parent);
+            pos = parent;
+        }
+    }
+
+    private void siftDown(int pos) {
+        while(true) {
+            int left = (pos << 1) + 1, right = left + 1, min = pos;
+            if (left < heapSize && key(left) < key(min)) {
+                min = left;
+            }
+            if (right < heapSize && key(right) < key(min)) {
+                min = right;
+            }
+            if (min == pos) {
+                break;
+            }
+            swap(pos, min);
+            pos = min;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int temp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = temp;
+    }
+}
@@ -32,7 +32,8 @@ import java.io.Serializable;
  */
 public interface Subscriber extends Serializable {
     /**
-     * Called when data from the corresponding producer has arrived
+     * Called when data from the corresponding producer has arrived.  Subscribers of the same producer can be passed the
+     * same data object, its timestamp and bytes are copied for each caller
      * @param data   Data received from the sensor
      * @param env   Extra variables needed to process the message, set by {@link Route#setEnvironment(int, Object...)}
      */
@@ -40,14 +40,16 @@ import android.util.Base64;
 import android.util.Log;
 
 import com.mbientlab.metawear.BuildConfig;
+import com.mbientlab.metawear.Fleet;
 import com.mbientlab.metawear.MetaWearBoard;
+import com.mbientlab.metawear.impl.JseFleet;
 import com.mbientlab.metawear.impl.JseMetaWearBoard;
 import com.mbientlab.metawear.impl.platform.BtleGatt;
 import com.mbientlab.metawear.impl.platform.BtleGattCharacteristic;
+import com.mbientlab.metawear.impl.platform.FileStore;
 import com.mbientlab.metawear.impl.platform.IO;
 import com.mbientlab.metawear.impl.platform.TimedTask;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -57,14 +59,19 @@ import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import bolts.Capture;
 import bolts.Task;
@@ -75,60 +82,92 @@ import bolts.TaskCompletionSource;
  */
 public class BtleService extends Service {
     private static final UUID CHARACTERISTIC_CONFIG= UUID.fromString("00002902-0000-1000-8000-00805f9b34fb");
-    private static final String DOWNLOAD_DIR_NAME = "download";
+    private static final String DOWNLOAD_DIR_NAME = "download", STATE_DIR_NAME = "board_state";
     private static final String LOG_TAG = "metawear-btle";
 
-    private class GattOp {
+    private static final long DEFAULT_GATT_OP_TIMEOUT = 1000L;
+    private static final int DEFAULT_WRITE_WINDOW = 4;
+
+    private interface GattAction {
+        boolean start();
+    }
+    private static class GattOp {
         final String msg;
-        final AndroidPlatform owner;
-        final Runnable task;
+        final boolean pipelined;
+        final GattAction action;
         final TaskCompletionSource<byte[]> taskSource;
 
-        private GattOp(String msg, AndroidPlatform owner, Runnable task) {
+        private GattOp(String msg, boolean pipelined, GattAction action) {
             this.msg = msg;
-            this.owner = owner;
-            this.task = task;
+            this.pipelined = pipelined;
+            this.action = action;
             taskSource = new TaskCompletionSource<>();
         }
-    }
-    private final TimedTask<byte[]> gattOpTask = new TimedTask<>();
-    private final Queue<GattOp> pendingGattOps = new ConcurrentLinkedQueue<>();
-    private Task<byte[]> addGattOperation(AndroidPlatform owner, String msg, Runnable task) {
-        owner.nGattOps.incrementAndGet();
 
-        GattOp newGattOp = new GattOp(msg, owner, task);
-        pendingGattOps.add(newGattOp);
-        executeGattOperation(false);
-
-        return newGattOp.taskSource.getTask();
+        private boolean tryStart() {
+            try {
+                return action.start();
+            } catch (RuntimeException ignored) {
+                return false;
+            }
+        }
     }
-    private void executeGattOperation(boolean ready) {
-        if (!pendingGattOps.isEmpty() && (pendingGattOps.size() == 1 || ready)) {
-            GattOp next = pendingGattOps.peek();
-            gattOpTask.execute(next.msg, 1000, next.task).continueWith(task -> {
-                if (task.isFaulted()) {
-                    next.taskSource.setError(task.getError());
-                } else if (task.isCancelled()) {
-                    next.taskSource.setCancelled();
-                } else {
-                    next.taskSource.setResult(task.getResult());
-                }
 
-                pendingGattOps.poll();
-                next.owner.gattTaskCompleted();
+    /**
+     * Snapshot of the GATT operations a board has completed since it last connected
+     */
+    public static class GattOperationStats {
+        /** Number of operations that completed successfully */
+        public final long completed;
+        /** Number of operations that failed or timed out */
+        public final long failed;
+        /** Number of operations waiting to be executed, including the active operation */
+        public final int pending;
+        /** Time, in milliseconds, since the counters were reset */
+        public final long elapsed;
+        /** Sum of the time, in milliseconds, operations spent executing */
+        public final long busyTime;
+
+        GattOperationStats(long completed, long failed, int pending, long elapsed, long busyTime) {
+            this.completed = completed;
+            this.failed = failed;
+            this.pending = pending;
+            this.elapsed = elapsed;
+            this.busyTime = busyTime;
+        }
 
-                executeGattOperation(true);
+        /**
+         * Average number of completed operations per second
+         * @return Operations per second, 0 if no time has elapsed
+         */
+        public float throughput() {
+            return elapsed > 0 ? completed * 1000f / elapsed : 0f;
+        }
 
-                return null;
-            });
+        /**
+         * Average time an operation spent executing
+         * @return Average latency in milliseconds, 0 if no operations have completed
+         */
+        public float averageLatency() {
+            long total = completed + failed;
+            return total > 0 ? busyTime / (float) total : 0f;
         }
     }
 
     private final Map<BluetoothDevice, AndroidPlatform> btleDevices = new HashMap<>();
+    private final Map<BluetoothGatt, AndroidPlatform> gattPlatforms = new ConcurrentHashMap<>();
+    private AndroidPlatform lookupPlatform(BluetoothGatt gatt) {
+        AndroidPlatform platform = gattPlatforms.get(gatt);
+        return platform != null ? platform : btleDevices.get(gatt.getDevice());
+    }
+    private FileStore stateStore(BluetoothDevice btDevice) {
+        return new FileStore(new File(new File(getFilesDir(), STATE_DIR_NAME), btDevice.getAddress()));
+    }
+
     private final BluetoothGattCallback btleGattCallback= new BluetoothGattCallback() {
         @Override
         public void onConnectionStateChange(BluetoothGatt gatt, int status, int newState) {
-            final AndroidPlatform platform = btleDevices.get(gatt.getDevice());
+            final AndroidPlatform platform = lookupPlatform(gatt);
 
             switch (newState) {
                 case BluetoothProfile.STATE_CONNECTED:
@@ -147,7 +186,7 @@ public class BtleService extends Service {
 
         @Override
         public void onServicesDiscovered(BluetoothGatt gatt, int status) {
-            final AndroidPlatform platform = btleDevices.get(gatt.getDevice());
+            final AndroidPlatform platform = lookupPlatform(gatt);
             if (status != 0) {
                 platform.closeGatt();
                 platform.connectTask.setError(new IllegalStateException(String.format(Locale.US, "Non-zero onServicesDiscovered status (%d)", status)));
@@ -158,6 +197,7 @@ public class BtleService extends Service {
 
         @Override
         public void onCharacteristicRead(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic, int status) {
+            final TimedTask<byte[]> gattOpTask = lookupPlatform(gatt).gattOpTask;
             if (status != 0) {
                 gattOpTask.setError(new IllegalStateException(String.format(Locale.US, "Non-zero onCharacteristicRead status (%d)", status)));
             } else {
@@ -167,6 +207,12 @@ public class BtleService extends Service {
 
         @Override
         public void onCharacteristicWrite(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic, int status) {
+            final AndroidPlatform platform = lookupPlatform(gatt);
+            if (platform.writeAcknowledged(status)) {
+                return;
+            }
+
+            final TimedTask<byte[]> gattOpTask = platform.gattOpTask;
             if (status != 0) {
                 gattOpTask.setError(new IllegalStateException(String.format(Locale.US, "Non-zero onCharacteristicWrite status (%d)", status)));
             } else {
@@ -176,11 +222,12 @@ public class BtleService extends Service {
 
         @Override
         public void onCharacteristicChanged(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic) {
-            btleDevices.get(gatt.getDevice()).notificationListener.onChange(characteristic.getValue());
+            lookupPlatform(gatt).notificationListener.onChange(characteristic.getValue());
         }
 
         @Override
         public void onDescriptorWrite(BluetoothGatt gatt, BluetoothGattDescriptor descriptor, int status) {
+            final TimedTask<byte[]> gattOpTask = lookupPlatform(gatt).gattOpTask;
             if (status != 0) {
                 gattOpTask.setError(new IllegalStateException(String.format(Locale.US, "Non-zero onDescriptorWrite status (%d)", status)));
             } else {
@@ -190,6 +237,7 @@ public class BtleService extends Service {
 
         @Override
         public void onReadRemoteRssi(BluetoothGatt gatt, int rssi, int status) {
+            final TimedTask<byte[]> gattOpTask = lookupPlatform(gatt).gattOpTask;
             if (status != 0) {
                 gattOpTask.setError(new IllegalStateException(String.format(Locale.US, "Non-zero onReadRemoteRssi status (%d)", status)));
             } else {
@@ -202,6 +250,17 @@ public class BtleService extends Service {
         private final AtomicBoolean readyToClose = new AtomicBoolean();
         private final AtomicInteger nGattOps = new AtomicInteger();
 
+        private final TimedTask<byte[]> gattOpTask = new TimedTask<>();
+        private final Queue<GattOp> pendingGattOps = new ConcurrentLinkedQueue<>();
+        private volatile long gattOpTimeout = DEFAULT_GATT_OP_TIMEOUT;
+        // writes without response the stack accepted but has not acknowledged with onCharacteristicWrite
+        private int writeWindow = DEFAULT_WRITE_WINDOW, inflightWrites = 0, writeAcks = 0;
+        // writes the ack watchdog gave up on, the queue holds until their callbacks arrive or the grace period ends
+        private int abandonedWrites = 0, abandonedGeneration = 0;
+        private boolean activeGattOp = false, ackWatchdogActive = false, startingWrite = false, retryStart = false;
+        private final AtomicLong completedGattOps = new AtomicLong(), failedGattOps = new AtomicLong(), gattBusyTime = new AtomicLong();
+        private volatile long statsStart = System.currentTimeMillis();
+
         private final TimedTask<Void> connectTask = new TimedTask<>();
         private TaskCompletionSource<Void> disconnectTaskSrc = null;
         BluetoothGatt androidBtGatt;
@@ -210,9 +269,11 @@ public class BtleService extends Service {
         private NotificationListener notificationListener;
         private final BluetoothDevice btDevice;
         private final MetaWearBoard board;
+        private final FileStore stateStore;
 
         AndroidPlatform(BluetoothDevice btDevice) {
             this.btDevice = btDevice;
+            stateStore = stateStore(btDevice);
             board = new JseMetaWearBoard(this, this, btDevice.getAddress(), BuildConfig.VERSION_NAME);
         }
 
@@ -231,6 +292,210 @@ public class BtleService extends Service {
             }
         }
 
+        private Task<byte[]> addGattOperation(String msg, GattAction action) {
+            return addGattOperation(msg, false, action);
+        }
+
+        private Task<byte[]> addGattOperation(String msg, boolean pipelined, GattAction action) {
+            nGattOps.incrementAndGet();
+
+            GattOp newGattOp = new GattOp(msg, pipelined, action);
+            pendingGattOps.add(newGattOp);
+            executeGattOperation();
+
+            return newGattOp.taskSource.getTask();
+        }
+
+        /**
+         * Starts as many queued operations as possible.  Writes without response complete once the stack accepts them and
+         * up to {@link #writeWindow} can be waiting on their onCharacteristicWrite callback.  All other operations wait
+         * for those writes to be acknowledged and then hold the queue until their callback fires.  Nothing is started while
+         * late callbacks of abandoned writes may still arrive, so they cannot be mistaken for the callbacks of new operations.
+         */
+        private void executeGattOperation() {
+            final Queue<GattOp> accepted = new LinkedList<>(), rejected = new LinkedList<>();
+            GattOp roundTrip = null, write;
+
+            do {
+                write = null;
+                synchronized (this) {
+                    if (startingWrite) {
+                        // the thread starting a write checks the queue again when it is done
+                        retryStart = true;
+                    } else if (!activeGattOp && roundTrip == null && abandonedWrites == 0 && !pendingGattOps.isEmpty()) {
+                        GattOp next = pendingGattOps.peek();
+                        if (next.pipelined) {
+                            if (inflightWrites < writeWindow) {
+                                // counted before it is started so an early callback is not mistaken for a round trip
+                                inflightWrites++;
+                                startingWrite = true;
+                                retryStart = false;
+                                write = next;
+                            }
+                        } else if (inflightWrites == 0) {
+                            pendingGattOps.poll();
+                            activeGattOp = true;
+                            roundTrip = next;
+                        }
+                    }
+                }
+
+                if (write != null) {
+                    // the stack is called without holding the lock, its callbacks need it
+                    boolean started = write.tryStart();
+                    synchronized (this) {
+                        startingWrite = false;
+                        if (started) {
+                            pendingGattOps.poll();
+                            accepted.add(write);
+                        } else {
+                            inflightWrites--;
+                            if (inflightWrites == 0) {
+                                pendingGattOps.poll();
+                                rejected.add(write);
+                            } else if (!retryStart) {
+                                // stack is busy, try again when an in-flight write is acknowledged
+                                write = null;
+                            }
+                        }
+                    }
+                }
+            } while (write != null);
+
+            synchronized (this) {
+                if (inflightWrites > 0 && !ackWatchdogActive) {
+                    ackWatchdogActive = true;
+                    watchWriteAcks(writeAcks);
+                }
+            }
+
+            for(GattOp it: accepted) {
+                completedGattOps.incrementAndGet();
+                it.taskSource.setResult(null);
+                gattTaskCompleted();
+            }
+            for(GattOp it: rejected) {
+                failedGattOps.incrementAndGet();
+                it.taskSource.setError(new IllegalStateException("Bluetooth stack did not accept the characteristic write"));
+                gattTaskCompleted();
+            }
+            if (roundTrip != null) {
+                executeRoundTrip(roundTrip);
+            }
+        }
+
+        private void executeRoundTrip(final GattOp next) {
+            final long start = System.currentTimeMillis();
+            gattOpTask.execute(next.msg, gattOpTimeout, next.action::start).continueWith(task -> {
+                gattBusyTime.addAndGet(System.currentTimeMillis() - start);
+                if (task.isFaulted()) {
+                    failedGattOps.incrementAndGet();
+                    next.taskSource.setError(task.getError());
+                } else if (task.isCancelled()) {
+                    failedGattOps.incrementAndGet();
+                    next.taskSource.setCancelled();
+                } else {
+                    completedGattOps.incrementAndGet();
+                    next.taskSource.setResult(task.getResult());
+                }
+
+                synchronized (AndroidPlatform.this) {
+                    activeGattOp = false;
+                }
+                gattTaskCompleted();
+
+                executeGattOperation();
+
+                return null;
+            });
+        }
+
+        /**
+         * Consumes the onCharacteristicWrite callback if it belongs to a write without response, including writes the
+         * ack watchdog already gave up on
+         * @return True if the callback acknowledged an in-flight or abandoned write
+         */
+        boolean writeAcknowledged(int status) {
+            synchronized (this) {
+                if (abandonedWrites > 0) {
+                    abandonedWrites--;
+                    if (abandonedWrites > 0) {
+                        return true;
+                    }
+                } else if (inflightWrites == 0) {
+                    return false;
+                } else {
+                    inflightWrites--;
+                    writeAcks++;
+                }
+            }
+
+            if (status != 0) {
+                Log.w(LOG_TAG, String.format(Locale.US, "Non-zero onCharacteristicWrite status for write without response (%d)", status));
+            }
+            executeGattOperation();
+            return true;
+        }
+
+        private void watchWriteAcks(final int lastAcks) {
+            Task.delay(gattOpTimeout).continueWith(ignored -> {
+                boolean stalled;
+                synchronized (AndroidPlatform.this) {
+                    stalled = inflightWrites > 0 && writeAcks == lastAcks && !startingWrite;
+                    if (stalled) {
+                        abandonedWrites += inflightWrites;
+                        inflightWrites = 0;
+                        releaseAbandonedWrites(++abandonedGeneration);
+                    }
+
+                    if (inflightWrites > 0) {
+                        watchWriteAcks(writeAcks);
+                    } else {
+                        ackWatchdogActive = false;
+                    }
+                }
+
+                if (stalled) {
+                    Log.w(LOG_TAG, String.format(Locale.US, "onCharacteristicWrite not called within %dms for writes without response", gattOpTimeout));
+                    executeGattOperation();
+                }
+                return null;
+            });
+        }
+
+        /**
+         * Stops waiting for the callbacks of abandoned writes after another timeout period, they are assumed lost
+         */
+        private void releaseAbandonedWrites(final int generation) {
+            Task.delay(gattOpTimeout).continueWith(ignored -> {
+                boolean released;
+                synchronized (AndroidPlatform.this) {
+                    released = generation == abandonedGeneration && abandonedWrites > 0;
+                    if (released) {
+                        abandonedWrites = 0;
+                    }
+                }
+
+                if (released) {
+                    Log.w(LOG_TAG, "Gave up on onCharacteristicWrite callbacks of abandoned writes without response");
+                    executeGattOperation();
+                }
+                return null;
+            });
+        }
+
+        void resetGattStats() {
+            completedGattOps.set(0);
+            failedGattOps.set(0);
+            gattBusyTime.set(0);
+            statsStart = System.currentTimeMillis();
+        }
+
+        GattOperationStats gattStats() {
+            return new GattOperationStats(completedGattOps.get(), failedGattOps.get(), pendingGattOps.size() + (activeGattOp ? 1 : 0),
+                    System.currentTimeMillis() - statsStart, gattBusyTime.get());
+        }
+
         void gattTaskCompleted() {
             int count = nGattOps.decrementAndGet();
             if (count == 0 && readyToClose.get()) {
@@ -255,7 +520,13 @@ public class BtleService extends Service {
 
         void closeGatt() {
             readyToClose.set(false);
+            synchronized (this) {
+                inflightWrites = 0;
+                abandonedWrites = 0;
+                abandonedGeneration++;
+            }
             if (androidBtGatt != null) {
+                gattPlatforms.remove(androidBtGatt);
                 refresh();
                 androidBtGatt.close();
                 androidBtGatt = null;
@@ -263,18 +534,23 @@ public class BtleService extends Service {
         }
 
         @Override
-        public void localSave(String key, byte[] data) {
-            SharedPreferences.Editor editor= BtleService.this.getSharedPreferences(btDevice.getAddress(), MODE_PRIVATE).edit();
-            editor.putString(key, new String(Base64.encode(data, Base64.DEFAULT)));
-            editor.apply();
+        public void localSave(String key, byte[] data) throws IOException {
+            stateStore.save(key, data);
         }
 
         @Override
-        public InputStream localRetrieve(String key) {
-            SharedPreferences prefs= BtleService.this.getSharedPreferences(btDevice.getAddress(), MODE_PRIVATE);
-            return prefs.contains(key) ?
-                    new ByteArrayInputStream(Base64.decode(prefs.getString(key, "").getBytes(), Base64.DEFAULT)) :
-                    null;
+        public InputStream localRetrieve(String key) throws IOException {
+            if (!stateStore.contains(key)) {
+                // move values saved by older versions, which kept them Base64 encoded in shared preferences
+                SharedPreferences prefs= BtleService.this.getSharedPreferences(btDevice.getAddress(), MODE_PRIVATE);
+                if (!prefs.contains(key)) {
+                    return null;
+                }
+
+                stateStore.save(key, Base64.decode(prefs.getString(key, "").getBytes(), Base64.DEFAULT));
+                prefs.edit().remove(key).apply();
+            }
+            return stateStore.retrieve(key);
         }
 
         @Override
@@ -354,14 +630,14 @@ public class BtleService extends Service {
                 return Task.forError(new IllegalStateException("Characteristic \'" + characteristic.serviceUuid.toString() + "\' does not exist"));
             }
 
-            return addGattOperation(this, "onCharacteristicWrite not called within %dms", () -> {
+            return addGattOperation("onCharacteristicWrite not called within %dms", type == WriteType.WITHOUT_RESPONSE, () -> {
                 androidGattChar.setWriteType(type == WriteType.WITHOUT_RESPONSE ?
                         BluetoothGattCharacteristic.WRITE_TYPE_NO_RESPONSE :
                         BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT
                 );
                 androidGattChar.setValue(value);
 
-                androidBtGatt.writeCharacteristic(androidGattChar);
+                return androidBtGatt.writeCharacteristic(androidGattChar);
             }).onSuccessTask(task -> Task.<Void>forResult(null));
         }
 
@@ -399,7 +675,7 @@ public class BtleService extends Service {
                 return Task.forError(new IllegalStateException("Characteristic \'" + characteristic.serviceUuid.toString() + "\' does not exist"));
             }
 
-            return addGattOperation(this, "onCharacteristicRead not called within %dms", () -> androidBtGatt.readCharacteristic(androidGattChar));
+            return addGattOperation("onCharacteristicRead not called within %dms", () -> androidBtGatt.readCharacteristic(androidGattChar));
         }
 
         private Task<Void> editNotifications(BtleGattCharacteristic characteristic, final NotificationListener listener) {
@@ -419,11 +695,11 @@ public class BtleService extends Service {
 
             int charProps = androidGattChar.getProperties();
             if ((charProps & BluetoothGattCharacteristic.PROPERTY_NOTIFY) != 0) {
-                return addGattOperation(this, "onDescriptorWrite not called within %dms", () -> {
+                return addGattOperation("onDescriptorWrite not called within %dms", () -> {
                     androidBtGatt.setCharacteristicNotification(androidGattChar, true);
                     BluetoothGattDescriptor descriptor = androidGattChar.getDescriptor(CHARACTERISTIC_CONFIG);
                     descriptor.setValue(listener == null ? BluetoothGattDescriptor.DISABLE_NOTIFICATION_VALUE : BluetoothGattDescriptor.ENABLE_NOTIFICATION_VALUE);
-                    androidBtGatt.writeDescriptor(descriptor);
+                    return androidBtGatt.writeDescriptor(descriptor);
                 }).onSuccessTask(ignored -> {
                     notificationListener = listener;
                     return Task.forResult(null);
@@ -472,9 +748,11 @@ public class BtleService extends Service {
                 return Task.forResult(null);
             }
 
-            return connectTask.execute("Failed to connect and discover services within %dms", 10000,
-                    () -> androidBtGatt = btDevice.connectGatt(BtleService.this, false, btleGattCallback)
-            ).continueWithTask(task -> {
+            return connectTask.execute("Failed to connect and discover services within %dms", 10000, () -> {
+                androidBtGatt = btDevice.connectGatt(BtleService.this, false, btleGattCallback);
+                gattPlatforms.put(androidBtGatt, this);
+                resetGattStats();
+            }).continueWithTask(task -> {
                 if (task.isFaulted()) {
                     closeGatt();
                 }
@@ -485,7 +763,7 @@ public class BtleService extends Service {
         @Override
         public Task<Integer> readRssiAsync() {
             return androidBtGatt != null ?
-                    addGattOperation(this, "onReadRemoteRssi not called within %dms", () -> androidBtGatt.readRemoteRssi())
+                    addGattOperation("onReadRemoteRssi not called within %dms", () -> androidBtGatt.readRemoteRssi())
                             .onSuccessTask(task -> Task.forResult(ByteBuffer.wrap(task.getResult()).order(ByteOrder.LITTLE_ENDIAN).getInt(0))) :
                     Task.forError(new IllegalStateException("No longer connected to the BTLE gatt server"));
         }
@@ -509,6 +787,18 @@ public class BtleService extends Service {
             }
             return btleDevices.get(device).board;
         }
+        /**
+         * Groups the MetaWearBoard objects of the given devices so they can be provisioned together
+         * @param devices    BluetoothDevice objects corresponding to the target MetaWear boards
+         * @return Fleet object
+         */
+        public Fleet createFleet(final Collection<BluetoothDevice> devices) {
+            final List<MetaWearBoard> boards = new ArrayList<>();
+            for(BluetoothDevice it: devices) {
+                boards.add(getMetaWearBoard(it));
+            }
+            return new JseFleet(boards);
+        }
         /**
          * Removes the MetaWearBoard object associated with the BluetoothDevice object
          * @param btDevice    BluetoothDevice object corresponding to the target MetaWear board
@@ -520,6 +810,46 @@ public class BtleService extends Service {
                 btleDevices.remove(btDevice);
             }
         }
+        /**
+         * Sets how long a GATT operation for the board can take before it is failed.  Each board has its own operation queue
+         * so a slow operation only delays other operations for the same board.
+         * @param btDevice    BluetoothDevice object corresponding to the target MetaWear board
+         * @param timeout     How long to wait, in milliseconds, for an operation to complete
+         */
+        public void setGattOperationTimeout(final BluetoothDevice btDevice, long timeout) {
+            AndroidPlatform value;
+            if ((value = btleDevices.get(btDevice)) != null) {
+                value.gattOpTimeout = timeout;
+            }
+        }
+        /**
+         * Sets how many writes without response can wait on their acknowledgement from the Bluetooth stack.  Writes with
+         * response, reads, and descriptor writes are not started until all pending writes are acknowledged.
+         * @param btDevice    BluetoothDevice object corresponding to the target MetaWear board
+         * @param size        Max number of unacknowledged writes, must be at least 1
+         */
+        public void setWriteWithoutResponseWindow(final BluetoothDevice btDevice, int size) {
+            if (size < 1) {
+                throw new IllegalArgumentException("Window size must be at least 1");
+            }
+
+            AndroidPlatform value;
+            if ((value = btleDevices.get(btDevice)) != null) {
+                synchronized (value) {
+                    value.writeWindow = size;
+                }
+                value.executeGattOperation();
+            }
+        }
+        /**
+         * Retrieves the GATT operation counters for the board, which are reset every time the board connects
+         * @param btDevice    BluetoothDevice object corresponding to the target MetaWear board
+         * @return Operation counters, null if the BluetoothDevice object has no MetaWearBoard object
+         */
+        public GattOperationStats getGattOperationStats(final BluetoothDevice btDevice) {
+            AndroidPlatform value;
+            return (value = btleDevices.get(btDevice)) != null ? value.gattStats() : null;
+        }
         /**
          * Removes the saved serialized state of the MetaWearBoard object associated with the BluetoothDevice object
          * @param btDevice    BluetoothDevice object corresponding to the target MetaWear board
@@ -527,6 +857,9 @@ public class BtleService extends Service {
         public void clearSerializedState(final BluetoothDevice btDevice) {
             SharedPreferences preferences = BtleService.this.getSharedPreferences(btDevice.getAddress(), MODE_PRIVATE);
             preferences.edit().clear().apply();
+
+            AndroidPlatform value;
+            ((value = btleDevices.get(btDevice)) != null ? value.stateStore : stateStore(btDevice)).clear();
         }
         /**
          * Removes downloaded files cached on the Android device
@@ -24,6 +24,7 @@
 
 package com.mbientlab.metawear.builder;
 
+import com.mbientlab.metawear.BatchSubscriber;
 import com.mbientlab.metawear.CodeBlock;
 import com.mbientlab.metawear.Data;
 import com.mbientlab.metawear.DataToken;
@@ -99,6 +100,20 @@ public interface RouteComponent {
      * @return Calling object
      */
     RouteComponent log(Subscriber subscriber);
+    /**
+     * Streams the input data to the local device, delivering the samples as primitive columns instead of
+     * {@link com.mbientlab.metawear.Data} objects.  Samples that arrive in the same packet are delivered together.
+     * @param subscriber    Subscriber to handle the received data
+     * @return Calling object
+     */
+    RouteComponent streamBatch(BatchSubscriber subscriber);
+    /**
+     * Records the input data to the on-board logger.  Downloaded samples are delivered as primitive columns, in
+     * blocks of up to 64 samples, with any remainder delivered when the download completes.
+     * @param subscriber    Subscriber to handle the received data
+     * @return Calling object
+     */
+    RouteComponent logBatch(BatchSubscriber subscriber);
     /**
      * Programs the board to react in response to data being created by the most resent sensor or processor
      * @param action    On-board action to execute
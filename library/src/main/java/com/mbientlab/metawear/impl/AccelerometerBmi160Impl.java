@@ -30,6 +30,7 @@ import com.mbientlab.metawear.builder.RouteBuilder;
 import com.mbientlab.metawear.impl.platform.TimedTask;
 import com.mbientlab.metawear.module.AccelerometerBmi160;
 
+import java.io.IOException;
 import java.util.Arrays;
 
 import bolts.Task;
@@ -83,6 +84,16 @@ class AccelerometerBmi160Impl extends AccelerometerBoschImpl implements Accelero
         mwPrivate.addResponseHandler(new Pair<>(ACCELEROMETER.id, Util.setRead(DATA_CONFIG)), response -> pullConfigTask.setResult(response));
     }
 
+    @Override
+    void writeState(BoardSnapshot.Writer out) throws IOException {
+        out.writeBytes(accDataConfig);
+    }
+
+    @Override
+    void readState(BoardSnapshot.Reader in) throws IOException {
+        in.readBytes(accDataConfig);
+    }
+
     @Override
     protected float getAccDataScale() {
         return AccRange.bitMaskToRange((byte) (accDataConfig[1] & 0x0f)).scale;
@@ -33,9 +33,7 @@ import com.mbientlab.metawear.impl.platform.TimedTask;
 import com.mbientlab.metawear.module.Accelerometer;
 import com.mbientlab.metawear.module.AccelerometerBmi270;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.util.Calendar;
+import java.io.IOException;
 import java.util.Locale;
 
 import bolts.Task;
@@ -102,33 +100,8 @@ class AccelerometerBmi270Impl extends ModuleImplBase implements AccelerometerBmi
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
-            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-            short[] unscaled = new short[]{buffer.getShort(), buffer.getShort(), buffer.getShort()};
-            final float scale= scale(mwPrivate);
-            final Acceleration value= new Acceleration(unscaled[0] / scale, unscaled[1] / scale, unscaled[2] / scale);
-
-            return new DataPrivate(timestamp, data, mapper) {
-                @Override
-                public float scale() {
-                    return scale;
-                }
-
-                @Override
-                public Class<?>[] types() {
-                    return new Class<?>[] {Acceleration.class, float[].class};
-                }
-
-                @Override
-                public <T> T value(Class<T> clazz) {
-                    if (clazz.equals(Acceleration.class)) {
-                        return clazz.cast(value);
-                    } else if (clazz.equals(float[].class)) {
-                        return clazz.cast(new float[] {value.x(), value.y(), value.z()});
-                    }
-                    return super.value(clazz);
-                }
-            };
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
+            return createVectorMessage(mwPrivate, data, timestamp, mapper, Acceleration.class, Acceleration::new);
         }
     }
     private static class BoschAccSFloatData extends SFloatData {
@@ -172,6 +145,16 @@ class AccelerometerBmi270Impl extends ModuleImplBase implements AccelerometerBmi
         mwPrivate.addResponseHandler(new Pair<>(ACCELEROMETER.id, Util.setRead(DATA_CONFIG)), response -> pullConfigTask.setResult(response));
     }
 
+    @Override
+    void writeState(BoardSnapshot.Writer out) throws IOException {
+        out.writeBytes(accDataConfig);
+    }
+
+    @Override
+    void readState(BoardSnapshot.Reader in) throws IOException {
+        in.readBytes(accDataConfig);
+    }
+
     protected float getAccDataScale() {
         return AccRange.bitMaskToRange((byte) (accDataConfig[1] & 0x0f)).scale;
     }
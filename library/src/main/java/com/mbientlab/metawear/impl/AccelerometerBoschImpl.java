@@ -35,10 +35,7 @@ import com.mbientlab.metawear.data.SensorOrientation;
 import com.mbientlab.metawear.data.TapType;
 import com.mbientlab.metawear.module.AccelerometerBosch;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.LinkedHashSet;
 import java.util.Locale;
 
@@ -131,33 +128,8 @@ abstract class AccelerometerBoschImpl extends ModuleImplBase implements Accelero
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
-            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-            short[] unscaled = new short[]{buffer.getShort(), buffer.getShort(), buffer.getShort()};
-            final float scale= scale(mwPrivate);
-            final Acceleration value= new Acceleration(unscaled[0] / scale, unscaled[1] / scale, unscaled[2] / scale);
-
-            return new DataPrivate(timestamp, data, mapper) {
-                @Override
-                public float scale() {
-                    return scale;
-                }
-
-                @Override
-                public Class<?>[] types() {
-                    return new Class<?>[] {Acceleration.class, float[].class};
-                }
-
-                @Override
-                public <T> T value(Class<T> clazz) {
-                    if (clazz.equals(Acceleration.class)) {
-                        return clazz.cast(value);
-                    } else if (clazz.equals(float[].class)) {
-                        return clazz.cast(new float[] {value.x(), value.y(), value.z()});
-                    }
-                    return super.value(clazz);
-                }
-            };
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
+            return createVectorMessage(mwPrivate, data, timestamp, mapper, Acceleration.class, Acceleration::new);
         }
     }
     private static class BoschAccSFloatData extends SFloatData {
@@ -198,7 +170,7 @@ abstract class AccelerometerBoschImpl extends ModuleImplBase implements Accelero
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, byte[] data, Calendar timestamp, DataPrivate.ClassToObject mapper) {
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, byte[] data, long timestamp, DataPrivate.ClassToObject mapper) {
             int mask = mwPrivate.lookupModuleInfo(ACCELEROMETER).revision >= FLAT_REVISION ? 0x4 : 0x2;
             final boolean isFlat = (data[0] & mask) == mask;
 
@@ -235,7 +207,7 @@ abstract class AccelerometerBoschImpl extends ModuleImplBase implements Accelero
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, byte[] data, Calendar timestamp, DataPrivate.ClassToObject mapper) {
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, byte[] data, long timestamp, DataPrivate.ClassToObject mapper) {
             final SensorOrientation orientation = SensorOrientation.values()[((data[0] & 0x6) >> 1) + 4 * ((data[0] & 0x8) >> 3)];
 
             return new DataPrivate(timestamp, data, mapper) {
@@ -276,7 +248,7 @@ abstract class AccelerometerBoschImpl extends ModuleImplBase implements Accelero
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, Calendar timestamp, DataPrivate.ClassToObject mapper) {
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, long timestamp, DataPrivate.ClassToObject mapper) {
             final byte highFirst = (byte) ((data[0] & 0x1c) >> 2);
             final LowHighResponse castedData = new LowHighResponse(
                     (data[0] & 0x1) == 0x1,
@@ -324,7 +296,7 @@ abstract class AccelerometerBoschImpl extends ModuleImplBase implements Accelero
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, Calendar timestamp, DataPrivate.ClassToObject mapper) {
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, long timestamp, DataPrivate.ClassToObject mapper) {
             final AnyMotion castedData = new AnyMotion(
                     (data[0] & 0x40) == 0x40 ? Sign.NEGATIVE : Sign.POSITIVE,
                     detected(CartesianAxis.X, data[0]),
@@ -365,7 +337,7 @@ abstract class AccelerometerBoschImpl extends ModuleImplBase implements Accelero
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, Calendar timestamp, DataPrivate.ClassToObject mapper) {
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, long timestamp, DataPrivate.ClassToObject mapper) {
             TapType type = null;
             if ((data[0] & 0x1) == 0x1) {
                 type = TapType.DOUBLE;
@@ -36,10 +36,8 @@ import com.mbientlab.metawear.data.TapType;
 import com.mbientlab.metawear.impl.platform.TimedTask;
 import com.mbientlab.metawear.module.AccelerometerMma8452q;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.io.IOException;
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.LinkedHashSet;
 import java.util.Locale;
 
@@ -185,32 +183,8 @@ class AccelerometerMma8452qImpl extends ModuleImplBase implements AccelerometerM
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
-            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-            final float scale= scale(mwPrivate);
-            final Acceleration value= new Acceleration(buffer.getShort() / scale, buffer.getShort() / scale, buffer.getShort() / scale);
-
-            return new DataPrivate(timestamp, data, mapper) {
-                @Override
-                public float scale() {
-                    return scale;
-                }
-
-                @Override
-                public Class<?>[] types() {
-                    return new Class<?>[] {Acceleration.class, float[].class};
-                }
-
-                @Override
-                public <T> T value(Class<T> clazz) {
-                    if (clazz.equals(Acceleration.class)) {
-                        return clazz.cast(value);
-                    } else if (clazz.equals(float[].class)) {
-                        return clazz.cast(new float[] {value.x(), value.y(), value.z()});
-                    }
-                    return super.value(clazz);
-                }
-            };
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
+            return createVectorMessage(mwPrivate, data, timestamp, mapper, Acceleration.class, Acceleration::new);
         }
     }
     private static class Mma8452QSFloatData extends MilliUnitsSFloatData {
@@ -251,7 +225,7 @@ class AccelerometerMma8452qImpl extends ModuleImplBase implements AccelerometerM
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, byte[] data, Calendar timestamp, DataPrivate.ClassToObject mapper) {
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, byte[] data, long timestamp, DataPrivate.ClassToObject mapper) {
             int offset = (data[0] & 0x06) >> 1;
             int index = 4 * (data[0] & 0x01) + ((offset == 2 || offset == 3) ? offset ^ 0x1 : offset);
             final SensorOrientation orientation = SensorOrientation.values()[index];
@@ -302,7 +276,7 @@ class AccelerometerMma8452qImpl extends ModuleImplBase implements AccelerometerM
             return (value & mask) == mask ? Sign.NEGATIVE : Sign.POSITIVE;
         }
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, Calendar timestamp, DataPrivate.ClassToObject mapper) {
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, long timestamp, DataPrivate.ClassToObject mapper) {
             final Movement castedData = new Movement(
                     new boolean[] {exceedsThreshold(CartesianAxis.X, data[0]), exceedsThreshold(CartesianAxis.Y, data[0]), exceedsThreshold(CartesianAxis.Z, data[0])},
                     new Sign[] {direction(CartesianAxis.X, data[0]), direction(CartesianAxis.Y, data[0]), direction(CartesianAxis.Z, data[0])}
@@ -359,7 +333,7 @@ class AccelerometerMma8452qImpl extends ModuleImplBase implements AccelerometerM
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, Calendar timestamp, DataPrivate.ClassToObject mapper) {
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, long timestamp, DataPrivate.ClassToObject mapper) {
             final Tap castedData = new Tap(
                     new boolean[] {active(CartesianAxis.X, data[0]), active(CartesianAxis.Y, data[0]), active(CartesianAxis.Z, data[0])},
                     new Sign[] {polarity(CartesianAxis.X, data[0]), polarity(CartesianAxis.Y, data[0]), polarity(CartesianAxis.Z, data[0])},
@@ -413,7 +387,7 @@ class AccelerometerMma8452qImpl extends ModuleImplBase implements AccelerometerM
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, Calendar timestamp, DataPrivate.ClassToObject mapper) {
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, long timestamp, DataPrivate.ClassToObject mapper) {
             final Movement castedData = new Movement(
                     new boolean[] {exceedsThreshold(CartesianAxis.X, data[0]), exceedsThreshold(CartesianAxis.Y, data[0]), exceedsThreshold(CartesianAxis.Z, data[0])},
                     new Sign[] {direction(CartesianAxis.X, data[0]), direction(CartesianAxis.Y, data[0]), direction(CartesianAxis.Z, data[0])}
@@ -474,6 +448,16 @@ class AccelerometerMma8452qImpl extends ModuleImplBase implements AccelerometerM
         mwPrivate.addResponseHandler(new Pair<>(ACCELEROMETER.id, Util.setRead(DATA_CONFIG)), response -> pullConfigTask.setResult(response));
     }
 
+    @Override
+    void writeState(BoardSnapshot.Writer out) throws IOException {
+        out.writeBytes(dataSettings);
+    }
+
+    @Override
+    void readState(BoardSnapshot.Reader in) throws IOException {
+        in.readBytes(dataSettings);
+    }
+
     private int pwMode() {
         return (dataSettings[3] >> 3) & 0x3;
     }
@@ -27,8 +27,6 @@ package com.mbientlab.metawear.impl;
 import com.mbientlab.metawear.Data;
 import com.mbientlab.metawear.module.DataProcessor;
 
-import java.util.Calendar;
-
 public class ArrayData extends DataTypeBase {
     private static final long serialVersionUID = 4427138245810712009L;
 
@@ -55,7 +53,7 @@ public class ArrayData extends DataTypeBase {
     }
 
     @Override
-    public Data createMessage(boolean logData, final MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
+    public Data createMessage(boolean logData, final MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
         DataProcessorImpl dpModules = (DataProcessorImpl) mwPrivate.getModules().get(DataProcessor.class);
         DataProcessorImpl.Processor fuser = dpModules.activeProcessors.get(eventConfig[2]);
 
@@ -29,6 +29,8 @@ import com.mbientlab.metawear.Route;
 import com.mbientlab.metawear.builder.RouteBuilder;
 import com.mbientlab.metawear.module.BarometerBosch;
 
+import java.io.IOException;
+
 import bolts.Task;
 
 import static com.mbientlab.metawear.impl.Constant.Module.BAROMETER;
@@ -102,6 +104,16 @@ abstract class BarometerBoschImpl extends ModuleImplBase implements BarometerBos
         mwPrivate.tagProducer(ALTITUDE_PRODUCER, new BoschAltitudeSFloatData());
     }
 
+    @Override
+    void writeState(BoardSnapshot.Writer out) throws IOException {
+        out.writeByte(enableAltitude);
+    }
+
+    @Override
+    void readState(BoardSnapshot.Reader in) throws IOException {
+        enableAltitude = in.readByte();
+    }
+
     @Override
     public AsyncDataProducer pressure() {
         return new AsyncDataProducer() {
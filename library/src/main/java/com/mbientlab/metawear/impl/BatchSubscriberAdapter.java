@@ -0,0 +1,169 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.BatchSubscriber;
+import com.mbientlab.metawear.Data;
+import com.mbientlab.metawear.SampleBatch;
+import com.mbientlab.metawear.Subscriber;
+
+import java.util.Arrays;
+
+/**
+ * Collects samples into reused primitive columns for a {@link BatchSubscriber}.  Data consumers decode straight into
+ * the columns; samples from any other path arrive as {@link Data} objects and are converted one at a time.
+ */
+class BatchSubscriberAdapter implements Subscriber, SampleBatch {
+    private static final long serialVersionUID = -2941528306925834123L;
+    static final int CAPACITY = 64;
+
+    final BatchSubscriber subscriber;
+
+    private transient long[] epochMillis;
+    private transient float[][] columns;
+    private transient int size, nColumns;
+
+    BatchSubscriberAdapter(BatchSubscriber subscriber) {
+        this.subscriber = subscriber;
+    }
+
+    private void ensureColumns(int n) {
+        if (epochMillis == null) {
+            epochMillis = new long[CAPACITY];
+            columns = new float[0][];
+        }
+        if (columns.length < n) {
+            int prev = columns.length;
+            columns = Arrays.copyOf(columns, n);
+            for(int i = prev; i < n; i++) {
+                columns[i] = new float[CAPACITY];
+            }
+        }
+    }
+
+    /**
+     * Adds one sample, delivering the current batch first if it is full
+     */
+    void add(DataTypeBase source, MetaWearBoardPrivate mwPrivate, boolean logData, byte[] data, int offset, int length, long timestamp, Object[] env) {
+        ensureColumns(3);
+        if (size == CAPACITY) {
+            flush(env);
+        }
+
+        int written = source.decodeColumns(mwPrivate, data, offset, length, columns, size);
+        if (written < 0) {
+            written = fill(source.createMessage(logData, mwPrivate, Arrays.copyOfRange(data, offset, offset + length), timestamp, null));
+        }
+
+        if (written < 0) {
+            mwPrivate.logWarn("Cannot convert " + source.getClass().getName() + " data to primitive values");
+        } else {
+            epochMillis[size] = timestamp;
+            nColumns = written;
+            size++;
+        }
+    }
+
+    private int fill(Data data) {
+        for(Class<?> it: data.types()) {
+            if (it.equals(float[].class)) {
+                float[] values = data.value(float[].class);
+                ensureColumns(values.length);
+                for(int i = 0; i < values.length; i++) {
+                    columns[i][size] = values[i];
+                }
+                return values.length;
+            }
+        }
+
+        Class<?> type = data.types()[0];
+        if (Number.class.isAssignableFrom(type)) {
+            columns[0][size] = ((Number) data.value(type)).floatValue();
+            return 1;
+        } else if (type.equals(Boolean.class)) {
+            columns[0][size] = data.value(Boolean.class) ? 1f : 0f;
+            return 1;
+        }
+        return -1;
+    }
+
+    void flush(Object[] env) {
+        if (size > 0) {
+            subscriber.apply(this, env);
+            size = 0;
+        }
+    }
+
+    @Override
+    public void apply(Data data, Object ... env) {
+        ensureColumns(3);
+        if (size == CAPACITY) {
+            flush(env);
+        }
+
+        int written = fill(data);
+        if (written >= 0) {
+            epochMillis[size] = data.epochMillis();
+            nColumns = written;
+            size++;
+        }
+        flush(env);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int columns() {
+        return nColumns;
+    }
+
+    @Override
+    public long[] epochMillis() {
+        return epochMillis;
+    }
+
+    @Override
+    public float[] column(int index) {
+        return columns[index];
+    }
+
+    @Override
+    public float[] x() {
+        return columns[0];
+    }
+
+    @Override
+    public float[] y() {
+        return columns[1];
+    }
+
+    @Override
+    public float[] z() {
+        return columns[2];
+    }
+}
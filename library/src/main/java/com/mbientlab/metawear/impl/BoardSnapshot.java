@@ -0,0 +1,619 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.Subscriber;
+import com.mbientlab.metawear.impl.LoggingImpl.DataLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.InvalidObjectException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Binary encoding of the board state.  A snapshot is a magic number, format version, body length, and CRC-32 of the
+ * body followed by sections that are written and read in the same order by {@link JseMetaWearBoard} and the modules.
+ * The length and checksum are verified when the snapshot is opened, so a damaged snapshot is rejected before any of it
+ * is decoded.  Data types and data consumers are
+ * written once and referred to by index afterwards so shared objects are still shared once restored.  Data types are
+ * rebuilt from their class name and firmware attributes rather than their fields; subscribers are user code so they
+ * are stored as individual Java serialized blobs.
+ */
+final class BoardSnapshot {
+    static final int MAGIC = 0x4d574253, VERSION = 5;
+    // first version that stores which data processors are shared between routes
+    static final int SHARED_PROCESSORS_VERSION = 3;
+    // first version that stores which streams are unsubscribed
+    static final int QUIET_STREAMS_VERSION = 4;
+    // first version with the body length and checksum in the header
+    static final int CHECKSUM_VERSION = 5;
+    private static final int HEADER_SIZE = 14;
+    private static final int JAVA_STREAM_MAGIC = 0xaced;
+
+    private static final int REF_NULL = 0, REF_NEW = 1;
+    private static final Object NEW_REF = new Object();
+    private static final byte TYPE_CONSTRUCTED = 0, TYPE_SERIALIZED = 1;
+    private static final byte CONSUMER_STREAM = 0, CONSUMER_LOGGER = 1, CONSUMER_HOST = 2;
+
+    private static final Map<Class<?>, Constructor<?>> DATA_TYPE_CONSTRUCTORS = new ConcurrentHashMap<>();
+
+    private BoardSnapshot() { }
+
+    /**
+     * Checks if the state was written with an ObjectOutputStream rather than as a snapshot
+     */
+    static boolean isLegacy(byte[] state) {
+        return state.length >= 2 && (((state[0] & 0xff) << 8) | (state[1] & 0xff)) == JAVA_STREAM_MAGIC;
+    }
+
+    static byte[] readFully(InputStream ins) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        byte[] chunk = new byte[1024];
+        int n;
+        while((n = ins.read(chunk)) != -1) {
+            buffer.write(chunk, 0, n);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static Constructor<?> dataTypeConstructor(Class<?> type) {
+        Constructor<?> ctor = DATA_TYPE_CONSTRUCTORS.get(type);
+        if (ctor == null && !type.isAnonymousClass()) {
+            try {
+                // same arguments copy() uses, a few root producers with fixed attributes only have a default constructor
+                ctor = type.getDeclaredConstructor(DataTypeBase.class, Constant.Module.class, byte.class, byte.class, DataAttributes.class);
+            } catch (NoSuchMethodException ignored) {
+                try {
+                    ctor = type.getDeclaredConstructor();
+                } catch (NoSuchMethodException ignored2) {
+                    return null;
+                }
+            }
+            ctor.setAccessible(true);
+            DATA_TYPE_CONSTRUCTORS.put(type, ctor);
+        }
+        return ctor;
+    }
+
+    /**
+     * Creates an object from its class name, used for the package private classes that hold module state
+     */
+    static <T> T construct(String className, Class<T> base, Class<?>[] parameterTypes, Object ... args) throws IOException {
+        try {
+            Constructor<? extends T> ctor = Class.forName(className).asSubclass(base).getDeclaredConstructor(parameterTypes);
+            ctor.setAccessible(true);
+            return ctor.newInstance(args);
+        } catch (InvocationTargetException e) {
+            throw (InvalidObjectException) new InvalidObjectException("Cannot restore " + className).initCause(e.getCause());
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new InvalidClassException(className, e.toString());
+        }
+    }
+
+    static class Writer {
+        private final OutputStream dest;
+        // body is buffered so its length and checksum can be written in the header
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+        private final DataOutputStream out;
+        private final Map<Object, Integer> refs = new IdentityHashMap<>();
+        private final Map<String, Integer> names = new HashMap<>();
+        private final Set<DataTypeBase> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final boolean subscribers;
+
+        Writer(OutputStream outs) throws IOException {
+            this(outs, true);
+        }
+
+        /**
+         * Creates a writer that can leave out the subscribers, for snapshots read back where the app classes the
+         * subscribers were compiled from are not available
+         */
+        Writer(OutputStream outs, boolean subscribers) throws IOException {
+            this.subscribers = subscribers;
+            dest = outs;
+            out = new DataOutputStream(body);
+        }
+
+        /**
+         * Writes the header and the values written so far to the stream, called once after the last value
+         */
+        void flush() throws IOException {
+            out.flush();
+            CRC32 crc = new CRC32();
+            crc.update(body.toByteArray());
+
+            DataOutputStream header = new DataOutputStream(dest);
+            header.writeInt(MAGIC);
+            header.writeShort(VERSION);
+            header.writeInt(body.size());
+            header.writeInt((int) crc.getValue());
+            body.writeTo(header);
+            header.flush();
+        }
+
+        void writeByte(byte value) throws IOException {
+            out.writeByte(value);
+        }
+
+        void writeBoolean(boolean value) throws IOException {
+            out.writeBoolean(value);
+        }
+
+        void writeInt(int value) throws IOException {
+            out.writeInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            out.writeLong(value);
+        }
+
+        /**
+         * Writes a non-negative number in as few bytes as possible, used for counts and references
+         */
+        void writeVarInt(int value) throws IOException {
+            while((value & ~0x7f) != 0) {
+                out.writeByte((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        void writeString(String value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeUTF(value);
+            }
+        }
+
+        /**
+         * Writes a class name, names repeated in the snapshot are written as an index
+         */
+        void writeName(String value) throws IOException {
+            Integer index = names.get(value);
+            if (index == null) {
+                writeVarInt(0);
+                out.writeUTF(value);
+                names.put(value, names.size());
+            } else {
+                writeVarInt(index + 1);
+            }
+        }
+
+        void writeBytes(byte[] value) throws IOException {
+            if (value == null) {
+                writeVarInt(0);
+            } else {
+                writeVarInt(value.length + 1);
+                out.write(value);
+            }
+        }
+
+        void writeByteList(Collection<Byte> value) throws IOException {
+            writeVarInt(value.size());
+            for(byte it: value) {
+                out.writeByte(it);
+            }
+        }
+
+        void writeCalendar(Calendar value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeLong(value.getTimeInMillis());
+                out.writeUTF(value.getTimeZone().getID());
+            }
+        }
+
+        /**
+         * Writes an object as a standalone Java serialized blob
+         */
+        void writeObject(Object value) throws IOException {
+            if (value == null) {
+                writeBytes(null);
+            } else {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+                ObjectOutputStream oos = new ObjectOutputStream(buffer);
+                oos.writeObject(value);
+                oos.close();
+
+                writeBytes(buffer.toByteArray());
+            }
+        }
+
+        private boolean writeRef(Object value) throws IOException {
+            if (value == null) {
+                writeVarInt(REF_NULL);
+                return true;
+            }
+
+            Integer index = refs.get(value);
+            if (index != null) {
+                writeVarInt(index + 2);
+                return true;
+            }
+
+            writeVarInt(REF_NEW);
+            return false;
+        }
+
+        private void register(Object value) {
+            refs.put(value, refs.size());
+        }
+
+        void writeDataType(DataTypeBase value) throws IOException {
+            if (writeRef(value)) {
+                return;
+            }
+            if (!pending.add(value)) {
+                throw new NotSerializableException("Data type is its own input: " + value.getClass().getName());
+            }
+
+            if (value.eventConfig.length != 3 || dataTypeConstructor(value.getClass()) == null) {
+                out.writeByte(TYPE_SERIALIZED);
+                writeObject(value);
+                register(value);
+            } else {
+                out.writeByte(TYPE_CONSTRUCTED);
+                writeName(value.getClass().getName());
+                out.write(value.eventConfig);
+                writeBytes(value.attributes.sizes);
+                out.writeByte(value.attributes.copies);
+                out.writeByte(value.attributes.offset);
+                out.writeBoolean(value.attributes.signed);
+                writeDataType(value.input);
+                register(value);
+
+                // split data types are written separately so the ones referenced elsewhere keep their identity
+                if (value.split == null) {
+                    writeVarInt(0);
+                } else {
+                    writeVarInt(value.split.length);
+                    for(DataTypeBase it: value.split) {
+                        writeDataType(it);
+                    }
+                }
+            }
+
+            pending.remove(value);
+        }
+
+        void writeConsumer(DeviceDataConsumer value) throws IOException {
+            if (writeRef(value)) {
+                return;
+            }
+
+            out.writeByte(value instanceof DataLogger ? CONSUMER_LOGGER : (value instanceof HostDataConsumer ? CONSUMER_HOST : CONSUMER_STREAM));
+            writeDataType(value.source);
+            writeObject(subscribers ? value.subscriber : null);
+            register(value);
+
+            if (value instanceof DataLogger) {
+                ((DataLogger) value).writeEntries(this);
+            } else if (value instanceof HostDataConsumer) {
+                HostDataConsumer casted = (HostDataConsumer) value;
+                writeVarInt(casted.configs.length);
+                for(int i = 0; i < casted.configs.length; i++) {
+                    writeBytes(casted.configs[i]);
+                    writeDataType(casted.outputs[i]);
+                }
+            }
+            if (value instanceof StreamedDataConsumer) {
+                writeBoolean(((StreamedDataConsumer) value).quiet);
+            }
+        }
+    }
+
+    static class Reader {
+        final MetaWearBoardPrivate mwPrivate;
+        final int version;
+        private final DataInputStream in;
+        private final List<Object> refs = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+
+        Reader(byte[] state, MetaWearBoardPrivate mwPrivate) throws IOException {
+            this.mwPrivate = mwPrivate;
+            in = new DataInputStream(new ByteArrayInputStream(state));
+
+            if (in.readInt() != MAGIC) {
+                throw new StreamCorruptedException("Not a board state snapshot");
+            }
+            version = in.readUnsignedShort();
+            if (version > VERSION) {
+                throw new InvalidObjectException(String.format(Locale.US, "Unsupported snapshot version: %d", version));
+            }
+            if (version >= CHECKSUM_VERSION) {
+                int length = in.readInt(), expected = in.readInt();
+                if (length != state.length - HEADER_SIZE) {
+                    throw new StreamCorruptedException(String.format(Locale.US,
+                            "Snapshot length mismatch: expected %d bytes, found %d", length, state.length - HEADER_SIZE));
+                }
+
+                CRC32 crc = new CRC32();
+                crc.update(state, HEADER_SIZE, length);
+                if ((int) crc.getValue() != expected) {
+                    throw new StreamCorruptedException("Snapshot checksum mismatch");
+                }
+            }
+        }
+
+        /**
+         * @return True if the snapshot's length and checksum were verified when it was opened
+         */
+        boolean verified() {
+            return version >= CHECKSUM_VERSION;
+        }
+
+        byte readByte() throws IOException {
+            return in.readByte();
+        }
+
+        boolean readBoolean() throws IOException {
+            return in.readBoolean();
+        }
+
+        int readInt() throws IOException {
+            return in.readInt();
+        }
+
+        long readLong() throws IOException {
+            return in.readLong();
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0, shift = 0;
+            byte next;
+            do {
+                if (shift > 28) {
+                    throw new StreamCorruptedException("Malformed variable length integer");
+                }
+                next = in.readByte();
+                value |= (next & 0x7f) << shift;
+                shift += 7;
+            } while((next & 0x80) != 0);
+            return value;
+        }
+
+        String readString() throws IOException {
+            return in.readBoolean() ? in.readUTF() : null;
+        }
+
+        String readName() throws IOException {
+            int index = readVarInt();
+            if (index == 0) {
+                String value = in.readUTF();
+                names.add(value);
+                return value;
+            }
+            if (index > names.size()) {
+                throw new StreamCorruptedException(String.format(Locale.US, "Unknown name index: %d", index - 1));
+            }
+            return names.get(index - 1);
+        }
+
+        byte[] readBytes() throws IOException {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+
+            byte[] value = new byte[length - 1];
+            in.readFully(value);
+            return value;
+        }
+
+        /**
+         * Reads a byte array into a fixed size array, such as a module's configuration registers
+         */
+        void readBytes(byte[] dest) throws IOException {
+            byte[] value = readBytes();
+            if (value != null) {
+                System.arraycopy(value, 0, dest, 0, Math.min(value.length, dest.length));
+            }
+        }
+
+        LinkedList<Byte> readByteList() throws IOException {
+            LinkedList<Byte> value = new LinkedList<>();
+            for(int i = readVarInt(); i > 0; i--) {
+                value.add(in.readByte());
+            }
+            return value;
+        }
+
+        Calendar readCalendar() throws IOException {
+            if (!in.readBoolean()) {
+                return null;
+            }
+
+            long millis = in.readLong();
+            Calendar value = Calendar.getInstance(TimeZone.getTimeZone(in.readUTF()));
+            value.setTimeInMillis(millis);
+            return value;
+        }
+
+        /**
+         * Reads a Java serialized blob.  Blobs whose classes are missing or have changed are skipped and null is
+         * returned in their place
+         */
+        Object readObject() throws IOException {
+            byte[] blob = readBytes();
+            if (blob == null) {
+                return null;
+            }
+
+            try {
+                ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(blob));
+                return ois.readObject();
+            } catch (ClassNotFoundException | ObjectStreamException e) {
+                mwPrivate.logWarn("Cannot restore serialized object: " + e.toString());
+                return null;
+            }
+        }
+
+        private Object readRef() throws IOException {
+            int index = readVarInt();
+            switch(index) {
+                case REF_NULL:
+                    return null;
+                case REF_NEW:
+                    return NEW_REF;
+                default:
+                    if (index - 2 >= refs.size()) {
+                        throw new StreamCorruptedException(String.format(Locale.US, "Unknown reference: %d", index - 2));
+                    }
+                    return refs.get(index - 2);
+            }
+        }
+
+        DataTypeBase readDataType() throws IOException {
+            Object ref = readRef();
+            if (ref != NEW_REF) {
+                return (DataTypeBase) ref;
+            }
+
+            DataTypeBase value;
+            if (in.readByte() == TYPE_SERIALIZED) {
+                value = (DataTypeBase) readObject();
+                if (value == null) {
+                    throw new InvalidObjectException("Cannot restore serialized data type");
+                }
+                refs.add(value);
+            } else {
+                String className = readName();
+                byte[] eventConfig = new byte[3];
+                in.readFully(eventConfig);
+                DataAttributes attributes = new DataAttributes(readBytes(), in.readByte(), in.readByte(), in.readBoolean());
+                DataTypeBase input = readDataType();
+
+                Constructor<?> ctor;
+                try {
+                    ctor = dataTypeConstructor(Class.forName(className));
+                } catch (ClassNotFoundException e) {
+                    throw new InvalidClassException(className, "Data type class not found");
+                }
+                if (ctor == null) {
+                    throw new InvalidClassException(className, "No suitable data type constructor");
+                }
+
+                try {
+                    if (ctor.getParameterTypes().length == 0) {
+                        value = (DataTypeBase) ctor.newInstance();
+                        System.arraycopy(eventConfig, 0, value.eventConfig, 0, eventConfig.length);
+                    } else {
+                        Constant.Module module = Constant.Module.lookupEnum(eventConfig[0]);
+                        if (module == null) {
+                            throw new InvalidObjectException(String.format(Locale.US, "Unknown module id: %d", eventConfig[0]));
+                        }
+                        value = (DataTypeBase) ctor.newInstance(input, module, eventConfig[1], eventConfig[2], attributes);
+                    }
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    throw new InvalidClassException(className, e.toString());
+                }
+                refs.add(value);
+
+                int nSplits = readVarInt();
+                for(int i = 0; i < nSplits; i++) {
+                    DataTypeBase split = readDataType();
+                    if (value.split != null && i < value.split.length) {
+                        value.split[i] = split;
+                    }
+                }
+            }
+
+            return value;
+        }
+
+        DeviceDataConsumer readConsumer() throws IOException {
+            Object ref = readRef();
+            if (ref != NEW_REF) {
+                return (DeviceDataConsumer) ref;
+            }
+
+            byte type = in.readByte();
+            DataTypeBase source = readDataType();
+            Subscriber subscriber = (Subscriber) readObject();
+
+            if (type == CONSUMER_LOGGER) {
+                DataLogger value = new DataLogger(source);
+                value.subscriber = subscriber;
+                refs.add(value);
+
+                value.readEntries(this);
+                return value;
+            }
+
+            if (type == CONSUMER_HOST) {
+                // registered before the stages are read to keep the reference indices in write order
+                int index = refs.size();
+                refs.add(null);
+
+                byte[][] configs = new byte[readVarInt()][];
+                DataTypeBase[] outputs = new DataTypeBase[configs.length];
+                for(int i = 0; i < configs.length; i++) {
+                    configs[i] = readBytes();
+                    outputs[i] = readDataType();
+                }
+
+                HostDataConsumer value = new HostDataConsumer(source, subscriber, configs, outputs);
+                refs.set(index, value);
+                if (version >= QUIET_STREAMS_VERSION) {
+                    value.quiet = in.readBoolean();
+                }
+                return value;
+            }
+
+            StreamedDataConsumer value = new StreamedDataConsumer(source, subscriber);
+            refs.add(value);
+            if (version >= QUIET_STREAMS_VERSION) {
+                value.quiet = in.readBoolean();
+            }
+            return value;
+        }
+    }
+}
@@ -27,8 +27,6 @@ package com.mbientlab.metawear.impl;
 import com.mbientlab.metawear.Data;
 import com.mbientlab.metawear.impl.Constant.Module;
 
-import java.util.Calendar;
-
 /**
  * Created by etsai on 9/21/16.
  */
@@ -58,7 +56,7 @@ class ByteArrayData extends DataTypeBase {
     }
 
     @Override
-    public Data createMessage(boolean logData, final MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
+    public Data createMessage(boolean logData, final MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
         return new DataPrivate(timestamp, data, mapper) {
             @Override
             public Class<?>[] types() {
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+/**
+ * Least squares fit of local time against board time, built from pairs of board clock readings and the local time
+ * the reading was received.  The fit covers the most recent references so the estimate follows slow changes in the
+ * board's clock rate, and the drift is clamped to what a 32kHz crystal can plausibly be off by, which keeps a few
+ * references taken close together from producing a wild slope.
+ */
+final class ClockModel {
+    private static final double MAX_DRIFT = 1e-3;
+
+    private final double[] boardMillis;
+    private final long[] localMillis;
+    private int size, next;
+    private byte resetUid;
+
+    private double boardMean, localMean, slope = 1.0;
+
+    ClockModel(int capacity) {
+        boardMillis = new double[capacity];
+        localMillis = new long[capacity];
+    }
+
+    /**
+     * Adds a reference point, discarding the previous ones if the board was reset or its clock rolled over
+     * @param resetUid       Reset uid reported with the reading
+     * @param boardMillis    Board clock reading, converted to milliseconds
+     * @param localMillis    Local epoch time the reading was received
+     */
+    synchronized void add(byte resetUid, double boardMillis, long localMillis) {
+        if (size > 0 && (resetUid != this.resetUid || boardMillis < latestBoardMillis())) {
+            size = 0;
+            next = 0;
+        }
+
+        this.resetUid = resetUid;
+        this.boardMillis[next] = boardMillis;
+        this.localMillis[next] = localMillis;
+        next = (next + 1) % this.boardMillis.length;
+        size = Math.min(size + 1, this.boardMillis.length);
+
+        fit();
+    }
+
+    private void fit() {
+        double boardSum = 0, localSum = 0;
+        for(int i = 0; i < size; i++) {
+            boardSum += boardMillis[i];
+            localSum += localMillis[i];
+        }
+        boardMean = boardSum / size;
+        localMean = localSum / size;
+
+        double covariance = 0, variance = 0;
+        for(int i = 0; i < size; i++) {
+            double db = boardMillis[i] - boardMean;
+            covariance += db * (localMillis[i] - localMean);
+            variance += db * db;
+        }
+
+        slope = variance == 0 ? 1.0 : Math.max(1.0 - MAX_DRIFT, Math.min(1.0 + MAX_DRIFT, covariance / variance));
+    }
+
+    private double latestBoardMillis() {
+        return boardMillis[(next - 1 + boardMillis.length) % boardMillis.length];
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Converts a board clock reading to local time
+     * @param boardMillis    Board clock reading, converted to milliseconds
+     * @return Local epoch time in milliseconds
+     */
+    synchronized long toEpochMillis(double boardMillis) {
+        return Math.round(localMean + slope * (boardMillis - boardMean));
+    }
+
+    /**
+     * How much faster local time runs than board time, in parts per million
+     * @return Estimated drift
+     */
+    synchronized double drift() {
+        return (slope - 1.0) * 1e6;
+    }
+
+    /**
+     * Difference between local time and the board clock at the latest reference
+     * @return Offset in milliseconds
+     */
+    synchronized long offset() {
+        double latest = latestBoardMillis();
+        return toEpochMillis(latest) - Math.round(latest);
+    }
+}
@@ -31,7 +31,6 @@ import com.mbientlab.metawear.module.ColorTcs34725;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.Calendar;
 import java.util.Locale;
 
 import bolts.Task;
@@ -85,7 +84,7 @@ class ColorTcs34725Impl extends ModuleImplBase implements ColorTcs34725 {
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
             ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
             final ColorAdc wrapper= new ColorAdc(
                     buffer.getShort() & 0xffff,
@@ -37,24 +37,32 @@ abstract class DataPrivate implements Data {
         Object apply(Class<?> clazz);
     }
 
-    private final Calendar timestamp;
+    private final long epochMillis;
     private final byte[] dataBytes;
     private final ClassToObject mapper;
 
-    DataPrivate(Calendar timestamp, byte[] dataBytes, ClassToObject mapper) {
-        this.timestamp = timestamp;
+    DataPrivate(long epochMillis, byte[] dataBytes, ClassToObject mapper) {
+        this.epochMillis = epochMillis;
         this.dataBytes = dataBytes;
         this.mapper = mapper;
     }
 
     @Override
     public java.util.Calendar timestamp() {
-        return timestamp;
+        // subscribers of the same data share this object, each caller gets its own calendar
+        Calendar value = Calendar.getInstance();
+        value.setTimeInMillis(epochMillis);
+        return value;
+    }
+
+    @Override
+    public long epochMillis() {
+        return epochMillis;
     }
 
     @Override
     public String formattedTimestamp() {
-        return String.format(Locale.US, "%tY-%<tm-%<tdT%<tH:%<tM:%<tS.%<tL", timestamp());
+        return String.format(Locale.US, "%tY-%<tm-%<tdT%<tH:%<tM:%<tS.%<tL", epochMillis);
     }
 
     @Override
@@ -64,6 +72,13 @@ abstract class DataPrivate implements Data {
 
     @Override
     public byte[] bytes() {
+        return dataBytes.clone();
+    }
+
+    /**
+     * Same as {@link #bytes()} without the copy, the caller must not modify the array
+     */
+    byte[] rawBytes() {
         return dataBytes;
     }
 
@@ -83,6 +98,6 @@ abstract class DataPrivate implements Data {
 
     @Override
     public String toString() {
-        return String.format(Locale.US, "{timestamp: %s, data: %s}", formattedTimestamp(), Util.arrayToHexString(bytes()));
+        return String.format(Locale.US, "{timestamp: %s, data: %s}", formattedTimestamp(), Util.arrayToHexString(dataBytes));
     }
 }
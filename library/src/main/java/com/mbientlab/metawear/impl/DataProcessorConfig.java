@@ -536,10 +536,10 @@ abstract class DataProcessorConfig {
         Pulse(byte[] config) {
             super(config[0]);
 
-            input = (byte) (config[2] + 1);
-            threshold = ByteBuffer.wrap(config, 4, 4).getInt();
-            samples = ByteBuffer.wrap(config, 8, 2).getShort();
-            mode = PulseOutput.values()[config[4]];
+            input = (byte) (config[1] + 1);
+            threshold = ByteBuffer.wrap(config, 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+            samples = ByteBuffer.wrap(config, 8, 2).order(ByteOrder.LITTLE_ENDIAN).getShort();
+            mode = PulseOutput.values()[config[3]];
         }
 
         byte[] build() {
@@ -582,7 +582,7 @@ abstract class DataProcessorConfig {
             input = (byte) ((config[1] & 0x3) + 1);
             isSigned = (config[1] & 0x4) == 0x4;
             mode = DifferentialOutput.values()[(config[1] >> 3) & 0x7];
-            differential = ByteBuffer.wrap(config, 1, 4).getInt();
+            differential = ByteBuffer.wrap(config, 2, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
         }
 
         @Override
@@ -30,16 +30,26 @@ import com.mbientlab.metawear.builder.RouteBuilder;
 import com.mbientlab.metawear.impl.platform.TimedTask;
 import com.mbientlab.metawear.module.DataProcessor;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import bolts.CancellationTokenSource;
 import bolts.Capture;
 import bolts.Task;
+import bolts.TaskCompletionSource;
 
 import static com.mbientlab.metawear.impl.Constant.Module.DATA_PROCESSOR;
 
@@ -122,8 +132,14 @@ class DataProcessorImpl extends ModuleImplBase implements DataProcessor {
 
     final Map<Byte, Processor> activeProcessors= new HashMap<>();
     final Map<String, Byte> nameToIdMapping = new HashMap<>();
+    // number of routes using each processor that can be shared, processors not in the map belong to a single route
+    private HashMap<Byte, Integer> shareableProcessors = new HashMap<>();
 
-    private transient TimedTask<byte[]> pullProcessorConfigTask, createProcessorTask;
+    private transient TimedTask<byte[]> pullProcessorConfigTask;
+    // ADD responses do not echo the request so ids are matched to commands in the order they were sent
+    private transient Queue<TaskCompletionSource<byte[]>> pendingAddResponses;
+    // ADD commands that timed out and were taken out of the queue, their ids are removed if they arrive late
+    private transient AtomicInteger abandonedAdds;
 
     DataProcessorImpl(MetaWearBoardPrivate mwPrivate) {
         super(mwPrivate);
@@ -133,6 +149,9 @@ class DataProcessorImpl extends ModuleImplBase implements DataProcessor {
     void restoreTransientVars(MetaWearBoardPrivate mwPrivate) {
         super.restoreTransientVars(mwPrivate);
 
+        if (shareableProcessors == null) {
+            shareableProcessors = new HashMap<>();
+        }
         for(Processor it: activeProcessors.values()) {
             it.editor.restoreTransientVars(mwPrivate);
         }
@@ -140,13 +159,100 @@ class DataProcessorImpl extends ModuleImplBase implements DataProcessor {
 
     protected void init() {
         pullProcessorConfigTask = new TimedTask<>();
-        createProcessorTask = new TimedTask<>();
+        pendingAddResponses = new ConcurrentLinkedQueue<>();
+        abandonedAdds = new AtomicInteger(0);
 
         this.mwPrivate.addResponseHandler(new Pair<>(DATA_PROCESSOR.id, Util.setRead(ADD)), response -> pullProcessorConfigTask.setResult(response));
-        this.mwPrivate.addResponseHandler(new Pair<>(DATA_PROCESSOR.id, ADD), response -> createProcessorTask.setResult(response));
+        this.mwPrivate.addResponseHandler(new Pair<>(DATA_PROCESSOR.id, ADD), response -> {
+            TaskCompletionSource<byte[]> next = pendingAddResponses.poll();
+            if (next != null) {
+                next.trySetResult(response);
+            } else if (claimAbandonedAdd()) {
+                mwPrivate.sendCommand(new byte[] {DATA_PROCESSOR.id, REMOVE, response[2]});
+            }
+        });
+    }
+
+    @Override
+    void writeState(BoardSnapshot.Writer out) throws IOException {
+        out.writeVarInt(activeProcessors.size());
+        for(Map.Entry<Byte, Processor> it: activeProcessors.entrySet()) {
+            out.writeByte(it.getKey());
+            out.writeDataType(it.getValue().state);
+            out.writeName(it.getValue().editor.getClass().getName());
+            out.writeBytes(it.getValue().editor.config);
+            out.writeDataType(it.getValue().editor.source);
+        }
+
+        out.writeVarInt(nameToIdMapping.size());
+        for(Map.Entry<String, Byte> it: nameToIdMapping.entrySet()) {
+            out.writeString(it.getKey());
+            out.writeByte(it.getValue());
+        }
+
+        out.writeVarInt(shareableProcessors.size());
+        for(Map.Entry<Byte, Integer> it: shareableProcessors.entrySet()) {
+            out.writeByte(it.getKey());
+            out.writeVarInt(it.getValue());
+        }
+    }
+
+    @Override
+    void readState(BoardSnapshot.Reader in) throws IOException {
+        Version firmware = mwPrivate.getFirmwareVersion();
+        byte revision = mwPrivate.lookupModuleInfo(DATA_PROCESSOR).revision;
+
+        for(int i = in.readVarInt(); i > 0; i--) {
+            byte id = in.readByte();
+            DataTypeBase state = in.readDataType();
+            String editorClass = in.readName();
+            byte[] config = in.readBytes();
+            DataTypeBase source = in.readDataType();
+
+            EditorImplBase editor = BoardSnapshot.construct(editorClass, EditorImplBase.class,
+                    new Class<?>[] {DataProcessorConfig.class, DataTypeBase.class, MetaWearBoardPrivate.class},
+                    DataProcessorConfig.from(firmware, revision, config), source, mwPrivate);
+            editor.config = config;
+            activeProcessors.put(id, new Processor(state, editor));
+        }
+
+        for(int i = in.readVarInt(); i > 0; i--) {
+            nameToIdMapping.put(in.readString(), in.readByte());
+        }
+
+        if (in.version >= BoardSnapshot.SHARED_PROCESSORS_VERSION) {
+            for(int i = in.readVarInt(); i > 0; i--) {
+                shareableProcessors.put(in.readByte(), in.readVarInt());
+            }
+        }
+    }
+
+    @Override
+    public void disconnected() {
+        TaskCompletionSource<byte[]> next;
+        while((next = pendingAddResponses.poll()) != null) {
+            next.trySetCancelled();
+        }
+        abandonedAdds.set(0);
+    }
+
+    private boolean claimAbandonedAdd() {
+        int current;
+        while((current = abandonedAdds.get()) > 0) {
+            if (abandonedAdds.compareAndSet(current, current - 1)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     void removeProcessor(boolean sync, byte id) {
+        Integer routes = shareableProcessors.remove(id);
+        if (routes != null && routes > 1) {
+            shareableProcessors.put(id, routes - 1);
+            return;
+        }
+
         if (sync) {
             Processor target = activeProcessors.get(id);
             mwPrivate.sendCommand(new byte[]{DATA_PROCESSOR.id, DataProcessorImpl.REMOVE, target.editor.source.eventConfig[2]});
@@ -157,45 +263,100 @@ class DataProcessorImpl extends ModuleImplBase implements DataProcessor {
     public void tearDown() {
         activeProcessors.clear();
         nameToIdMapping.clear();
+        shareableProcessors.clear();
         mwPrivate.sendCommand(new byte[] {DATA_PROCESSOR.id, REMOVE_ALL});
     }
 
+    /**
+     * Creates the processors on the board.  Processors whose input is already known to the firmware are sent back to
+     * back and the returned ids are matched to the commands in order; a processor fed by a processor that is still
+     * waiting on its id starts the next batch.  If any processor cannot be created, all processors created by this call
+     * are removed, including any whose id arrives after the failure.
+     */
     Task<Queue<Byte>> queueDataProcessors(Queue<Processor> pendingProcessors) {
+        return queueDataProcessors(pendingProcessors, -1);
+    }
+
+    /**
+     * Variant of {@link #queueDataProcessors(Queue)} that tolerates the board running out of processors.  If no id is
+     * returned after at least <code>required</code> processors were created, the created processors are kept and the
+     * task completes with their ids.  The ids are assigned in order, so they belong to the first processors of the queue.
+     * The commands that were not answered are taken out of the response queue before the task completes, and their ids
+     * are removed from the board if the firmware answers late.
+     * @param required    Number of processors that must be created, negative if all must be created
+     */
+    Task<Queue<Byte>> queueDataProcessors(Queue<Processor> pendingProcessors, final int required) {
         final Queue<Byte> ids = new LinkedList<>();
         final Capture<Boolean> terminate = new Capture<>(false);
 
         return Task.forResult(null).continueWhile(() -> !terminate.get() && !pendingProcessors.isEmpty(), ignored -> {
-            final Processor current= pendingProcessors.poll();
-            DataTypeBase input= current.editor.source.input;
-
-            if (current.editor.configObj instanceof DataProcessorConfig.Fuser) {
-                ((DataProcessorConfig.Fuser) current.editor.configObj).syncFilterIds(this);
+            final ArrayList<Processor> batch = new ArrayList<>();
+            final ArrayList<byte[]> commands = new ArrayList<>();
+            try {
+                do {
+                    Processor next = pendingProcessors.peek();
+                    commands.add(createAddCommand(next));
+                    batch.add(pendingProcessors.poll());
+                } while(!pendingProcessors.isEmpty() && !waitingOnId(pendingProcessors.peek().editor.source.input));
+            } catch (RuntimeException e) {
+                terminate.set(true);
+                return Task.<Void>forError(e);
             }
 
-            final byte[] filterConfig= new byte[input.eventConfig.length + 1 + current.editor.config.length];
-            filterConfig[input.eventConfig.length]= (byte) (((input.attributes.length() - 1) << 5) | input.attributes.offset);
-            System.arraycopy(input.eventConfig, 0, filterConfig, 0, input.eventConfig.length);
-            System.arraycopy(current.editor.config, 0, filterConfig, input.eventConfig.length + 1, current.editor.config.length);
+            final ArrayList<TaskCompletionSource<byte[]>> sources = new ArrayList<>();
+            final ArrayList<Task<byte[]>> responses = new ArrayList<>();
+            for(byte[] it: commands) {
+                TaskCompletionSource<byte[]> response = new TaskCompletionSource<>();
+                pendingAddResponses.add(response);
+                sources.add(response);
+                responses.add(response.getTask());
+
+                mwPrivate.sendCommand(DATA_PROCESSOR, ADD, it);
+            }
 
-            return createProcessorTask.execute("Did not receive data processor id within %dms", Constant.RESPONSE_TIMEOUT,
-                    () -> mwPrivate.sendCommand(DATA_PROCESSOR, ADD, filterConfig)
+            final Capture<Integer> i = new Capture<>(0);
+            return Task.forResult(null).continueWhile(() -> i.get() < batch.size(), ignored2 ->
+                    awaitResponse(responses.get(i.get())).onSuccessTask(task -> {
+                        final Processor current = batch.get(i.get());
+
+                        byte id = task.getResult()[2];
+                        current.editor.source.eventConfig[2]= id;
+                        if (current.state != null) {
+                            current.state.eventConfig[2] = id;
+                        }
+                        activeProcessors.put(id, current);
+                        ids.add(id);
+
+                        i.set(i.get() + 1);
+                        return Task.forResult(null);
+                    })
             ).continueWithTask(task -> {
-                if (task.isFaulted()) {
+                if (task.isFaulted() || task.isCancelled()) {
                     terminate.set(true);
-                    return Task.<Void>forError(task.getError());
-                }
-                byte id = task.getResult()[2];
-                current.editor.source.eventConfig[2]= id;
-                if (current.state != null) {
-                    current.state.eventConfig[2] = id;
-                }
-                activeProcessors.put(id, current);
-                ids.add(id);
 
+                    // unanswered commands leave the queue so the next route's ids are not handed to them, ids that
+                    // show up late still belong to this route and are removed by the response handler
+                    for(TaskCompletionSource<byte[]> it: sources.subList(i.get(), sources.size())) {
+                        if (pendingAddResponses.remove(it)) {
+                            abandonedAdds.incrementAndGet();
+                        } else {
+                            // answered just as the wait timed out
+                            it.getTask().onSuccess(response -> {
+                                mwPrivate.sendCommand(new byte[] {DATA_PROCESSOR.id, REMOVE, response.getResult()[2]});
+                                return null;
+                            });
+                        }
+                    }
+                    return task.isFaulted() ? Task.<Void>forError(task.getError()) :
+                            Task.<Void>forError(new IllegalStateException("Data processor creation cancelled"));
+                }
                 return Task.forResult(null);
             });
         }).continueWithTask(task -> {
             if (task.isFaulted()) {
+                if (required >= 0 && ids.size() >= required && task.getError() instanceof TimeoutException) {
+                    return Task.forResult(ids);
+                }
                 for(byte it: ids) {
                     removeProcessor(true, it);
                 }
@@ -205,6 +366,111 @@ class DataProcessorImpl extends ModuleImplBase implements DataProcessor {
         });
     }
 
+    /**
+     * Reuses processors already on the board in place of the route's processors that would be identical to them, that
+     * is processors with the same config reading the same data.  The route's processors are checked in order so a chain
+     * of processors is shared as long as each link matches.  Reused processors are given the existing ids and removed
+     * from the route's queue; each one is released with {@link #removeProcessor(boolean, byte)} like any other processor.
+     * @param route    Route being created
+     * @return Reused processors in the order they appear in the route
+     */
+    List<Processor> shareDataProcessors(RouteComponentImpl.Cache route) {
+        final List<Processor> shared = new ArrayList<>();
+        final Iterator<Processor> it = route.dataProcessors.iterator();
+
+        while(it.hasNext()) {
+            Processor current = it.next();
+            Byte id = waitingOnId(current.editor.source.input) || !isShareable(route, current) ? null : findIdentical(current);
+            if (id != null) {
+                current.editor.source.eventConfig[2] = id;
+                shareableProcessors.put(id, shareableProcessors.get(id) + 1);
+                shared.add(current);
+                it.remove();
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Makes the processors the route created available to routes created afterwards
+     * @param route         Route that was created
+     * @param processors    Processors on the board used by the route
+     */
+    void addShareableProcessors(RouteComponentImpl.Cache route, List<Processor> processors) {
+        for(Processor it: processors) {
+            byte id = it.editor.source.eventConfig[2];
+            if (!shareableProcessors.containsKey(id) && isShareable(route, it)) {
+                shareableProcessors.put(id, 1);
+            }
+        }
+    }
+
+    /**
+     * Named processors, processors with a readable state, and processors modified by feedback can be changed through
+     * one route which would affect every other route using them, so they are never shared.  Fusers are not shared either
+     * as their config refers to the buffers by id only after they are added.
+     */
+    private static boolean isShareable(RouteComponentImpl.Cache route, Processor processor) {
+        if (processor.state != null || processor.editor.configObj instanceof DataProcessorConfig.Fuser ||
+                route.taggedProcessors.containsValue(processor)) {
+            return false;
+        }
+        for(Pair<String, Tuple3<DataTypeBase, Integer, byte[]>> it: route.feedback) {
+            if (it.second.first == processor.editor.source) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Byte findIdentical(Processor processor) {
+        DataTypeBase input = processor.editor.source.input;
+        for(Byte it: shareableProcessors.keySet()) {
+            EditorImplBase candidate = activeProcessors.get(it).editor;
+            DataTypeBase candidateInput = candidate.source.input;
+
+            if (candidateInput != null && Arrays.equals(candidate.config, processor.editor.config) &&
+                    Arrays.equals(candidateInput.eventConfig, input.eventConfig) && candidateInput.attributes.equals(input.attributes)) {
+                return it;
+            }
+        }
+        return null;
+    }
+
+    private byte[] createAddCommand(Processor processor) {
+        DataTypeBase input= processor.editor.source.input;
+
+        if (processor.editor.configObj instanceof DataProcessorConfig.Fuser) {
+            ((DataProcessorConfig.Fuser) processor.editor.configObj).syncFilterIds(this);
+        }
+
+        final byte[] filterConfig= new byte[input.eventConfig.length + 1 + processor.editor.config.length];
+        filterConfig[input.eventConfig.length]= (byte) (((input.attributes.length() - 1) << 5) | input.attributes.offset);
+        System.arraycopy(input.eventConfig, 0, filterConfig, 0, input.eventConfig.length);
+        System.arraycopy(processor.editor.config, 0, filterConfig, input.eventConfig.length + 1, processor.editor.config.length);
+
+        return filterConfig;
+    }
+
+    private static boolean waitingOnId(DataTypeBase input) {
+        return input.eventConfig[0] == DATA_PROCESSOR.id && input.eventConfig[2] == DataTypeBase.NO_DATA_ID;
+    }
+
+    private static Task<byte[]> awaitResponse(final Task<byte[]> response) {
+        final CancellationTokenSource cts = new CancellationTokenSource();
+        final ArrayList<Task<?>> tasks = new ArrayList<>();
+        tasks.add(response);
+        tasks.add(Task.delay(Constant.RESPONSE_TIMEOUT, cts.getToken()));
+
+        return Task.whenAny(tasks).continueWithTask(task -> {
+            if (task.getResult() != response) {
+                return Task.forError(new TimeoutException(String.format(Locale.US, "Did not receive data processor id within %dms", Constant.RESPONSE_TIMEOUT)));
+            }
+            cts.cancel();
+            return response;
+        });
+    }
+
     @Override
     public <T extends Editor> T edit(String name, Class<T> editorClass) {
         return editorClass.cast(activeProcessors.get(nameToIdMapping.get(name)).editor);
@@ -41,7 +41,7 @@ import com.mbientlab.metawear.module.GyroBmi160;
 import com.mbientlab.metawear.module.GyroBmi270;
 
 import java.io.Serializable;
-import java.util.Calendar;
+import java.util.Arrays;
 
 /**
  * Created by etsai on 9/4/16.
@@ -154,6 +154,21 @@ abstract class DataTypeBase implements Serializable, DataToken {
         this(input, module, register, NO_DATA_ID, attributes);
     }
 
+    /**
+     * Checks if a notification for this data type is decoded the same way as for the other type, which is the case when
+     * both are the same kind of data from the same register and were derived from equivalent inputs
+     */
+    boolean decodesLike(DataTypeBase other) {
+        if (other == this) {
+            return true;
+        }
+        if (other == null || other.getClass() != getClass() || !Arrays.equals(other.eventConfig, eventConfig) ||
+                !other.attributes.equals(attributes)) {
+            return false;
+        }
+        return input == null ? other.input == null : input.decodesLike(other.input);
+    }
+
     Tuple3<Byte, Byte, Byte> eventConfigAsTuple() {
         return new Tuple3<>(eventConfig[0], eventConfig[1], eventConfig[2]);
     }
@@ -200,7 +215,14 @@ abstract class DataTypeBase implements Serializable, DataToken {
     public Number convertToFirmwareUnits(MetaWearBoardPrivate mwPrivate, Number value) {
         return value;
     }
-    public abstract Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, byte[] data, Calendar timestamp, DataPrivate.ClassToObject mapper);
+    public abstract Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, byte[] data, long timestamp, DataPrivate.ClassToObject mapper);
+    /**
+     * Decodes one sample into row <code>row</code> of the columns without creating a {@link Data} object
+     * @return Number of columns written, -1 if the type does not support primitive decoding
+     */
+    int decodeColumns(MetaWearBoardPrivate mwPrivate, byte[] data, int offset, int length, float[][] columns, int row) {
+        return -1;
+    }
     Pair<? extends DataTypeBase, ? extends DataTypeBase> dataProcessorTransform(DataProcessorConfig config, DataProcessorImpl dpModule) {
         switch(config.id) {
             case DataProcessorConfig.Buffer.ID:
@@ -384,7 +406,7 @@ abstract class DataTypeBase implements Serializable, DataToken {
             }
 
             @Override
-            public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, byte[] data, Calendar timestamp, DataPrivate.ClassToObject mapper) {
+            public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, byte[] data, long timestamp, DataPrivate.ClassToObject mapper) {
                 throw new UnsupportedOperationException();
             }
         };
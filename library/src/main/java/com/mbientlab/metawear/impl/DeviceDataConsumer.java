@@ -48,7 +48,10 @@ abstract class DeviceDataConsumer implements Serializable {
     }
 
     void call(Data msg) {
-        subscriber.apply(msg, environment);
+        // null if the subscriber could not be restored from a board snapshot, see Route.resubscribe
+        if (subscriber != null) {
+            subscriber.apply(msg, environment);
+        }
     }
 
     public abstract void enableStream(final MetaWearBoardPrivate mwPrivate);
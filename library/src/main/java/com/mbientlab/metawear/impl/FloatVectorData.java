@@ -24,6 +24,8 @@
 
 package com.mbientlab.metawear.impl;
 
+import com.mbientlab.metawear.Data;
+
 import static com.mbientlab.metawear.impl.Constant.Module.DATA_PROCESSOR;
 
 /**
@@ -40,11 +42,78 @@ abstract class FloatVectorData extends DataTypeBase {
         super(input, module, register, id, attributes);
     }
 
+    interface VectorFactory {
+        Object create(float x, float y, float z);
+    }
+
+    private static float axis(byte[] data, int offset, int i, float scale) {
+        return (short) ((data[offset + 2 * i] & 0xff) | (data[offset + 2 * i + 1] << 8)) / scale;
+    }
+
+    /**
+     * Creates a message for 3 signed 16 bit axes.  The scale is read when the message is created so later config
+     * changes do not affect it, the axes are converted the first time the message's value is read.
+     * @param type       Class of the value returned by <code>factory</code>
+     * @param factory    Creates the value from the scaled axes
+     */
+    Data createVectorMessage(final MetaWearBoardPrivate mwPrivate, final byte[] data, long timestamp, DataPrivate.ClassToObject mapper,
+                             final Class<?> type, final VectorFactory factory) {
+        final float scale = scale(mwPrivate);
+        return new DataPrivate(timestamp, data, mapper) {
+            private float[] axes;
+            private Object value;
+
+            @Override
+            public float scale() {
+                return scale;
+            }
+
+            private float[] axes() {
+                if (axes == null) {
+                    axes = new float[] {axis(data, 0, 0, scale), axis(data, 0, 1, scale), axis(data, 0, 2, scale)};
+                }
+                return axes;
+            }
+
+            @Override
+            public Class<?>[] types() {
+                return new Class<?>[] {type, float[].class};
+            }
+
+            @Override
+            public <T> T value(Class<T> clazz) {
+                if (clazz.equals(type)) {
+                    if (value == null) {
+                        float[] values = axes();
+                        value = factory.create(values[0], values[1], values[2]);
+                    }
+                    return clazz.cast(value);
+                } else if (clazz.equals(float[].class)) {
+                    return clazz.cast(axes().clone());
+                }
+                return super.value(clazz);
+            }
+        };
+    }
+
     @Override
     public Number convertToFirmwareUnits(MetaWearBoardPrivate mwPrivate, Number value) {
         return value.floatValue() * scale(mwPrivate);
     }
 
+    @Override
+    int decodeColumns(MetaWearBoardPrivate mwPrivate, byte[] data, int offset, int length, float[][] columns, int row) {
+        if (length < 6 || attributes.sizes.length != 3 || attributes.sizes[0] != 2) {
+            return -1;
+        }
+
+        final float scale = scale(mwPrivate);
+        for(int i = 0; i < 3; i++) {
+            columns[i][row] = axis(data, offset, i, scale);
+        }
+        return 3;
+    }
+
     @Override
     Pair<? extends DataTypeBase, ? extends DataTypeBase> dataProcessorTransform(DataProcessorConfig config, DataProcessorImpl dpModule) {
         switch(config.id) {
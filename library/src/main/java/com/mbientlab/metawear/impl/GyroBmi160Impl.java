@@ -8,9 +8,6 @@ import com.mbientlab.metawear.data.AngularVelocity;
 import com.mbientlab.metawear.module.Gyro;
 import com.mbientlab.metawear.module.GyroBmi160;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.util.Calendar;
 import java.util.Locale;
 
 import bolts.Task;
@@ -71,33 +68,8 @@ class GyroBmi160Impl extends GyroImpl implements GyroBmi160 {
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
-            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-            short[] unscaled = new short[]{buffer.getShort(), buffer.getShort(), buffer.getShort()};
-            final float scale= scale(mwPrivate);
-            final AngularVelocity value= new AngularVelocity(unscaled[0] / scale, unscaled[1] / scale, unscaled[2] / scale);
-
-            return new DataPrivate(timestamp, data, mapper) {
-                @Override
-                public float scale() {
-                    return scale;
-                }
-
-                @Override
-                public Class<?>[] types() {
-                    return new Class<?>[] {AngularVelocity.class, float[].class};
-                }
-
-                @Override
-                public <T> T value(Class<T> clazz) {
-                    if (clazz.equals(AngularVelocity.class)) {
-                        return clazz.cast(value);
-                    } else if (clazz.equals(float[].class)) {
-                        return clazz.cast(new float[] {value.x(), value.y(), value.z()});
-                    }
-                    return super.value(clazz);
-                }
-            };
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
+            return createVectorMessage(mwPrivate, data, timestamp, mapper, AngularVelocity.class, AngularVelocity::new);
         }
     }
     private static class BoschGyrSFloatData extends SFloatData {
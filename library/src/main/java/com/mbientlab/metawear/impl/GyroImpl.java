@@ -27,6 +27,8 @@ package com.mbientlab.metawear.impl;
 import com.mbientlab.metawear.impl.platform.TimedTask;
 import com.mbientlab.metawear.module.Gyro;
 
+import java.io.IOException;
+
 import bolts.Task;
 
 import static com.mbientlab.metawear.impl.Constant.Module.GYRO;
@@ -86,33 +88,8 @@ abstract class GyroImpl extends ModuleImplBase implements Gyro {
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
-            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-            short[] unscaled = new short[]{buffer.getShort(), buffer.getShort(), buffer.getShort()};
-            final float scale= scale(mwPrivate);
-            final AngularVelocity value= new AngularVelocity(unscaled[0] / scale, unscaled[1] / scale, unscaled[2] / scale);
-
-            return new DataPrivate(timestamp, data, mapper) {
-                @Override
-                public float scale() {
-                    return scale;
-                }
-
-                @Override
-                public Class<?>[] types() {
-                    return new Class<?>[] {AngularVelocity.class, float[].class};
-                }
-
-                @Override
-                public <T> T value(Class<T> clazz) {
-                    if (clazz.equals(AngularVelocity.class)) {
-                        return clazz.cast(value);
-                    } else if (clazz.equals(float[].class)) {
-                        return clazz.cast(new float[] {value.x(), value.y(), value.z()});
-                    }
-                    return super.value(clazz);
-                }
-            };
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
+            return createVectorMessage(mwPrivate, data, timestamp, mapper, AngularVelocity.class, AngularVelocity::new);
         }
     }
     private static class BoschGyrSFloatData extends SFloatData {
@@ -160,6 +137,16 @@ abstract class GyroImpl extends ModuleImplBase implements Gyro {
         mwPrivate.addResponseHandler(new Pair<>(GYRO.id, Util.setRead(CONFIG)), response -> pullConfigTask.setResult(response));
     }
 
+    @Override
+    void writeState(BoardSnapshot.Writer out) throws IOException {
+        out.writeBytes(gyrDataConfig);
+    }
+
+    @Override
+    void readState(BoardSnapshot.Reader in) throws IOException {
+        in.readBytes(gyrDataConfig);
+    }
+
     public float getGyrDataScale() {
         return Range.bitMaskToRange((byte) (gyrDataConfig[1] & 0x07)).scale;
     }
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.Subscriber;
+import com.mbientlab.metawear.builder.RouteComponent;
+import com.mbientlab.metawear.impl.DataProcessorImpl.Processor;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static com.mbientlab.metawear.impl.Constant.Module.DATA_PROCESSOR;
+
+/**
+ * Stream whose last processors run on the local device.  The consumer streams the output of the last on-board producer
+ * and passes each sample through {@link HostProcessor} versions of the remaining processors, decoding the result with
+ * the data type of the final processor.
+ */
+class HostDataConsumer extends StreamedDataConsumer {
+    private static final long serialVersionUID = -2863590158466339216L;
+    private static final int MAX_CHANNELS = 16;
+
+    /**
+     * Finds how many of the route's processors must be created on the board for the rest to run locally.  Processors
+     * that are named, feed a logger or reaction, are fed back into other processors, or have no local version must
+     * stay on the board along with everything created before them.
+     * @param processors    Route processors in the order they are created
+     * @return Minimum number of processors to create on the board
+     */
+    static int requiredOnBoard(RouteComponentImpl.Cache route, List<Processor> processors) {
+        Map<DataTypeBase, Processor> outputs = new IdentityHashMap<>();
+        for(Processor it: processors) {
+            outputs.put(it.editor.source, it);
+        }
+
+        int required = 0;
+        for(int i = 0; i < processors.size(); i++) {
+            Processor current = processors.get(i);
+            DataTypeBase input = current.editor.source.input;
+            Processor inputProcessor = outputs.get(input);
+
+            boolean local = HostProcessor.create(current.editor.configObj, input.attributes) != null &&
+                    !route.taggedProcessors.containsValue(current) &&
+                    (inputProcessor == null || !(inputProcessor.editor.configObj instanceof DataProcessorConfig.Accounter ||
+                            inputProcessor.editor.configObj instanceof DataProcessorConfig.Packer));
+            for(Pair<String, Tuple3<DataTypeBase, Integer, byte[]>> it: route.feedback) {
+                local &= it.second.first != current.editor.source;
+            }
+            for(Pair<? extends DataTypeBase, ? extends RouteComponent.Action> it: route.reactions) {
+                local &= it.first != current.editor.source;
+            }
+            for(Tuple3<DataTypeBase, Subscriber, Boolean> it: route.subscribedProducers) {
+                local &= !(it.third && it.first == current.editor.source);
+            }
+
+            if (!local) {
+                required = i + 1;
+            } else if (inputProcessor == null && input.eventConfig[0] == DATA_PROCESSOR.id) {
+                // part of another processor's output, keep every processor it could come from on the board
+                required = Math.max(required, i);
+            }
+        }
+        return required;
+    }
+
+    /**
+     * Creates a consumer running the processors between the subscribed producer and the last on-board producer locally
+     * @param processors    Route processors in the order they are created
+     * @param onBoard       Number of processors created on the board
+     * @return Consumer for the subscriber, null if the subscribed producer is on the board
+     */
+    static HostDataConsumer create(List<Processor> processors, int onBoard, DataTypeBase producer, Subscriber subscriber) {
+        if (onBoard == processors.size()) {
+            return null;
+        }
+
+        Map<DataTypeBase, Processor> local = new IdentityHashMap<>();
+        for(Processor it: processors.subList(onBoard, processors.size())) {
+            local.put(it.editor.source, it);
+        }
+        if (!local.containsKey(producer)) {
+            return null;
+        }
+
+        LinkedList<Processor> chain = new LinkedList<>();
+        DataTypeBase input = producer;
+        while(local.containsKey(input)) {
+            chain.addFirst(local.get(input));
+            input = input.input;
+        }
+
+        byte[][] configs = new byte[chain.size()][];
+        DataTypeBase[] outputs = new DataTypeBase[chain.size()];
+        for(int i = 0; i < configs.length; i++) {
+            configs[i] = chain.get(i).editor.config;
+            outputs[i] = chain.get(i).editor.source;
+        }
+        return new HostDataConsumer(input, subscriber, configs, outputs);
+    }
+
+    final byte[][] configs;
+    final DataTypeBase[] outputs;
+
+    private transient HostProcessor[] stages;
+    private transient long[] channels;
+
+    HostDataConsumer(DataTypeBase source, Subscriber subscriber, byte[][] configs, DataTypeBase[] outputs) {
+        super(source, subscriber);
+
+        this.configs = configs;
+        this.outputs = outputs;
+    }
+
+    private void createStages(MetaWearBoardPrivate mwPrivate) {
+        Version firmware = mwPrivate.getFirmwareVersion();
+        byte revision = mwPrivate.lookupModuleInfo(DATA_PROCESSOR).revision;
+
+        HostProcessor[] created = new HostProcessor[configs.length];
+        for(int i = 0; i < created.length; i++) {
+            created[i] = HostProcessor.create(DataProcessorConfig.from(firmware, revision, configs[i]), i == 0 ? source.attributes : outputs[i - 1].attributes);
+            if (created[i] == null) {
+                throw new IllegalStateException("No local version of data processor: " + Util.arrayToHexString(configs[i]));
+            }
+        }
+        channels = new long[MAX_CHANNELS];
+        stages = created;
+    }
+
+    @Override
+    boolean sharesSamples() {
+        // the source is the last on-board producer, not what the subscriber receives
+        return false;
+    }
+
+    @Override
+    void deliver(MetaWearBoardPrivate mwPrivate, byte[] response, long now, boolean latestOnly) {
+        if (stages == null) {
+            createStages(mwPrivate);
+        }
+
+        int offset = (source.eventConfig[2] == DataTypeBase.NO_DATA_ID ? 2 : 3) + source.attributes.offset;
+        if (offset + source.attributes.length() > response.length) {
+            return;
+        }
+
+        int n = HostProcessor.read(response, offset, source.attributes, channels);
+        for(HostProcessor it: stages) {
+            n = it.apply(channels, n, channels);
+            if (n < 0) {
+                return;
+            }
+        }
+
+        DataTypeBase output = outputs[outputs.length - 1];
+        byte[] data = new byte[output.attributes.length()];
+        HostProcessor.write(channels, output.attributes, data);
+
+        if (subscriber instanceof BatchSubscriberAdapter) {
+            BatchSubscriberAdapter batch = (BatchSubscriberAdapter) subscriber;
+            batch.add(output, mwPrivate, false, data, 0, data.length, now, environment);
+            batch.flush(environment);
+        } else {
+            call(output.createMessage(false, mwPrivate, data, now, null));
+        }
+    }
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.builder.filter.Comparison;
+import com.mbientlab.metawear.builder.filter.ComparisonOutput;
+import com.mbientlab.metawear.builder.filter.DifferentialOutput;
+import com.mbientlab.metawear.builder.filter.ThresholdOutput;
+import com.mbientlab.metawear.builder.predicate.PulseOutput;
+
+/**
+ * Local version of a firmware data processor.  Samples are passed in as integer channels in firmware units, the same
+ * values the on-board processor sees, so the output can be decoded by the processor's data type as if it came from the
+ * board.  Processors keep their state in arrays sized when created and do not allocate while processing.
+ */
+abstract class HostProcessor {
+    /**
+     * Creates the local version of a processor
+     * @param config    Processor configuration
+     * @param input     Attributes of the processor's input
+     * @return Local processor, null if the processor or input cannot be evaluated locally
+     */
+    static HostProcessor create(DataProcessorConfig config, DataAttributes input) {
+        if (input.copies != 1 || input.sizes.length == 0) {
+            return null;
+        }
+
+        if (config instanceof DataProcessorConfig.Average) {
+            DataProcessorConfig.Average casted = (DataProcessorConfig.Average) config;
+            int samples = casted.samples & 0xff;
+            return samples > 0 ? new Average(samples, input.sizes.length, casted.hpf) : null;
+        }
+        if (config instanceof DataProcessorConfig.Maths) {
+            return new Maths(((DataProcessorConfig.Maths) config).op, ((DataProcessorConfig.Maths) config).rhs);
+        }
+
+        // remaining processors only operate on single values
+        if (input.sizes.length != 1) {
+            return null;
+        }
+        if (config instanceof DataProcessorConfig.Accumulator) {
+            return new Accumulator(((DataProcessorConfig.Accumulator) config).counter);
+        }
+        if (config instanceof DataProcessorConfig.SingleValueComparison) {
+            DataProcessorConfig.SingleValueComparison casted = (DataProcessorConfig.SingleValueComparison) config;
+            return new MultiComparison(casted.op, ComparisonOutput.ABSOLUTE, new long[] {casted.reference});
+        }
+        if (config instanceof DataProcessorConfig.MultiValueComparison) {
+            DataProcessorConfig.MultiValueComparison casted = (DataProcessorConfig.MultiValueComparison) config;
+            long[] references = new long[casted.references.length];
+            for(int i = 0; i < references.length; i++) {
+                references[i] = casted.references[i].longValue();
+            }
+            return new MultiComparison(casted.op, casted.mode, references);
+        }
+        if (config instanceof DataProcessorConfig.Threshold) {
+            DataProcessorConfig.Threshold casted = (DataProcessorConfig.Threshold) config;
+            return new Threshold(casted.mode, casted.boundary, casted.hysteresis);
+        }
+        if (config instanceof DataProcessorConfig.Differential) {
+            DataProcessorConfig.Differential casted = (DataProcessorConfig.Differential) config;
+            return new Differential(casted.mode, casted.differential);
+        }
+        if (config instanceof DataProcessorConfig.Pulse) {
+            DataProcessorConfig.Pulse casted = (DataProcessorConfig.Pulse) config;
+            return new Pulse(casted.mode, casted.threshold, casted.samples);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the little endian channels of one sample
+     * @return Number of channels read
+     */
+    static int read(byte[] data, int offset, DataAttributes attributes, long[] channels) {
+        for(int i = 0; i < attributes.sizes.length; i++) {
+            int size = attributes.sizes[i];
+            long value = 0;
+            for(int j = 0; j < size; j++) {
+                value |= (data[offset + j] & 0xffL) << (j << 3);
+            }
+            if (attributes.signed && size < 8) {
+                value = (value << (64 - (size << 3))) >> (64 - (size << 3));
+            }
+
+            channels[i] = value;
+            offset += size;
+        }
+        return attributes.sizes.length;
+    }
+
+    /**
+     * Writes the channels as one little endian sample, truncating each channel to its size
+     * @return Number of bytes written
+     */
+    static int write(long[] channels, DataAttributes attributes, byte[] data) {
+        int offset = 0;
+        for(int i = 0; i < attributes.sizes.length; i++) {
+            for(int j = 0; j < attributes.sizes[i]; j++) {
+                data[offset++] = (byte) (channels[i] >> (j << 3));
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Processes one sample
+     * @param in     Input channels
+     * @param n      Number of input channels
+     * @param out    Array to write the output channels to, may be the input array
+     * @return Number of output channels, -1 if the processor does not output anything for this sample
+     */
+    abstract int apply(long[] in, int n, long[] out);
+
+    private static class Average extends HostProcessor {
+        private final int samples, channels;
+        private final boolean hpf;
+        private final long[] window, sums;
+        private int next, count;
+
+        Average(int samples, int channels, boolean hpf) {
+            this.samples = samples;
+            this.channels = channels;
+            this.hpf = hpf;
+            this.window = new long[samples * channels];
+            this.sums = new long[channels];
+        }
+
+        @Override
+        int apply(long[] in, int n, long[] out) {
+            int base = next * channels;
+            for(int i = 0; i < n; i++) {
+                sums[i] += in[i] - window[base + i];
+                window[base + i] = in[i];
+            }
+            next = (next + 1) % samples;
+            if (count < samples) {
+                count++;
+            }
+            if (count < samples) {
+                return -1;
+            }
+
+            for(int i = 0; i < n; i++) {
+                out[i] = hpf ? in[i] - sums[i] / samples : sums[i] / samples;
+            }
+            return n;
+        }
+    }
+
+    private static class Accumulator extends HostProcessor {
+        private final boolean counter;
+        private long total;
+
+        Accumulator(boolean counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        int apply(long[] in, int n, long[] out) {
+            total += counter ? 1 : in[0];
+            out[0] = total;
+            return 1;
+        }
+    }
+
+    private static class Maths extends HostProcessor {
+        private final DataProcessorConfig.Maths.Operation op;
+        private final long rhs;
+
+        Maths(DataProcessorConfig.Maths.Operation op, long rhs) {
+            this.op = op;
+            this.rhs = rhs;
+        }
+
+        @Override
+        int apply(long[] in, int n, long[] out) {
+            if ((op == DataProcessorConfig.Maths.Operation.DIVIDE || op == DataProcessorConfig.Maths.Operation.MODULUS) && rhs == 0) {
+                return -1;
+            }
+
+            for(int i = 0; i < n; i++) {
+                long value = in[i];
+                switch(op) {
+                    case ADD:
+                        out[i] = value + rhs;
+                        break;
+                    case MULTIPLY:
+                        out[i] = value * rhs;
+                        break;
+                    case DIVIDE:
+                        out[i] = value / rhs;
+                        break;
+                    case MODULUS:
+                        out[i] = value % rhs;
+                        break;
+                    case EXPONENT:
+                        out[i] = (long) Math.pow(value, rhs);
+                        break;
+                    case SQRT:
+                        out[i] = (long) Math.sqrt(Math.abs(value));
+                        break;
+                    case LEFT_SHIFT:
+                        out[i] = value << rhs;
+                        break;
+                    case RIGHT_SHIFT:
+                        out[i] = value >> rhs;
+                        break;
+                    case SUBTRACT:
+                        out[i] = value - rhs;
+                        break;
+                    case ABS_VALUE:
+                        out[i] = Math.abs(value);
+                        break;
+                    case CONSTANT:
+                        out[i] = rhs;
+                        break;
+                }
+            }
+            return op == DataProcessorConfig.Maths.Operation.CONSTANT ? 1 : n;
+        }
+    }
+
+    private static class MultiComparison extends HostProcessor {
+        private final Comparison op;
+        private final ComparisonOutput mode;
+        private final long[] references;
+
+        MultiComparison(Comparison op, ComparisonOutput mode, long[] references) {
+            this.op = op;
+            this.mode = mode;
+            this.references = references;
+        }
+
+        private boolean satisfies(long value, long reference) {
+            switch(op) {
+                case EQ:
+                    return value == reference;
+                case NEQ:
+                    return value != reference;
+                case LT:
+                    return value < reference;
+                case LTE:
+                    return value <= reference;
+                case GT:
+                    return value > reference;
+                case GTE:
+                    return value >= reference;
+            }
+            return false;
+        }
+
+        @Override
+        int apply(long[] in, int n, long[] out) {
+            int match = 0;
+            while(match < references.length && !satisfies(in[0], references[match])) {
+                match++;
+            }
+
+            switch(mode) {
+                case ABSOLUTE:
+                    if (match == references.length) {
+                        return -1;
+                    }
+                    out[0] = in[0];
+                    return 1;
+                case REFERENCE:
+                    if (match == references.length) {
+                        return -1;
+                    }
+                    out[0] = references[match];
+                    return 1;
+                case ZONE:
+                    out[0] = match;
+                    return 1;
+                case PASS_FAIL:
+                    out[0] = match < references.length ? 1 : 0;
+                    return 1;
+            }
+            return -1;
+        }
+    }
+
+    private static class Threshold extends HostProcessor {
+        private final ThresholdOutput mode;
+        private final long boundary, hysteresis;
+        // 1 if the previous value was above the boundary, -1 if below, 0 before the first value
+        private int side;
+
+        Threshold(ThresholdOutput mode, long boundary, long hysteresis) {
+            this.mode = mode;
+            this.boundary = boundary;
+            this.hysteresis = hysteresis;
+        }
+
+        @Override
+        int apply(long[] in, int n, long[] out) {
+            long value = in[0];
+            if (side == 0) {
+                side = value > boundary ? 1 : -1;
+                return -1;
+            }
+
+            if (side < 0 && value > boundary + hysteresis) {
+                side = 1;
+            } else if (side > 0 && value < boundary - hysteresis) {
+                side = -1;
+            } else {
+                return -1;
+            }
+
+            out[0] = mode == ThresholdOutput.BINARY ? side : value;
+            return 1;
+        }
+    }
+
+    private static class Differential extends HostProcessor {
+        private final DifferentialOutput mode;
+        private final long distance;
+        private boolean hasReference;
+        private long reference;
+
+        Differential(DifferentialOutput mode, long distance) {
+            this.mode = mode;
+            this.distance = distance;
+        }
+
+        @Override
+        int apply(long[] in, int n, long[] out) {
+            long value = in[0];
+            if (!hasReference) {
+                hasReference = true;
+                reference = value;
+                return -1;
+            }
+
+            long difference = value - reference;
+            if (Math.abs(difference) < distance) {
+                return -1;
+            }
+
+            reference = value;
+            switch(mode) {
+                case ABSOLUTE:
+                    out[0] = value;
+                    break;
+                case DIFFERENCE:
+                    out[0] = difference;
+                    break;
+                case BINARY:
+                    out[0] = difference > 0 ? 1 : -1;
+                    break;
+            }
+            return 1;
+        }
+    }
+
+    private static class Pulse extends HostProcessor {
+        private final PulseOutput mode;
+        private final long threshold;
+        private final int samples;
+        private long width, area, peak;
+
+        Pulse(PulseOutput mode, long threshold, int samples) {
+            this.mode = mode;
+            this.threshold = threshold;
+            this.samples = samples;
+        }
+
+        @Override
+        int apply(long[] in, int n, long[] out) {
+            long value = in[0];
+            if (value > threshold) {
+                peak = width == 0 ? value : Math.max(peak, value);
+                width++;
+                area += value;
+
+                if (mode == PulseOutput.ON_DETECT && width == Math.max(samples, 1)) {
+                    out[0] = 1;
+                    return 1;
+                }
+                return -1;
+            }
+
+            long pulseWidth = width, pulseArea = area, pulsePeak = peak;
+            width = 0;
+            area = 0;
+            if (pulseWidth < samples || mode == PulseOutput.ON_DETECT) {
+                return -1;
+            }
+
+            switch(mode) {
+                case WIDTH:
+                    out[0] = pulseWidth;
+                    break;
+                case AREA:
+                    out[0] = pulseArea;
+                    break;
+                case PEAK:
+                    out[0] = pulsePeak;
+                    break;
+            }
+            return 1;
+        }
+    }
+}
@@ -27,7 +27,6 @@ package com.mbientlab.metawear.impl;
 import com.mbientlab.metawear.Data;
 
 import java.nio.ByteBuffer;
-import java.util.Calendar;
 
 import static com.mbientlab.metawear.impl.Constant.Module.DATA_PROCESSOR;
 
@@ -56,7 +55,7 @@ class IntData extends DataTypeBase {
     }
 
     @Override
-    public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
+    public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
         final ByteBuffer buffer = Util.bytesToSIntBuffer(logData, data, attributes);
 
         return new DataPrivate(timestamp, data, mapper) {
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.Fleet;
+import com.mbientlab.metawear.MetaWearBoard;
+import com.mbientlab.metawear.Route;
+import com.mbientlab.metawear.builder.RouteBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import bolts.Task;
+
+/**
+ * Platform agnostic implementation of the {@link Fleet} interface, only relies on the public {@link MetaWearBoard} API
+ */
+public class JseFleet implements Fleet {
+    private static class RouteTemplate {
+        final ProducerSelector producer;
+        final RouteBuilder builder;
+
+        RouteTemplate(ProducerSelector producer, RouteBuilder builder) {
+            this.producer = producer;
+            this.builder = builder;
+        }
+    }
+
+    private final List<MetaWearBoard> boards;
+    private final List<Configurator> configurators = new ArrayList<>();
+    private final List<RouteTemplate> templates = new ArrayList<>();
+    private int concurrency = 4, retries = 3;
+    private ProgressHandler progressHandler;
+
+    // provisioning status
+    private int provisioned, failed;
+
+    public JseFleet(Collection<? extends MetaWearBoard> boards) {
+        this.boards = Collections.unmodifiableList(new ArrayList<>(boards));
+    }
+
+    @Override
+    public List<MetaWearBoard> boards() {
+        return boards;
+    }
+
+    @Override
+    public Fleet setConcurrency(int boards) {
+        if (boards < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+        concurrency = boards;
+        return this;
+    }
+
+    @Override
+    public Fleet setRetries(int retries) {
+        this.retries = retries;
+        return this;
+    }
+
+    @Override
+    public Fleet configure(Configurator configurator) {
+        configurators.add(configurator);
+        return this;
+    }
+
+    @Override
+    public Fleet addRouteTemplate(ProducerSelector producer, RouteBuilder builder) {
+        templates.add(new RouteTemplate(producer, builder));
+        return this;
+    }
+
+    @Override
+    public void onProgress(ProgressHandler handler) {
+        progressHandler = handler;
+    }
+
+    @Override
+    public Task<Result> provisionAsync() {
+        final long start = System.nanoTime();
+        final Queue<MetaWearBoard> remaining = new ConcurrentLinkedQueue<>(boards);
+        final Map<MetaWearBoard, Exception> failures = new ConcurrentHashMap<>();
+        final Map<MetaWearBoard, List<Route>> routes = new ConcurrentHashMap<>();
+        final List<Configurator> configurators = new ArrayList<>(this.configurators);
+        final List<RouteTemplate> templates = new ArrayList<>(this.templates);
+
+        synchronized (this) {
+            provisioned = 0;
+            failed = 0;
+        }
+
+        // each lane takes the next waiting board once its current one is done
+        final List<Task<Void>> lanes = new ArrayList<>();
+        for(int i = 0; i < Math.min(concurrency, boards.size()); i++) {
+            lanes.add(Task.forResult(null).continueWhile(() -> !remaining.isEmpty(), ignored -> {
+                final MetaWearBoard next = remaining.poll();
+                if (next == null) {
+                    return Task.forResult(null);
+                }
+
+                final List<Route> created = new ArrayList<>();
+                return provision(next, configurators, templates, created).continueWith(task -> {
+                    Exception error = task.isFaulted() ? task.getError() :
+                            (task.isCancelled() ? new IllegalStateException("Provisioning was cancelled") : null);
+                    if (error == null) {
+                        routes.put(next, Collections.unmodifiableList(created));
+                    } else {
+                        failures.put(next, error);
+                        // a half provisioned board should not keep the routes from the templates that did succeed
+                        for(Route it: created) {
+                            try {
+                                it.remove();
+                            } catch (RuntimeException e) {
+                                // the board is reported as failed either way
+                            }
+                        }
+                    }
+                    finished(next, error);
+                    return null;
+                });
+            }));
+        }
+
+        return Task.whenAll(lanes).continueWith(ignored -> {
+            final List<MetaWearBoard> succeeded = new ArrayList<>();
+            final Map<MetaWearBoard, Exception> orderedFailures = new LinkedHashMap<>();
+            final Map<MetaWearBoard, List<Route>> orderedRoutes = new LinkedHashMap<>();
+            for(MetaWearBoard it: boards) {
+                if (routes.containsKey(it)) {
+                    succeeded.add(it);
+                    orderedRoutes.put(it, routes.get(it));
+                } else if (failures.containsKey(it)) {
+                    orderedFailures.put(it, failures.get(it));
+                } else {
+                    orderedFailures.put(it, new IllegalStateException("Board was not provisioned"));
+                }
+            }
+
+            return new Result(Collections.unmodifiableList(succeeded), Collections.unmodifiableMap(orderedFailures),
+                    Collections.unmodifiableMap(orderedRoutes), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        });
+    }
+
+    private Task<Void> provision(MetaWearBoard board, List<Configurator> configurators, List<RouteTemplate> templates, List<Route> created) {
+        Task<Void> task = board.connectWithRetryAsync(retries);
+        for(Configurator it: configurators) {
+            task = task.onSuccessTask(ignored -> it.configure(board));
+        }
+        for(RouteTemplate it: templates) {
+            task = task.onSuccessTask(ignored -> it.producer.select(board).addRouteAsync(it.builder))
+                    .onSuccess(route -> {
+                        created.add(route.getResult());
+                        return null;
+                    });
+        }
+        return task;
+    }
+
+    private void finished(MetaWearBoard board, Exception error) {
+        final Progress progress;
+        synchronized (this) {
+            if (error == null) {
+                provisioned++;
+            } else {
+                failed++;
+            }
+            progress = new Progress(boards.size(), provisioned, failed, board, error);
+        }
+
+        ProgressHandler handler = progressHandler;
+        if (handler != null) {
+            try {
+                handler.progress(progress);
+            } catch (RuntimeException ignored) {
+                // a failing handler must not stop the lane from provisioning its remaining boards
+            }
+        }
+    }
+
+    @Override
+    public Task<Void> disconnectAsync() {
+        final List<Task<Void>> tasks = new ArrayList<>();
+        for(MetaWearBoard it: boards) {
+            tasks.add(it.disconnectAsync());
+        }
+        return Task.whenAll(tasks);
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.LogDecoder;
+import com.mbientlab.metawear.impl.LoggingImpl.DataLogger;
+import com.mbientlab.metawear.impl.platform.BtleGatt;
+import com.mbientlab.metawear.impl.platform.IO;
+import com.mbientlab.metawear.module.Logging;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.InvalidObjectException;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import bolts.Task;
+
+/**
+ * Platform agnostic implementation of the {@link LogDecoder} interface.  The readout packets are split into one
+ * partition per logger when the dump is read, and each decode restores the board state again so the partial samples
+ * saved in the state are merged the same way every time.
+ */
+public class JseLogDecoder implements LogDecoder {
+    private static final int ENTRY_SIZE = 9;
+
+    private static final IO OFFLINE_IO = new IO() {
+        @Override
+        public void localSave(String key, byte[] data) { }
+
+        @Override
+        public InputStream localRetrieve(String key) {
+            return null;
+        }
+
+        @Override
+        public Task<File> downloadFileAsync(String srcUrl, String dest) {
+            return Task.forError(new UnsupportedOperationException("Cannot download files while decoding a log dump"));
+        }
+
+        @Override
+        public File findDownloadedFile(String filename) {
+            return null;
+        }
+
+        @Override
+        public void logWarn(String tag, String message) { }
+
+        @Override
+        public void logWarn(String tag, String message, Throwable tr) { }
+    };
+
+    /**
+     * Log entries of one logger, in readout order
+     */
+    private static final class Partition {
+        final byte logId;
+        final String producer;
+        private byte[] entries = new byte[ENTRY_SIZE << 6];
+        private int size;
+
+        Partition(byte logId, String producer) {
+            this.logId = logId;
+            this.producer = producer;
+        }
+
+        void add(byte[] packet, int offset) {
+            if ((size + 1) * ENTRY_SIZE > entries.length) {
+                entries = Arrays.copyOf(entries, entries.length << 1);
+            }
+            System.arraycopy(packet, offset, entries, size * ENTRY_SIZE, ENTRY_SIZE);
+            size++;
+        }
+
+        long decode(LoggingImpl logging, DataHandler handler) {
+            final DataLogger logger = logging.lookupLogger(logId);
+            final long[] decoded = new long[1];
+
+            logger.subscriber = (data, env) -> {
+                handler.receivedData(producer, data);
+                decoded[0]++;
+            };
+            replay(logging, logger);
+            return decoded[0];
+        }
+
+        long decodeBatches(LoggingImpl logging, BatchHandler handler) {
+            final DataLogger logger = logging.lookupLogger(logId);
+            final long[] decoded = new long[1];
+
+            logger.subscriber = new BatchSubscriberAdapter((batch, env) -> {
+                handler.receivedBatch(producer, batch);
+                decoded[0] += batch.size();
+            });
+            replay(logging, logger);
+            logger.flushBatch();
+            return decoded[0];
+        }
+
+        private void replay(LoggingImpl logging, DataLogger logger) {
+            final LoggingImpl.TickClock clock = logging.new TickClock();
+            for(int i = 0; i < size; i++) {
+                final int offset = i * ENTRY_SIZE;
+                final byte id = (byte) (entries[offset] & 0x1f), resetUid = (byte) (((entries[offset] & ~0x1f) >> 5) & 0x7);
+                final long tick = (entries[offset + 1] & 0xffL) | (entries[offset + 2] & 0xffL) << 8 |
+                        (entries[offset + 3] & 0xffL) << 16 | (entries[offset + 4] & 0xffL) << 24;
+
+                if (!clock.delivered(resetUid, tick)) {
+                    logger.handleLogMessage(logging.mwPrivate, id, clock.epochMillis(resetUid, tick), null, entries, offset + 5, null);
+                }
+            }
+        }
+    }
+
+    private static LoggingImpl restore(byte[] state) throws IOException {
+        BtleGatt gatt = (BtleGatt) Proxy.newProxyInstance(BtleGatt.class.getClassLoader(), new Class<?>[] {BtleGatt.class},
+                (proxy, method, args) -> method.getReturnType() == boolean.class ? false : null);
+        JseMetaWearBoard board = new JseMetaWearBoard(gatt, OFFLINE_IO, "00:00:00:00:00:00", "0.0.0");
+
+        try {
+            board.deserialize(new ByteArrayInputStream(state));
+        } catch (ClassNotFoundException e) {
+            throw new InvalidClassException(e.getMessage());
+        }
+
+        LoggingImpl logging = (LoggingImpl) board.getModule(Logging.class);
+        if (logging == null) {
+            throw new InvalidObjectException("Board state does not have the logging module");
+        }
+        return logging;
+    }
+
+    private final byte[] state;
+    private final int parallelism;
+    private final List<Partition> partitions = new ArrayList<>();
+    private long unknownEntries;
+
+    /**
+     * Reads a log dump, decoding the loggers on as many threads as there are processors
+     * @param dump    Stream to read the dump from, read until the end
+     * @throws IOException If the stream cannot be read or is not a log dump
+     */
+    public JseLogDecoder(InputStream dump) throws IOException {
+        this(dump, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Reads a log dump
+     * @param dump           Stream to read the dump from, read until the end
+     * @param parallelism    Maximum number of loggers to decode at the same time
+     * @throws IOException If the stream cannot be read or is not a log dump
+     */
+    public JseLogDecoder(InputStream dump, int parallelism) throws IOException {
+        this.parallelism = Math.max(1, parallelism);
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(dump));
+        if (in.readInt() != LoggingImpl.DUMP_MAGIC) {
+            throw new StreamCorruptedException("Not a log dump");
+        }
+        short version = in.readShort();
+        if (version > LoggingImpl.DUMP_VERSION) {
+            throw new InvalidObjectException(String.format(Locale.US, "Unsupported log dump version: %d", version));
+        }
+        state = new byte[in.readInt()];
+        in.readFully(state);
+
+        readPackets(in);
+    }
+
+    /**
+     * Reads readout packets captured separately from the board state
+     * @param state          Board state written by {@link com.mbientlab.metawear.MetaWearBoard#serialize(java.io.OutputStream)}
+     *                       before the log was downloaded
+     * @param packets        Readout packets, each prefixed with its length in one byte, read until the end
+     * @param parallelism    Maximum number of loggers to decode at the same time
+     * @throws IOException If the state cannot be restored or the packets cannot be read
+     */
+    public JseLogDecoder(byte[] state, InputStream packets, int parallelism) throws IOException {
+        this.parallelism = Math.max(1, parallelism);
+        this.state = state;
+
+        readPackets(new DataInputStream(new BufferedInputStream(packets)));
+    }
+
+    private void readPackets(DataInputStream in) throws IOException {
+        final LoggingImpl logging = restore(state);
+        final Map<DataLogger, Partition> byLogger = new IdentityHashMap<>();
+        final byte[] packet = new byte[255];
+        int length;
+        while((length = in.read()) != -1) {
+            try {
+                in.readFully(packet, 0, length);
+            } catch (EOFException e) {
+                // the dump was cut off mid packet, decode what was written
+                break;
+            }
+
+            for(int offset = 2; offset + ENTRY_SIZE <= length; offset += ENTRY_SIZE) {
+                byte logId = (byte) (packet[offset] & 0x1f);
+                DataLogger logger = logging.lookupLogger(logId);
+                if (logger == null) {
+                    unknownEntries++;
+                    continue;
+                }
+
+                Partition partition = byLogger.get(logger);
+                if (partition == null) {
+                    partition = new Partition(logId, Util.createProducerChainString(logger.source, logging.mwPrivate));
+                    byLogger.put(logger, partition);
+                    partitions.add(partition);
+                }
+                partition.add(packet, offset);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of entries that did not belong to any logger in the board state
+     * @return Number of unknown entries
+     */
+    public long unknownEntries() {
+        return unknownEntries;
+    }
+
+    @Override
+    public Set<String> producers() {
+        Set<String> producers = new HashSet<>();
+        for(Partition it: partitions) {
+            producers.add(it.producer);
+        }
+        return Collections.unmodifiableSet(producers);
+    }
+
+    @Override
+    public Task<Long> decodeAsync(final DataHandler handler) {
+        return decodePartitionsAsync((partition, logging) -> partition.decode(logging, handler));
+    }
+
+    @Override
+    public Task<Long> decodeBatchesAsync(final BatchHandler handler) {
+        return decodePartitionsAsync((partition, logging) -> partition.decodeBatches(logging, handler));
+    }
+
+    private interface PartitionDecoder {
+        long decode(Partition partition, LoggingImpl logging);
+    }
+
+    private Task<Long> decodePartitionsAsync(final PartitionDecoder decoder) {
+        if (partitions.isEmpty()) {
+            return Task.forResult(0L);
+        }
+
+        final LoggingImpl logging;
+        try {
+            logging = restore(state);
+        } catch (IOException e) {
+            return Task.forError(e);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, partitions.size()));
+        final List<Task<Long>> tasks = new ArrayList<>();
+        for(final Partition it: partitions) {
+            tasks.add(Task.call(() -> decoder.decode(it, logging), executor));
+        }
+
+        return Task.whenAllResult(tasks).continueWithTask(task -> {
+            executor.shutdown();
+            if (task.isFaulted()) {
+                return Task.forError(task.getError());
+            }
+
+            long total = 0;
+            for(long it: task.getResult()) {
+                total += it;
+            }
+            return Task.forResult(total);
+        });
+    }
+}
@@ -87,32 +87,39 @@ import com.mbientlab.metawear.module.Timer.ScheduledTask;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import bolts.CancellationTokenSource;
 import bolts.Capture;
@@ -155,6 +162,61 @@ public class JseMetaWearBoard implements MetaWearBoard {
         final HashMap<Constant.Module, ModuleInfo> moduleInfo= new HashMap<>();
         Version firmware= new Version(0, 0, 0);
         String modelNumber= null, hardwareRevision= null;
+
+        static void write(BoardSnapshot.Writer out, BoardInfo info) throws IOException {
+            out.writeBoolean(info != null);
+            if (info == null) {
+                return;
+            }
+
+            out.writeVarInt(info.firmware.major);
+            out.writeVarInt(info.firmware.minor);
+            out.writeVarInt(info.firmware.step);
+            out.writeString(info.firmware.preRelease);
+            out.writeString(info.modelNumber);
+            out.writeString(info.hardwareRevision);
+
+            // written in discovery order so modules are created in the same order when the state is restored
+            out.writeVarInt(info.moduleInfo.size());
+            for(ModuleInfo it: new TreeMap<>(info.moduleInfo).values()) {
+                out.writeByte(it.id);
+                out.writeByte(it.implementation);
+                out.writeByte(it.revision);
+                out.writeBytes(it.extra);
+            }
+        }
+
+        static BoardInfo read(BoardSnapshot.Reader in) throws IOException {
+            if (!in.readBoolean()) {
+                return null;
+            }
+
+            BoardInfo info = new BoardInfo();
+            info.firmware = new Version(in.readVarInt(), in.readVarInt(), in.readVarInt(), in.readString());
+            info.modelNumber = in.readString();
+            info.hardwareRevision = in.readString();
+
+            for(int i = in.readVarInt(); i > 0; i--) {
+                byte id = in.readByte(), implementation = in.readByte(), revision = in.readByte();
+                byte[] extra = in.readBytes();
+                if (extra == null) {
+                    extra = new byte[0];
+                }
+
+                byte[] response = new byte[4 + extra.length];
+                response[0] = id;
+                response[1] = READ_INFO_REGISTER;
+                response[2] = implementation;
+                response[3] = revision;
+                System.arraycopy(extra, 0, response, 4, extra.length);
+
+                Constant.Module module = Constant.Module.lookupEnum(id);
+                if (module != null) {
+                    info.moduleInfo.put(module, new ModuleInfo(response));
+                }
+            }
+            return info;
+        }
     }
     private static class PersistentData implements Serializable {
         private static final long serialVersionUID = -6736797000323634463L;
@@ -165,14 +227,25 @@ public class JseMetaWearBoard implements MetaWearBoard {
         final HashMap<Integer, ObserverInner> activeEventManagers= new HashMap<>();
         final HashMap<String, DataTypeBase> taggedProducers= new HashMap<>();
         final LinkedHashMap<Class<? extends Module>, Module> modules= new LinkedHashMap<>();
+        // read only view returned by getModules, which data types call for every sample they decode
+        private transient Map<Class<? extends Module>, Module> modulesView;
 
         PersistentData() {
             routeIdCounter= 0;
         }
+
+        Map<Class<? extends Module>, Module> modulesView() {
+            if (modulesView == null) {
+                modulesView = Collections.unmodifiableMap(modules);
+            }
+            return modulesView;
+        }
     }
 
     // Persistent data
     private PersistentData persist= new PersistentData();
+    // restored snapshot whose modules, producers, and routes have not been decoded yet, see persist()
+    private volatile BoardSnapshot.Reader pendingSnapshot;
 
     // routes
     private final Queue<Tuple3<RouteBuilder, ? extends RouteComponentImpl, TaskCompletionSource<Route>>> pendingRoutes= new ConcurrentLinkedQueue<>();
@@ -185,9 +258,8 @@ public class JseMetaWearBoard implements MetaWearBoard {
     private EventImpl event;
     private MacroImpl macro;
 
-    private final HashSet<Pair<Byte, Byte>> dataIdHeaders= new HashSet<>();
-    private final Map<Tuple3<Byte, Byte, Byte>, LinkedHashSet<RegisterResponseHandler>> dataHandlers= new HashMap<>();
-    private final Map<Pair<Byte, Byte>, RegisterResponseHandler> registerResponseHandlers= new HashMap<>();
+    private final NotificationDispatcher dispatcher= new NotificationDispatcher();
+    private final MonotonicClock clock = new MonotonicClock();
 
     private final String macAddress, libVersion;
     private final IO io;
@@ -195,6 +267,10 @@ public class JseMetaWearBoard implements MetaWearBoard {
 
     // module discovery
     private TimedTask<byte[]> readModuleInfoTask;
+    private volatile boolean concurrentDiscovery = false;
+    private volatile boolean localProcessorFallback = false;
+    // outstanding reads keyed by module id, only set while modules are discovered concurrently
+    private volatile Map<Byte, TimedTask<byte[]>> pendingModuleInfo;
 
     // Device Information
     private String serialNumber, manufacturer;
@@ -204,6 +280,13 @@ public class JseMetaWearBoard implements MetaWearBoard {
     private UnexpectedDisconnectHandler unexpectedDcHandler;
     private Task<Void> connectTask = null;
     private boolean connected;
+    private volatile boolean fastReconnect = false;
+
+    // connect timing, in System.nanoTime() units
+    private boolean fastPath;
+    private long connectStart, connectReady;
+    private volatile boolean awaitingFirstSample;
+    private volatile long firstSample;
 
     private final MetaWearBoardPrivate mwPrivate = new MetaWearBoardPrivate() {
         @Override
@@ -259,72 +342,67 @@ public class JseMetaWearBoard implements MetaWearBoard {
 
         @Override
         public void tagProducer(String name, DataTypeBase producer) {
-            persist.taggedProducers.put(name, producer);
+            persist().taggedProducers.put(name, producer);
         }
 
         @Override
         public DataTypeBase lookupProducer(String name) {
-            return persist.taggedProducers.get(name);
+            return persist().taggedProducers.get(name);
         }
 
         @Override
         public boolean hasProducer(String name) {
-            return persist.taggedProducers.containsKey(name);
+            return persist().taggedProducers.containsKey(name);
         }
 
         @Override
         public void removeProducerTag(String name) {
-            persist.taggedProducers.remove(name);
+            persist().taggedProducers.remove(name);
         }
 
         @Override
         public ModuleInfo lookupModuleInfo(Constant.Module id) {
-            return persist.boardInfo.moduleInfo.get(id);
+            return persist().boardInfo.moduleInfo.get(id);
         }
 
         @Override
         public Collection<DataTypeBase> getDataTypes() {
-            return persist.taggedProducers.values();
+            return persist().taggedProducers.values();
         }
 
         @Override
         public Map<Class<? extends Module>, Module> getModules() {
-            return Collections.unmodifiableMap(persist.modules);
+            return persist().modulesView();
         }
 
         @Override
         public void addResponseHandler(Pair<Byte, Byte> key, RegisterResponseHandler handler) {
-            registerResponseHandlers.put(key, handler);
+            dispatcher.addResponseHandler(key.first, key.second, handler);
         }
 
         @Override
         public void addDataIdHeader(Pair<Byte, Byte> key) {
-            dataIdHeaders.add(key);
+            dispatcher.addDataIdHeader(key.first, key.second);
         }
 
         @Override
         public void addDataHandler(Tuple3<Byte, Byte, Byte> key, RegisterResponseHandler handler) {
-            if (!dataHandlers.containsKey(key)) {
-                dataHandlers.put(key, new LinkedHashSet<>());
-            }
-            dataHandlers.get(key).add(handler);
+            dispatcher.addDataHandler(key.first, key.second, key.third, handler);
         }
 
         @Override
         public void removeDataHandler(Tuple3<Byte, Byte, Byte> key, RegisterResponseHandler handler) {
-            if (dataHandlers.containsKey(key) && dataHandlers.get(key).contains(handler)) {
-                dataHandlers.get(key).remove(handler);
-            }
+            dispatcher.removeDataHandler(key.first, key.second, key.third, handler);
         }
 
         @Override
         public int numDataHandlers(Tuple3<Byte, Byte, Byte> key) {
-            return dataHandlers.containsKey(key) ? dataHandlers.get(key).size() : 0;
+            return dispatcher.numDataHandlers(key.first, key.second, key.third);
         }
 
         @Override
         public void removeRoute(int id) {
-            persist.activeRoutes.remove(id);
+            persist().activeRoutes.remove(id);
         }
 
         @Override
@@ -334,14 +412,14 @@ public class JseMetaWearBoard implements MetaWearBoard {
 
         @Override
         public void removeEventManager(int id) {
-            persist.activeEventManagers.remove(id);
+            persist().activeEventManagers.remove(id);
         }
 
         @Override
         public Task<Route> queueRouteBuilder(RouteBuilder builder, String producerTag) {
             TaskCompletionSource<Route> taskSrc= new TaskCompletionSource<>();
-            if (persist.taggedProducers.containsKey(producerTag)) {
-                pendingRoutes.add(new Tuple3<>(builder, new RouteComponentImpl(persist.taggedProducers.get(producerTag)), taskSrc));
+            if (persist().taggedProducers.containsKey(producerTag)) {
+                pendingRoutes.add(new Tuple3<>(builder, new RouteComponentImpl(persist().taggedProducers.get(producerTag)), taskSrc));
                 routeTypes.add(RouteType.DATA);
                 createRoute(false);
             } else {
@@ -373,9 +451,42 @@ public class JseMetaWearBoard implements MetaWearBoard {
             io.logWarn(LOG_TAG, message);
         }
 
+        @Override
+        public void serializeState(OutputStream outs) throws IOException {
+            serialize(outs, false);
+        }
+
+        @Override
+        public void localSave(String key, byte[] data) throws IOException {
+            io.localSave(key, data);
+        }
+
+        @Override
+        public InputStream localRetrieve(String key) throws IOException {
+            return io.localRetrieve(key);
+        }
+
+        @Override
+        public long receivedEpochMillis() {
+            return clock.receivedEpochMillis();
+        }
+
+        @Override
+        public void receivedSample() {
+            if (awaitingFirstSample) {
+                awaitingFirstSample = false;
+                firstSample = System.nanoTime();
+            }
+        }
+
+        @Override
+        public NotificationDispatcher.DecodedSamples decodedSamples() {
+            return dispatcher.decoded;
+        }
+
         @Override
         public Version getFirmwareVersion() {
-            return persist.boardInfo.firmware;
+            return persist().boardInfo.firmware;
         }
     };
 
@@ -396,7 +507,7 @@ public class JseMetaWearBoard implements MetaWearBoard {
             @Override
             public void onDisconnect() {
                 connected = false;
-                for(Module it: persist.modules.values()) {
+                for(Module it: persist().modules.values()) {
                     ((ModuleImplBase) it).disconnected();
                 }
             }
@@ -413,26 +524,26 @@ public class JseMetaWearBoard implements MetaWearBoard {
     }
 
     public String getFirmware() {
-        return persist.boardInfo.firmware.toString();
+        return persist().boardInfo.firmware.toString();
     }
 
     public String getModelNumber() {
-        return persist.boardInfo.modelNumber;
+        return persist().boardInfo.modelNumber;
     }
     
     @Override
     public Model getModel() {
-        if (persist.boardInfo.modelNumber == null) {
+        if (persist().boardInfo.modelNumber == null) {
             return null;
         }
 
-        boolean hasModuleInfo = !(inMetaBootMode() || persist.boardInfo.moduleInfo.isEmpty());
-        switch(persist.boardInfo.modelNumber) {
+        boolean hasModuleInfo = !(inMetaBootMode() || persist().boardInfo.moduleInfo.isEmpty());
+        switch(persist().boardInfo.modelNumber) {
             case "0":
                 return Model.METAWEAR_R;
             case "1":
                 if (hasModuleInfo) {
-                    if (persist.boardInfo.moduleInfo.get(Constant.Module.BAROMETER).present() && persist.boardInfo.moduleInfo.get(Constant.Module.AMBIENT_LIGHT).present()) {
+                    if (persist().boardInfo.moduleInfo.get(Constant.Module.BAROMETER).present() && persist().boardInfo.moduleInfo.get(Constant.Module.AMBIENT_LIGHT).present()) {
                         return Model.METAWEAR_RPRO;
                     }
                     return Model.METAWEAR_RG;
@@ -442,19 +553,19 @@ public class JseMetaWearBoard implements MetaWearBoard {
                 if (!hasModuleInfo) {
                     return null;
                 }
-                if (persist.boardInfo.moduleInfo.get(Constant.Module.MAGNETOMETER).present()) {
+                if (persist().boardInfo.moduleInfo.get(Constant.Module.MAGNETOMETER).present()) {
                     return Model.METAWEAR_CPRO;
                 }
-                switch(persist.boardInfo.moduleInfo.get(Constant.Module.ACCELEROMETER).implementation) {
+                switch(persist().boardInfo.moduleInfo.get(Constant.Module.ACCELEROMETER).implementation) {
                     case AccelerometerBmi270Impl.IMPLEMENTATION:
                         return Model.METAMOTION_S;
                     case AccelerometerBmi160Impl.IMPLEMENTATION:
                         return Model.METAWEAR_C;
                     case AccelerometerBma255Impl.IMPLEMENTATION:
-                        if (persist.boardInfo.moduleInfo.get(Constant.Module.PROXIMITY).present()) {
+                        if (persist().boardInfo.moduleInfo.get(Constant.Module.PROXIMITY).present()) {
                             return Model.METADETECT;
                         }
-                        if (persist.boardInfo.moduleInfo.get(Constant.Module.HUMIDITY).present()) {
+                        if (persist().boardInfo.moduleInfo.get(Constant.Module.HUMIDITY).present()) {
                             return Model.METAENV;
                         }
                         return null;
@@ -466,7 +577,7 @@ public class JseMetaWearBoard implements MetaWearBoard {
             case "4":
                 return Model.METATRACKER;
             case "5":
-                if (persist.boardInfo.moduleInfo.get(Constant.Module.AMBIENT_LIGHT).present()) {
+                if (persist().boardInfo.moduleInfo.get(Constant.Module.AMBIENT_LIGHT).present()) {
                     return Model.METAMOTION_R;
                 } else {
                     return Model.METAMOTION_RL;
@@ -536,8 +647,8 @@ public class JseMetaWearBoard implements MetaWearBoard {
     @Override
     public Task<DeviceInformation> readDeviceInformationAsync() {
         if (serialNumber != null && manufacturer != null) {
-            return Task.forResult(new DeviceInformation(manufacturer, persist.boardInfo.modelNumber, serialNumber,
-                    persist.boardInfo.firmware.toString(), persist.boardInfo.hardwareRevision));
+            return Task.forResult(new DeviceInformation(manufacturer, persist().boardInfo.modelNumber, serialNumber,
+                    persist().boardInfo.firmware.toString(), persist().boardInfo.hardwareRevision));
         }
         return gatt.readCharacteristicAsync(new BtleGattCharacteristic[] {
                 DeviceInformationService.SERIAL_NUMBER,
@@ -546,15 +657,15 @@ public class JseMetaWearBoard implements MetaWearBoard {
             serialNumber = new String(task.getResult()[0]);
             manufacturer = new String(task.getResult()[1]);
 
-            return Task.forResult(new DeviceInformation(manufacturer, persist.boardInfo.modelNumber, serialNumber,
-                    persist.boardInfo.firmware.toString(), persist.boardInfo.hardwareRevision));
+            return Task.forResult(new DeviceInformation(manufacturer, persist().boardInfo.modelNumber, serialNumber,
+                    persist().boardInfo.firmware.toString(), persist().boardInfo.hardwareRevision));
         });
     }
 
     private String generateFileName(String build, Version version, String filename) {
         return String.format(Locale.US, "%s_%s_%s_%s_%s",
-                persist.boardInfo.hardwareRevision,
-                persist.boardInfo.modelNumber,
+                persist().boardInfo.hardwareRevision,
+                persist().boardInfo.modelNumber,
                 build, version.toString(), filename
         );
     }
@@ -562,8 +673,8 @@ public class JseMetaWearBoard implements MetaWearBoard {
     private Task<File> downloadFirmwareFile(String build, Version version, String filename) {
         String dlUrl = String.format(Locale.US, "%s/metawear/%s/%s/%s/%s/%s",
                 RELEASES_URL,
-                persist.boardInfo.hardwareRevision,
-                persist.boardInfo.modelNumber,
+                persist().boardInfo.hardwareRevision,
+                persist().boardInfo.modelNumber,
                 build, version.toString(), filename
         );
 
@@ -602,10 +713,10 @@ public class JseMetaWearBoard implements MetaWearBoard {
 
     @Override
     public Task<List<File>> downloadFirmwareUpdateFilesAsync(final String version) {
-        if (persist.boardInfo.hardwareRevision == null) {
+        if (persist().boardInfo.hardwareRevision == null) {
             return Task.forError(new IllegalStateException("Hardware revision unavailable"));
         }
-        if (persist.boardInfo.modelNumber == null) {
+        if (persist().boardInfo.modelNumber == null) {
             return Task.forError(new IllegalStateException("Model number unavailable"));
         }
         if (!connected) {
@@ -613,10 +724,10 @@ public class JseMetaWearBoard implements MetaWearBoard {
         }
 
         return retrieveInfoJson().onSuccessTask(task -> {
-            JSONObject models= task.getResult().getJSONObject(persist.boardInfo.hardwareRevision);
-            JSONObject builds = models.getJSONObject(persist.boardInfo.modelNumber);
+            JSONObject models= task.getResult().getJSONObject(persist().boardInfo.hardwareRevision);
+            JSONObject builds = models.getJSONObject(persist().boardInfo.modelNumber);
 
-            ModuleInfo mInfo = persist.boardInfo.moduleInfo.get(Constant.Module.SETTINGS);
+            ModuleInfo mInfo = persist().boardInfo.moduleInfo.get(Constant.Module.SETTINGS);
             String build = mInfo != null && mInfo.extra.length >= 2 && mInfo.extra[1] != 0 ? String.format(Locale.US, "%d", ((short) mInfo.extra[1] & 0xff)) : DEFAULT_FIRMWARE_BUILD;
 
             Pair<JSONObject, Version> result = findFirmwareAttrs(builds.getJSONObject(build), version);
@@ -629,7 +740,7 @@ public class JseMetaWearBoard implements MetaWearBoard {
             }
 
             Version reqBl = new Version(result.first.getString("required-bootloader"));
-            final Version currBl = !inMetaBootMode() ? (persist.boardInfo.firmware.compareTo(BOOTLOADER_CUTOFF) < 0 ? OLD_BOOTLOADER : NEW_BOOTLOADER) : persist.boardInfo.firmware;
+            final Version currBl = !inMetaBootMode() ? (persist().boardInfo.firmware.compareTo(BOOTLOADER_CUTOFF) < 0 ? OLD_BOOTLOADER : NEW_BOOTLOADER) : persist().boardInfo.firmware;
             if (currBl.compareTo(reqBl) > 0) {
                 throw new IllegalFirmwareFile(String.format(Locale.US, "Cannot use firmware v'%s' with this board", result.second.toString()));
             }
@@ -664,10 +775,10 @@ public class JseMetaWearBoard implements MetaWearBoard {
 
     @Override
     public Task<List<File>> downloadFirmwareUpdateFilesAsyncV2(final String version) {
-        if (persist.boardInfo.hardwareRevision == null) {
+        if (persist().boardInfo.hardwareRevision == null) {
             return Task.forError(new IllegalStateException("Hardware revision unavailable"));
         }
-        if (persist.boardInfo.modelNumber == null) {
+        if (persist().boardInfo.modelNumber == null) {
             return Task.forError(new IllegalStateException("Model number unavailable"));
         }
         if (!connected) {
@@ -679,7 +790,7 @@ public class JseMetaWearBoard implements MetaWearBoard {
         final Capture<Info2> info = new Capture<>();
         final Capture<List<File>> files = new Capture<>(new ArrayList<>());
         return retrieveInfoJson().onSuccessTask(task -> {
-            ModuleInfo mInfo = persist.boardInfo.moduleInfo.get(Constant.Module.SETTINGS);
+            ModuleInfo mInfo = persist().boardInfo.moduleInfo.get(Constant.Module.SETTINGS);
             String build = mInfo != null && mInfo.extra.length >= 2 && mInfo.extra[1] != 0 ?
                     String.format(Locale.US, "%d", ((short) mInfo.extra[1] & 0xff)) :
                     DEFAULT_FIRMWARE_BUILD;
@@ -687,8 +798,8 @@ public class JseMetaWearBoard implements MetaWearBoard {
             info.set(new Info2(task.getResult(), libVersion));
             firmware.set(
                     version != null ?
-                    info.get().findFirmwareImage(persist.boardInfo.hardwareRevision, persist.boardInfo.modelNumber, build, version) :
-                    info.get().findFirmwareImage(persist.boardInfo.hardwareRevision, persist.boardInfo.modelNumber, build)
+                    info.get().findFirmwareImage(persist().boardInfo.hardwareRevision, persist().boardInfo.modelNumber, build, version) :
+                    info.get().findFirmwareImage(persist().boardInfo.hardwareRevision, persist().boardInfo.modelNumber, build)
             );
 
             return downloadFirmwareFile(build, new Version(firmware.get().version), firmware.get().filename);
@@ -707,9 +818,9 @@ public class JseMetaWearBoard implements MetaWearBoard {
             }
 
             List<Image> bootloaders = info.get().findBootloaderImages(
-                    persist.boardInfo.hardwareRevision,
-                    persist.boardInfo.modelNumber,
-                    persist.boardInfo.firmware.toString(),
+                    persist().boardInfo.hardwareRevision,
+                    persist().boardInfo.modelNumber,
+                    persist().boardInfo.firmware.toString(),
                     firmware.get().requiredBootloader
             );
             dcTask.set(disconnectAsync());
@@ -761,10 +872,10 @@ public class JseMetaWearBoard implements MetaWearBoard {
     }
     @Override
     public Task<String> findLatestAvailableFirmwareAsync() {
-        if (persist.boardInfo.hardwareRevision == null) {
+        if (persist().boardInfo.hardwareRevision == null) {
             return Task.forError(new IllegalStateException("Hardware revision unavailable"));
         }
-        if (persist.boardInfo.modelNumber == null) {
+        if (persist().boardInfo.modelNumber == null) {
             return Task.forError(new IllegalStateException("Model number unavailable"));
         }
 
@@ -775,14 +886,14 @@ public class JseMetaWearBoard implements MetaWearBoard {
             return Task.forError(new IllegalStateException("Cannot determine if newer firmware is available for MetaBoot boards"));
         }
         return retrieveInfoJson().onSuccessTask(task -> {
-            JSONObject models= task.getResult().getJSONObject(persist.boardInfo.hardwareRevision);
-            JSONObject builds = models.getJSONObject(persist.boardInfo.modelNumber);
+            JSONObject models= task.getResult().getJSONObject(persist().boardInfo.hardwareRevision);
+            JSONObject builds = models.getJSONObject(persist().boardInfo.modelNumber);
 
-            ModuleInfo info = persist.boardInfo.moduleInfo.get(Constant.Module.SETTINGS);
+            ModuleInfo info = persist().boardInfo.moduleInfo.get(Constant.Module.SETTINGS);
             String build = info != null && info.extra.length >= 2 && info.extra[1] != 0 ? String.format(Locale.US, "%d", info.extra[1]) : DEFAULT_FIRMWARE_BUILD;
 
             Pair<JSONObject, Version> result = findFirmwareAttrs(builds.getJSONObject(build), null);
-            return Task.forResult(result.second.compareTo(persist.boardInfo.firmware) > 0 ? result.second.toString() : null);
+            return Task.forResult(result.second.compareTo(persist().boardInfo.firmware) > 0 ? result.second.toString() : null);
         });
     }
 
@@ -808,7 +919,7 @@ public class JseMetaWearBoard implements MetaWearBoard {
     }
 
     public void loadBoardAttributes() throws IOException, ClassNotFoundException {
-        if (persist.boardInfo == null) {
+        if (persist().boardInfo == null) {
             InputStream ins = io.localRetrieve(BOARD_INFO);
             if (ins != null) {
 //                try( BufferedReader br =
@@ -823,19 +934,23 @@ public class JseMetaWearBoard implements MetaWearBoard {
 //                    System.out.println(sb.toString());
 //                }
 
-                ObjectInputStream ois = new ObjectInputStream(ins);
-                BoardInfo boardInfoState = (BoardInfo) ois.readObject();
+                byte[] state = BoardSnapshot.readFully(ins);
+                BoardInfo boardInfoState;
+                if (BoardSnapshot.isLegacy(state)) {
+                    ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(state));
+                    boardInfoState = (BoardInfo) ois.readObject();
+                } else {
+                    boardInfoState = BoardInfo.read(new BoardSnapshot.Reader(state, mwPrivate));
+                }
 
                 if (boardInfoState != null) {
-                    persist.boardInfo = boardInfoState;
-                    for (ModuleInfo it : boardInfoState.moduleInfo.values()) {
-                        instantiateModule(it);
-                    }
+                    persist().boardInfo = boardInfoState;
+                    instantiateModules(boardInfoState);
                 } else {
-                    persist.boardInfo = new BoardInfo();
+                    persist().boardInfo = new BoardInfo();
                 }
             } else {
-                persist.boardInfo = new BoardInfo();
+                persist().boardInfo = new BoardInfo();
             }
         }
     }
@@ -851,6 +966,10 @@ public class JseMetaWearBoard implements MetaWearBoard {
             }
         }
 
+        if (concurrentDiscovery) {
+            return discoverModulesConcurrently(modules);
+        }
+
         return Task.forResult(null).continueWhile(() -> !terminate.get() && !modules.isEmpty(), ignored -> {
             final Constant.Module next = modules.poll();
             return readModuleInfoTask.execute("Did not receive info for module (" + next.friendlyName + ") within %dms", Constant.RESPONSE_TIMEOUT,
@@ -867,6 +986,64 @@ public class JseMetaWearBoard implements MetaWearBoard {
         }).continueWithTask(task -> task.isFaulted() ? Task.forError(new TaskTimeoutException(task.getError(), info)) : Task.forResult(info));
     }
 
+    /**
+     * Sends every info read at once and matches the responses by the module id in the first byte.  Each module has its
+     * own timeout; if any of them time out, the partial result holds every module that did respond, in module order.
+     */
+    private Task<Queue<ModuleInfo>> discoverModulesConcurrently(Queue<Constant.Module> modules) {
+        final Map<Byte, TimedTask<byte[]>> pending = new ConcurrentHashMap<>();
+        for(Constant.Module it: modules) {
+            pending.put(it.id, new TimedTask<>());
+        }
+        pendingModuleInfo = pending;
+
+        final List<Task<byte[]>> reads = new ArrayList<>();
+        for(Constant.Module it: modules) {
+            reads.add(pending.get(it.id).execute("Did not receive info for module (" + it.friendlyName + ") within %dms", Constant.RESPONSE_TIMEOUT,
+                    () -> gatt.writeCharacteristicAsync(MW_CMD_GATT_CHAR, WriteType.WITHOUT_RESPONSE, new byte[] { it.id, READ_INFO_REGISTER })
+            ));
+        }
+
+        return Task.whenAll(reads).continueWithTask(ignored -> {
+            pendingModuleInfo = null;
+
+            final Queue<ModuleInfo> info = new LinkedList<>();
+            Exception error = null;
+            for(Task<byte[]> it: reads) {
+                if (it.isFaulted()) {
+                    if (error == null) {
+                        error = it.getError();
+                    }
+                } else {
+                    info.add(new ModuleInfo(it.getResult()));
+                }
+            }
+            return error == null ? Task.forResult(info) : Task.forError(new TaskTimeoutException(error, info));
+        });
+    }
+
+    private void receivedModuleInfo(byte[] response) {
+        final Map<Byte, TimedTask<byte[]>> pending = pendingModuleInfo;
+        if (pending == null) {
+            readModuleInfoTask.setResult(response);
+        } else {
+            TimedTask<byte[]> read = pending.get(response[0]);
+            if (read != null) {
+                read.setResult(response);
+            }
+        }
+    }
+
+    @Override
+    public void setConcurrentModuleDiscovery(boolean enable) {
+        concurrentDiscovery = enable;
+    }
+
+    @Override
+    public void setLocalProcessorFallback(boolean enable) {
+        localProcessorFallback = enable;
+    }
+
     @Override
     public Task<Void> connectAsync() {
         if (connectTask != null && !connectTask.isCompleted()) {
@@ -875,6 +1052,12 @@ public class JseMetaWearBoard implements MetaWearBoard {
 
         connectCts = new CancellationTokenSource();
         final Capture<Boolean> serviceDiscoveryRefresh = new Capture<>();
+        final Capture<Boolean> trustCache = new Capture<>(false);
+
+        connectStart = System.nanoTime();
+        connectReady = 0;
+        firstSample = 0;
+        awaitingFirstSample = false;
 
         connectTask = gatt.connectAsync().onSuccessTask(task -> {
             if (connectCts.isCancellationRequested()) {
@@ -883,6 +1066,15 @@ public class JseMetaWearBoard implements MetaWearBoard {
 
             loadBoardAttributes();
 
+            BoardInfo cached = persist().boardInfo;
+            if (fastReconnect && cached.modelNumber != null && cached.hardwareRevision != null && !cached.moduleInfo.isEmpty()) {
+                trustCache.set(true);
+
+                // don't wait for the firmware read before turning on notifications
+                final Task<Void> notifications = enableNotificationsAsync();
+                final Task<byte[]> firmware = gatt.readCharacteristicAsync(DeviceInformationService.FIRMWARE_REVISION);
+                return Task.whenAll(Arrays.asList(notifications, firmware)).onSuccessTask(ignored -> firmware);
+            }
             return gatt.readCharacteristicAsync(DeviceInformationService.FIRMWARE_REVISION);
         }).onSuccessTask(task -> {
             if (connectCts.isCancellationRequested()) {
@@ -890,14 +1082,14 @@ public class JseMetaWearBoard implements MetaWearBoard {
             }
 
             Version readFirmware = new Version(new String(task.getResult()));
-            if (persist.boardInfo.firmware.compareTo(readFirmware) != 0) {
-                persist.boardInfo.firmware = readFirmware;
+            if (persist().boardInfo.firmware.compareTo(readFirmware) != 0) {
+                persist().boardInfo.firmware = readFirmware;
                 serviceDiscoveryRefresh.set(true);
             } else {
                 serviceDiscoveryRefresh.set(false);
             }
 
-            if (persist.boardInfo.modelNumber == null || persist.boardInfo.hardwareRevision == null) {
+            if (persist().boardInfo.modelNumber == null || persist().boardInfo.hardwareRevision == null) {
                 return gatt.readCharacteristicAsync(new BtleGattCharacteristic[]{
                         DeviceInformationService.MODEL_NUMBER,
                         DeviceInformationService.HARDWARE_REVISION
@@ -910,24 +1102,11 @@ public class JseMetaWearBoard implements MetaWearBoard {
             }
 
             if (task.getResult() != null) {
-                persist.boardInfo.modelNumber = new String(task.getResult()[0]);
-                persist.boardInfo.hardwareRevision = new String(task.getResult()[1]);
+                persist().boardInfo.modelNumber = new String(task.getResult()[0]);
+                persist().boardInfo.hardwareRevision = new String(task.getResult()[1]);
             }
 
-            return gatt.enableNotificationsAsync(MW_NOTIFY_CHAR, value -> {
-                Pair<Byte, Byte> header= new Pair<>(value[0], value[1]);
-                Tuple3<Byte, Byte, Byte> dataHandlerKey= new Tuple3<>(value[0], value[1], dataIdHeaders.contains(header) ? value[2] : DataTypeBase.NO_DATA_ID);
-
-                if (dataHandlers.containsKey(dataHandlerKey)) {
-                    for(RegisterResponseHandler handler: dataHandlers.get(dataHandlerKey)) {
-                        handler.onResponseReceived(value);
-                    }
-                } else if (registerResponseHandlers.containsKey(header)) {
-                    registerResponseHandlers.get(header).onResponseReceived(value);
-                } else if (value[1] == READ_INFO_REGISTER) {
-                    readModuleInfoTask.setResult(value);
-                }
-            });
+            return trustCache.get() ? Task.<Void>forResult(null) : enableNotificationsAsync();
         }).onSuccessTask(task -> {
             if (connectCts.isCancellationRequested()) {
                 return Task.cancelled();
@@ -935,14 +1114,14 @@ public class JseMetaWearBoard implements MetaWearBoard {
 
             Collection<Constant.Module> ignore = new HashSet<>();
             if (serviceDiscoveryRefresh.get()) {
-                persist.routeIdCounter= 0;
-                persist.taggedProducers.clear();
-                persist.activeEventManagers.clear();
-                persist.activeRoutes.clear();
-                persist.boardInfo.moduleInfo.clear();
-                persist.modules.clear();
+                persist().routeIdCounter= 0;
+                persist().taggedProducers.clear();
+                persist().activeEventManagers.clear();
+                persist().activeRoutes.clear();
+                persist().boardInfo.moduleInfo.clear();
+                persist().modules.clear();
             }
-            ignore.addAll(persist.boardInfo.moduleInfo.keySet());
+            ignore.addAll(persist().boardInfo.moduleInfo.keySet());
 
             return discoverModules(ignore);
         }).onSuccessTask(task -> {
@@ -951,7 +1130,7 @@ public class JseMetaWearBoard implements MetaWearBoard {
             }
 
             for(ModuleInfo it: task.getResult()) {
-                persist.boardInfo.moduleInfo.put(Constant.Module.lookupEnum(it.id), it);
+                persist().boardInfo.moduleInfo.put(Constant.Module.lookupEnum(it.id), it);
                 instantiateModule(it);
             }
 
@@ -969,7 +1148,7 @@ public class JseMetaWearBoard implements MetaWearBoard {
                     if (task.getError() instanceof TaskTimeoutException) {
                         Queue<ModuleInfo> partial = (Queue<ModuleInfo>) ((TaskTimeoutException) task.getError()).partial;
                         for(ModuleInfo it: partial) {
-                            persist.boardInfo.moduleInfo.put(Constant.Module.lookupEnum(it.id), it);
+                            persist().boardInfo.moduleInfo.put(Constant.Module.lookupEnum(it.id), it);
                             instantiateModule(it);
                         }
                     }
@@ -980,25 +1159,74 @@ public class JseMetaWearBoard implements MetaWearBoard {
                 }
             }
 
+            final boolean reused = trustCache.get() && !serviceDiscoveryRefresh.get();
             try {
-                ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
-                ObjectOutputStream oos = new ObjectOutputStream(buffer);
-                oos.writeObject(persist.boardInfo);
-                oos.close();
-
-                io.localSave(BOARD_INFO, buffer.toByteArray());
+                // the cached info is unchanged when the fast path was taken
+                if (!reused) {
+                    ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+                    BoardSnapshot.Writer out = new BoardSnapshot.Writer(buffer);
+                    BoardInfo.write(out, persist().boardInfo);
+                    out.flush();
+
+                    io.localSave(BOARD_INFO, buffer.toByteArray());
+                }
             } catch (IOException e) {
                 io.logWarn(LOG_TAG, "Cannot serialize MetaWear module info", e);
             } finally {
                 connected= true;
             }
 
+            fastPath = reused;
+            connectReady = System.nanoTime();
+            awaitingFirstSample = true;
+            if (reused) {
+                rearmStreams();
+            }
+            if (logger != null) {
+                logger.resumeDownload();
+            }
+
             return Task.forResult(null);
         });
 
         return connectTask;
     }
 
+    private Task<Void> enableNotificationsAsync() {
+        clock.anchor();
+        return gatt.enableNotificationsAsync(MW_NOTIFY_CHAR, value -> {
+            clock.markReceived();
+            if (!dispatcher.dispatch(value) && value[1] == READ_INFO_REGISTER) {
+                receivedModuleInfo(value);
+            }
+        });
+    }
+
+    /**
+     * Turns the data streams of active routes back on; the board does not keep them enabled across connections
+     */
+    private void rearmStreams() {
+        final Set<Tuple3<Byte, Byte, Byte>> armed = new HashSet<>();
+        for(RouteInner it: persist().activeRoutes.values()) {
+            it.rearm(armed);
+        }
+    }
+
+    @Override
+    public void setFastReconnect(boolean enable) {
+        fastReconnect = enable;
+    }
+
+    @Override
+    public ConnectTimes connectTimes() {
+        final long ready = connectReady, sample = firstSample;
+        if (ready == 0) {
+            return null;
+        }
+        return new ConnectTimes(fastPath, TimeUnit.NANOSECONDS.toMillis(ready - connectStart),
+                sample == 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(sample - connectStart));
+    }
+
     @Override
     public Task<Void> connectWithRetryAsync(int retries) {
         final Capture<Integer> remaining = new Capture<>(retries);
@@ -1044,7 +1272,7 @@ public class JseMetaWearBoard implements MetaWearBoard {
         if (inMetaBootMode()) {
             return null;
         }
-        return persist.modules.containsKey(moduleClass) ? moduleClass.cast(persist.modules.get(moduleClass)) : null;
+        return persist().modules.containsKey(moduleClass) ? moduleClass.cast(persist().modules.get(moduleClass)) : null;
     }
 
     @Override
@@ -1061,31 +1289,31 @@ public class JseMetaWearBoard implements MetaWearBoard {
 
     @Override
     public Route lookupRoute(int id) {
-        return persist.activeRoutes.get(id);
+        return persist().activeRoutes.get(id);
     }
 
     @Override
     public Observer lookupObserver(int id) {
-        return persist.activeEventManagers.get(id);
+        return persist().activeEventManagers.get(id);
     }
 
     @Override
     public void tearDown() {
-        for(RouteInner it: persist.activeRoutes.values()) {
+        for(RouteInner it: persist().activeRoutes.values()) {
             it.remove(false);
         }
 
-        for(ObserverInner it: persist.activeEventManagers.values()) {
+        for(ObserverInner it: persist().activeEventManagers.values()) {
             it.remove(false);
         }
 
-        for(Module it: persist.modules.values()) {
+        for(Module it: persist().modules.values()) {
             ((ModuleImplBase) it).tearDown();
         }
 
-        persist.routeIdCounter= 0;
-        persist.activeRoutes.clear();
-        persist.activeEventManagers.clear();
+        persist().routeIdCounter= 0;
+        persist().activeRoutes.clear();
+        persist().activeEventManagers.clear();
     }
 
     @Override
@@ -1098,41 +1326,212 @@ public class JseMetaWearBoard implements MetaWearBoard {
 
     @Override
     public void serialize(OutputStream outs) throws IOException {
-        ObjectOutputStream oos = new ObjectOutputStream(outs);
-        oos.writeObject(persist);
-        oos.flush();
+        serialize(outs, true);
+    }
+
+    private void serialize(OutputStream outs, boolean subscribers) throws IOException {
+        PersistentData state = persist();
+        BoardSnapshot.Writer out = new BoardSnapshot.Writer(outs, subscribers);
+
+        BoardInfo.write(out, state.boardInfo);
+        out.writeInt(state.routeIdCounter);
+
+        // modules are created from the board info when the snapshot is restored, only their state is written
+        Set<Module> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Class<? extends Module>> keys = new ArrayList<>();
+        for(Map.Entry<Class<? extends Module>, Module> it: state.modules.entrySet()) {
+            if (distinct.add(it.getValue())) {
+                keys.add(it.getKey());
+            }
+        }
+        out.writeVarInt(keys.size());
+        for(Class<? extends Module> it: keys) {
+            out.writeName(it.getName());
+            ((ModuleImplBase) state.modules.get(it)).writeState(out);
+        }
+
+        out.writeVarInt(state.taggedProducers.size());
+        for(Map.Entry<String, DataTypeBase> it: state.taggedProducers.entrySet()) {
+            out.writeString(it.getKey());
+            out.writeDataType(it.getValue());
+        }
+
+        out.writeVarInt(state.activeRoutes.size());
+        for(RouteInner it: state.activeRoutes.values()) {
+            it.write(out);
+        }
+
+        out.writeVarInt(state.activeEventManagers.size());
+        for(ObserverInner it: state.activeEventManagers.values()) {
+            it.write(out);
+        }
+
+        out.flush();
     }
 
     private void resetVars() {
-        dataIdHeaders.clear();
-        dataHandlers.clear();
+        dispatcher.clearDataHandlers();
     }
 
-    private void deserializeInner(InputStream stateStream) throws IOException, ClassNotFoundException {
-        ObjectInputStream ois = new ObjectInputStream(stateStream);
-        persist= (PersistentData) ois.readObject();
+    private void instantiateModules(BoardInfo info) {
+        // same order the modules are discovered in
+        for(ModuleInfo it: new TreeMap<>(info.moduleInfo).values()) {
+            instantiateModule(it);
+        }
+    }
+
+    private void restoreTransientVars() {
+        for (Module it : persist.modules.values()) {
+            ((ModuleImplBase) it).restoreTransientVars(mwPrivate);
+        }
+
+        for (RouteInner it : persist.activeRoutes.values()) {
+            it.restoreTransientVars(mwPrivate);
+        }
+
+        for (ObserverInner it : persist.activeEventManagers.values()) {
+            it.restoreTransientVar(mwPrivate);
+        }
+    }
+
+    private PersistentData persist() {
+        if (pendingSnapshot != null) {
+            restoreSnapshot();
+        }
+        return persist;
+    }
+
+    private synchronized void restoreSnapshot() {
+        BoardSnapshot.Reader in = pendingSnapshot;
+        if (in == null) {
+            return;
+        }
+        pendingSnapshot = null;
+
+        try {
+            readSnapshot(in);
+        } catch (IOException | RuntimeException e) {
+            io.logWarn(LOG_TAG, "Cannot restore board state, starting from the board attributes", e);
+
+            BoardInfo boardInfo = persist.boardInfo;
+            persist = new PersistentData();
+            persist.boardInfo = boardInfo;
 
-        if (persist != null) {
             resetVars();
+            logger = null;
+            dataprocessor = null;
+            mwTimer = null;
+            event = null;
+            macro = null;
+            if (boardInfo != null) {
+                instantiateModules(boardInfo);
+            }
+        }
+    }
 
-            for (Module it : persist.modules.values()) {
-                ((ModuleImplBase) it).restoreTransientVars(mwPrivate);
+    private void readSnapshot(BoardSnapshot.Reader in) throws IOException {
+        resetVars();
+        logger = null;
+        dataprocessor = null;
+        mwTimer = null;
+        event = null;
+        macro = null;
+        if (persist.boardInfo != null) {
+            instantiateModules(persist.boardInfo);
+        }
+
+        persist.routeIdCounter = in.readInt();
+
+        for(int i = in.readVarInt(); i > 0; i--) {
+            String key = in.readName();
+            Module module = null;
+            for(Map.Entry<Class<? extends Module>, Module> it: persist.modules.entrySet()) {
+                if (it.getKey().getName().equals(key)) {
+                    module = it.getValue();
+                    break;
+                }
+            }
+            if (module == null) {
+                throw new InvalidObjectException("Board state has settings for a missing module: " + key);
             }
 
-            for (RouteInner it : persist.activeRoutes.values()) {
-                it.restoreTransientVars(mwPrivate);
+            ((ModuleImplBase) module).readState(in);
+        }
+
+        persist.taggedProducers.clear();
+        for(int i = in.readVarInt(); i > 0; i--) {
+            persist.taggedProducers.put(in.readString(), in.readDataType());
+        }
+
+        for(int i = in.readVarInt(); i > 0; i--) {
+            RouteInner route = RouteInner.read(in);
+            persist.activeRoutes.put(route.id, route);
+        }
+
+        for(int i = in.readVarInt(); i > 0; i--) {
+            ObserverInner observer = ObserverInner.read(in);
+            persist.activeEventManagers.put(observer.id, observer);
+        }
+
+        // modules registered their handlers when they were created, replace them as if the state was deserialized
+        resetVars();
+        restoreTransientVars();
+    }
+
+    private void deserializeInner(InputStream stateStream) throws IOException, ClassNotFoundException {
+        byte[] state = BoardSnapshot.readFully(stateStream);
+
+        if (!BoardSnapshot.isLegacy(state)) {
+            // the reader checks the length and checksum, a damaged snapshot is rejected before the board state changes
+            BoardSnapshot.Reader in = new BoardSnapshot.Reader(state, mwPrivate);
+            PersistentData restored = new PersistentData();
+            restored.boardInfo = BoardInfo.read(in);
+
+            if (in.verified()) {
+                // only the board attributes are decoded now, the rest is decoded when the board is first used
+                synchronized (this) {
+                    persist = restored;
+                    pendingSnapshot = in;
+                }
+                return;
             }
 
-            for (ObserverInner it : persist.activeEventManagers.values()) {
-                it.restoreTransientVar(mwPrivate);
+            // older snapshots have no checksum, decode them now so errors are still thrown from here
+            PersistentData previous;
+            synchronized (this) {
+                previous = persist();
+                persist = restored;
             }
+            try {
+                readSnapshot(in);
+            } catch (IOException | RuntimeException e) {
+                restoreState(previous);
+                throw e;
+            }
+            return;
+        }
 
-            logger = (LoggingImpl) persist.modules.get(Logging.class);
-            dataprocessor = (DataProcessorImpl) persist.modules.get(DataProcessor.class);
-            mwTimer = (TimerImpl) persist.modules.get(Timer.class);
-            event = (EventImpl) persist.modules.get(EventImpl.class);
-            macro = (MacroImpl) persist.modules.get(Macro.class);
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(state));
+        PersistentData restored = (PersistentData) ois.readObject();
+
+        if (restored != null) {
+            restoreState(restored);
+        }
+    }
+
+    private void restoreState(PersistentData restored) {
+        synchronized (this) {
+            persist = restored;
+            pendingSnapshot = null;
         }
+        resetVars();
+        restoreTransientVars();
+
+        logger = (LoggingImpl) persist.modules.get(Logging.class);
+        dataprocessor = (DataProcessorImpl) persist.modules.get(DataProcessor.class);
+        mwTimer = (TimerImpl) persist.modules.get(Timer.class);
+        event = (EventImpl) persist.modules.get(EventImpl.class);
+        macro = (MacroImpl) persist.modules.get(Macro.class);
     }
 
     @Override
@@ -1243,83 +1642,83 @@ public class JseMetaWearBoard implements MetaWearBoard {
 
         switch(Constant.Module.lookupEnum(info.id)) {
             case SWITCH:
-                persist.modules.put(Switch.class, new SwitchImpl(mwPrivate));
+                persist().modules.put(Switch.class, new SwitchImpl(mwPrivate));
                 break;
             case LED:
-                persist.modules.put(Led.class, new LedImpl(mwPrivate));
+                persist().modules.put(Led.class, new LedImpl(mwPrivate));
                 break;
             case ACCELEROMETER:
                 Accelerometer acc;
                 switch(info.implementation) {
                     case AccelerometerMma8452qImpl.IMPLEMENTATION:
                         acc= new AccelerometerMma8452qImpl(mwPrivate);
-                        persist.modules.put(Accelerometer.class, acc);
-                        persist.modules.put(AccelerometerMma8452q.class, acc);
+                        persist().modules.put(Accelerometer.class, acc);
+                        persist().modules.put(AccelerometerMma8452q.class, acc);
                         break;
                     case AccelerometerBmi160Impl.IMPLEMENTATION:
                         acc= new AccelerometerBmi160Impl(mwPrivate);
-                        persist.modules.put(Accelerometer.class, acc);
-                        persist.modules.put(AccelerometerBosch.class, acc);
-                        persist.modules.put(AccelerometerBmi160.class, acc);
+                        persist().modules.put(Accelerometer.class, acc);
+                        persist().modules.put(AccelerometerBosch.class, acc);
+                        persist().modules.put(AccelerometerBmi160.class, acc);
                         break;
                     case AccelerometerBmi270Impl.IMPLEMENTATION:
                         acc= new AccelerometerBmi270Impl(mwPrivate);
-                        persist.modules.put(Accelerometer.class, acc);
-                        persist.modules.put(AccelerometerBosch.class, acc);
-                        persist.modules.put(AccelerometerBmi160.class, acc);
+                        persist().modules.put(Accelerometer.class, acc);
+                        persist().modules.put(AccelerometerBosch.class, acc);
+                        persist().modules.put(AccelerometerBmi160.class, acc);
                         break;
                     case AccelerometerBma255Impl.IMPLEMENTATION:
                         acc= new AccelerometerBma255Impl(mwPrivate);
-                        persist.modules.put(Accelerometer.class, acc);
-                        persist.modules.put(AccelerometerBosch.class, acc);
-                        persist.modules.put(AccelerometerBma255.class, acc);
+                        persist().modules.put(Accelerometer.class, acc);
+                        persist().modules.put(AccelerometerBosch.class, acc);
+                        persist().modules.put(AccelerometerBma255.class, acc);
                         break;
                 }
                 break;
             case TEMPERATURE:
-                persist.modules.put(Temperature.class, new TemperatureImpl(mwPrivate));
+                persist().modules.put(Temperature.class, new TemperatureImpl(mwPrivate));
                 break;
             case HAPTIC:
-                persist.modules.put(Haptic.class, new HapticImpl(mwPrivate));
+                persist().modules.put(Haptic.class, new HapticImpl(mwPrivate));
                 break;
             case DATA_PROCESSOR:
                 dataprocessor= new DataProcessorImpl(mwPrivate);
-                persist.modules.put(DataProcessor.class, dataprocessor);
+                persist().modules.put(DataProcessor.class, dataprocessor);
                 break;
             case EVENT:
                 event = new EventImpl(mwPrivate);
-                persist.modules.put(EventImpl.class, event);
+                persist().modules.put(EventImpl.class, event);
                 break;
             case LOGGING:
                 logger= new LoggingImpl(mwPrivate);
-                persist.modules.put(Logging.class, logger);
+                persist().modules.put(Logging.class, logger);
                 break;
             case TIMER:
                 mwTimer= new TimerImpl(mwPrivate);
-                persist.modules.put(Timer.class, mwTimer);
+                persist().modules.put(Timer.class, mwTimer);
                 break;
             case SERIAL_PASSTHROUGH:
-                persist.modules.put(SerialPassthrough.class, new SerialPassthroughImpl(mwPrivate));
+                persist().modules.put(SerialPassthrough.class, new SerialPassthroughImpl(mwPrivate));
                 break;
             case MACRO:
                 macro = new MacroImpl(mwPrivate);
-                persist.modules.put(Macro.class, macro);
+                persist().modules.put(Macro.class, macro);
                 break;
             case SETTINGS:
-                persist.modules.put(Settings.class, new SettingsImpl(mwPrivate));
+                persist().modules.put(Settings.class, new SettingsImpl(mwPrivate));
                 break;
             case BAROMETER:
                 BarometerBosch baro;
                 switch(info.implementation) {
                     case BarometerBmp280Impl.IMPLEMENTATION:
                         baro= new BarometerBmp280Impl(mwPrivate);
-                        persist.modules.put(BarometerBosch.class, baro);
-                        persist.modules.put(BarometerBmp280.class, baro);
+                        persist().modules.put(BarometerBosch.class, baro);
+                        persist().modules.put(BarometerBmp280.class, baro);
                         break;
                     case BarometerBme280Impl.IMPLEMENTATION:
                         baro= new BarometerBme280Impl(mwPrivate);
-                        persist.modules.put(BarometerBosch.class, baro);
-                        persist.modules.put(BarometerBme280.class, baro);
+                        persist().modules.put(BarometerBosch.class, baro);
+                        persist().modules.put(BarometerBme280.class, baro);
                         break;
                 }
                 break;
@@ -1328,36 +1727,36 @@ public class JseMetaWearBoard implements MetaWearBoard {
                 switch(info.implementation) {
                     case GyroBmi160Impl.IMPLEMENTATION:
                         gyro= new GyroBmi160Impl(mwPrivate);
-                        persist.modules.put(Gyro.class, gyro);
-                        persist.modules.put(GyroBmi160.class, gyro);
+                        persist().modules.put(Gyro.class, gyro);
+                        persist().modules.put(GyroBmi160.class, gyro);
                         break;
                     case GyroBmi270Impl.IMPLEMENTATION:
                         gyro= new GyroBmi270Impl(mwPrivate);
-                        persist.modules.put(Gyro.class, gyro);
-                        persist.modules.put(GyroBmi270.class, gyro);
+                        persist().modules.put(Gyro.class, gyro);
+                        persist().modules.put(GyroBmi270.class, gyro);
                         break;
                 }
                 break;
             case AMBIENT_LIGHT:
-                persist.modules.put(AmbientLightLtr329.class, new AmbientLightLtr329Impl(mwPrivate));
+                persist().modules.put(AmbientLightLtr329.class, new AmbientLightLtr329Impl(mwPrivate));
                 break;
             case MAGNETOMETER:
-                persist.modules.put(MagnetometerBmm150.class, new MagnetometerBmm150Impl(mwPrivate));
+                persist().modules.put(MagnetometerBmm150.class, new MagnetometerBmm150Impl(mwPrivate));
                 break;
             case HUMIDITY:
-                persist.modules.put(HumidityBme280.class, new HumidityBme280Impl(mwPrivate));
+                persist().modules.put(HumidityBme280.class, new HumidityBme280Impl(mwPrivate));
                 break;
             case COLOR_DETECTOR:
-                persist.modules.put(ColorTcs34725.class, new ColorTcs34725Impl(mwPrivate));
+                persist().modules.put(ColorTcs34725.class, new ColorTcs34725Impl(mwPrivate));
                 break;
             case PROXIMITY:
-                persist.modules.put(ProximityTsl2671.class, new ProximityTsl2671Impl(mwPrivate));
+                persist().modules.put(ProximityTsl2671.class, new ProximityTsl2671Impl(mwPrivate));
                 break;
             case SENSOR_FUSION:
-                persist.modules.put(SensorFusionBosch.class, new SensorFusionBoschImpl(mwPrivate));
+                persist().modules.put(SensorFusionBosch.class, new SensorFusionBoschImpl(mwPrivate));
                 break;
             case DEBUG:
-                persist.modules.put(Debug.class, new DebugImpl(mwPrivate));
+                persist().modules.put(Debug.class, new DebugImpl(mwPrivate));
                 break;
         }
     }
@@ -1373,9 +1772,11 @@ public class JseMetaWearBoard implements MetaWearBoard {
         private boolean active;
 
         private transient MetaWearBoardPrivate mwPrivate;
+        private transient CreationTimes creationTimes;
+        private transient RouteDelivery delivery;
 
         RouteInner(LinkedList<Byte> eventCmdIds, ArrayList<DeviceDataConsumer> consumers, LinkedList<Byte> dataprocessors,
-                   HashSet<String> processorNames, int id, MetaWearBoardPrivate mwPrivate) {
+                   HashSet<String> processorNames, int id, MetaWearBoardPrivate mwPrivate, CreationTimes creationTimes) {
             this.eventCmdIds= eventCmdIds;
             this.consumers = consumers;
             this.dataprocessors= dataprocessors;
@@ -1383,16 +1784,65 @@ public class JseMetaWearBoard implements MetaWearBoard {
             this.id= id;
             this.active= true;
             this.mwPrivate = mwPrivate;
+            this.creationTimes = creationTimes;
+        }
+
+        void rearm(Set<Tuple3<Byte, Byte, Byte>> armed) {
+            for(DeviceDataConsumer it: consumers) {
+                if (it instanceof StreamedDataConsumer) {
+                    ((StreamedDataConsumer) it).rearmStream(mwPrivate, armed);
+                }
+            }
         }
 
         void restoreTransientVars(MetaWearBoardPrivate mwPrivate) {
             this.mwPrivate = mwPrivate;
 
             for(DeviceDataConsumer it: consumers) {
-                it.addDataHandler(mwPrivate);
+                // unsubscribed streams get their handler back when resubscribed
+                if (!(it instanceof StreamedDataConsumer && ((StreamedDataConsumer) it).quiet)) {
+                    it.addDataHandler(mwPrivate);
+                }
+            }
+        }
+
+        void write(BoardSnapshot.Writer out) throws IOException {
+            out.writeInt(id);
+            out.writeBoolean(active);
+            out.writeByteList(eventCmdIds);
+            out.writeByteList(dataprocessors);
+
+            out.writeVarInt(processorNames.size());
+            for(String it: processorNames) {
+                out.writeString(it);
+            }
+
+            out.writeVarInt(consumers.size());
+            for(DeviceDataConsumer it: consumers) {
+                out.writeConsumer(it);
             }
         }
 
+        static RouteInner read(BoardSnapshot.Reader in) throws IOException {
+            int id = in.readInt();
+            boolean active = in.readBoolean();
+            LinkedList<Byte> eventCmdIds = in.readByteList(), dataprocessors = in.readByteList();
+
+            HashSet<String> processorNames = new HashSet<>();
+            for(int i = in.readVarInt(); i > 0; i--) {
+                processorNames.add(in.readString());
+            }
+
+            ArrayList<DeviceDataConsumer> consumers = new ArrayList<>();
+            for(int i = in.readVarInt(); i > 0; i--) {
+                consumers.add(in.readConsumer());
+            }
+
+            RouteInner route = new RouteInner(eventCmdIds, consumers, dataprocessors, processorNames, id, in.mwPrivate, null);
+            route.active = active;
+            return route;
+        }
+
         @Override
         public String generateIdentifier(int pos) {
             try {
@@ -1443,6 +1893,48 @@ public class JseMetaWearBoard implements MetaWearBoard {
             }
         }
 
+        @Override
+        public void setDeliveryExecutor(Executor executor) {
+            if (delivery != null) {
+                // the queued packets are delivered before the ones that arrive after the switch
+                delivery.setExecutor(executor);
+                if (executor != null || !delivery.idle()) {
+                    return;
+                }
+            }
+
+            delivery = executor == null ? null : new RouteDelivery(executor, mwPrivate);
+            for(DeviceDataConsumer it: consumers) {
+                if (it instanceof StreamedDataConsumer) {
+                    ((StreamedDataConsumer) it).delivery = delivery;
+                }
+            }
+        }
+
+        @Override
+        public boolean setBackpressure(int pos, int capacity, Overflow overflow, DropHandler handler) {
+            if ((overflow == Overflow.DROP_OLDEST || overflow == Overflow.DROP_NEWEST) && capacity < 1) {
+                throw new IllegalArgumentException("Buffer capacity must be at least 1");
+            }
+
+            try {
+                DeviceDataConsumer consumer = consumers.get(pos);
+                if (!(consumer instanceof StreamedDataConsumer) || consumer instanceof HostDataConsumer) {
+                    return false;
+                }
+                ((StreamedDataConsumer) consumer).buffer = overflow == null ? null : new RouteDelivery.StreamBuffer((StreamedDataConsumer) consumer, pos, capacity, overflow, handler);
+                return true;
+            } catch (IndexOutOfBoundsException ignored) {
+                return false;
+            }
+        }
+
+        @Override
+        public DeliveryMetrics deliveryMetrics() {
+            RouteDelivery current = delivery;
+            return current == null ? null : current.metrics();
+        }
+
         void remove(boolean sync) {
             if (active) {
                 active = false;
@@ -1489,6 +1981,11 @@ public class JseMetaWearBoard implements MetaWearBoard {
         public int id() {
             return id;
         }
+
+        @Override
+        public CreationTimes creationTimes() {
+            return creationTimes;
+        }
     }
     private static class ObserverInner implements Observer, Serializable {
         private static final long serialVersionUID = -991370121066262533L;
@@ -1509,6 +2006,21 @@ public class JseMetaWearBoard implements MetaWearBoard {
             this.mwPrivate = mwPrivate;
         }
 
+        void write(BoardSnapshot.Writer out) throws IOException {
+            out.writeInt(id);
+            out.writeBoolean(active);
+            out.writeByteList(eventCmdIds);
+        }
+
+        static ObserverInner read(BoardSnapshot.Reader in) throws IOException {
+            int id = in.readInt();
+            boolean active = in.readBoolean();
+
+            ObserverInner observer = new ObserverInner(id, in.readByteList());
+            observer.active = active;
+            return observer;
+        }
+
         @Override
         public int id() {
             return id;
@@ -1543,6 +2055,9 @@ public class JseMetaWearBoard implements MetaWearBoard {
                     final LinkedList<DataLogger> createdLoggers= new LinkedList<>();
                     final Cache signalVars= new Cache(mwPrivate);
                     final HashSet<Integer> loggerIndices= new HashSet<>();
+                    final ArrayList<Processor> plannedProcessors= new ArrayList<>();
+                    // start of the processor, logger, and event phases
+                    final long[] phaseStart= new long[] {System.nanoTime(), 0, 0};
                     Task<Queue<Byte>> queueProcessorTask;
 
                     try {
@@ -1550,17 +2065,26 @@ public class JseMetaWearBoard implements MetaWearBoard {
                         current.first.configure(current.second);
 
                         for (Map.Entry<String, Processor> it : signalVars.taggedProcessors.entrySet()) {
-                            if (persist.taggedProducers.containsKey(it.getKey())) {
+                            if (persist().taggedProducers.containsKey(it.getKey())) {
                                 throw new IllegalRouteOperationException(String.format("Duplicate processor key \'%s\' found", it.getKey()));
                             }
                             mwPrivate.tagProducer(it.getKey(), it.getValue().editor.source);
                         }
-                        queueProcessorTask= dataprocessor.queueDataProcessors(signalVars.dataProcessors);
+                        // reused processors are already on the board so they go ahead of the ones still to be created
+                        List<Processor> sharedProcessors= dataprocessor.shareDataProcessors(signalVars);
+                        for(Processor it: sharedProcessors) {
+                            createdProcessors.add(it.editor.source.eventConfig[2]);
+                        }
+                        plannedProcessors.addAll(sharedProcessors);
+                        plannedProcessors.addAll(signalVars.dataProcessors);
+                        queueProcessorTask= dataprocessor.queueDataProcessors(signalVars.dataProcessors, localProcessorFallback ?
+                                Math.max(HostDataConsumer.requiredOnBoard(signalVars, plannedProcessors) - sharedProcessors.size(), 0) : -1);
                     } catch (IllegalRouteOperationException e) {
                         queueProcessorTask= Task.forError(e);
                     }
 
                     queueProcessorTask.onSuccessTask(task -> {
+                        phaseStart[1]= System.nanoTime();
                         createdProcessors.addAll(task.getResult());
                         dataprocessor.assignNameToId(signalVars.taggedProcessors);
 
@@ -1575,15 +2099,16 @@ public class JseMetaWearBoard implements MetaWearBoard {
                         }
                         return logger.queueLoggers(producersToLog);
                     }).onSuccessTask(task -> {
+                        phaseStart[2]= System.nanoTime();
                         createdLoggers.addAll(task.getResult());
 
                         final Queue<Pair<? extends DataTypeBase, ? extends CodeBlock>> eventCodeBlocks = new LinkedList<>();
                         for(final Pair<String, Tuple3<DataTypeBase, Integer, byte[]>> it: signalVars.feedback) {
-                            if (!persist.taggedProducers.containsKey(it.first)) {
+                            if (!persist().taggedProducers.containsKey(it.first)) {
                                 throw new IllegalRouteOperationException("\'" + it.first + "\' is not associated with any data producer or name component");
                             }
-                            final DataTypeBase feedbackSource = persist.taggedProducers.get(it.first);
-                            eventCodeBlocks.add(new Pair<>(feedbackSource, () -> sendCommand(it.second.second, persist.taggedProducers.get(it.first), DATA_PROCESSOR, DataProcessorImpl.PARAMETER, it.second.first.eventConfig[2], it.second.third)));
+                            final DataTypeBase feedbackSource = persist().taggedProducers.get(it.first);
+                            eventCodeBlocks.add(new Pair<>(feedbackSource, () -> sendCommand(it.second.second, persist().taggedProducers.get(it.first), DATA_PROCESSOR, DataProcessorImpl.PARAMETER, it.second.first.eventConfig[2], it.second.third)));
                         }
                         for(final Pair<? extends DataTypeBase, ? extends Action> it: signalVars.reactions) {
                             final DataTypeBase source= it.first;
@@ -1599,10 +2124,12 @@ public class JseMetaWearBoard implements MetaWearBoard {
                                 dataprocessor.removeProcessor(true, it);
                             }
                             for(String it: signalVars.taggedProcessors.keySet()) {
-                                persist.taggedProducers.remove(it);
+                                persist().taggedProducers.remove(it);
                             }
                             current.third.setError(task.getError());
                         } else {
+                            dataprocessor.addShareableProcessors(signalVars, plannedProcessors.subList(0, createdProcessors.size()));
+
                             HashSet<String> processorNames = new HashSet<>();
                             processorNames.addAll(signalVars.taggedProcessors.keySet());
 
@@ -1613,16 +2140,27 @@ public class JseMetaWearBoard implements MetaWearBoard {
                                     createdLoggers.peek().subscriber= it.second;
                                     consumers.add(createdLoggers.poll());
                                 } else {
-                                    DeviceDataConsumer newConsumer= new StreamedDataConsumer(it.first, it.second);
+                                    DeviceDataConsumer newConsumer= HostDataConsumer.create(plannedProcessors, createdProcessors.size(), it.first, it.second);
+                                    if (newConsumer == null) {
+                                        newConsumer= new StreamedDataConsumer(it.first, it.second);
+                                    }
                                     consumers.add(newConsumer);
                                     newConsumer.enableStream(mwPrivate);
                                 }
+                                if (it.second instanceof JseRecorder.Channel) {
+                                    ((JseRecorder.Channel) it.second).bind(it.first, mwPrivate);
+                                }
                                 i++;
                             }
 
-                            RouteInner newRoute = new RouteInner(task.getResult(), consumers, createdProcessors, processorNames, persist.routeIdCounter, mwPrivate);
-                            persist.activeRoutes.put(persist.routeIdCounter, newRoute);
-                            persist.routeIdCounter++;
+                            Route.CreationTimes times = new Route.CreationTimes(
+                                    TimeUnit.NANOSECONDS.toMillis(phaseStart[1] - phaseStart[0]),
+                                    TimeUnit.NANOSECONDS.toMillis(phaseStart[2] - phaseStart[1]),
+                                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - phaseStart[2])
+                            );
+                            RouteInner newRoute = new RouteInner(task.getResult(), consumers, createdProcessors, processorNames, persist().routeIdCounter, mwPrivate, times);
+                            persist().activeRoutes.put(persist().routeIdCounter, newRoute);
+                            persist().routeIdCounter++;
                             current.third.setResult(newRoute);
                         }
 
@@ -1667,10 +2205,10 @@ public class JseMetaWearBoard implements MetaWearBoard {
                         if (task.isFaulted()) {
                             current.first.setError(task.getError());
                         } else {
-                            ObserverInner newManager= new ObserverInner(persist.routeIdCounter, task.getResult());
+                            ObserverInner newManager= new ObserverInner(persist().routeIdCounter, task.getResult());
                             newManager.restoreTransientVar(mwPrivate);
-                            persist.activeEventManagers.put(persist.routeIdCounter, newManager);
-                            persist.routeIdCounter++;
+                            persist().activeEventManagers.put(persist().routeIdCounter, newManager);
+                            persist().routeIdCounter++;
 
                             current.first.setResult(newManager);
                         }
@@ -0,0 +1,486 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.Data;
+import com.mbientlab.metawear.Recorder;
+import com.mbientlab.metawear.Subscriber;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Platform agnostic implementation of the {@link Recorder} interface.  Each channel is stored in its own directory as
+ * a series of segments, and each segment is split into three memory mapped column files: timestamps, sample lengths,
+ * and the concatenated sample bytes.  The timestamp column starts with an 8 byte header, its first 4 bytes hold the
+ * number of samples in the segment.  Columns are mapped at their full size while the segment is written and truncated
+ * to the written bytes once it is done.  The data type of the producer the channel is attached to is written to the
+ * channel's meta file in the board state snapshot format.
+ */
+public class JseRecorder implements Recorder {
+    static final int SEGMENT_SAMPLES = 1 << 16, SEGMENT_DATA = SEGMENT_SAMPLES * 32, HEADER_SIZE = 8;
+    static final String META = "meta", TIME_COLUMN = ".time", LENGTH_COLUMN = ".length", DATA_COLUMN = ".data";
+
+    // unmaps a buffer right away, null where the platform does not allow it
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+    static {
+        Object unsafe;
+        Method invokeCleaner;
+        try {
+            Class<?> clazz = Class.forName("sun.misc.Unsafe");
+            Field field = clazz.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = clazz.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Android and Java 8 release the mapping when the buffer is garbage collected
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /**
+     * Records samples to the channel's segments.  Channels restored with the board state are not attached to a
+     * recorder and drop the samples they receive
+     */
+    static class Channel implements Subscriber {
+        private static final long serialVersionUID = -1476217433062214338L;
+
+        final String name;
+        private transient File directory;
+        private transient int segment;
+        private transient MappedByteBuffer time, length, data;
+        private transient int count;
+        private transient long bytes;
+        private transient IOException error;
+
+        Channel(String name, File directory) {
+            this.name = name;
+            this.directory = directory;
+
+            int[] existing = segments(directory);
+            segment = existing.length == 0 ? 0 : existing[existing.length - 1] + 1;
+        }
+
+        /**
+         * Writes the producer's type information, called when the route the channel is in is created
+         */
+        synchronized void bind(DataTypeBase source, MetaWearBoardPrivate mwPrivate) {
+            if (directory == null) {
+                return;
+            }
+
+            try {
+                if (!directory.isDirectory() && !directory.mkdirs()) {
+                    throw new FileNotFoundException("Cannot create directory: " + directory.getAbsolutePath());
+                }
+                try (FileOutputStream fos = new FileOutputStream(new File(directory, META))) {
+                    BoardSnapshot.Writer writer = new BoardSnapshot.Writer(fos);
+                    writer.writeString(Util.createProducerChainString(source, mwPrivate));
+                    writer.writeString(mwPrivate.getFirmwareVersion() == null ? null : mwPrivate.getFirmwareVersion().toString());
+                    writer.writeDataType(source);
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                mwPrivate.logWarn(String.format(Locale.US, "Cannot write metadata for channel '%s' (%s)", name, e.getMessage()));
+            }
+        }
+
+        @Override
+        public synchronized void apply(Data data, Object... env) {
+            if (directory == null) {
+                return;
+            }
+
+            byte[] value = data instanceof DataPrivate ? ((DataPrivate) data).rawBytes() : data.bytes();
+            if (time == null || count == SEGMENT_SAMPLES || this.data.remaining() < value.length) {
+                try {
+                    nextSegment();
+                } catch (IOException e) {
+                    error = e;
+                    return;
+                }
+            }
+
+            time.putLong(HEADER_SIZE + (count << 3), data.epochMillis());
+            length.putShort(count << 1, (short) value.length);
+            this.data.put(value);
+            count++;
+            time.putInt(0, count);
+            bytes += value.length;
+        }
+
+        private void nextSegment() throws IOException {
+            if (time != null) {
+                force();
+                release();
+                segment++;
+            } else if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new FileNotFoundException("Cannot create directory: " + directory.getAbsolutePath());
+            }
+
+            time = map(segmentFile(directory, segment, TIME_COLUMN), HEADER_SIZE + (SEGMENT_SAMPLES << 3));
+            length = map(segmentFile(directory, segment, LENGTH_COLUMN), SEGMENT_SAMPLES << 1);
+            data = map(segmentFile(directory, segment, DATA_COLUMN), SEGMENT_DATA);
+            count = 0;
+        }
+
+        private void force() {
+            time.force();
+            length.force();
+            data.force();
+        }
+
+        /**
+         * Unmaps the segment being written and truncates its columns to the bytes written
+         */
+        private void release() {
+            if (time == null) {
+                return;
+            }
+
+            final long dataSize = data.position();
+            unmap(time);
+            unmap(length);
+            unmap(data);
+            time = null;
+            length = null;
+            data = null;
+
+            truncate(segmentFile(directory, segment, TIME_COLUMN), HEADER_SIZE + ((long) count << 3));
+            truncate(segmentFile(directory, segment, LENGTH_COLUMN), (long) count << 1);
+            truncate(segmentFile(directory, segment, DATA_COLUMN), dataSize);
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+
+        synchronized void flush(boolean close) throws IOException {
+            if (time != null) {
+                force();
+            }
+            if (close) {
+                release();
+                directory = null;
+            }
+            if (error != null) {
+                IOException e = error;
+                error = null;
+                throw e;
+            }
+        }
+    }
+
+    static class SegmentCursor implements Cursor {
+        private final File directory;
+        private final int[] segments;
+        private final String identifier;
+        private final long size;
+
+        private int segment, count, position, length, offset;
+        private ByteBuffer time, lengths, data;
+
+        SegmentCursor(File directory) throws IOException {
+            this.directory = directory;
+
+            long total = 0;
+            List<Integer> nonEmpty = new ArrayList<>();
+            for(int it: JseRecorder.segments(directory)) {
+                try (RandomAccessFile file = new RandomAccessFile(segmentFile(directory, it, TIME_COLUMN), "r")) {
+                    int samples = file.readInt();
+                    if (samples > 0) {
+                        nonEmpty.add(it);
+                        total += samples;
+                    }
+                }
+            }
+            segments = new int[nonEmpty.size()];
+            for(int i = 0; i < segments.length; i++) {
+                segments[i] = nonEmpty.get(i);
+            }
+            size = total;
+
+            File meta = new File(directory, META);
+            if (meta.isFile()) {
+                try (InputStream ins = new FileInputStream(meta)) {
+                    identifier = new BoardSnapshot.Reader(BoardSnapshot.readFully(ins), null).readString();
+                }
+            } else {
+                identifier = null;
+            }
+
+            rewind();
+        }
+
+        @Override
+        public String identifier() {
+            return identifier;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if (position + 1 < count) {
+                offset += length;
+                position++;
+            } else if (segment < segments.length) {
+                release();
+                time = mapReadOnly(segmentFile(directory, segments[segment], TIME_COLUMN));
+                lengths = mapReadOnly(segmentFile(directory, segments[segment], LENGTH_COLUMN));
+                data = mapReadOnly(segmentFile(directory, segments[segment], DATA_COLUMN));
+                count = time.getInt(0);
+                offset = 0;
+                position = 0;
+                segment++;
+            } else {
+                return false;
+            }
+
+            length = lengths.getShort(position << 1) & 0xffff;
+            return true;
+        }
+
+        @Override
+        public void rewind() {
+            segment = 0;
+            count = 0;
+            position = 0;
+            length = 0;
+            offset = 0;
+            release();
+        }
+
+        private void release() {
+            unmap(time);
+            unmap(lengths);
+            unmap(data);
+            time = null;
+            lengths = null;
+            data = null;
+        }
+
+        @Override
+        public long epochMillis() {
+            return time.getLong(HEADER_SIZE + (position << 3));
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public byte get(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(String.format(Locale.US, "Index %d is out of bounds for length %d", index, length));
+            }
+            return data.get(offset + index);
+        }
+
+        @Override
+        public int read(byte[] dst) {
+            for(int i = 0; i < length; i++) {
+                dst[i] = data.get(offset + i);
+            }
+            return length;
+        }
+
+        @Override
+        public void close() {
+            rewind();
+        }
+    }
+
+    private static MappedByteBuffer map(File file, int capacity) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+    }
+
+    /**
+     * Shrinks the file to its written length.  Only wasted space is at stake, so the file is left as it is if it cannot
+     * be truncated, for example while the platform still has it mapped.
+     */
+    private static void truncate(File file, long size) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(size);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static MappedByteBuffer mapReadOnly(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Releases the file mapping now instead of when the buffer is garbage collected, if the platform allows it.  The
+     * buffer must not be used afterwards.
+     */
+    private static void unmap(ByteBuffer buffer) {
+        if (buffer == null || INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // left to the garbage collector
+        }
+    }
+
+    static File segmentFile(File directory, int segment, String column) {
+        return new File(directory, String.format(Locale.US, "%05d%s", segment, column));
+    }
+
+    /**
+     * Lists the segments in a channel's directory, in the order they were written
+     */
+    static int[] segments(File directory) {
+        String[] names = directory.list((dir, name) -> name.endsWith(TIME_COLUMN));
+        if (names == null) {
+            return new int[0];
+        }
+
+        int[] segments = new int[names.length];
+        int n = 0;
+        for(String it: names) {
+            try {
+                segments[n] = Integer.parseInt(it.substring(0, it.length() - TIME_COLUMN.length()));
+                n++;
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        segments = Arrays.copyOf(segments, n);
+        Arrays.sort(segments);
+        return segments;
+    }
+
+    private final File directory;
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a recorder that stores its channels in the given directory
+     * @param directory    Directory to store the channels in, created if it does not exist
+     */
+    public JseRecorder(File directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public Subscriber channel(String name) {
+        return channels.computeIfAbsent(name, key -> new Channel(key, new File(directory, key)));
+    }
+
+    @Override
+    public Set<String> channels() {
+        Set<String> names = new TreeSet<>();
+        File[] children = directory.listFiles(File::isDirectory);
+        if (children != null) {
+            for(File it: children) {
+                if (new File(it, META).isFile() || segments(it).length > 0) {
+                    names.add(it.getName());
+                }
+            }
+        }
+        for(Channel it: channels.values()) {
+            if (it.bytes() > 0) {
+                names.add(it.name);
+            }
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    @Override
+    public long bytesRecorded() {
+        long total = 0;
+        for(Channel it: channels.values()) {
+            total += it.bytes();
+        }
+        return total;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flush(false);
+    }
+
+    @Override
+    public Cursor open(String name) throws IOException {
+        File channelDir = new File(directory, name);
+        if (!channelDir.isDirectory()) {
+            throw new FileNotFoundException("No recorded channel: " + name);
+        }
+        return new SegmentCursor(channelDir);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush(true);
+    }
+
+    private void flush(boolean close) throws IOException {
+        IOException error = null;
+        for(Channel it: channels.values()) {
+            try {
+                it.flush(close);
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
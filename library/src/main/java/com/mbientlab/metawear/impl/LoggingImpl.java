@@ -30,24 +30,38 @@ import com.mbientlab.metawear.impl.platform.TimedTask;
 import com.mbientlab.metawear.module.DataProcessor;
 import com.mbientlab.metawear.module.Logging;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.io.StreamCorruptedException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+import bolts.CancellationTokenSource;
 import bolts.Capture;
 import bolts.Continuation;
 import bolts.Task;
@@ -62,6 +76,14 @@ import static com.mbientlab.metawear.impl.Constant.Module.LOGGING;
 class LoggingImpl extends ModuleImplBase implements Logging {
     private static final long serialVersionUID = 5585806147100904291L;
     private final static double TICK_TIME_STEP= (48.0 / 32768.0) * 1000.0;
+    private final static int CLOCK_REFERENCES = 16, LOG_IDS = 32;
+    private final static String DOWNLOAD_CHECKPOINT = "com.mbientlab.metawear.impl.LoggingImpl.DOWNLOAD_CHECKPOINT";
+    // "MWLD", followed by the version, board state, and the length prefixed readout packets
+    static final int DUMP_MAGIC = 0x4d574c44;
+    static final short DUMP_VERSION = 1;
+    private static final long RESUME_TIMEOUT = 60000L;
+    // minimum time between the download progress saves made while the readout is running
+    private static final long CHECKPOINT_INTERVAL = 1000L;
     private static final byte LOG_ENTRY_SIZE= 4, REVISION_EXTENDED_LOGGING = 2, MMS_REVISION = 3;
     private static final byte ENABLE = 1,
             TRIGGER = 2,
@@ -87,10 +109,126 @@ class LoggingImpl extends ModuleImplBase implements Logging {
             this.resetUid= resetUid;
         }
     }
+    /**
+     * Growable ring buffer of 4 byte log entries, packed in little endian order
+     */
+    private static final class LogEntryQueue {
+        private int[] entries = new int[8];
+        private int head, size;
+
+        void add(int entry) {
+            if (size == entries.length) {
+                int[] expanded = new int[entries.length << 1];
+                for(int i = 0; i < size; i++) {
+                    expanded[i] = entries[(head + i) & (entries.length - 1)];
+                }
+                entries = expanded;
+                head = 0;
+            }
+
+            entries[(head + size) & (entries.length - 1)] = entry;
+            size++;
+        }
+
+        int poll() {
+            int entry = entries[head];
+            head = (head + 1) & (entries.length - 1);
+            size--;
+            return entry;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+    /**
+     * Position of a download, for each log id the tick of the last entry received and how many entries had that tick.
+     * Entries of one log id are read out in order so the position identifies exactly which entries were received.
+     */
+    private static final class DownloadProgress {
+        private final byte[] resetUids = new byte[LOG_IDS];
+        private final long[] ticks = new long[LOG_IDS];
+        private final int[] counts = new int[LOG_IDS];
+
+        void advance(byte logId, byte resetUid, long tick) {
+            if (counts[logId] != 0 && resetUids[logId] == resetUid && ticks[logId] == tick) {
+                counts[logId]++;
+            } else {
+                resetUids[logId] = resetUid;
+                ticks[logId] = tick;
+                counts[logId] = 1;
+            }
+        }
+
+        /**
+         * Checks if an entry replayed after resuming was already received, entries before the position are skipped
+         * and consume the position once it has been passed
+         */
+        boolean replayed(byte logId, byte resetUid, long tick) {
+            if (counts[logId] == 0 || resetUids[logId] != resetUid) {
+                return false;
+            }
+            if (tick < ticks[logId]) {
+                return true;
+            }
+            if (tick == ticks[logId]) {
+                counts[logId]--;
+                return true;
+            }
+
+            counts[logId] = 0;
+            return false;
+        }
+
+        DownloadProgress copy() {
+            DownloadProgress copy = new DownloadProgress();
+            System.arraycopy(resetUids, 0, copy.resetUids, 0, LOG_IDS);
+            System.arraycopy(ticks, 0, copy.ticks, 0, LOG_IDS);
+            System.arraycopy(counts, 0, copy.counts, 0, LOG_IDS);
+            return copy;
+        }
+
+        void write(BoardSnapshot.Writer out) throws IOException {
+            int n = 0;
+            for(int it: counts) {
+                if (it != 0) {
+                    n++;
+                }
+            }
+
+            out.writeVarInt(n);
+            for(byte i = 0; i < LOG_IDS; i++) {
+                if (counts[i] != 0) {
+                    out.writeByte(i);
+                    out.writeByte(resetUids[i]);
+                    out.writeLong(ticks[i]);
+                    out.writeVarInt(counts[i]);
+                }
+            }
+        }
+
+        static DownloadProgress read(BoardSnapshot.Reader in) throws IOException {
+            DownloadProgress progress = new DownloadProgress();
+            for(int i = in.readVarInt(); i > 0; i--) {
+                byte logId = in.readByte();
+                if (logId < 0 || logId >= LOG_IDS) {
+                    throw new StreamCorruptedException(String.format(Locale.US, "Invalid log id: %d", logId));
+                }
+                progress.resetUids[logId] = in.readByte();
+                progress.ticks[logId] = in.readLong();
+                progress.counts[logId] = in.readVarInt();
+            }
+            return progress;
+        }
+    }
     static class DataLogger extends DeviceDataConsumer implements Serializable {
         private static final long serialVersionUID = -5621099865981017205L;
 
         private final LinkedHashMap<Byte, LinkedList<byte[]>> logEntries= new LinkedHashMap<>();
+        // log entries are queued here during a download, logEntries only holds the queued entries when serialized
+        private transient byte[] ids;
+        private transient LogEntryQueue[] queues;
+        private transient byte[] scratch;
 
         DataLogger(DataTypeBase source) {
             super(source);
@@ -98,6 +236,7 @@ class LoggingImpl extends ModuleImplBase implements Logging {
 
         void addId(byte id) {
             logEntries.put(id, new LinkedList<>());
+            ids = null;
         }
 
         public void remove(MetaWearBoardPrivate mwPrivate) {
@@ -112,44 +251,164 @@ class LoggingImpl extends ModuleImplBase implements Logging {
             }
         }
 
-        void handleLogMessage(final MetaWearBoardPrivate mwPrivate, byte logId, final Calendar timestamp, byte[] data, Logging.LogDownloadErrorHandler handler) {
+        private void createQueues() {
+            ids = new byte[logEntries.size()];
+            queues = new LogEntryQueue[ids.length];
+
+            int i = 0;
+            for(Map.Entry<Byte, LinkedList<byte[]>> it: logEntries.entrySet()) {
+                ids[i] = it.getKey();
+                queues[i] = new LogEntryQueue();
+                for(byte[] entry: it.getValue()) {
+                    queues[i].add(packEntry(entry, 0, entry.length));
+                }
+                it.getValue().clear();
+                i++;
+            }
+        }
+
+        private void copyQueuedEntries() {
+            for(int i = 0; i < ids.length; i++) {
+                LinkedList<byte[]> cached = logEntries.get(ids[i]);
+                cached.clear();
+
+                for(int j = 0; j < queues[i].size; j++) {
+                    int entry = queues[i].entries[(queues[i].head + j) & (queues[i].entries.length - 1)];
+                    cached.add(new byte[] {(byte) entry, (byte) (entry >> 8), (byte) (entry >> 16), (byte) (entry >> 24)});
+                }
+            }
+        }
+
+        private void clearCopiedEntries() {
+            for(LinkedList<byte[]> it: logEntries.values()) {
+                it.clear();
+            }
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            if (ids != null) {
+                copyQueuedEntries();
+            }
+            out.defaultWriteObject();
+            if (ids != null) {
+                clearCopiedEntries();
+            }
+        }
+
+        void writeEntries(BoardSnapshot.Writer out) throws IOException {
+            if (ids != null) {
+                copyQueuedEntries();
+            }
+
+            out.writeVarInt(logEntries.size());
+            for(Map.Entry<Byte, LinkedList<byte[]>> it: logEntries.entrySet()) {
+                out.writeByte(it.getKey());
+                out.writeVarInt(it.getValue().size());
+                for(byte[] entry: it.getValue()) {
+                    out.writeBytes(entry);
+                }
+            }
+
+            if (ids != null) {
+                clearCopiedEntries();
+            }
+        }
+
+        void readEntries(BoardSnapshot.Reader in) throws IOException {
+            for(int i = in.readVarInt(); i > 0; i--) {
+                LinkedList<byte[]> entries = new LinkedList<>();
+                logEntries.put(in.readByte(), entries);
+
+                for(int j = in.readVarInt(); j > 0; j--) {
+                    entries.add(in.readBytes());
+                }
+            }
+        }
+
+        /**
+         * Skips over entries saved by {@link #writeEntries(BoardSnapshot.Writer)}
+         */
+        static void skipEntries(BoardSnapshot.Reader in) throws IOException {
+            for(int i = in.readVarInt(); i > 0; i--) {
+                in.readByte();
+                for(int j = in.readVarInt(); j > 0; j--) {
+                    in.readBytes();
+                }
+            }
+        }
+
+        /**
+         * Replaces the queued entries with the ones saved in a download checkpoint
+         */
+        void restoreEntries(BoardSnapshot.Reader in) throws IOException {
+            readEntries(in);
+            ids = null;
+            queues = null;
+        }
+
+        /**
+         * Queues the 4 byte log entry starting at <code>offset</code> and forwards a message to the subscriber once
+         * every log id belonging to this logger has an entry
+         */
+        void handleLogMessage(final MetaWearBoardPrivate mwPrivate, byte logId, long epochMillis, Calendar template,
+                              byte[] response, int offset, Logging.LogDownloadErrorHandler handler) {
             if (subscriber == null) {
+                final byte[] data = Arrays.copyOfRange(response, offset, offset + LOG_ENTRY_SIZE);
                 if (handler != null) {
-                    handler.receivedError(Logging.DownloadError.UNHANDLED_LOG_DATA, logId, timestamp, data);
+                    handler.receivedError(Logging.DownloadError.UNHANDLED_LOG_DATA, logId, createCalendar(template, epochMillis), data);
                 } else {
                     mwPrivate.logWarn(String.format(Locale.US, "No subscriber to handle log data: {logId: %d, time: %d, data: %s}",
-                            logId, timestamp.getTimeInMillis(), Util.arrayToHexString(data)));
+                            logId, epochMillis, Util.arrayToHexString(data)));
                 }
 
                 return;
             }
 
-            if (logEntries.containsKey(logId)) {
-                logEntries.get(logId).add(data);
-            } else if (handler != null) {
-                handler.receivedError(Logging.DownloadError.UNKNOWN_LOG_ENTRY, logId, timestamp, data);
+            if (ids == null) {
+                createQueues();
             }
 
-            boolean noneEmpty= true;
-            for(Queue<byte[]> cachedValues: logEntries.values()) {
-                noneEmpty&= !cachedValues.isEmpty();
+            boolean noneEmpty= true, found = false;
+            for(int i = 0; i < ids.length; i++) {
+                if (ids[i] == logId) {
+                    queues[i].add(packEntry(response, offset, LOG_ENTRY_SIZE));
+                    found = true;
+                }
+                noneEmpty&= !queues[i].isEmpty();
+            }
+
+            if (!found && handler != null) {
+                handler.receivedError(Logging.DownloadError.UNKNOWN_LOG_ENTRY, logId, createCalendar(template, epochMillis),
+                        Arrays.copyOfRange(response, offset, offset + LOG_ENTRY_SIZE));
             }
 
             if (noneEmpty) {
-                ArrayList<byte[]> entries= new ArrayList<>(logEntries.values().size());
-                for(Queue<byte[]> cachedValues: logEntries.values()) {
-                    entries.add(cachedValues.poll());
+                final int length = source.attributes.length();
+                final boolean batched = subscriber instanceof BatchSubscriberAdapter;
+                if (batched && (scratch == null || scratch.length != length)) {
+                    scratch = new byte[length];
+                }
+
+                final byte[] merged= batched ? scratch : new byte[length];
+                int pos= 0;
+                for(LogEntryQueue it: queues) {
+                    int entry = it.poll();
+                    for(int i = 0; i < LOG_ENTRY_SIZE && pos < length; i++, pos++) {
+                        merged[pos] = (byte) (entry >> (i << 3));
+                    }
                 }
 
-                final byte[] merged= new byte[source.attributes.length()];
-                int offset= 0;
-                for(int i= 0; i < entries.size(); i++) {
-                    int copyLength= Math.min(entries.get(i).length, source.attributes.length() - offset);
-                    System.arraycopy(entries.get(i), 0, merged, offset, copyLength);
-                    offset+= entries.get(i).length;
+                if (batched) {
+                    ((BatchSubscriberAdapter) subscriber).add(source, mwPrivate, true, merged, 0, length, epochMillis, environment);
+                } else {
+                    call(source.createMessage(true, mwPrivate, merged, epochMillis, null));
                 }
+            }
+        }
 
-                call(source.createMessage(true, mwPrivate, merged, timestamp, null));
+        void flushBatch() {
+            if (subscriber instanceof BatchSubscriberAdapter) {
+                ((BatchSubscriberAdapter) subscriber).flush(environment);
             }
         }
 
@@ -166,9 +425,25 @@ class LoggingImpl extends ModuleImplBase implements Logging {
         }
     }
 
+    private static int packEntry(byte[] src, int offset, int length) {
+        int entry = 0;
+        for(int i = 0; i < Math.min(length, LOG_ENTRY_SIZE); i++) {
+            entry |= (src[offset + i] & 0xff) << (i << 3);
+        }
+        return entry;
+    }
+
+    private static Calendar createCalendar(Calendar template, long epochMillis) {
+        final Calendar timestamp= (Calendar) template.clone();
+        timestamp.setTimeInMillis(epochMillis);
+        return timestamp;
+    }
+
     // Logger state
     private final HashMap<Byte, TimeReference> logReferenceTicks= new HashMap<>();
     private final HashMap<Byte, Long> lastTimestamp= new HashMap<>();
+    // working copy of lastTimestamp indexed by reset uid, -1 if no tick has been seen
+    private transient long[] lastTicks;
     private TimeReference latestReference;
     private final HashMap<Byte, DataLogger> dataLoggers= new HashMap<>();
     private HashMap<Byte, Long> rollbackTimestamps = new HashMap<>();
@@ -181,20 +456,297 @@ class LoggingImpl extends ModuleImplBase implements Logging {
     private transient AtomicReference<TaskCompletionSource<Void>> downloadTask;
     private transient TimedTask<byte[]> createLoggerTask, syncLoggerConfigTask;
     private transient TimedTask<Void> queryTimeTask;
+    private transient ClockModel clockModel;
+    private transient boolean resumable;
+    private transient long resumeTimeout;
+    private transient AtomicBoolean resumePending;
+    private transient CancellationTokenSource resumeTimer;
+    private transient long lastCheckpoint;
+    // last queued write of the download progress, writes run one after another off the notification thread
+    private transient Task<Void> checkpointWrite;
+    // position of a resumable download, replay skips entries read out again after the download resumes
+    private transient DownloadProgress received, replay;
+    private transient DataOutputStream dump;
+    private transient IOException dumpError;
 
     LoggingImpl(MetaWearBoardPrivate mwPrivate) {
         super(mwPrivate);
     }
 
+    private void saveLastTicks() {
+        for(int i = 0; i < lastTicks.length; i++) {
+            if (lastTicks[i] != -1) {
+                lastTimestamp.put((byte) i, lastTicks[i]);
+            }
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        saveLastTicks();
+        out.defaultWriteObject();
+    }
+
+    private static void writeTimeReference(BoardSnapshot.Writer out, TimeReference reference) throws IOException {
+        out.writeByte(reference.resetUid);
+        out.writeLong(reference.tick);
+        out.writeCalendar(reference.timestamp);
+    }
+
+    private static TimeReference readTimeReference(BoardSnapshot.Reader in) throws IOException {
+        return new TimeReference(in.readByte(), in.readLong(), in.readCalendar());
+    }
+
+    private static void writeTicks(BoardSnapshot.Writer out, Map<Byte, Long> ticks) throws IOException {
+        out.writeVarInt(ticks.size());
+        for(Map.Entry<Byte, Long> it: ticks.entrySet()) {
+            out.writeByte(it.getKey());
+            out.writeLong(it.getValue());
+        }
+    }
+
+    private static void readTicks(BoardSnapshot.Reader in, Map<Byte, Long> ticks) throws IOException {
+        for(int i = in.readVarInt(); i > 0; i--) {
+            ticks.put(in.readByte(), in.readLong());
+        }
+    }
+
+    @Override
+    void writeState(BoardSnapshot.Writer out) throws IOException {
+        saveLastTicks();
+
+        out.writeVarInt(logReferenceTicks.size());
+        for(Map.Entry<Byte, TimeReference> it: logReferenceTicks.entrySet()) {
+            out.writeByte(it.getKey());
+            writeTimeReference(out, it.getValue());
+        }
+
+        // the latest reference is usually also in logReferenceTicks and its tick is updated in place
+        if (latestReference == null) {
+            out.writeByte((byte) 0);
+        } else if (logReferenceTicks.get(latestReference.resetUid) == latestReference) {
+            out.writeByte((byte) 1);
+            out.writeByte(latestReference.resetUid);
+        } else {
+            out.writeByte((byte) 2);
+            writeTimeReference(out, latestReference);
+        }
+
+        writeTicks(out, lastTimestamp);
+        writeTicks(out, rollbackTimestamps);
+
+        out.writeVarInt(dataLoggers.size());
+        for(Map.Entry<Byte, DataLogger> it: dataLoggers.entrySet()) {
+            out.writeByte(it.getKey());
+            out.writeConsumer(it.getValue());
+        }
+    }
+
+    @Override
+    void readState(BoardSnapshot.Reader in) throws IOException {
+        for(int i = in.readVarInt(); i > 0; i--) {
+            logReferenceTicks.put(in.readByte(), readTimeReference(in));
+        }
+
+        switch(in.readByte()) {
+            case 1:
+                latestReference = logReferenceTicks.get(in.readByte());
+                break;
+            case 2:
+                latestReference = readTimeReference(in);
+                break;
+            default:
+                latestReference = null;
+                break;
+        }
+
+        readTicks(in, lastTimestamp);
+        readTicks(in, rollbackTimestamps);
+
+        for(int i = in.readVarInt(); i > 0; i--) {
+            dataLoggers.put(in.readByte(), (DataLogger) in.readConsumer());
+        }
+    }
+
     @Override
     public void disconnected() {
+        flushBatches();
+        saveLastTicks();
         rollbackTimestamps.putAll(lastTimestamp);
+        if (dump != null) {
+            finishDump();
+        }
+        if (received != null && downloadTask.get() != null) {
+            saveCheckpoint(true);
+            final CancellationTokenSource timer = new CancellationTokenSource();
+            resumeTimer = timer;
+            resumePending.set(true);
+            Task.delay(resumeTimeout, timer.getToken()).continueWith(task -> {
+                if (!task.isCancelled()) {
+                    abandonDownload(new TaskTimeoutException("Board did not reconnect to resume the log download", null));
+                }
+                return null;
+            });
+            return;
+        }
+
         TaskCompletionSource<Void> taskSource = downloadTask.getAndSet(null);
         if (taskSource != null) {
             taskSource.setError(new RuntimeException("Lost connection while downloading log data"));
         }
     }
 
+    /**
+     * Continues a resumable download interrupted by a lost connection, called once the board is connected again
+     */
+    void resumeDownload() {
+        if (resumePending.compareAndSet(true, false)) {
+            resumeTimer.cancel();
+            replay = received.copy();
+            startReadout();
+        }
+    }
+
+    /**
+     * Ends a download waiting to be resumed, the saved progress is left for the next download
+     * @param error     Error to fail the download task with, null to cancel it
+     */
+    private void abandonDownload(Exception error) {
+        if (resumePending.compareAndSet(true, false)) {
+            resumeTimer.cancel();
+            received = null;
+            replay = null;
+
+            TaskCompletionSource<Void> taskSource = downloadTask.getAndSet(null);
+            if (taskSource != null) {
+                if (error != null) {
+                    taskSource.setError(error);
+                } else {
+                    taskSource.setCancelled();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void cancelDownload() {
+        abandonDownload(null);
+    }
+
+    /**
+     * Saves the download progress if it was not saved within the checkpoint interval, called from the readout handlers
+     */
+    private void throttleCheckpoint() {
+        long now = System.nanoTime();
+        if (now - lastCheckpoint >= TimeUnit.MILLISECONDS.toNanos(CHECKPOINT_INTERVAL)) {
+            lastCheckpoint = now;
+            saveCheckpoint(false);
+        }
+    }
+
+    /**
+     * Serializes the download progress on the calling thread and writes it on a background thread
+     * @param wait    True to return once the progress is written
+     */
+    private void saveCheckpoint(boolean wait) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+            BoardSnapshot.Writer out = new BoardSnapshot.Writer(buffer);
+            received.write(out);
+            saveLastTicks();
+            writeTicks(out, lastTimestamp);
+
+            Set<DataLogger> loggers = Collections.newSetFromMap(new IdentityHashMap<>());
+            loggers.addAll(dataLoggers.values());
+            out.writeVarInt(loggers.size());
+            for(DataLogger it: loggers) {
+                out.writeByte(it.logEntries.keySet().iterator().next());
+                it.writeEntries(out);
+            }
+            out.flush();
+
+            writeCheckpoint(buffer.toByteArray(), "save", wait);
+        } catch (IOException e) {
+            mwPrivate.logWarn(String.format(Locale.US, "Cannot save log download progress (%s)", e.getMessage()));
+        }
+    }
+
+    /**
+     * Queues a write of the saved download progress after the writes queued before it
+     * @param action    What the write does, for the warning logged if it fails
+     * @param wait      True to return once the write is done
+     */
+    private void writeCheckpoint(final byte[] state, final String action, boolean wait) {
+        Task<Void> write;
+        synchronized (this) {
+            write = checkpointWrite.continueWith(ignored -> {
+                try {
+                    mwPrivate.localSave(DOWNLOAD_CHECKPOINT, state);
+                } catch (IOException e) {
+                    mwPrivate.logWarn(String.format(Locale.US, "Cannot %s log download progress (%s)", action, e.getMessage()));
+                }
+                return null;
+            }, Task.BACKGROUND_EXECUTOR);
+            checkpointWrite = write;
+        }
+
+        if (wait) {
+            awaitCheckpointWrites(write);
+        }
+    }
+
+    private static void awaitCheckpointWrites(Task<Void> write) {
+        try {
+            write.waitForCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Restores the log entries and ticks from the saved download progress
+     * @return Saved position, null if there is no saved progress
+     */
+    private DownloadProgress loadCheckpoint() {
+        synchronized (this) {
+            awaitCheckpointWrites(checkpointWrite);
+        }
+        try (InputStream ins = mwPrivate.localRetrieve(DOWNLOAD_CHECKPOINT)) {
+            byte[] state = ins == null ? null : BoardSnapshot.readFully(ins);
+            if (state == null || state.length == 0) {
+                return null;
+            }
+
+            BoardSnapshot.Reader in = new BoardSnapshot.Reader(state, mwPrivate);
+            DownloadProgress progress = DownloadProgress.read(in);
+            HashMap<Byte, Long> ticks = new HashMap<>();
+            readTicks(in, ticks);
+            for(int i = in.readVarInt(); i > 0; i--) {
+                DataLogger logger = dataLoggers.get(in.readByte());
+                if (logger == null) {
+                    DataLogger.skipEntries(in);
+                } else {
+                    logger.restoreEntries(in);
+                }
+            }
+
+            for(Map.Entry<Byte, Long> it: ticks.entrySet()) {
+                lastTicks[it.getKey() & 0xff] = it.getValue();
+            }
+            lastTimestamp.putAll(ticks);
+            rollbackTimestamps.putAll(ticks);
+            return progress;
+        } catch (IOException e) {
+            mwPrivate.logWarn(String.format(Locale.US, "Cannot restore log download progress (%s)", e.getMessage()));
+            return null;
+        }
+    }
+
+    private void clearCheckpoint() {
+        received = null;
+        replay = null;
+        writeCheckpoint(new byte[0], "clear", false);
+    }
+
     void removeDataLogger(boolean sync, DataLogger logger) {
         if (sync) {
             logger.remove(mwPrivate);
@@ -205,11 +757,26 @@ class LoggingImpl extends ModuleImplBase implements Logging {
         }
     }
 
+    private void flushBatches() {
+        for(DataLogger it: dataLoggers.values()) {
+            it.flushBatch();
+        }
+    }
+
     private void completeDownloadTask() {
+        flushBatches();
         rollbackTimestamps.clear();
+        if (received != null) {
+            clearCheckpoint();
+        }
+        final IOException error = dump == null ? null : finishDump();
         TaskCompletionSource<Void> taskSource = downloadTask.getAndSet(null);
         if (taskSource != null) {
-            taskSource.setResult(null);
+            if (error != null) {
+                taskSource.setError(error);
+            } else {
+                taskSource.setResult(null);
+            }
         } else {
             mwPrivate.logWarn("Log download finished but no Task object to complete");
         }
@@ -218,6 +785,12 @@ class LoggingImpl extends ModuleImplBase implements Logging {
     @Override
     public void tearDown() {
         dataLoggers.clear();
+        if (received != null) {
+            clearCheckpoint();
+        }
+        if (resumePending.compareAndSet(true, false)) {
+            resumeTimer.cancel();
+        }
 
         mwPrivate.sendCommand(new byte[] {LOGGING.id, REMOVE_ALL});
     }
@@ -272,17 +845,31 @@ class LoggingImpl extends ModuleImplBase implements Logging {
         syncLoggerConfigTask = new TimedTask<>();
 
         downloadTask = new AtomicReference<>();
+        resumePending = new AtomicBoolean();
+        checkpointWrite = Task.forResult(null);
         if (rollbackTimestamps == null) {
             rollbackTimestamps = new HashMap<>();
         }
+        lastTicks = new long[256];
+        Arrays.fill(lastTicks, -1);
+        if (lastTimestamp != null) {
+            for(Map.Entry<Byte, Long> it: lastTimestamp.entrySet()) {
+                lastTicks[it.getKey() & 0xff] = it.getValue();
+            }
+        }
 
         this.mwPrivate.addResponseHandler(new Pair<>(LOGGING.id, Util.setRead(TRIGGER)), response -> syncLoggerConfigTask.setResult(response));
         this.mwPrivate.addResponseHandler(new Pair<>(LOGGING.id, TRIGGER), response -> createLoggerTask.setResult(response));
         this.mwPrivate.addResponseHandler(new Pair<>(LOGGING.id, READOUT_NOTIFY), response -> {
-            processLogData(Arrays.copyOfRange(response, 2, 11));
+            if (dump != null) {
+                writeDump(response);
+                return;
+            }
+
+            processLogData(response, 2);
 
             if (response.length == 20) {
-                processLogData(Arrays.copyOfRange(response, 11, 20));
+                processLogData(response, 11);
             }
         });
         this.mwPrivate.addResponseHandler(new Pair<>(LOGGING.id, READOUT_PROGRESS), response -> {
@@ -292,8 +879,13 @@ class LoggingImpl extends ModuleImplBase implements Logging {
 
             if (nEntriesLeft == 0) {
                 completeDownloadTask();
-            } else if (updateHandler != null) {
-                updateHandler.receivedUpdate(nEntriesLeft, nLogEntries);
+            } else {
+                if (received != null) {
+                    throttleCheckpoint();
+                }
+                if (updateHandler != null) {
+                    updateHandler.receivedUpdate(nEntriesLeft, nLogEntries);
+                }
             }
         });
         this.mwPrivate.addResponseHandler(new Pair<>(LOGGING.id, Util.setRead(TIME)), response -> {
@@ -309,11 +901,14 @@ class LoggingImpl extends ModuleImplBase implements Logging {
                 if (resetUid != -1) {
                     logReferenceTicks.put(latestReference.resetUid, latestReference);
                 }
+                clockModel().add(resetUid, tick * TICK_TIME_STEP, mwPrivate.receivedEpochMillis());
             }
 
-            if (queryTimeTask != null) {
-                queryTimeTask.setResult(null);
+            // cleared first, completing the task can start another query on this thread
+            final TimedTask<Void> pending = queryTimeTask;
+            if (pending != null) {
                 queryTimeTask = null;
+                pending.setResult(null);
             }
         });
         this.mwPrivate.addResponseHandler(new Pair<>(LOGGING.id, Util.setRead(LENGTH)), response -> {
@@ -340,7 +935,13 @@ class LoggingImpl extends ModuleImplBase implements Logging {
         });
 
         if (mwPrivate.lookupModuleInfo(LOGGING).revision >= REVISION_EXTENDED_LOGGING) {
-            this.mwPrivate.addResponseHandler(new Pair<>(LOGGING.id, READOUT_PAGE_COMPLETED), response -> mwPrivate.sendCommand(new byte[] {LOGGING.id, READOUT_PAGE_CONFIRM}));
+            this.mwPrivate.addResponseHandler(new Pair<>(LOGGING.id, READOUT_PAGE_COMPLETED), response -> {
+                // confirmed first, the board reads out the next page while the progress is saved
+                mwPrivate.sendCommand(new byte[] {LOGGING.id, READOUT_PAGE_CONFIRM});
+                if (received != null) {
+                    throttleCheckpoint();
+                }
+            });
         }
     }
 
@@ -366,16 +967,106 @@ class LoggingImpl extends ModuleImplBase implements Logging {
         this.updateHandler= updateHandler;
         this.errorHandler= errorHandler;
 
+        if (resumable && received == null) {
+            received = loadCheckpoint();
+            if (received == null) {
+                received = new DownloadProgress();
+            } else {
+                replay = received.copy();
+            }
+            lastCheckpoint = System.nanoTime();
+        }
+
+        taskSource = new TaskCompletionSource<>();
+        downloadTask.set(taskSource);
+        startReadout();
+        return taskSource.getTask();
+    }
+
+    @Override
+    public Task<Void> dumpAsync(OutputStream dest, int nUpdates, LogDownloadUpdateHandler updateHandler) {
+        if (downloadTask.get() != null) {
+            return Task.forError(new IllegalStateException("Cannot dump the log while it is being downloaded"));
+        }
+
+        try {
+            ByteArrayOutputStream state = new ByteArrayOutputStream(1024);
+            mwPrivate.serializeState(state);
+
+            dump = new DataOutputStream(new BufferedOutputStream(dest, 8192));
+            dump.writeInt(DUMP_MAGIC);
+            dump.writeShort(DUMP_VERSION);
+            dump.writeInt(state.size());
+            state.writeTo(dump);
+        } catch (IOException e) {
+            dump = null;
+            return Task.forError(e);
+        }
+
+        this.nUpdates = nUpdates;
+        this.updateHandler= updateHandler;
+        this.errorHandler= null;
+        dumpError = null;
+
+        TaskCompletionSource<Void> taskSource = new TaskCompletionSource<>();
+        downloadTask.set(taskSource);
+        startReadout();
+        return taskSource.getTask();
+    }
+
+    @Override
+    public Task<Void> dumpAsync(OutputStream dest) {
+        return dumpAsync(dest, 0, null);
+    }
+
+    private void writeDump(byte[] response) {
+        if (dumpError == null) {
+            try {
+                dump.writeByte(response.length);
+                dump.write(response);
+            } catch (IOException e) {
+                dumpError = e;
+            }
+        }
+    }
+
+    /**
+     * Flushes the dump, the destination stream is left open
+     * @return First error encountered while writing the dump, null if it was written
+     */
+    private IOException finishDump() {
+        try {
+            dump.flush();
+        } catch (IOException e) {
+            if (dumpError == null) {
+                dumpError = e;
+            }
+        }
+
+        IOException error = dumpError;
+        dump = null;
+        dumpError = null;
+        return error;
+    }
+
+    private void startReadout() {
         if (mwPrivate.lookupModuleInfo(LOGGING).revision >= REVISION_EXTENDED_LOGGING) {
             mwPrivate.sendCommand(new byte[] {LOGGING.id, READOUT_PAGE_COMPLETED, 1});
         }
         mwPrivate.sendCommand(new byte[] {LOGGING.id, READOUT_NOTIFY, 1});
         mwPrivate.sendCommand(new byte[] {LOGGING.id, READOUT_PROGRESS, 1});
         mwPrivate.sendCommand(new byte[] {LOGGING.id, Util.setRead(LENGTH)});
+    }
 
-        taskSource = new TaskCompletionSource<>();
-        downloadTask.set(taskSource);
-        return taskSource.getTask();
+    @Override
+    public void setResumableDownload(boolean enable, long timeout) {
+        resumable = enable;
+        resumeTimeout = timeout;
+    }
+
+    @Override
+    public void setResumableDownload(boolean enable) {
+        setResumableDownload(enable, RESUME_TIMEOUT);
     }
 
     @Override
@@ -414,6 +1105,33 @@ class LoggingImpl extends ModuleImplBase implements Logging {
                 () -> mwPrivate.sendCommand(new byte[] { Constant.Module.LOGGING.id, Util.setRead(LoggingImpl.TIME) }));
     }
 
+    private ClockModel clockModel() {
+        if (clockModel == null) {
+            clockModel = new ClockModel(CLOCK_REFERENCES);
+        }
+        return clockModel;
+    }
+
+    @Override
+    public Task<ClockEstimate> syncClockAsync() {
+        return queryTime().onSuccess(ignored -> {
+            ClockModel model = clockModel();
+            return new ClockEstimate(model.offset(), model.drift(), model.size());
+        });
+    }
+
+    /**
+     * Converts a streamed tick to local time with the clock estimate, falling back to the latest reference when there
+     * are not enough readings to estimate the drift
+     */
+    long alignedEpochMillis(long tick) {
+        final ClockModel model = clockModel;
+        if (model == null || model.size() < 2) {
+            return computeEpochMillis((byte) -1, tick);
+        }
+        return model.toEpochMillis(tick * TICK_TIME_STEP);
+    }
+
     Task<Queue<DataLogger>> queueLoggers(Queue<DataTypeBase> producers) {
         final Queue<DataLogger> loggers = new LinkedList<>();
         final Capture<Boolean> terminate = new Capture<>(false);
@@ -471,31 +1189,48 @@ class LoggingImpl extends ModuleImplBase implements Logging {
     }
 
 
-    private void processLogData(byte[] logEntry) {
-        final byte logId= (byte) (logEntry[0] & 0x1f), resetUid = (byte) (((logEntry[0] & ~0x1f) >> 5) & 0x7);
+    /**
+     * Decodes the 9 byte log entry starting at <code>offset</code> without copying it out of the response
+     */
+    private void processLogData(byte[] response, int offset) {
+        final byte logId= (byte) (response[offset] & 0x1f), resetUid = (byte) (((response[offset] & ~0x1f) >> 5) & 0x7);
+        final long tick= (response[offset + 1] & 0xffL) | (response[offset + 2] & 0xffL) << 8 |
+                (response[offset + 3] & 0xffL) << 16 | (response[offset + 4] & 0xffL) << 24;
 
-        byte[] padded= new byte[8];
-        System.arraycopy(logEntry, 1, padded, 0, 4);
-        long tick= ByteBuffer.wrap(padded).order(ByteOrder.LITTLE_ENDIAN).getLong(0);
+        if (received != null) {
+            if (replay != null && replay.replayed(logId, resetUid, tick)) {
+                return;
+            }
+            received.advance(logId, resetUid, tick);
+        } else if (rollbackTimestamps.containsKey(resetUid) && rollbackTimestamps.get(resetUid) >= tick) {
+            return;
+        }
 
-        if (!rollbackTimestamps.containsKey(resetUid) || rollbackTimestamps.get(resetUid) < tick) {
-            final byte[] logData = Arrays.copyOfRange(logEntry, 5, logEntry.length);
-            final Calendar realTimestamp = computeTimestamp(resetUid, tick);
+        final long epochMillis = computeEpochMillis(resetUid, tick);
+        final Calendar template = lookupReference(resetUid).timestamp;
 
-            if (dataLoggers.containsKey(logId)) {
-                dataLoggers.get(logId).handleLogMessage(mwPrivate, logId, realTimestamp, logData, errorHandler);
-            } else if (errorHandler != null) {
-                errorHandler.receivedError(DownloadError.UNKNOWN_LOG_ENTRY, logId, realTimestamp, logData);
-            }
+        DataLogger logger = dataLoggers.get(logId);
+        if (logger != null) {
+            logger.handleLogMessage(mwPrivate, logId, epochMillis, template, response, offset + 5, errorHandler);
+        } else if (errorHandler != null) {
+            errorHandler.receivedError(DownloadError.UNKNOWN_LOG_ENTRY, logId, createCalendar(template, epochMillis),
+                    Arrays.copyOfRange(response, offset + 5, offset + 5 + LOG_ENTRY_SIZE));
         }
     }
 
-    Calendar computeTimestamp(byte resetUid, long tick) {
-        TimeReference reference= logReferenceTicks.containsKey(resetUid) ? logReferenceTicks.get(resetUid) : latestReference;
+    private TimeReference lookupReference(byte resetUid) {
+        TimeReference reference = logReferenceTicks.get(resetUid);
+        return reference == null ? latestReference : reference;
+    }
+
+    long computeEpochMillis(byte resetUid, long tick) {
+        final TimeReference reference= lookupReference(resetUid);
+        final int slot = resetUid & 0xff;
+        final long last = lastTicks[slot];
 
-        if (lastTimestamp.containsKey(resetUid) && lastTimestamp.get(resetUid) > tick) {
-            long diff = (tick - lastTimestamp.get(resetUid)) & 0xffffffffL;
-            long offset = diff + (lastTimestamp.get(resetUid) - reference.tick);
+        if (last > tick) {
+            long diff = (tick - last) & 0xffffffffL;
+            long offset = diff + (last - reference.tick);
             reference.timestamp.setTimeInMillis(reference.timestamp.getTimeInMillis() + (long) (offset * TICK_TIME_STEP));
             reference.tick = tick;
 
@@ -503,13 +1238,55 @@ class LoggingImpl extends ModuleImplBase implements Logging {
                 rollbackTimestamps.put(resetUid, tick);
             }
         }
-        lastTimestamp.put(resetUid, tick);
+        lastTicks[slot] = tick;
 
-        long offset = (long) ((tick - reference.tick) * TICK_TIME_STEP);
-        final Calendar timestamp= (Calendar) reference.timestamp.clone();
-        timestamp.setTimeInMillis(timestamp.getTimeInMillis() + offset);
+        return reference.timestamp.getTimeInMillis() + (long) ((tick - reference.tick) * TICK_TIME_STEP);
+    }
 
-        return timestamp;
+    /**
+     * Converts log ticks to time for an offline decode.  Each partition of the decode has its own clock because a
+     * rolled over tick moves the time reference forward.
+     */
+    final class TickClock {
+        private static final int RESET_UIDS = 8;
+
+        private final long[] referenceTicks = new long[RESET_UIDS], referenceMillis = new long[RESET_UIDS],
+                last = new long[RESET_UIDS], rollback = new long[RESET_UIDS];
+
+        TickClock() {
+            for(byte i = 0; i < RESET_UIDS; i++) {
+                TimeReference reference = lookupReference(i);
+                if (reference != null) {
+                    referenceTicks[i] = reference.tick;
+                    referenceMillis[i] = reference.timestamp.getTimeInMillis();
+                }
+                last[i] = lastTicks[i];
+                rollback[i] = rollbackTimestamps.containsKey(i) ? rollbackTimestamps.get(i) : -1;
+            }
+        }
+
+        /**
+         * Checks if an entry was passed to the subscribers by a download interrupted before the state was saved
+         */
+        boolean delivered(byte resetUid, long tick) {
+            return tick <= rollback[resetUid];
+        }
+
+        long epochMillis(byte resetUid, long tick) {
+            if (last[resetUid] > tick) {
+                long diff = (tick - last[resetUid]) & 0xffffffffL;
+                long offset = diff + (last[resetUid] - referenceTicks[resetUid]);
+                referenceMillis[resetUid] += (long) (offset * TICK_TIME_STEP);
+                referenceTicks[resetUid] = tick;
+            }
+            last[resetUid] = tick;
+
+            return referenceMillis[resetUid] + (long) ((tick - referenceTicks[resetUid]) * TICK_TIME_STEP);
+        }
+    }
+
+    DataLogger lookupLogger(byte logId) {
+        return dataLoggers.get(logId);
     }
 
     private Task<Collection<DataLogger>> queryActiveLoggersInnerAsync(final byte id) {
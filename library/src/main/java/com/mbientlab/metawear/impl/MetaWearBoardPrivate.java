@@ -32,6 +32,9 @@ import com.mbientlab.metawear.builder.RouteBuilder;
 import com.mbientlab.metawear.impl.JseMetaWearBoard.RegisterResponseHandler;
 import com.mbientlab.metawear.module.Timer;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Collection;
 import java.util.Map;
 
@@ -70,6 +73,28 @@ interface MetaWearBoardPrivate {
     Task<Observer> queueEvent(DataTypeBase owner, CodeBlock codeBlock);
 
     void logWarn(String message);
+    /**
+     * Saves module data to the board's local storage, separate from the board state
+     */
+    void localSave(String key, byte[] data) throws IOException;
+    InputStream localRetrieve(String key) throws IOException;
+    /**
+     * Writes the board state without the subscribers, for decoding data away from the app
+     */
+    void serializeState(OutputStream outs) throws IOException;
+    /**
+     * Receive time of the notification being dispatched, computed from a monotonic clock anchored when the board connected
+     */
+    long receivedEpochMillis();
+    /**
+     * Samples already decoded from the notification being dispatched, shared by the consumers of equivalent data types
+     */
+    NotificationDispatcher.DecodedSamples decodedSamples();
+    /**
+     * Called when a stream receives a notification, the first one after connecting is reported by
+     * {@link com.mbientlab.metawear.MetaWearBoard#connectTimes()}
+     */
+    void receivedSample();
 
     Version getFirmwareVersion();
 }
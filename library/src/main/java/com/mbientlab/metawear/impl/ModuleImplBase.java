@@ -24,6 +24,7 @@
 
 package com.mbientlab.metawear.impl;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
@@ -46,4 +47,11 @@ abstract class ModuleImplBase implements Serializable {
     protected void init() { }
     public void tearDown() { }
     public void disconnected() { }
+
+    /**
+     * Writes the module's persistent state to a board snapshot.  Modules are created from their module info before
+     * the state is read back so only state that can change after creation needs to be written.
+     */
+    void writeState(BoardSnapshot.Writer out) throws IOException { }
+    void readState(BoardSnapshot.Reader in) throws IOException { }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+/**
+ * Converts {@link System#nanoTime()} readings to epoch milliseconds using an anchor taken once per connection.  Receive
+ * times stay monotonic for the whole connection even if the device's wall clock is changed, and no
+ * {@link java.util.Calendar} objects are needed to timestamp incoming notifications.
+ */
+final class MonotonicClock {
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private static final class Anchor {
+        final long epochMillis, nanos;
+
+        Anchor(long epochMillis, long nanos) {
+            this.epochMillis = epochMillis;
+            this.nanos = nanos;
+        }
+    }
+
+    private volatile Anchor anchor;
+    private volatile long receivedNanos;
+
+    MonotonicClock() {
+        anchor();
+    }
+
+    /**
+     * Pairs the current wall clock time with the current monotonic time, called when the board connects
+     */
+    void anchor() {
+        Anchor value = new Anchor(System.currentTimeMillis(), System.nanoTime());
+        anchor = value;
+        receivedNanos = value.nanos;
+    }
+
+    /**
+     * Records the monotonic time a notification was received, called before the notification is dispatched
+     */
+    void markReceived() {
+        receivedNanos = System.nanoTime();
+    }
+
+    /**
+     * Receive time of the notification currently being dispatched
+     * @return Epoch milliseconds of the last {@link #markReceived()} call
+     */
+    long receivedEpochMillis() {
+        return toEpochMillis(receivedNanos);
+    }
+
+    long toEpochMillis(long nanos) {
+        Anchor value = anchor;
+        return value.epochMillis + Math.floorDiv(nanos - value.nanos, NANOS_PER_MILLI);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.Data;
+import com.mbientlab.metawear.impl.JseMetaWearBoard.RegisterResponseHandler;
+
+/**
+ * Routes notifications from the MetaWear notify characteristic to the registered response and data handlers.  Handlers are
+ * stored in a table indexed by the raw module, register, and data id bytes so dispatching a packet does not box any keys or
+ * allocate iterators.  Handler arrays are replaced, not modified, when handlers are added or removed.
+ */
+class NotificationDispatcher {
+    private static final int TABLE_SIZE = 256;
+    private static final RegisterResponseHandler[] EMPTY_HANDLERS = new RegisterResponseHandler[0];
+
+    private static class RegisterEntry {
+        boolean hasDataId;
+        RegisterResponseHandler responseHandler;
+        RegisterResponseHandler[][] dataHandlers;
+    }
+
+    /**
+     * Samples decoded from the notification being dispatched.  The first consumer of a data type decodes the packet and
+     * consumers of equivalent data types later in the same dispatch are handed the same samples, so a packet is decoded
+     * once per data type however many subscribers it has.  Only touched from the dispatching thread.
+     */
+    static final class DecodedSamples {
+        private byte[] packet;
+        private DataTypeBase source;
+        private Data[] samples;
+
+        void clear() {
+            packet = null;
+            source = null;
+            samples = null;
+        }
+
+        /**
+         * @return Samples decoded from the packet for an equivalent data type, null if it was not decoded yet
+         */
+        Data[] lookup(byte[] packet, DataTypeBase source) {
+            return this.packet == packet && source.decodesLike(this.source) ? samples : null;
+        }
+
+        void store(byte[] packet, DataTypeBase source, Data[] samples) {
+            this.packet = packet;
+            this.source = source;
+            this.samples = samples;
+        }
+    }
+
+    private final RegisterEntry[][] entries = new RegisterEntry[TABLE_SIZE][];
+    final DecodedSamples decoded = new DecodedSamples();
+
+    private RegisterEntry lookup(byte module, byte register) {
+        RegisterEntry[] registers = entries[module & 0xff];
+        return registers == null ? null : registers[register & 0xff];
+    }
+
+    private RegisterEntry lookupOrCreate(byte module, byte register) {
+        RegisterEntry[] registers = entries[module & 0xff];
+        if (registers == null) {
+            registers = new RegisterEntry[TABLE_SIZE];
+            entries[module & 0xff] = registers;
+        }
+
+        RegisterEntry entry = registers[register & 0xff];
+        if (entry == null) {
+            entry = new RegisterEntry();
+            registers[register & 0xff] = entry;
+        }
+        return entry;
+    }
+
+    void addResponseHandler(byte module, byte register, RegisterResponseHandler handler) {
+        lookupOrCreate(module, register).responseHandler = handler;
+    }
+
+    void addDataIdHeader(byte module, byte register) {
+        lookupOrCreate(module, register).hasDataId = true;
+    }
+
+    void addDataHandler(byte module, byte register, byte id, RegisterResponseHandler handler) {
+        RegisterEntry entry = lookupOrCreate(module, register);
+        if (entry.dataHandlers == null) {
+            entry.dataHandlers = new RegisterResponseHandler[TABLE_SIZE][];
+        }
+
+        RegisterResponseHandler[] current = entry.dataHandlers[id & 0xff];
+        if (current == null) {
+            current = EMPTY_HANDLERS;
+        }
+        for(RegisterResponseHandler it: current) {
+            if (it == handler) {
+                return;
+            }
+        }
+
+        RegisterResponseHandler[] updated = new RegisterResponseHandler[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = handler;
+        entry.dataHandlers[id & 0xff] = updated;
+    }
+
+    void removeDataHandler(byte module, byte register, byte id, RegisterResponseHandler handler) {
+        RegisterEntry entry = lookup(module, register);
+        if (entry == null || entry.dataHandlers == null || entry.dataHandlers[id & 0xff] == null) {
+            return;
+        }
+
+        RegisterResponseHandler[] current = entry.dataHandlers[id & 0xff];
+        for(int i = 0; i < current.length; i++) {
+            if (current[i] == handler) {
+                RegisterResponseHandler[] updated = new RegisterResponseHandler[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, updated.length - i);
+                entry.dataHandlers[id & 0xff] = updated;
+                return;
+            }
+        }
+    }
+
+    int numDataHandlers(byte module, byte register, byte id) {
+        RegisterEntry entry = lookup(module, register);
+        if (entry == null || entry.dataHandlers == null || entry.dataHandlers[id & 0xff] == null) {
+            return 0;
+        }
+        return entry.dataHandlers[id & 0xff].length;
+    }
+
+    /**
+     * Removes all data handlers and data id headers, keeping the register response handlers
+     */
+    void clearDataHandlers() {
+        for(RegisterEntry[] registers: entries) {
+            if (registers != null) {
+                for(RegisterEntry it: registers) {
+                    if (it != null) {
+                        it.hasDataId = false;
+                        it.dataHandlers = null;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes the notification to its handlers.  Data handlers take precedence over the register's response handler
+     * @param value    Raw notification value
+     * @return True if the value was handled
+     */
+    boolean dispatch(byte[] value) {
+        if (value.length < 2) {
+            return false;
+        }
+
+        RegisterEntry entry = lookup(value[0], value[1]);
+        if (entry == null) {
+            return false;
+        }
+
+        if (entry.dataHandlers != null) {
+            int id = entry.hasDataId && value.length > 2 ? value[2] & 0xff : DataTypeBase.NO_DATA_ID & 0xff;
+            RegisterResponseHandler[] handlers = entry.dataHandlers[id];
+            if (handlers != null) {
+                // packets are told apart by reference, which is only safe within one dispatch as the buffer may be reused
+                decoded.clear();
+                for(RegisterResponseHandler it: handlers) {
+                    it.onResponseReceived(value);
+                }
+                decoded.clear();
+                return true;
+            }
+        }
+
+        if (entry.responseHandler != null) {
+            entry.responseHandler.onResponseReceived(value);
+            return true;
+        }
+        return false;
+    }
+}
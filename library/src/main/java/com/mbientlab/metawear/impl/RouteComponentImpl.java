@@ -24,6 +24,7 @@
 
 package com.mbientlab.metawear.impl;
 
+import com.mbientlab.metawear.BatchSubscriber;
 import com.mbientlab.metawear.IllegalRouteOperationException;
 import com.mbientlab.metawear.Subscriber;
 import com.mbientlab.metawear.builder.RouteComponent;
@@ -182,6 +183,16 @@ class RouteComponentImpl implements RouteComponent {
         throw new IllegalRouteOperationException("Cannot log null data");
     }
 
+    @Override
+    public RouteComponent streamBatch(BatchSubscriber subscriber) {
+        return stream(new BatchSubscriberAdapter(subscriber));
+    }
+
+    @Override
+    public RouteComponent logBatch(BatchSubscriber subscriber) {
+        return log(new BatchSubscriberAdapter(subscriber));
+    }
+
     @Override
     public RouteComponent react(Action action) {
         persistantData.reactions.add(new Pair<>(source, action));
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.Route;
+
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves a route's packets off the notification thread.  The notification thread copies each packet into a queue shared
+ * by the route's streams and a single drain task, run on the route's executor, decodes the packets and calls the
+ * subscribers in the order the packets arrived.  The pending count doubles as the drain flag: the task is only
+ * submitted when the count goes from 0 to 1, so at most one drain task per route runs at a time.
+ *
+ * Streams with a {@link StreamBuffer} keep their packets in a ring of at most <code>capacity</code> slots and only put
+ * an order token in the shared queue, each token delivers the oldest packet in the ring.  A packet pushed out of a full
+ * ring is overwritten by the new one and keeps its token, so a stalled subscriber holds on to at most
+ * <code>capacity</code> packets per stream and the newer packet takes the older one's place in the delivery order.
+ */
+class RouteDelivery implements Runnable {
+    // packets delivered per drain task before yielding the executor thread to other routes
+    private static final int DRAIN_BATCH = 64;
+
+    /**
+     * Backpressure settings and counters of one stream, see {@link Route#setBackpressure(int, int, Route.Overflow, Route.DropHandler)}
+     */
+    static class StreamBuffer {
+        final int pos, capacity;
+        final Route.Overflow overflow;
+        final Route.DropHandler handler;
+        // queued in place of the stream's packets, the same token is queued once per packet in the ring
+        private final Packet token;
+
+        // ring of waiting packets, guarded by the buffer
+        private final Packet[] slots;
+        private int head, size;
+
+        final AtomicLong dropped = new AtomicLong();
+        // drop count last passed to the handler, only used by the drain task
+        long reported;
+
+        StreamBuffer(StreamedDataConsumer consumer, int pos, int capacity, Route.Overflow overflow, Route.DropHandler handler) {
+            this.pos = pos;
+            this.capacity = overflow == Route.Overflow.DROP_OLDEST || overflow == Route.Overflow.DROP_NEWEST ? capacity : 1;
+            this.overflow = overflow;
+            this.handler = handler;
+
+            token = new Packet(consumer, this, null, 0L);
+            slots = new Packet[this.capacity];
+        }
+
+        /**
+         * Adds the packet to the ring, overwriting the oldest one if the ring is full and the policy allows it
+         * @return 1 if a token must be queued for the packet, 0 if it took an overwritten packet's token, -1 if it was dropped
+         */
+        private synchronized int push(StreamedDataConsumer consumer, byte[] value, long receivedEpochMillis) {
+            int added = 1;
+            if (size == capacity) {
+                dropped.incrementAndGet();
+                if (overflow == Route.Overflow.DROP_NEWEST) {
+                    return -1;
+                }
+                head = (head + 1) % capacity;
+                size--;
+                added = 0;
+            }
+
+            slots[(head + size) % capacity] = new Packet(consumer, this, value.clone(), receivedEpochMillis);
+            size++;
+            return added;
+        }
+
+        /**
+         * Removes the oldest packet, there is one for every queued token
+         */
+        private synchronized Packet take() {
+            Packet next = slots[head];
+            slots[head] = null;
+            head = (head + 1) % capacity;
+            size--;
+            return next;
+        }
+    }
+
+    private static class Packet {
+        final StreamedDataConsumer consumer;
+        final StreamBuffer buffer;
+        final byte[] value;
+        final long receivedEpochMillis, queuedNanos;
+
+        Packet(StreamedDataConsumer consumer, StreamBuffer buffer, byte[] value, long receivedEpochMillis) {
+            this.consumer = consumer;
+            this.buffer = buffer;
+            this.value = value;
+            this.receivedEpochMillis = receivedEpochMillis;
+            this.queuedNanos = System.nanoTime();
+        }
+    }
+
+    // null once the route goes back to the notification thread while packets are still queued
+    private volatile Executor executor;
+    private final MetaWearBoardPrivate mwPrivate;
+    private final ConcurrentLinkedQueue<Packet> packets = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    // buffers of the packets seen in the current drain, only used by the drain task
+    private final ArrayList<StreamBuffer> drained = new ArrayList<>();
+
+    // maxPending is only written by the notification thread, the rest only by the drain task
+    private volatile int maxPending;
+    private volatile long delivered, totalDwellNanos, maxDwellNanos;
+
+    RouteDelivery(Executor executor, MetaWearBoardPrivate mwPrivate) {
+        this.executor = executor;
+        this.mwPrivate = mwPrivate;
+    }
+
+    /**
+     * Runs the next drain tasks on a different executor.  A drain task that is already running finishes the queue, so
+     * the packets stay in order across the switch.
+     * @param executor    New executor, null to drain on the notification thread
+     */
+    void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return True if no packets are waiting and no drain task is running
+     */
+    boolean idle() {
+        return pending.get() == 0;
+    }
+
+    /**
+     * Checked by the notification thread before queueing a packet
+     * @return True if the route went back to the notification thread and the queue is empty, so packets can be passed
+     * on directly
+     */
+    boolean bypassed() {
+        return executor == null && pending.get() == 0;
+    }
+
+    /**
+     * Queues a packet for the consumer, called from the notification thread
+     * @param value                  Notification value, copied since the platform may reuse the buffer
+     * @param receivedEpochMillis    Receive time of the notification
+     */
+    void offer(StreamedDataConsumer consumer, byte[] value, long receivedEpochMillis) {
+        StreamBuffer buffer = consumer.buffer;
+        if (buffer == null) {
+            packets.offer(new Packet(consumer, null, value.clone(), receivedEpochMillis));
+        } else {
+            int added = buffer.push(consumer, value, receivedEpochMillis);
+            if (added <= 0) {
+                dropped.incrementAndGet();
+                return;
+            }
+            packets.offer(buffer.token);
+        }
+
+        int count = pending.incrementAndGet();
+        if (count > maxPending) {
+            maxPending = count;
+        }
+        if (count == 1) {
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        Executor current = executor;
+        if (current == null) {
+            run();
+            return;
+        }
+
+        try {
+            current.execute(this);
+        } catch (RejectedExecutionException e) {
+            // executor was shut down, keep the data flowing on the calling thread instead
+            run();
+        }
+    }
+
+    @Override
+    public void run() {
+        int count = 0, remaining;
+        do {
+            Packet next = packets.poll();
+            StreamBuffer buffer = next.buffer;
+            if (buffer != null) {
+                next = buffer.take();
+                if (!drained.contains(buffer)) {
+                    drained.add(buffer);
+                }
+            }
+            long dwell = System.nanoTime() - next.queuedNanos;
+
+            try {
+                next.consumer.deliver(mwPrivate, next.value, next.receivedEpochMillis,
+                        buffer != null && buffer.overflow == Route.Overflow.CONFLATE);
+            } catch (RuntimeException e) {
+                mwPrivate.logWarn(String.format(Locale.US, "Subscriber threw an exception, dropping sample (%s)", e.toString()));
+            }
+
+            delivered++;
+            totalDwellNanos += dwell;
+            if (dwell > maxDwellNanos) {
+                maxDwellNanos = dwell;
+            }
+            count++;
+            if (count == DRAIN_BATCH || pending.get() == 1) {
+                // last packet of this drain, another drain task can start as soon as the count reaches 0
+                reportDrops();
+            }
+            remaining = pending.decrementAndGet();
+        } while (remaining != 0 && count < DRAIN_BATCH);
+
+        if (remaining != 0) {
+            schedule();
+        }
+    }
+
+    /**
+     * Reports the packets the drained streams dropped since the previous report.  A stream only drops packets while its
+     * ring is full, so it always has a token queued and its drops are reported at the end of the drain that dequeues it.
+     */
+    private void reportDrops() {
+        for(StreamBuffer buffer: drained) {
+            long total = buffer.dropped.get();
+            if (total != buffer.reported) {
+                if (buffer.handler != null) {
+                    try {
+                        buffer.handler.dropped(buffer.pos, total - buffer.reported);
+                    } catch (RuntimeException e) {
+                        mwPrivate.logWarn(String.format(Locale.US, "Drop handler threw an exception (%s)", e.toString()));
+                    }
+                }
+                buffer.reported = total;
+            }
+        }
+        drained.clear();
+    }
+
+    Route.DeliveryMetrics metrics() {
+        long n = delivered;
+        return new Route.DeliveryMetrics(pending.get(), maxPending, n, dropped.get(), n == 0 ? 0 : totalDwellNanos / n / 1000L, maxDwellNanos / 1000L);
+    }
+}
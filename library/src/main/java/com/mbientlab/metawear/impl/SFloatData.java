@@ -27,7 +27,6 @@ package com.mbientlab.metawear.impl;
 import com.mbientlab.metawear.Data;
 
 import java.nio.ByteBuffer;
-import java.util.Calendar;
 
 import static com.mbientlab.metawear.impl.Constant.Module.DATA_PROCESSOR;
 
@@ -71,14 +70,15 @@ class SFloatData extends DataTypeBase {
     }
 
     @Override
-    public Data createMessage(boolean logData, final MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
-        final ByteBuffer buffer = Util.bytesToSIntBuffer(logData, data, attributes);
-        final float scaled= buffer.getInt(0) / scale(mwPrivate);
-
+    public Data createMessage(final boolean logData, final MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
+        final float scale = scale(mwPrivate);
         return new DataPrivate(timestamp, data, mapper) {
+            // decoded on the first value() call
+            private Float scaled;
+
             @Override
             public float scale() {
-                return SFloatData.this.scale(mwPrivate);
+                return scale;
             }
 
             @Override
@@ -89,6 +89,10 @@ class SFloatData extends DataTypeBase {
             @Override
             public <T> T value(Class<T> clazz) {
                 if (clazz.equals(Float.class)) {
+                    if (scaled == null) {
+                        final ByteBuffer buffer = Util.bytesToSIntBuffer(logData, data, attributes);
+                        scaled = buffer.getInt(0) / scale;
+                    }
                     return clazz.cast(scaled);
                 }
                 return super.value(clazz);
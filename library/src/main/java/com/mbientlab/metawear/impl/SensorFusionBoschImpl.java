@@ -40,10 +40,10 @@ import com.mbientlab.metawear.module.Gyro;
 import com.mbientlab.metawear.module.MagnetometerBmm150;
 import com.mbientlab.metawear.module.SensorFusionBosch;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Arrays;
-import java.util.Calendar;
 
 import bolts.CancellationToken;
 import bolts.Capture;
@@ -113,17 +113,25 @@ class SensorFusionBoschImpl extends ModuleImplBase implements SensorFusionBosch
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
-            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-            final float[] values = new float[] {buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat()};
-
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
             return new DataPrivate(timestamp, data, mapper) {
+                private float[] values;
+
+                private float[] values() {
+                    if (values == null) {
+                        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+                        values = new float[] {buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat()};
+                    }
+                    return values;
+                }
+
                 @Override
                 public <T> T value(Class<T> clazz) {
                     if (clazz.equals(EulerAngles.class)) {
+                        float[] values = values();
                         return clazz.cast(new EulerAngles(values[0], values[1], values[2], values[3]));
                     } else if (clazz.equals(float[].class)) {
-                        return clazz.cast(values);
+                        return clazz.cast(values());
                     }
                     return super.value(clazz);
                 }
@@ -157,17 +165,25 @@ class SensorFusionBoschImpl extends ModuleImplBase implements SensorFusionBosch
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
-            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-            final float[] values = new float[] {buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat()};
-
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
             return new DataPrivate(timestamp, data, mapper) {
+                private float[] values;
+
+                private float[] values() {
+                    if (values == null) {
+                        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+                        values = new float[] {buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat()};
+                    }
+                    return values;
+                }
+
                 @Override
                 public <T> T value(Class<T> clazz) {
                     if (clazz.equals(Quaternion.class)) {
+                        float[] values = values();
                         return clazz.cast(new Quaternion(values[0], values[1], values[2], values[3]));
                     } else if (clazz.equals(float[].class)) {
-                        return clazz.cast(values);
+                        return clazz.cast(values());
                     }
                     return super.value(clazz);
                 }
@@ -202,17 +218,25 @@ class SensorFusionBoschImpl extends ModuleImplBase implements SensorFusionBosch
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
-            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-            final float[] values = new float[] {buffer.getFloat() / MSS_TO_G, buffer.getFloat() / MSS_TO_G, buffer.getFloat() / MSS_TO_G};
-
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
             return new DataPrivate(timestamp, data, mapper) {
+                private float[] values;
+
+                private float[] values() {
+                    if (values == null) {
+                        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+                        values = new float[] {buffer.getFloat() / MSS_TO_G, buffer.getFloat() / MSS_TO_G, buffer.getFloat() / MSS_TO_G};
+                    }
+                    return values;
+                }
+
                 @Override
                 public <T> T value(Class<T> clazz) {
                     if (clazz.equals(Acceleration.class)) {
+                        float[] values = values();
                         return clazz.cast(new Acceleration(values[0], values[1], values[2]));
                     } else if (clazz.equals(float[].class)) {
-                        return clazz.cast(values);
+                        return clazz.cast(values());
                     }
                     return super.value(clazz);
                 }
@@ -257,14 +281,17 @@ class SensorFusionBoschImpl extends ModuleImplBase implements SensorFusionBosch
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
-            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-            final CorrectedAcceleration value = new CorrectedAcceleration(buffer.getFloat() / 1000f, buffer.getFloat() / 1000f, buffer.getFloat() / 1000f, buffer.get());
-
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
             return new DataPrivate(timestamp, data, mapper) {
+                private CorrectedAcceleration value;
+
                 @Override
                 public <T> T value(Class<T> clazz) {
                     if (clazz.equals(CorrectedAcceleration.class)) {
+                        if (value == null) {
+                            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+                            value = new CorrectedAcceleration(buffer.getFloat() / 1000f, buffer.getFloat() / 1000f, buffer.getFloat() / 1000f, buffer.get());
+                        }
                         return clazz.cast(value);
                     }
                     return super.value(clazz);
@@ -294,14 +321,17 @@ class SensorFusionBoschImpl extends ModuleImplBase implements SensorFusionBosch
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
-            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-            final CorrectedAngularVelocity value = new CorrectedAngularVelocity(buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.get());
-
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
             return new DataPrivate(timestamp, data, mapper) {
+                private CorrectedAngularVelocity value;
+
                 @Override
                 public <T> T value(Class<T> clazz) {
                     if (clazz.equals(CorrectedAngularVelocity.class)) {
+                        if (value == null) {
+                            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+                            value = new CorrectedAngularVelocity(buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.get());
+                        }
                         return clazz.cast(value);
                     }
                     return super.value(clazz);
@@ -331,14 +361,17 @@ class SensorFusionBoschImpl extends ModuleImplBase implements SensorFusionBosch
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
-            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
-            final CorrectedMagneticField value = new CorrectedMagneticField(buffer.getFloat() / 1000000f, buffer.getFloat() / 1000000f, buffer.getFloat() / 1000000f, buffer.get());
-
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
             return new DataPrivate(timestamp, data, mapper) {
+                private CorrectedMagneticField value;
+
                 @Override
                 public <T> T value(Class<T> clazz) {
                     if (clazz.equals(CorrectedMagneticField.class)) {
+                        if (value == null) {
+                            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+                            value = new CorrectedMagneticField(buffer.getFloat() / 1000000f, buffer.getFloat() / 1000000f, buffer.getFloat() / 1000000f, buffer.get());
+                        }
                         return clazz.cast(value);
                     }
                     return super.value(clazz);
@@ -415,6 +448,19 @@ class SensorFusionBoschImpl extends ModuleImplBase implements SensorFusionBosch
         }
     }
 
+    @Override
+    void writeState(BoardSnapshot.Writer out) throws IOException {
+        out.writeString(mode == null ? null : mode.name());
+        out.writeByte(dataEnableMask);
+    }
+
+    @Override
+    void readState(BoardSnapshot.Reader in) throws IOException {
+        String modeName = in.readString();
+        mode = modeName == null ? null : Mode.valueOf(modeName);
+        dataEnableMask = in.readByte();
+    }
+
     @Override
     public ConfigEditor configure() {
         return new ConfigEditor() {
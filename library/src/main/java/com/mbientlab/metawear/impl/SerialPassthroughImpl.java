@@ -29,6 +29,7 @@ import com.mbientlab.metawear.builder.RouteBuilder;
 import com.mbientlab.metawear.impl.platform.TimedTask;
 import com.mbientlab.metawear.module.SerialPassthrough;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Locale;
 import java.util.Map;
@@ -102,9 +103,13 @@ class SerialPassthroughImpl extends ModuleImplBase implements SerialPassthrough
         private final byte id;
         transient MetaWearBoardPrivate mwPrivate;
 
-        I2cInner(byte id, byte length, MetaWearBoardPrivate mwPrivate) {
+        I2cInner(byte id, MetaWearBoardPrivate mwPrivate) {
             this.id= id;
             this.mwPrivate = mwPrivate;
+        }
+
+        I2cInner(byte id, byte length, MetaWearBoardPrivate mwPrivate) {
+            this(id, mwPrivate);
 
             mwPrivate.tagProducer(name(), new SerialPassthroughData(Util.setSilentRead(I2C_RW), id, length));
         }
@@ -135,9 +140,13 @@ class SerialPassthroughImpl extends ModuleImplBase implements SerialPassthrough
         private final byte id;
         transient MetaWearBoardPrivate mwPrivate;
 
-        SpiInner(byte id, byte length, MetaWearBoardPrivate mwPrivate) {
+        SpiInner(byte id, MetaWearBoardPrivate mwPrivate) {
             this.id= id;
             this.mwPrivate = mwPrivate;
+        }
+
+        SpiInner(byte id, byte length, MetaWearBoardPrivate mwPrivate) {
+            this(id, mwPrivate);
 
             mwPrivate.tagProducer(name(), new SerialPassthroughData(Util.setSilentRead(SPI_RW), id, length));
         }
@@ -275,6 +284,33 @@ class SerialPassthroughImpl extends ModuleImplBase implements SerialPassthrough
         mwPrivate.addDataHandler(new Tuple3<>(SERIAL_PASSTHROUGH.id, Util.setRead(SPI_RW), DIRECT_SPI_READ_ID), response -> readSpiDataTask.setResult(response));
     }
 
+    @Override
+    void writeState(BoardSnapshot.Writer out) throws IOException {
+        out.writeVarInt(i2cDataProducers.size());
+        for(I2C it: i2cDataProducers.values()) {
+            out.writeByte(((I2cInner) it).id);
+        }
+
+        out.writeVarInt(spiDataProducers.size());
+        for(SPI it: spiDataProducers.values()) {
+            out.writeByte(((SpiInner) it).id);
+        }
+    }
+
+    @Override
+    void readState(BoardSnapshot.Reader in) throws IOException {
+        // the producers are restored with the rest of the tagged producers
+        for(int i = in.readVarInt(); i > 0; i--) {
+            byte id = in.readByte();
+            i2cDataProducers.put(id, new I2cInner(id, mwPrivate));
+        }
+
+        for(int i = in.readVarInt(); i > 0; i--) {
+            byte id = in.readByte();
+            spiDataProducers.put(id, new SpiInner(id, mwPrivate));
+        }
+    }
+
     @Override
     public I2C i2c(final byte length, final byte id) {
         if (!i2cDataProducers.containsKey(id)) {
@@ -38,7 +38,6 @@ import com.mbientlab.metawear.module.Settings;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.Calendar;
 
 import bolts.Capture;
 import bolts.Task;
@@ -109,7 +108,7 @@ class SettingsImpl extends ModuleImplBase implements Settings {
         }
 
         @Override
-        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
+        public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
             final float voltage= ByteBuffer.wrap(data, 1, 2).order(ByteOrder.LITTLE_ENDIAN).getShort() / 1000f;
             final BatteryState state= new BatteryState(data[0], voltage);
 
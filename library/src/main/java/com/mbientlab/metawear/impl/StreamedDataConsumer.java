@@ -24,15 +24,15 @@
 
 package com.mbientlab.metawear.impl;
 
+import com.mbientlab.metawear.Data;
 import com.mbientlab.metawear.Subscriber;
 import com.mbientlab.metawear.builder.RouteComponent;
 import com.mbientlab.metawear.impl.JseMetaWearBoard.RegisterResponseHandler;
 import com.mbientlab.metawear.module.DataProcessor;
 import com.mbientlab.metawear.module.Logging;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.util.Calendar;
+import java.util.Arrays;
+import java.util.Set;
 
 import static com.mbientlab.metawear.impl.Constant.Module.DATA_PROCESSOR;
 
@@ -44,12 +44,19 @@ class StreamedDataConsumer extends DeviceDataConsumer {
     private static final long serialVersionUID = 7339116325296045121L;
 
     private transient RegisterResponseHandler dataResponseHandler= null;
+    // set while the stream is unsubscribed so reconnects do not turn it back on
+    boolean quiet= false;
+    // set when the route delivers its data off the notification thread, see Route.setDeliveryExecutor
+    transient volatile RouteDelivery delivery= null;
+    // bounds how many packets wait for the subscriber, see Route.setBackpressure
+    transient volatile RouteDelivery.StreamBuffer buffer= null;
 
     StreamedDataConsumer(DataTypeBase source, Subscriber subscriber) {
         super(source, subscriber);
     }
 
     public void enableStream(final MetaWearBoardPrivate mwPrivate) {
+        quiet = false;
         addDataHandler(mwPrivate);
 
         if ((source.eventConfig[1] & 0x80) == 0x0) {
@@ -90,6 +97,22 @@ class StreamedDataConsumer extends DeviceDataConsumer {
         }
 
         mwPrivate.removeDataHandler(source.eventConfigAsTuple(), dataResponseHandler);
+        quiet = true;
+    }
+
+    /**
+     * Resends the notify enable commands after a reconnect, skipping sources another consumer already re-enabled
+     * @param armed    Sources re-enabled so far
+     */
+    void rearmStream(MetaWearBoardPrivate mwPrivate, Set<Tuple3<Byte, Byte, Byte>> armed) {
+        if (quiet || (source.eventConfig[1] & 0x80) != 0x0 || !armed.add(source.eventConfigAsTuple())) {
+            return;
+        }
+
+        mwPrivate.sendCommand(new byte[] {source.eventConfig[0], source.eventConfig[1], 0x1});
+        if (source.eventConfig[0] == DATA_PROCESSOR.id && source.eventConfig[1] == DataProcessorImpl.NOTIFY) {
+            mwPrivate.sendCommand(new byte[]{source.eventConfig[0], DataProcessorImpl.NOTIFY_ENABLE, source.eventConfig[2], 0x1});
+        }
     }
 
     public void addDataHandler(final MetaWearBoardPrivate mwPrivate) {
@@ -97,70 +120,206 @@ class StreamedDataConsumer extends DeviceDataConsumer {
             mwPrivate.addDataIdHeader(new Pair<>(source.eventConfig[0], source.eventConfig[1]));
         }
         if (dataResponseHandler == null) {
-            if (source.attributes.copies > 1) {
-                final byte dataUnitLength = source.attributes.unitLength();
-                dataResponseHandler = response -> {
-                    Calendar now = Calendar.getInstance();
-                    DataProcessorImpl.Processor accounter = findParent((DataProcessorImpl) mwPrivate.getModules().get(DataProcessor.class), source, DataProcessorImpl.TYPE_ACCOUNTER);
-                    RouteComponent.AccountType accountType = accounter == null ? RouteComponent.AccountType.TIME : ((DataProcessorConfig.Accounter) accounter.editor.configObj).type;
-                    for(int i = 0, j = source.eventConfig[2] == DataTypeBase.NO_DATA_ID ? 2 : 3; i< source.attributes.copies && j < response.length; i++, j+= dataUnitLength) {
-                        Tuple3<Calendar, Integer, Long> account = fillTimestamp(mwPrivate, accounter, response, j);
-                        byte[] dataRaw = new byte[dataUnitLength - (account.second - j)];
-                        System.arraycopy(response, account.second, dataRaw, 0, dataRaw.length);
-                        call(source.createMessage(false, mwPrivate, dataRaw, accounter == null ? now : account.first, accountType == RouteComponent.AccountType.TIME ? null : clazz ->
-                                clazz.equals(Long.class) ? account.third : null)
-                        );
-                    }
-                };
+            dataResponseHandler = response -> {
+                mwPrivate.receivedSample();
+                RouteDelivery current = delivery;
+                if (current == null || current.bypassed()) {
+                    receive(mwPrivate, response);
+                } else {
+                    current.offer(this, response, mwPrivate.receivedEpochMillis());
+                }
+            };
+        }
+
+        mwPrivate.addDataHandler(source.eventConfigAsTuple(), dataResponseHandler);
+    }
+
+    /**
+     * True if the samples decoded for this consumer can be passed to other consumers of equivalent data types
+     */
+    boolean sharesSamples() {
+        return !(subscriber instanceof BatchSubscriberAdapter);
+    }
+
+    /**
+     * Passes a notification to the subscriber on the dispatching thread, reusing the samples already decoded from it for
+     * another consumer of an equivalent data type
+     */
+    private void receive(MetaWearBoardPrivate mwPrivate, byte[] response) {
+        if (!sharesSamples()) {
+            deliver(mwPrivate, response, mwPrivate.receivedEpochMillis(), false);
+            return;
+        }
+
+        NotificationDispatcher.DecodedSamples decoded = mwPrivate.decodedSamples();
+        Data[] samples = decoded.lookup(response, source);
+        if (samples == null) {
+            samples = decode(mwPrivate, response, mwPrivate.receivedEpochMillis(), false);
+            decoded.store(response, source, samples);
+        }
+        for(Data it: samples) {
+            call(it);
+        }
+    }
+
+    /**
+     * Decodes the notification and passes the samples to the subscriber
+     * @param now           Receive time of the notification
+     * @param latestOnly    True if only the last sample of a packed notification should be passed on
+     */
+    void deliver(MetaWearBoardPrivate mwPrivate, byte[] response, long now, boolean latestOnly) {
+        if (subscriber instanceof BatchSubscriberAdapter) {
+            handleBatch(mwPrivate, (BatchSubscriberAdapter) subscriber, response, now, latestOnly);
+            return;
+        }
+
+        for(Data it: decode(mwPrivate, response, now, latestOnly)) {
+            call(it);
+        }
+    }
+
+    /**
+     * Decodes the samples in the notification, all samples are decoded before any are passed on
+     */
+    private Data[] decode(MetaWearBoardPrivate mwPrivate, byte[] response, long now, boolean latestOnly) {
+        if (source.attributes.copies > 1) {
+            final byte dataUnitLength = source.attributes.unitLength();
+            DataProcessorImpl.Processor accounter = findParent((DataProcessorImpl) mwPrivate.getModules().get(DataProcessor.class), source, DataProcessorImpl.TYPE_ACCOUNTER);
+            RouteComponent.AccountType accountType = accounter == null ? RouteComponent.AccountType.TIME : ((DataProcessorConfig.Accounter) accounter.editor.configObj).type;
+            final int accountSize = accountSize(accounter);
+            final int start = source.eventConfig[2] == DataTypeBase.NO_DATA_ID ? 2 : 3;
+            final int first = firstUnit(latestOnly, response, start, dataUnitLength, source.attributes.copies);
+            final Data[] samples = new Data[source.attributes.copies - first];
+            int n = 0;
+            for(int i = first, j = start + first * dataUnitLength; i< source.attributes.copies && j < response.length; i++, j+= dataUnitLength) {
+                final long tick = accountTick(accounter, response, j);
+                byte[] dataRaw = new byte[dataUnitLength - accountSize];
+                System.arraycopy(response, j + accountSize, dataRaw, 0, dataRaw.length);
+                samples[n++] = source.createMessage(false, mwPrivate, dataRaw, accountTimestamp(mwPrivate, accounter, tick, now), accountType == RouteComponent.AccountType.TIME ? null : clazz ->
+                        clazz.equals(Long.class) ? tick : null);
+            }
+            return n == samples.length ? samples : Arrays.copyOf(samples, n);
+        } else {
+            byte[] dataRaw;
+
+            if (source.eventConfig[2] == DataTypeBase.NO_DATA_ID) {
+                dataRaw = new byte[response.length - 2];
+                System.arraycopy(response, 2, dataRaw, 0, dataRaw.length);
             } else {
-                dataResponseHandler = response -> {
-                    byte[] dataRaw;
-
-                    if (source.eventConfig[2] == DataTypeBase.NO_DATA_ID) {
-                        dataRaw = new byte[response.length - 2];
-                        System.arraycopy(response, 2, dataRaw, 0, dataRaw.length);
-                    } else {
-                        dataRaw = new byte[response.length - 3];
-                        System.arraycopy(response, 3, dataRaw, 0, dataRaw.length);
-                    }
+                dataRaw = new byte[response.length - 3];
+                System.arraycopy(response, 3, dataRaw, 0, dataRaw.length);
+            }
 
-                    RouteComponent.AccountType accountType = RouteComponent.AccountType.TIME;
-                    Tuple3<Calendar, Integer, Long> account;
-                    if (source.eventConfig[0] == DATA_PROCESSOR.id && source.eventConfig[1] == DataProcessorImpl.NOTIFY) {
-                        DataProcessorImpl dataprocessor = (DataProcessorImpl) mwPrivate.getModules().get(DataProcessor.class);
-                        DataProcessorConfig config = dataprocessor.lookupProcessor(source.eventConfig[2]).editor.configObj;
-                        account = fillTimestamp(mwPrivate, dataprocessor.lookupProcessor(source.eventConfig[2]), dataRaw, 0);
-
-                        if (account.second > 0) {
-                            byte[] copy = new byte[dataRaw.length - account.second];
-                            System.arraycopy(dataRaw, account.second, copy, 0, copy.length);
-                            dataRaw = copy;
-                            accountType = ((DataProcessorConfig.Accounter) config).type;
-                        }
-                    } else {
-                        account = new Tuple3<>(Calendar.getInstance(), 0, 0L);
-                    }
+            RouteComponent.AccountType accountType = RouteComponent.AccountType.TIME;
+            int accountSize = 0;
+            long tick = 0, timestamp = now;
+            if (source.eventConfig[0] == DATA_PROCESSOR.id && source.eventConfig[1] == DataProcessorImpl.NOTIFY) {
+                DataProcessorImpl dataprocessor = (DataProcessorImpl) mwPrivate.getModules().get(DataProcessor.class);
+                DataProcessorImpl.Processor processor = dataprocessor.lookupProcessor(source.eventConfig[2]);
+                accountSize = accountSize(processor);
 
-                    DataProcessorImpl.Processor packer = findParent((DataProcessorImpl) mwPrivate.getModules().get(DataProcessor.class), source, DataProcessorImpl.TYPE_PACKER);
-                    if (packer != null) {
-                        final byte dataUnitLength = packer.editor.source.attributes.unitLength();
-                        byte[] unpacked = new byte[dataUnitLength];
-                        for(int i = 0, j = 3 + account.second; i< packer.editor.source.attributes.copies && j < response.length; i++, j+= dataUnitLength) {
-                            System.arraycopy(response, j, unpacked, 0, unpacked.length);
-                            call(source.createMessage(false, mwPrivate, unpacked, account.first, accountType == RouteComponent.AccountType.TIME ? null : clazz ->
-                                    clazz.equals(Long.class) ? account.third : null)
-                            );
-                        }
-                    } else {
-                        call(source.createMessage(false, mwPrivate, dataRaw, account.first, accountType == RouteComponent.AccountType.TIME ? null : clazz ->
-                                clazz.equals(Long.class) ? account.third : null)
-                        );
-                    }
-                };
+                if (accountSize > 0) {
+                    tick = accountTick(processor, dataRaw, 0);
+                    timestamp = accountTimestamp(mwPrivate, processor, tick, now);
+
+                    byte[] copy = new byte[dataRaw.length - accountSize];
+                    System.arraycopy(dataRaw, accountSize, copy, 0, copy.length);
+                    dataRaw = copy;
+                    accountType = ((DataProcessorConfig.Accounter) processor.editor.configObj).type;
+                }
+            }
+            final long count = tick;
+
+            DataProcessorImpl.Processor packer = findParent((DataProcessorImpl) mwPrivate.getModules().get(DataProcessor.class), source, DataProcessorImpl.TYPE_PACKER);
+            if (packer != null) {
+                final byte dataUnitLength = packer.editor.source.attributes.unitLength();
+                final int first = firstUnit(latestOnly, response, 3 + accountSize, dataUnitLength, packer.editor.source.attributes.copies);
+                final Data[] samples = new Data[packer.editor.source.attributes.copies - first];
+                int n = 0;
+                for(int i = first, j = 3 + accountSize + first * dataUnitLength; i< packer.editor.source.attributes.copies && j < response.length; i++, j+= dataUnitLength) {
+                    // every sample gets its own bytes, values are decoded from them on first access
+                    byte[] unpacked = new byte[dataUnitLength];
+                    System.arraycopy(response, j, unpacked, 0, unpacked.length);
+                    samples[n++] = source.createMessage(false, mwPrivate, unpacked, timestamp, accountType == RouteComponent.AccountType.TIME ? null : clazz ->
+                            clazz.equals(Long.class) ? count : null);
+                }
+                return n == samples.length ? samples : Arrays.copyOf(samples, n);
+            } else {
+                return new Data[] {source.createMessage(false, mwPrivate, dataRaw, timestamp, accountType == RouteComponent.AccountType.TIME ? null : clazz ->
+                        clazz.equals(Long.class) ? count : null)};
             }
         }
+    }
 
-        mwPrivate.addDataHandler(source.eventConfigAsTuple(), dataResponseHandler);
+    /**
+     * Decodes every sample in the notification into the batch columns, skipping the Calendar and Data objects
+     */
+    private void handleBatch(MetaWearBoardPrivate mwPrivate, BatchSubscriberAdapter batch, byte[] response, long now, boolean latestOnly) {
+        final DataProcessorImpl dataprocessor = (DataProcessorImpl) mwPrivate.getModules().get(DataProcessor.class);
+        final int start = source.eventConfig[2] == DataTypeBase.NO_DATA_ID ? 2 : 3;
+
+        if (source.attributes.copies > 1) {
+            final byte dataUnitLength = source.attributes.unitLength();
+            final DataProcessorImpl.Processor accounter = findParent(dataprocessor, source, DataProcessorImpl.TYPE_ACCOUNTER);
+            final int first = firstUnit(latestOnly, response, start, dataUnitLength, source.attributes.copies);
+            for(int i = first, j = start + first * dataUnitLength; i < source.attributes.copies && j < response.length; i++, j+= dataUnitLength) {
+                int accountSize = accountSize(accounter);
+                long timestamp = accountTimestamp(mwPrivate, accounter, accountTick(accounter, response, j), now);
+                batch.add(source, mwPrivate, false, response, j + accountSize, dataUnitLength - accountSize, timestamp, environment);
+            }
+        } else {
+            int offset = start;
+            long timestamp = now;
+            if (source.eventConfig[0] == DATA_PROCESSOR.id && source.eventConfig[1] == DataProcessorImpl.NOTIFY) {
+                DataProcessorImpl.Processor processor = dataprocessor.lookupProcessor(source.eventConfig[2]);
+                timestamp = accountTimestamp(mwPrivate, processor, accountTick(processor, response, offset), now);
+                offset += accountSize(processor);
+            }
+
+            DataProcessorImpl.Processor packer = findParent(dataprocessor, source, DataProcessorImpl.TYPE_PACKER);
+            if (packer != null) {
+                final byte dataUnitLength = packer.editor.source.attributes.unitLength();
+                final int first = firstUnit(latestOnly, response, 3 + offset - start, dataUnitLength, packer.editor.source.attributes.copies);
+                for(int i = first, j = 3 + offset - start + first * dataUnitLength; i < packer.editor.source.attributes.copies && j < response.length; i++, j+= dataUnitLength) {
+                    batch.add(source, mwPrivate, false, response, j, dataUnitLength, timestamp, environment);
+                }
+            } else {
+                batch.add(source, mwPrivate, false, response, offset, response.length - offset, timestamp, environment);
+            }
+        }
+
+        batch.flush(environment);
+    }
+
+    /**
+     * Index of the first sample to pass on from a notification holding up to <code>copies</code> samples
+     */
+    private static int firstUnit(boolean latestOnly, byte[] response, int start, int unitLength, int copies) {
+        return latestOnly ? Math.max(0, Math.min(copies, (response.length - start + unitLength - 1) / unitLength) - 1) : 0;
+    }
+
+    private static int accountSize(DataProcessorImpl.Processor accounter) {
+        return accounter != null && accounter.editor.configObj instanceof DataProcessorConfig.Accounter ?
+                ((DataProcessorConfig.Accounter) accounter.editor.configObj).length : 0;
+    }
+
+    /**
+     * Reads the little endian tick or count the accounter prepended to the sample, 0 if there is no accounter
+     */
+    private static long accountTick(DataProcessorImpl.Processor accounter, byte[] response, int offset) {
+        long tick = 0;
+        for(int i = 0, size = accountSize(accounter); i < size; i++) {
+            tick |= (response[offset + i] & 0xffL) << (i << 3);
+        }
+        return tick;
+    }
+
+    private static long accountTimestamp(MetaWearBoardPrivate mwPrivate, DataProcessorImpl.Processor accounter, long tick, long now) {
+        if (accounter != null && accounter.editor.configObj instanceof DataProcessorConfig.Accounter &&
+                ((DataProcessorConfig.Accounter) accounter.editor.configObj).type == RouteComponent.AccountType.TIME) {
+            return ((LoggingImpl) mwPrivate.getModules().get(Logging.class)).alignedEpochMillis(tick);
+        }
+        return now;
     }
 
     private static DataProcessorImpl.Processor findParent(DataProcessorImpl dataprocessor, DataTypeBase child, byte type) {
@@ -174,27 +333,4 @@ class StreamedDataConsumer extends DeviceDataConsumer {
         }
         return null;
     }
-
-    private static Tuple3<Calendar, Integer, Long> fillTimestamp(MetaWearBoardPrivate mwPrivate, DataProcessorImpl.Processor accounter, byte[] response, int offset) {
-        if (accounter != null) {
-            DataProcessorConfig config = accounter.editor.configObj;
-            if (config instanceof DataProcessorConfig.Accounter) {
-                int size = ((DataProcessorConfig.Accounter) config).length;
-                byte[] padded = new byte[8];
-                System.arraycopy(response, offset, padded, 0, size);
-                long tick = ByteBuffer.wrap(padded).order(ByteOrder.LITTLE_ENDIAN).getLong(0);
-
-                switch(((DataProcessorConfig.Accounter) config).type) {
-                    case COUNT: {
-                        return new Tuple3<>(Calendar.getInstance(), size + offset, tick);
-                    }
-                    case TIME: {
-                        LoggingImpl logging = (LoggingImpl) mwPrivate.getModules().get(Logging.class);
-                        return new Tuple3<>(logging.computeTimestamp((byte) -1, tick), size + offset, tick);
-                    }
-                }
-            }
-        }
-        return new Tuple3<>(Calendar.getInstance(), offset, 0L);
-    }
 }
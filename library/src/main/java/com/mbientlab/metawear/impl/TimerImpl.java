@@ -28,6 +28,7 @@ import com.mbientlab.metawear.CodeBlock;
 import com.mbientlab.metawear.impl.platform.TimedTask;
 import com.mbientlab.metawear.module.Timer;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -138,6 +139,29 @@ class TimerImpl extends ModuleImplBase implements Timer {
         this.mwPrivate.addResponseHandler(new Pair<>(TIMER.id, TIMER_ENTRY), response -> createTimerTask.setResult(response[2]));
     }
 
+    @Override
+    void writeState(BoardSnapshot.Writer out) throws IOException {
+        out.writeVarInt(activeTasks.size());
+        for(ScheduledTask it: activeTasks.values()) {
+            ScheduledTaskInner task = (ScheduledTaskInner) it;
+            out.writeByte(task.id);
+            out.writeBoolean(task.active);
+            out.writeByteList(task.eventCmdIds);
+        }
+    }
+
+    @Override
+    void readState(BoardSnapshot.Reader in) throws IOException {
+        for(int i = in.readVarInt(); i > 0; i--) {
+            byte id = in.readByte();
+            boolean active = in.readBoolean();
+
+            ScheduledTaskInner task = new ScheduledTaskInner(id, in.readByteList(), mwPrivate);
+            task.active = active;
+            activeTasks.put(id, task);
+        }
+    }
+
     @Override
     public void tearDown() {
         for(ScheduledTask it: activeTasks.values()) {
@@ -28,7 +28,6 @@ import com.mbientlab.metawear.Data;
 import com.mbientlab.metawear.builder.filter.DifferentialOutput;
 
 import java.nio.ByteBuffer;
-import java.util.Calendar;
 
 import static com.mbientlab.metawear.impl.Constant.Module.DATA_PROCESSOR;
 
@@ -72,14 +71,15 @@ class UFloatData extends DataTypeBase {
     }
 
     @Override
-    public Data createMessage(boolean logData, final MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
-        final ByteBuffer buffer = Util.bytesToUIntBuffer(logData, data, attributes);
-        final float scaled= buffer.getLong(0) / scale(mwPrivate);
-
+    public Data createMessage(final boolean logData, final MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
+        final float scale = scale(mwPrivate);
         return new DataPrivate(timestamp, data, mapper) {
+            // decoded on the first value() call
+            private Float scaled;
+
             @Override
             public float scale() {
-                return UFloatData.this.scale(mwPrivate);
+                return scale;
             }
 
             @Override
@@ -90,6 +90,10 @@ class UFloatData extends DataTypeBase {
             @Override
             public <T> T value(Class<T> clazz) {
                 if (clazz.equals(Float.class)) {
+                    if (scaled == null) {
+                        final ByteBuffer buffer = Util.bytesToUIntBuffer(logData, data, attributes);
+                        scaled = buffer.getLong(0) / scale;
+                    }
                     return clazz.cast(scaled);
                 }
                 return super.value(clazz);
@@ -28,7 +28,6 @@ import com.mbientlab.metawear.Data;
 import com.mbientlab.metawear.builder.filter.DifferentialOutput;
 
 import java.nio.ByteBuffer;
-import java.util.Calendar;
 
 import static com.mbientlab.metawear.impl.Constant.Module.DATA_PROCESSOR;
 
@@ -65,7 +64,7 @@ class UintData extends DataTypeBase {
     }
 
     @Override
-    public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final Calendar timestamp, DataPrivate.ClassToObject mapper) {
+    public Data createMessage(boolean logData, MetaWearBoardPrivate mwPrivate, final byte[] data, final long timestamp, DataPrivate.ClassToObject mapper) {
         final ByteBuffer buffer = Util.bytesToUIntBuffer(logData, data, attributes);
 
         return new DataPrivate(timestamp, data, mapper) {
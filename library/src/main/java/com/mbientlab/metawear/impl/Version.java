@@ -40,10 +40,14 @@ public class Version implements Comparable<Version>, Serializable {
     public final String preRelease;
 
     Version(int major, int minor, int step) {
+        this(major, minor, step, null);
+    }
+
+    Version(int major, int minor, int step, String preRelease) {
         this.major= major;
         this.minor= minor;
         this.step= step;
-        this.preRelease = null;
+        this.preRelease = preRelease;
     }
 
     public Version(String versionString) {
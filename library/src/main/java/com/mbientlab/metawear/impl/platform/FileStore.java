@@ -0,0 +1,145 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl.platform;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+/**
+ * Key value store backing {@link IO#localSave(String, byte[])} and {@link IO#localRetrieve(String)}, storing each
+ * key as its own file in a directory.  Values are written to a temporary file that is renamed over the previous
+ * value so a crash mid write leaves the old value intact, and are read back with a plain file stream.
+ */
+public class FileStore {
+    // createTempFile needs a prefix of at least 3 characters, so one character keys still get a valid prefix
+    private static final String TEMP_PREFIX = "~~~";
+
+    private final File root;
+
+    /**
+     * Creates a store that keeps its files in the directory, which is created on the first save
+     * @param root    Directory to store the values in
+     */
+    public FileStore(File root) {
+        this.root = root;
+    }
+
+    /**
+     * Replaces the value saved under the key
+     * @param key     Key to save the value under
+     * @param data    Value to save
+     * @throws IOException If the value could not be written
+     */
+    public void save(String key, byte[] data) throws IOException {
+        if (!root.isDirectory() && !root.mkdirs() && !root.isDirectory()) {
+            throw new IOException("Cannot create directory: " + root);
+        }
+
+        File dest = fileFor(key);
+        File temp = File.createTempFile(TEMP_PREFIX + dest.getName(), null, root);
+        try {
+            try (FileOutputStream fos = new FileOutputStream(temp)) {
+                fos.write(data);
+                fos.getFD().sync();
+            }
+
+            try {
+                Files.move(temp.toPath(), dest.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ignored) {
+                Files.move(temp.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Opens a stream to the value saved under the key, the caller is responsible for closing it
+     * @param key    Key to look up
+     * @return Stream of the saved value, null if nothing is saved under the key
+     * @throws IOException If the value could not be opened
+     */
+    public InputStream retrieve(String key) throws IOException {
+        File src = fileFor(key);
+        return src.isFile() ? new FileInputStream(src) : null;
+    }
+
+    /**
+     * Checks if a value is saved under the key
+     * @param key    Key to look up
+     * @return True if a value is saved
+     */
+    public boolean contains(String key) {
+        return fileFor(key).isFile();
+    }
+
+    /**
+     * Removes the value saved under the key
+     * @param key    Key to remove
+     */
+    public void remove(String key) {
+        fileFor(key).delete();
+    }
+
+    /**
+     * Removes all saved values, including temporary files left behind by interrupted writes
+     */
+    public void clear() {
+        File[] files = root.listFiles();
+        if (files != null) {
+            for(File it: files) {
+                if (it.isFile()) {
+                    it.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps a key to its file.  Characters that are not safe in file names, including the temporary file prefix, are
+     * percent encoded so every key maps to a distinct file that cannot collide with a temporary file.
+     */
+    File fileFor(String key) {
+        StringBuilder name = new StringBuilder(key.length());
+        for(byte it: key.getBytes(StandardCharsets.UTF_8)) {
+            if ((it >= 'a' && it <= 'z') || (it >= 'A' && it <= 'Z') || (it >= '0' && it <= '9') || it == '.' || it == '_' || it == '-') {
+                name.append((char) it);
+            } else {
+                name.append(String.format(Locale.US, "%%%02X", it & 0xff));
+            }
+        }
+
+        String encoded = name.toString();
+        return new File(root, encoded.equals(".") || encoded.equals("..") ? encoded.replace(".", "%2E") : encoded);
+    }
+}
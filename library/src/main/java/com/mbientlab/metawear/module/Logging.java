@@ -26,7 +26,9 @@ package com.mbientlab.metawear.module;
 
 import com.mbientlab.metawear.MetaWearBoard.Module;
 
+import java.io.OutputStream;
 import java.util.Calendar;
+import java.util.Locale;
 
 import bolts.Task;
 
@@ -69,6 +71,29 @@ public interface Logging extends Module {
         void receivedError(DownloadError errorType, byte logId, Calendar timestamp, byte[] data);
     }
 
+    /**
+     * Estimated relationship between the board's clock and local time
+     */
+    final class ClockEstimate {
+        /** Local time minus board time, in milliseconds, at the latest reference */
+        public final long offset;
+        /** How much faster local time runs than the board clock, in parts per million */
+        public final double drift;
+        /** Number of references the estimate is based on */
+        public final int references;
+
+        public ClockEstimate(long offset, double drift, int references) {
+            this.offset = offset;
+            this.drift = drift;
+            this.references = references;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "{offset: %dms, drift: %.2fppm, references: %d}", offset, drift, references);
+        }
+    }
+
     /**
      * Start logging sensor data
      * @param overwrite    True if older entries should be overwritten when the logger is full
@@ -104,6 +129,46 @@ public interface Logging extends Module {
      * @return Task that will complete when the download has finished
      */
     Task<Void> downloadAsync();
+    /**
+     * Makes log downloads resumable.  Download progress, including log entries that have not been combined into a
+     * complete sample yet, is saved to local storage while downloading.  If the connection is lost, the download task
+     * stays pending and the download continues once the board is connected again, skipping entries that were
+     * already received.  If the board does not reconnect within the timeout, the task fails with a
+     * {@link com.mbientlab.metawear.TaskTimeoutException}.  A download interrupted by the app closing or by the
+     * timeout picks up from the saved progress the next time {@link #downloadAsync()} is called, though entries
+     * received after the last save may be passed to the subscribers again.
+     * @param enable    True to make downloads resumable
+     * @param timeout   How long to wait for the board to reconnect, in milliseconds
+     */
+    void setResumableDownload(boolean enable, long timeout);
+    /**
+     * Makes log downloads resumable, waiting up to 1 minute for the board to reconnect
+     * @param enable    True to make downloads resumable
+     * @see #setResumableDownload(boolean, long)
+     */
+    void setResumableDownload(boolean enable);
+    /**
+     * Gives up on a resumable download waiting for the board to reconnect.  The download task is cancelled and the
+     * saved progress is kept for the next call to {@link #downloadAsync()}.  Does nothing if no download is waiting.
+     */
+    void cancelDownload();
+    /**
+     * Downloads the log without decoding it.  The readout packets are written to the stream as they arrive, after the
+     * board state needed to decode them, and the subscribers are not called.  Decode the dump with a
+     * {@link com.mbientlab.metawear.LogDecoder}, which can run on a different device.  The stream is flushed but not
+     * closed when the download finishes.
+     * @param dest              Stream to write the dump to
+     * @param nUpdates          How many progress updates to send to {@link LogDownloadUpdateHandler#receivedUpdate(long, long)}
+     * @param updateHandler     Handler to accept download notifications
+     * @return Task that will complete when the download has finished, or fail if the dump cannot be written
+     */
+    Task<Void> dumpAsync(OutputStream dest, int nUpdates, LogDownloadUpdateHandler updateHandler);
+    /**
+     * Downloads the log without decoding it and with no progress updates
+     * @param dest    Stream to write the dump to
+     * @return Task that will complete when the download has finished, or fail if the dump cannot be written
+     */
+    Task<Void> dumpAsync(OutputStream dest);
     /**
      * Clear all stored logged data from the board.  The erase operation will not be performed until
      * you disconnect from the board.
@@ -114,4 +179,11 @@ public interface Logging extends Module {
      * Should be called for the MMS when done with logging and ready to download data
      */
     void flushPage();
+    /**
+     * Reads the board's clock and adds the reading to the clock estimate.  Once there are at least 2 readings, streamed
+     * data timestamped by board ticks is converted to local time with the estimated offset and drift, which lines up
+     * data from multiple boards.  Call periodically while streaming; readings are ignored during a log download.
+     * @return Task holding the updated estimate
+     */
+    Task<ClockEstimate> syncClockAsync();
 }
@@ -29,6 +29,7 @@ import com.mbientlab.metawear.impl.platform.BtleGattCharacteristic;
 import com.mbientlab.metawear.impl.platform.DeviceInformationService;
 import com.mbientlab.metawear.impl.platform.IO;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -38,7 +39,9 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
@@ -68,6 +71,8 @@ public class JunitPlatform implements IO, BtleGatt {
     public boolean delayModuleInfoResponse= false;
     public boolean deserializeModuleInfo= false;
     public final boolean serializeModuleInfo = false;
+    // data saved under keys other than the board info and state, kept in memory
+    private final Map<String, byte[]> localData = new HashMap<>();
     public boolean enableMetaBootState = false;
     public boolean delayReadDevInfo = false;
     private final Map<Byte, byte[]> customModuleInfo= new HashMap<>();
@@ -77,6 +82,7 @@ public class JunitPlatform implements IO, BtleGatt {
     public byte timerId= 0, eventId= 0, loggerId= 0, dataProcessorId= 0, macroId = 0;
     private final MwBridge bridge;
     final ArrayList<byte[]> commandHistory= new ArrayList<>(), connectCmds= new ArrayList<>();
+    final List<String> savedKeys = Collections.synchronizedList(new ArrayList<>());
     private final ArrayList<BtleGattCharacteristic> gattCharReadHistory = new ArrayList<>();
     NotificationListener notificationListener;
     DisconnectHandler dcHandler;
@@ -105,8 +111,11 @@ public class JunitPlatform implements IO, BtleGatt {
 
     @Override
     public void localSave(String key, byte[] data) throws IOException {
+        savedKeys.add(key);
         String prefix = key.substring(key.lastIndexOf(".") + 1).toLowerCase();
-        if (!prefix.equals("board_info") || serializeModuleInfo) {
+        if (!prefix.equals("board_info") && !prefix.equals("board_state")) {
+            localData.put(key, data);
+        } else if (!prefix.equals("board_info") || serializeModuleInfo) {
             FileOutputStream fos = new FileOutputStream(String.format(Locale.US, "build/%s_%s", prefix, boardStateSuffix));
             fos.write(data);
             fos.close();
@@ -119,6 +128,9 @@ public class JunitPlatform implements IO, BtleGatt {
         if (prefix.equals("board_info") && deserializeModuleInfo) {
             return new FileInputStream(new File(RES_PATH, "board_module_info"));
         }
+        if (!prefix.equals("board_info") && !prefix.equals("board_state")) {
+            return localData.containsKey(key) ? new ByteArrayInputStream(localData.get(key)) : null;
+        }
         return boardStateSuffix != null ?
                 new FileInputStream(new File(RES_PATH, String.format(Locale.US, "board_state_%s", boardStateSuffix))) :
                 null;
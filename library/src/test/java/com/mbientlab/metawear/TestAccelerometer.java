@@ -35,10 +35,12 @@ import com.mbientlab.metawear.module.AccelerometerBmi160;
 import com.mbientlab.metawear.module.AccelerometerBmi270;
 import com.mbientlab.metawear.module.AccelerometerMma8452q;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -437,4 +439,45 @@ public class TestAccelerometer extends UnitTestBase {
         assertArrayEquals(expected, actual);
         assertArrayEquals(expectedTimestamps, timestamps);
     }
+
+    @Test
+    public void decodePackedDataLater() throws InterruptedException {
+        setup(AccelerometerBmi160.class);
+        Acceleration[] expected = new Acceleration[] {
+                new Acceleration(Float.intBitsToFloat(0xc0913c00), Float.intBitsToFloat(0x3f553000), Float.intBitsToFloat(0xbe05c000)),
+                new Acceleration(Float.intBitsToFloat(0xc03fa800), Float.intBitsToFloat(0x3f64d000), Float.intBitsToFloat(0x3e15c000)),
+                new Acceleration(Float.intBitsToFloat(0xbcec0000), Float.intBitsToFloat(0x3eb42000), Float.intBitsToFloat(0x3d850000))
+        };
+        byte[] response = new byte[] {0x03, 0x1c, 0x62, (byte) 0xb7, 0x53, 0x0d, (byte) 0xe9, (byte) 0xfd, 0x16, (byte) 0xd0, 0x4d,
+                0x0e, 0x57, 0x02, (byte) 0x8a, (byte) 0xff, (byte) 0xa1, 0x05, 0x0a, 0x01};
+        accelerometer.configure()
+                .range(8f)
+                .commit();
+
+        final List<Data> received = new ArrayList<>();
+        accelerometer.packedAcceleration().addRouteAsync(source -> source.stream((data, env) -> received.add(data))).waitForCompletion();
+        sendMockResponse(response);
+
+        Acceleration[] actual = received.stream().map(it -> it.value(Acceleration.class)).toArray(Acceleration[]::new);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void scaleReadOnArrival() throws InterruptedException {
+        setup(AccelerometerBmi160.class);
+        Acceleration expected = new Acceleration((short) 0xdc16 / 4096f, (short) 0xda8a / 4096f, (short) 0xfbcd / 4096f);
+        accelerometer.configure()
+                .range(8f)
+                .commit();
+
+        final List<Data> received = new ArrayList<>();
+        accelerometer.acceleration().addRouteAsync(source -> source.stream((data, env) -> received.add(data))).waitForCompletion();
+        sendMockResponse(new byte[] {0x03, 0x04, 0x16, (byte) 0xdc, (byte) 0x8a, (byte) 0xda, (byte) 0xcd, (byte) 0xfb});
+
+        accelerometer.configure()
+                .range(2f)
+                .commit();
+        assertEquals(expected, received.get(0).value(Acceleration.class));
+        assertEquals(4096f, received.get(0).scale(), 0.0001f);
+    }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mbientlab.metawear.data.Acceleration;
+import com.mbientlab.metawear.module.Accelerometer;
+import com.mbientlab.metawear.module.AccelerometerBmi160;
+import com.mbientlab.metawear.module.Logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import bolts.Task;
+
+public class TestBatchSubscriber extends TestLogDataBase {
+    @Override
+    protected String logDataFilename() {
+        return "bmi160_log_dl";
+    }
+
+    private static final BatchSubscriber COLLECT_ACCELERATION = (batch, env) -> {
+        for(int i = 0; i < batch.size(); i++) {
+            ((List<Acceleration>) env[0]).add(new Acceleration(batch.x()[i], batch.y()[i], batch.z()[i]));
+            ((List<Long>) env[1]).add(batch.epochMillis()[i]);
+        }
+    };
+
+    @Test
+    public void streamPackedAcceleration() throws Exception {
+        final Acceleration[] expected = new Acceleration[] {
+                new Acceleration(Float.intBitsToFloat(0xc0913c00), Float.intBitsToFloat(0x3f553000), Float.intBitsToFloat(0xbe05c000)),
+                new Acceleration(Float.intBitsToFloat(0xc03fa800), Float.intBitsToFloat(0x3f64d000), Float.intBitsToFloat(0x3e15c000)),
+                new Acceleration(Float.intBitsToFloat(0xbcec0000), Float.intBitsToFloat(0x3eb42000), Float.intBitsToFloat(0x3d850000))
+        };
+        final List<Acceleration> actual = new ArrayList<>();
+        final List<Long> timestamps = new ArrayList<>();
+
+        AccelerometerBmi160 accelerometer = mwBoard.getModule(AccelerometerBmi160.class);
+        accelerometer.configure()
+                .range(8f)
+                .commit();
+        Task<Route> task = accelerometer.packedAcceleration().addRouteAsync(source -> source.streamBatch(COLLECT_ACCELERATION));
+        task.waitForCompletion();
+        task.getResult().setEnvironment(0, actual, timestamps);
+
+        sendMockResponse(new byte[] {0x03, 0x1c, 0x62, (byte) 0xb7, 0x53, 0x0d, (byte) 0xe9, (byte) 0xfd, 0x16, (byte) 0xd0, 0x4d,
+                0x0e, 0x57, 0x02, (byte) 0x8a, (byte) 0xff, (byte) 0xa1, 0x05, 0x0a, 0x01});
+
+        assertArrayEquals(expected, actual.toArray());
+        assertEquals(timestamps.get(0), timestamps.get(2));
+    }
+
+    @Test
+    public void logAcceleration() throws Exception {
+        final Acceleration[] expected = readAccelerationValues("bmi160_expected_values");
+        final List<Acceleration> actual = new ArrayList<>();
+        final List<Long> timestamps = new ArrayList<>();
+
+        mwBoard.getModule(Accelerometer.class).configure()
+                .range(8f)
+                .commit();
+        Task<Route> task = mwBoard.getModule(Accelerometer.class).acceleration().addRouteAsync(source -> source.logBatch(COLLECT_ACCELERATION));
+        task.waitForCompletion();
+        task.getResult().setEnvironment(0, actual, timestamps);
+
+        Task<Void> dlTask = mwBoard.getModule(Logging.class).downloadAsync();
+        for(byte[] response: downloadResponses) {
+            sendMockResponse(response);
+        }
+        dlTask.waitForCompletion();
+
+        assertArrayEquals(expected, actual.toArray());
+        for(int i = 1; i < timestamps.size(); i++) {
+            assertTrue(timestamps.get(i) >= timestamps.get(i - 1));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.mbientlab.metawear.module.Timer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+
+import bolts.Task;
+
+/**
+ * Restores the legacy board states used by {@link TestDeserialization}, writes them back out as a binary
+ * snapshot, and runs the same checks against the board restored from the snapshot
+ */
+public class TestBoardSnapshot {
+    static byte[] snapshot(MetaWearBoard board) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        board.serialize(buffer);
+        return buffer.toByteArray();
+    }
+
+    static void roundTrip(UnitTestBase test, String suffix) throws IOException, ClassNotFoundException {
+        test.junitPlatform.boardStateSuffix = suffix;
+        test.mwBoard.deserialize();
+        test.mwBoard.deserialize(new ByteArrayInputStream(snapshot(test.mwBoard)));
+    }
+
+    public static class TestSnapshotI2C extends TestI2C {
+        @Override
+        protected Task<Route> setupI2cRoute() {
+            try {
+                roundTrip(this, "i2c_stream");
+                return Task.forResult(mwBoard.lookupRoute(0));
+            } catch (IOException | ClassNotFoundException e) {
+                return Task.forError(e);
+            }
+        }
+    }
+
+    public static class TestSnapshotLoggingData extends TestLoggingData {
+        @Override
+        protected Task<Route> setupLogDataRoute() {
+            try {
+                roundTrip(this, "log_acc");
+                return Task.forResult(mwBoard.lookupRoute(0));
+            } catch (IOException | ClassNotFoundException e) {
+                return Task.forError(e);
+            }
+        }
+
+        @Override
+        protected Task<Route> setupLogOffsetRoute() {
+            try {
+                roundTrip(this, "log_offset");
+                return Task.forResult(mwBoard.lookupRoute(0));
+            } catch (IOException | ClassNotFoundException e) {
+                return Task.forError(e);
+            }
+        }
+    }
+
+    public static class TestSnapshotSPI extends TestSPI {
+        @Override
+        protected Task<Route> setupSpiStream() {
+            try {
+                roundTrip(this, "spi_stream");
+                return Task.forResult(mwBoard.lookupRoute(0));
+            } catch (IOException | ClassNotFoundException e) {
+                return Task.forError(e);
+            }
+        }
+    }
+
+    public static class TestSnapshotTimer extends TestTimer {
+        protected Task<Timer.ScheduledTask> setupTimer() {
+            try {
+                roundTrip(this, "timer");
+                return Task.forResult(mwBoard.getModule(Timer.class).lookupScheduledTask((byte) 0));
+            } catch (IOException | ClassNotFoundException e) {
+                return Task.forError(e);
+            }
+        }
+
+        @Test
+        public void scheduleTasks() {
+            // don't need to schedule tasks since this is a deserialization test
+        }
+    }
+
+    public static class TestSnapshotObserver extends UnitTestBase {
+        @BeforeEach
+        public void setup() throws Exception {
+            roundTrip(this, "dc_observer");
+            connectToBoard();
+        }
+
+        @Test
+        public void remove() {
+            byte[][] expected = new byte[][] {
+                    {0x0a, 0x04, 0x00},
+                    {0x0a, 0x04, 0x01}
+            };
+            mwBoard.lookupObserver(0).remove();
+
+            assertArrayEquals(expected, junitPlatform.getCommands());
+        }
+    }
+
+    public static class TestSnapshotFormat extends UnitTestBase {
+        @BeforeEach
+        public void setup() throws Exception {
+            junitPlatform.boardStateSuffix = "log_acc";
+            mwBoard.deserialize();
+        }
+
+        @Test
+        public void header() throws IOException {
+            byte[] expected = new byte[] {0x4d, 0x57, 0x42, 0x53, 0x00, 0x05};
+
+            assertArrayEquals(expected, Arrays.copyOf(snapshot(mwBoard), expected.length));
+        }
+
+        @Test
+        public void stable() throws Exception {
+            byte[] expected = snapshot(mwBoard);
+            mwBoard.deserialize(new ByteArrayInputStream(expected));
+
+            assertArrayEquals(expected, snapshot(mwBoard));
+        }
+
+        @Test
+        public void unknownVersion() throws IOException {
+            byte[] state = snapshot(mwBoard);
+            state[5] = 0x7f;
+
+            assertThrows(InvalidObjectException.class, () -> mwBoard.deserialize(new ByteArrayInputStream(state)));
+        }
+
+        @Test
+        public void corrupted() throws IOException {
+            byte[] expected = snapshot(mwBoard);
+            byte[] state = expected.clone();
+            state[state.length / 2] ^= 0x5a;
+
+            assertThrows(StreamCorruptedException.class, () -> mwBoard.deserialize(new ByteArrayInputStream(state)));
+            assertArrayEquals(expected, snapshot(mwBoard));
+        }
+
+        @Test
+        public void truncated() throws IOException {
+            byte[] expected = snapshot(mwBoard);
+            byte[] state = Arrays.copyOf(expected, expected.length - 8);
+
+            assertThrows(IOException.class, () -> mwBoard.deserialize(new ByteArrayInputStream(state)));
+            assertArrayEquals(expected, snapshot(mwBoard));
+        }
+    }
+}
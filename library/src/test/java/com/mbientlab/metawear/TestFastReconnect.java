@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mbientlab.metawear.MetaWearBoard.ConnectTimes;
+import com.mbientlab.metawear.module.AccelerometerBmi160;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import bolts.Task;
+
+public class TestFastReconnect extends UnitTestBase {
+    private Route route;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        junitPlatform.boardInfo = new MetaWearBoardInfo(AccelerometerBmi160.class);
+        junitPlatform.delayModuleInfoResponse = true;
+        assertNull(mwBoard.connectTimes());
+        connectToBoard();
+
+        Task<Route> task = mwBoard.getModule(AccelerometerBmi160.class).acceleration().addRouteAsync(source -> source.stream(null));
+        task.waitForCompletion();
+        route = task.getResult();
+
+        mwBoard.setFastReconnect(true);
+        mwBoard.disconnectAsync().waitForCompletion();
+        junitPlatform.connectCmds.clear();
+        junitPlatform.commandHistory.clear();
+    }
+
+    @Test
+    public void skipDiscovery() throws Exception {
+        byte[][] expected = {
+                {0x0b, (byte) 0x84}
+        };
+
+        connectToBoard();
+        assertArrayEquals(expected, junitPlatform.getConnectCommands());
+    }
+
+    @Test
+    public void rearmStreams() throws Exception {
+        byte[][] expected = {
+                {0x03, 0x04, 0x01}
+        };
+
+        connectToBoard();
+        assertArrayEquals(expected, junitPlatform.getCommands());
+    }
+
+    @Test
+    public void skipUnsubscribed() throws Exception {
+        route.unsubscribe(0);
+        junitPlatform.commandHistory.clear();
+
+        connectToBoard();
+        assertArrayEquals(new byte[0][], junitPlatform.getCommands());
+    }
+
+    @Test
+    public void restoreUnsubscribed() throws Exception {
+        route.unsubscribe(0);
+        ByteArrayOutputStream state = new ByteArrayOutputStream();
+        mwBoard.serialize(state);
+        mwBoard.deserialize(new ByteArrayInputStream(state.toByteArray()));
+        junitPlatform.commandHistory.clear();
+
+        connectToBoard();
+        assertArrayEquals(new byte[0][], junitPlatform.getCommands());
+    }
+
+    @Test
+    public void firmwareChanged() throws Exception {
+        junitPlatform.firmware = "1.5.0";
+
+        connectToBoard();
+        assertTrue(junitPlatform.getConnectCommands().length > 1);
+        assertFalse(mwBoard.connectTimes().fastReconnect);
+    }
+
+    @Test
+    public void connectTimes() throws Exception {
+        connectToBoard();
+
+        ConnectTimes times = mwBoard.connectTimes();
+        assertTrue(times.fastReconnect);
+        assertEquals(-1, times.firstSample);
+
+        // command responses are not samples
+        sendMockResponse(new byte[] {0x0b, (byte) 0x84, 0x00, 0x00, 0x00, 0x00, 0x00});
+        assertEquals(-1, mwBoard.connectTimes().firstSample);
+
+        sendMockResponse(new byte[] {0x03, 0x04, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00});
+        times = mwBoard.connectTimes();
+        assertTrue(times.firstSample >= times.connect);
+    }
+}
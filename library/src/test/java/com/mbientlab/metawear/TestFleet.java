@@ -0,0 +1,179 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mbientlab.metawear.JunitPlatform.MwBridge;
+import com.mbientlab.metawear.impl.JseFleet;
+import com.mbientlab.metawear.impl.JseMetaWearBoard;
+import com.mbientlab.metawear.module.Accelerometer;
+import com.mbientlab.metawear.module.AccelerometerBmi160;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import bolts.Task;
+
+public class TestFleet {
+    private static final int BOARDS = 6;
+
+    private static class SimulatedBoard implements MwBridge {
+        final JunitPlatform platform;
+        final MetaWearBoard board;
+
+        SimulatedBoard(int i) {
+            platform = new JunitPlatform(this);
+            platform.boardInfo = new MetaWearBoardInfo(AccelerometerBmi160.class);
+            board = new JseMetaWearBoard(platform, platform, String.format(Locale.US, "CB:B7:49:BF:27:%02X", i), "3.5.0");
+        }
+
+        @Override
+        public void disconnected() {
+            platform.dcHandler.onDisconnect();
+        }
+
+        @Override
+        public void sendMockResponse(byte[] response) {
+            platform.notificationListener.onChange(response);
+        }
+    }
+
+    private final List<SimulatedBoard> simulated = new ArrayList<>();
+    private Fleet fleet;
+
+    @BeforeEach
+    public void setup() {
+        List<MetaWearBoard> boards = new ArrayList<>();
+        for(int i = 0; i < BOARDS; i++) {
+            SimulatedBoard board = new SimulatedBoard(i);
+            simulated.add(board);
+            boards.add(board.board);
+        }
+
+        fleet = new JseFleet(boards).setConcurrency(2)
+                .configure(board -> {
+                    board.getModuleOrThrow(Accelerometer.class).configure().odr(50f).commit();
+                    return Task.forResult(null);
+                })
+                .addRouteTemplate(board -> board.getModuleOrThrow(Accelerometer.class).acceleration(), source -> source.stream(null));
+    }
+
+    private Fleet.Result provision() throws InterruptedException {
+        Task<Fleet.Result> task = fleet.provisionAsync();
+        task.waitForCompletion();
+        return task.getResult();
+    }
+
+    @Test
+    public void provisionAll() throws InterruptedException {
+        Fleet.Result result = provision();
+
+        assertEquals(fleet.boards(), result.provisioned);
+        assertTrue(result.failures.isEmpty());
+        for(SimulatedBoard it: simulated) {
+            assertTrue(it.board.isConnected());
+            assertEquals(1, result.routes.get(it.board).size());
+            assertArrayEquals(new byte[] {0x03, 0x04, 0x01}, it.platform.getLastCommand());
+        }
+    }
+
+    @Test
+    public void boundedConcurrency() throws InterruptedException {
+        final AtomicInteger active = new AtomicInteger(), maxActive = new AtomicInteger();
+        fleet.configure(board -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            return Task.delay(20L).continueWith(ignored -> {
+                active.decrementAndGet();
+                return null;
+            });
+        });
+
+        provision();
+        assertEquals(2, maxActive.get());
+    }
+
+    @Test
+    public void partialFailure() throws InterruptedException {
+        final List<Fleet.Progress> progress = new ArrayList<>();
+        simulated.get(1).platform.addCustomModuleInfo(new byte[] {0xf, (byte) 0xff});
+        simulated.get(4).platform.boardInfo = new MetaWearBoardInfo();
+
+        fleet.setRetries(1);
+        fleet.onProgress(it -> {
+            synchronized (progress) {
+                progress.add(it);
+            }
+        });
+        Fleet.Result result = provision();
+
+        assertEquals(BOARDS - 2, result.provisioned.size());
+        assertInstanceOf(TimeoutException.class, result.failures.get(simulated.get(1).board));
+        assertInstanceOf(UnsupportedModuleException.class, result.failures.get(simulated.get(4).board));
+
+        assertEquals(BOARDS, progress.size());
+        Fleet.Progress last = progress.get(progress.size() - 1);
+        assertEquals(BOARDS - 2, last.provisioned);
+        assertEquals(2, last.failed);
+    }
+
+    @Test
+    public void failingProgressHandler() throws InterruptedException {
+        fleet.onProgress(it -> {
+            throw new RuntimeException("Progress handler failed");
+        });
+        Fleet.Result result = provision();
+
+        assertEquals(fleet.boards(), result.provisioned);
+        assertTrue(result.failures.isEmpty());
+    }
+
+    @Test
+    public void removeRoutesOnFailure() throws InterruptedException {
+        final MetaWearBoard broken = simulated.get(0).board;
+        fleet.addRouteTemplate(board -> {
+            if (board == broken) {
+                throw new IllegalStateException("No producer");
+            }
+            return board.getModuleOrThrow(Accelerometer.class).acceleration();
+        }, source -> source.stream(null));
+        Fleet.Result result = provision();
+
+        assertEquals(BOARDS - 1, result.provisioned.size());
+        assertInstanceOf(IllegalStateException.class, result.failures.get(broken));
+        assertNull(broken.lookupRoute(0));
+        assertEquals(2, result.routes.get(simulated.get(1).board).size());
+    }
+}
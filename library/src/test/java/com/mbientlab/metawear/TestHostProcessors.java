@@ -0,0 +1,201 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.mbientlab.metawear.builder.RouteBuilder;
+import com.mbientlab.metawear.builder.filter.Comparison;
+import com.mbientlab.metawear.builder.filter.DifferentialOutput;
+import com.mbientlab.metawear.builder.filter.ThresholdOutput;
+import com.mbientlab.metawear.module.Switch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import bolts.Task;
+
+/**
+ * Runs routes on a board that is out of data processors, with the processors that do not fit evaluated locally
+ */
+public class TestHostProcessors extends UnitTestBase {
+    private static final Subscriber NO_OP = (data, env) -> { };
+
+    private final List<Long> received = new ArrayList<>();
+    private final Subscriber subscriber = (data, env) -> received.add(data.value(Long.class));
+
+    @BeforeEach
+    public void setup() throws Exception {
+        junitPlatform.boardInfo= new MetaWearBoardInfo(Switch.class);
+        connectToBoard();
+
+        mwBoard.setLocalProcessorFallback(true);
+    }
+
+    private Route createRoute(RouteBuilder builder) throws InterruptedException {
+        Task<Route> task = mwBoard.getModule(Switch.class).state().addRouteAsync(builder);
+        task.waitForCompletion();
+
+        assertNull(task.getError());
+        return task.getResult();
+    }
+
+    private void press(int ... states) {
+        for(int it: states) {
+            sendMockResponse(new byte[] {0x1, 0x1, (byte) it});
+        }
+    }
+
+    @Test
+    public void disabledByDefault() throws InterruptedException {
+        mwBoard.setLocalProcessorFallback(false);
+        junitPlatform.maxProcessors= 0;
+
+        Task<Route> task = mwBoard.getModule(Switch.class).state().addRouteAsync(source -> source.count().stream(subscriber));
+        task.waitForCompletion();
+
+        assertInstanceOf(TimeoutException.class, task.getError());
+    }
+
+    @Test
+    public void count() throws InterruptedException {
+        junitPlatform.maxProcessors= 0;
+        createRoute(source -> source.count().stream(subscriber));
+
+        press(1, 0, 1);
+        assertEquals(Arrays.asList(1L, 2L, 3L), received);
+    }
+
+    @Test
+    public void comparison() throws InterruptedException {
+        junitPlatform.maxProcessors= 0;
+        createRoute(source -> source.filter(Comparison.EQ, 1).stream(subscriber));
+
+        press(1, 0, 0, 1);
+        assertEquals(Arrays.asList(1L, 1L), received);
+    }
+
+    @Test
+    public void threshold() throws InterruptedException {
+        junitPlatform.maxProcessors= 0;
+        createRoute(source -> source.count().filter(ThresholdOutput.ABSOLUTE, 2).stream(subscriber));
+
+        press(1, 0, 1, 0);
+        assertEquals(Arrays.asList(3L), received);
+    }
+
+    @Test
+    public void differential() throws InterruptedException {
+        junitPlatform.maxProcessors= 0;
+        createRoute(source -> source.count().filter(DifferentialOutput.ABSOLUTE, 2).stream(subscriber));
+
+        press(1, 0, 1, 0, 1);
+        assertEquals(Arrays.asList(3L, 5L), received);
+    }
+
+    @Test
+    public void boardPrefix() throws InterruptedException {
+        byte[][] expected= {
+                {0x09, 0x02, 0x01, 0x01, (byte) 0xff, 0x00, 0x02, 0x03},
+                {0x09, 0x02, 0x09, 0x03, 0x00, 0x60, 0x06, 0x26, 0x02, 0x00, 0x00, 0x00},
+                {0x09, 0x03, 0x01},
+                {0x09, 0x07, 0x00, 0x01}
+        };
+
+        junitPlatform.maxProcessors= 1;
+        createRoute(source -> source.accumulate().filter(Comparison.GT, 2).stream(subscriber));
+        assertArrayEquals(expected, junitPlatform.getCommands());
+
+        for(int i = 1; i <= 4; i++) {
+            sendMockResponse(new byte[] {0x09, 0x03, 0x00, (byte) i, 0x00, 0x00, 0x00});
+        }
+        assertEquals(Arrays.asList(3L, 4L), received);
+    }
+
+    @Test
+    public void routeAfterFallback() throws InterruptedException {
+        junitPlatform.maxProcessors= 1;
+        createRoute(source -> source.accumulate().filter(Comparison.GT, 2).stream(subscriber));
+
+        // the filter's ADD timed out, the next route must not be handed its response slot
+        junitPlatform.maxProcessors= 10;
+        junitPlatform.commandHistory.clear();
+        mwBoard.setLocalProcessorFallback(false);
+        createRoute(source -> source.filter(Comparison.EQ, 1).stream(NO_OP));
+        assertArrayEquals(new byte[][] {
+                {0x09, 0x02, 0x01, 0x01, (byte) 0xff, 0x00, 0x06, 0x00, 0x01},
+                {0x09, 0x03, 0x01},
+                {0x09, 0x07, 0x01, 0x01}
+        }, junitPlatform.getCommands());
+
+        // a processor id the firmware sends for the timed out ADD is removed, not leaked
+        junitPlatform.commandHistory.clear();
+        sendMockResponse(new byte[] {0x09, 0x02, 0x07});
+        assertArrayEquals(new byte[][] {{0x09, 0x06, 0x07}}, junitPlatform.getCommands());
+    }
+
+    @Test
+    public void noBackpressure() throws InterruptedException {
+        junitPlatform.maxProcessors= 0;
+        Route route = createRoute(source -> source.count().stream(subscriber));
+
+        assertFalse(route.setBackpressure(0, 3, Route.Overflow.DROP_OLDEST, null));
+    }
+
+    @Test
+    public void namedStaysOnBoard() throws InterruptedException {
+        junitPlatform.maxProcessors= 0;
+
+        Task<Route> task = mwBoard.getModule(Switch.class).state().addRouteAsync(source -> source.count().name("presses").stream(subscriber));
+        task.waitForCompletion();
+
+        assertInstanceOf(TimeoutException.class, task.getError());
+    }
+
+    @Test
+    public void restoreSnapshot() throws Exception {
+        junitPlatform.maxProcessors= 0;
+        createRoute(source -> source.count().stream(NO_OP));
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        mwBoard.serialize(buffer);
+        mwBoard.deserialize(new ByteArrayInputStream(buffer.toByteArray()));
+        mwBoard.lookupRoute(0).resubscribe(0, subscriber);
+
+        press(1, 0);
+        assertEquals(Arrays.asList(1L, 2L), received);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mbientlab.metawear.data.Acceleration;
+import com.mbientlab.metawear.impl.JseLogDecoder;
+import com.mbientlab.metawear.module.Accelerometer;
+import com.mbientlab.metawear.module.Logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import bolts.Task;
+
+public class TestLogDump extends TestLogDataBase {
+    @Override
+    protected String logDataFilename() {
+        return "bmi160_log_dl";
+    }
+
+    private final List<Acceleration> streamed = new ArrayList<>();
+
+    private byte[] dumpLog() throws Exception {
+        mwBoard.getModule(Accelerometer.class).configure()
+                .range(8f)
+                .commit();
+        // captures the test object, the dump must not try to serialize it
+        mwBoard.getModule(Accelerometer.class).acceleration().addRouteAsync(source -> source.log((data, env) -> streamed.add(data.value(Acceleration.class))))
+                .waitForCompletion();
+
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        Task<Void> task = mwBoard.getModule(Logging.class).dumpAsync(dump);
+        for(byte[] response: downloadResponses) {
+            sendMockResponse(response);
+        }
+        task.waitForCompletion();
+
+        assertNull(task.getError());
+        return dump.toByteArray();
+    }
+
+    @Test
+    public void dumpSkipsSubscribers() throws Exception {
+        dumpLog();
+        assertTrue(streamed.isEmpty());
+    }
+
+    @Test
+    public void decodeDump() throws Exception {
+        final Acceleration[] expected = readAccelerationValues("bmi160_expected_values");
+        final List<Acceleration> decoded = Collections.synchronizedList(new ArrayList<>());
+
+        JseLogDecoder decoder = new JseLogDecoder(new ByteArrayInputStream(dumpLog()));
+        assertEquals(Collections.singleton("acceleration"), decoder.producers());
+        assertEquals(0, decoder.unknownEntries());
+
+        Task<Long> task = decoder.decodeAsync((producer, data) -> decoded.add(data.value(Acceleration.class)));
+        task.waitForCompletion();
+
+        assertEquals(expected.length, (long) task.getResult());
+        assertArrayEquals(expected, decoded.toArray());
+    }
+
+    @Test
+    public void decodeTwice() throws Exception {
+        final List<Long> timestamps = new ArrayList<>();
+
+        JseLogDecoder decoder = new JseLogDecoder(new ByteArrayInputStream(dumpLog()), 1);
+        decoder.decodeAsync((producer, data) -> timestamps.add(data.epochMillis())).waitForCompletion();
+        List<Long> first = new ArrayList<>(timestamps);
+        timestamps.clear();
+        decoder.decodeAsync((producer, data) -> timestamps.add(data.epochMillis())).waitForCompletion();
+
+        assertEquals(first, timestamps);
+        for(int i = 1; i < first.size(); i++) {
+            assertTrue(first.get(i) >= first.get(i - 1));
+        }
+    }
+
+    @Test
+    public void decodeCapture() throws Exception {
+        final Acceleration[] expected = readAccelerationValues("bmi160_expected_values");
+        final List<Acceleration> decoded = Collections.synchronizedList(new ArrayList<>());
+
+        mwBoard.getModule(Accelerometer.class).configure()
+                .range(8f)
+                .commit();
+        mwBoard.getModule(Accelerometer.class).acceleration().addRouteAsync(source -> source.log((data, env) -> { }))
+                .waitForCompletion();
+        ByteArrayOutputStream state = new ByteArrayOutputStream();
+        mwBoard.serialize(state);
+
+        ByteArrayOutputStream capture = new ByteArrayOutputStream();
+        for(byte[] response: downloadResponses) {
+            if (response[0] == 0x0b && (response[1] & 0x7f) == 0x07) {
+                capture.write(response.length);
+                capture.write(response);
+            }
+        }
+
+        JseLogDecoder decoder = new JseLogDecoder(state.toByteArray(), new ByteArrayInputStream(capture.toByteArray()), 2);
+        decoder.decodeAsync((producer, data) -> decoded.add(data.value(Acceleration.class))).waitForCompletion();
+        assertArrayEquals(expected, decoded.toArray());
+    }
+
+    @Test
+    public void decodeBatches() throws Exception {
+        final Acceleration[] expected = readAccelerationValues("bmi160_expected_values");
+        final List<Acceleration> decoded = new ArrayList<>();
+
+        JseLogDecoder decoder = new JseLogDecoder(new ByteArrayInputStream(dumpLog()), 1);
+        Task<Long> task = decoder.decodeBatchesAsync((producer, batch) -> {
+            assertEquals("acceleration", producer);
+            for(int i = 0; i < batch.size(); i++) {
+                decoded.add(new Acceleration(batch.x()[i], batch.y()[i], batch.z()[i]));
+            }
+        });
+        task.waitForCompletion();
+
+        assertEquals(expected.length, (long) task.getResult());
+        assertArrayEquals(expected, decoded.toArray());
+    }
+
+    @Test
+    public void notADump() {
+        assertThrows(StreamCorruptedException.class, () -> new JseLogDecoder(new ByteArrayInputStream(new byte[] {0, 1, 2, 3, 4, 5})));
+    }
+}
@@ -25,6 +25,7 @@
 package com.mbientlab.metawear;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 
 import com.mbientlab.metawear.module.Accelerometer;
@@ -36,6 +37,8 @@ import org.junit.jupiter.api.Test;
 
 import java.util.concurrent.TimeoutException;
 
+import bolts.Task;
+
 /**
  * Created by etsai on 9/3/16.
  */
@@ -88,6 +91,17 @@ public class TestLogging extends UnitTestBase {
         assertArrayEquals(expected, junitPlatform.getLastCommand());
     }
 
+    @Test
+    public void syncClock() throws Exception {
+        Task<Logging.ClockEstimate> task = logging.syncClockAsync();
+        task.waitForCompletion();
+
+        byte[][] connectCmds = junitPlatform.getConnectCommands();
+        assertArrayEquals(new byte[] {0x0b, (byte) 0x84}, connectCmds[connectCmds.length - 1]);
+        assertEquals(2, task.getResult().references);
+        assertEquals(0.0, task.getResult().drift, 0.001);
+    }
+
     public void timeoutHandler() throws Exception {
         final Exception[] actual= new Exception[1];
 
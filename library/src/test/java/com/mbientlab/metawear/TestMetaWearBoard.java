@@ -28,6 +28,7 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -105,6 +106,49 @@ public class TestMetaWearBoard {
             assertArrayEquals(expected, junitPlatform.getConnectCommands());
         }
 
+        @Test
+        public void connectWithConcurrentDiscovery() throws Exception {
+            byte[][] expected = {
+                    {0x01, (byte) (byte) 0x80}, {0x02, (byte) 0x80}, {0x03, (byte) 0x80}, {0x04, (byte) 0x80},
+                    {0x08, (byte) 0x80},
+                    {0x09, (byte) 0x80}, {0x0a, (byte) 0x80}, {0x0b, (byte) 0x80}, {0x0c, (byte) 0x80},
+                    {0x0d, (byte) 0x80}, {0x0f, (byte) 0x80}, {0x11, (byte) 0x80},
+                    {0x12, (byte) 0x80}, {0x13, (byte) 0x80}, {0x14, (byte) 0x80}, {0x15, (byte) 0x80},
+                    {0x16, (byte) 0x80}, {0x17, (byte) 0x80}, {0x18, (byte) 0x80}, {0x19, (byte) 0x80},
+                    {(byte) 0xfe, (byte) 0x80}, {0x0b, (byte) 0x84}
+            };
+
+            junitPlatform.firmware = "1.1.3";
+            junitPlatform.delayModuleInfoResponse = true;
+            mwBoard.setConcurrentModuleDiscovery(true);
+
+            connectToBoard();
+            assertArrayEquals(expected, junitPlatform.getConnectCommands());
+        }
+
+        @Test
+        public void concurrentDiscoveryModules() throws Exception {
+            junitPlatform.boardInfo = new MetaWearBoardInfo(AccelerometerBmi160.class, Gyro.class, MagnetometerBmm150.class);
+            junitPlatform.delayModuleInfoResponse = true;
+            mwBoard.setConcurrentModuleDiscovery(true);
+
+            connectToBoard();
+            assertNotNull(mwBoard.getModule(AccelerometerBmi160.class));
+            assertNotNull(mwBoard.getModule(Gyro.class));
+            assertNotNull(mwBoard.getModule(MagnetometerBmm150.class));
+        }
+
+        @Test
+        public void concurrentDiscoveryTimeout() throws Exception {
+            junitPlatform.addCustomModuleInfo(new byte[]{0xf, (byte) 0xff});
+            mwBoard.setConcurrentModuleDiscovery(true);
+
+            Task<Void> task = mwBoard.connectWithRetryAsync(3);
+            task.waitForCompletion();
+
+            assertInstanceOf(TimeoutException.class, task.getError());
+        }
+
         @Test
         public void serviceDiscoveryTimeout() throws Exception {
             junitPlatform.addCustomModuleInfo(new byte[]{0xf, (byte) 0xff});
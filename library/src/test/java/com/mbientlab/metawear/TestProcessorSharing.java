@@ -0,0 +1,178 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.mbientlab.metawear.builder.RouteBuilder;
+import com.mbientlab.metawear.builder.filter.Comparison;
+import com.mbientlab.metawear.builder.function.Function2;
+import com.mbientlab.metawear.module.Switch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import bolts.Task;
+
+/**
+ * Creates routes with identical processors and checks that they share the processors on the board
+ */
+public class TestProcessorSharing extends UnitTestBase {
+    private static final Subscriber NO_OP = (data, env) -> { };
+
+    private final List<Long> first = new ArrayList<>(), second = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() throws Exception {
+        junitPlatform.boardInfo= new MetaWearBoardInfo(Switch.class);
+        connectToBoard();
+    }
+
+    private Route createRoute(RouteBuilder builder) throws InterruptedException {
+        Task<Route> task = mwBoard.getModule(Switch.class).state().addRouteAsync(builder);
+        task.waitForCompletion();
+        return task.getResult();
+    }
+
+    @Test
+    public void sameProcessor() throws InterruptedException {
+        byte[][] expected= {
+                {0x09, 0x02, 0x01, 0x01, (byte) 0xff, 0x00, 0x06, 0x00, 0x01},
+                {0x09, 0x03, 0x01},
+                {0x09, 0x07, 0x00, 0x01},
+                {0x09, 0x03, 0x01}
+        };
+
+        createRoute(source -> source.filter(Comparison.EQ, 1).stream((data, env) -> first.add(data.value(Long.class))));
+        createRoute(source -> source.filter(Comparison.EQ, 1).stream((data, env) -> second.add(data.value(Long.class))));
+        assertArrayEquals(expected, junitPlatform.getCommands());
+
+        sendMockResponse(new byte[] {0x09, 0x03, 0x00, 0x01});
+        assertEquals(Arrays.asList(1L), first);
+        assertEquals(Arrays.asList(1L), second);
+    }
+
+    @Test
+    public void sharedChain() throws InterruptedException {
+        byte[][] expected= {
+                {0x09, 0x02, 0x01, 0x01, (byte) 0xff, 0x00, 0x06, 0x00, 0x01},
+                {0x09, 0x02, 0x09, 0x03, 0x00, 0x00, 0x09, 0x03, 0x01, 0x02, 0x00, 0x00, 0x00, 0x00},
+                {0x09, 0x03, 0x01},
+                {0x09, 0x07, 0x01, 0x01},
+                {0x09, 0x03, 0x01},
+                {0x09, 0x02, 0x09, 0x03, 0x00, 0x00, 0x09, 0x03, 0x01, 0x03, 0x00, 0x00, 0x00, 0x00},
+                {0x09, 0x03, 0x01},
+                {0x09, 0x07, 0x02, 0x01}
+        };
+
+        createRoute(source -> source.filter(Comparison.EQ, 1).map(Function2.ADD, 2).stream(NO_OP));
+        createRoute(source -> source.filter(Comparison.EQ, 1).map(Function2.ADD, 2).stream(NO_OP));
+        createRoute(source -> source.filter(Comparison.EQ, 1).map(Function2.ADD, 3).stream(NO_OP));
+        assertArrayEquals(expected, junitPlatform.getCommands());
+    }
+
+    @Test
+    public void removeShared() throws InterruptedException {
+        byte[][] expected= {
+                {0x09, 0x07, 0x00, 0x00},
+                {0x09, 0x06, 0x00}
+        };
+
+        Route route = createRoute(source -> source.filter(Comparison.EQ, 1).stream(NO_OP));
+        Route other = createRoute(source -> source.filter(Comparison.EQ, 1).stream(NO_OP));
+        junitPlatform.commandHistory.clear();
+
+        route.remove();
+        other.remove();
+        assertArrayEquals(expected, junitPlatform.getCommands());
+    }
+
+    @Test
+    public void namedNotShared() throws InterruptedException {
+        createRoute(source -> source.filter(Comparison.EQ, 1).name("pressed").stream(NO_OP));
+        createRoute(source -> source.filter(Comparison.EQ, 1).stream(NO_OP));
+        createRoute(source -> source.filter(Comparison.EQ, 1).stream(NO_OP));
+
+        long adds = Arrays.stream(junitPlatform.getCommands()).filter(it -> it[0] == 0x09 && it[1] == 0x02).count();
+        assertEquals(2, adds);
+    }
+
+    @Test
+    public void statefulNotShared() throws InterruptedException {
+        createRoute(source -> source.count().stream(NO_OP));
+        createRoute(source -> source.count().stream(NO_OP));
+
+        long adds = Arrays.stream(junitPlatform.getCommands()).filter(it -> it[0] == 0x09 && it[1] == 0x02).count();
+        assertEquals(2, adds);
+    }
+
+    @Test
+    public void restoreSnapshot() throws Exception {
+        byte[][] expected= {
+                {0x09, 0x06, 0x00}
+        };
+
+        createRoute(source -> source.filter(Comparison.EQ, 1).log(NO_OP));
+        createRoute(source -> source.filter(Comparison.EQ, 1).log(NO_OP));
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        mwBoard.serialize(buffer);
+        mwBoard.deserialize(new ByteArrayInputStream(buffer.toByteArray()));
+        junitPlatform.commandHistory.clear();
+
+        mwBoard.lookupRoute(0).remove();
+        assertEquals(0, Arrays.stream(junitPlatform.getCommands()).filter(it -> it[0] == 0x09 && it[1] == 0x06).count());
+
+        mwBoard.lookupRoute(1).remove();
+        byte[][] removed = Arrays.stream(junitPlatform.getCommands()).filter(it -> it[0] == 0x09 && it[1] == 0x06).toArray(byte[][]::new);
+        assertArrayEquals(expected, removed);
+    }
+
+    @Test
+    public void restoreVersion2Snapshot() throws Exception {
+        byte[][] expected= {
+                {0x09, 0x06, 0x00}
+        };
+
+        junitPlatform.boardStateSuffix = "processor_v2";
+        mwBoard.deserialize();
+        junitPlatform.commandHistory.clear();
+
+        mwBoard.lookupRoute(0).remove();
+        byte[][] removed = Arrays.stream(junitPlatform.getCommands()).filter(it -> it[0] == 0x09 && it[1] == 0x06).toArray(byte[][]::new);
+        assertArrayEquals(expected, removed);
+
+        createRoute(source -> source.filter(Comparison.EQ, 1).stream(NO_OP));
+        long adds = Arrays.stream(junitPlatform.getCommands()).filter(it -> it[0] == 0x09 && it[1] == 0x02).count();
+        assertEquals(1, adds);
+    }
+}
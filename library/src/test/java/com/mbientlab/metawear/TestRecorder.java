@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mbientlab.metawear.impl.JseRecorder;
+import com.mbientlab.metawear.module.Accelerometer;
+import com.mbientlab.metawear.module.Logging;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import bolts.Task;
+
+public class TestRecorder extends TestLogDataBase {
+    private static final byte[][] SAMPLES = new byte[][] {
+            {0x03, 0x04, (byte) 0xf4, 0x0d, 0x3c, 0x39, (byte) 0x99, 0x11},
+            {0x03, 0x04, 0x16, (byte) 0xc4, (byte) 0x94, (byte) 0xa2, 0x2a, (byte) 0xd0},
+            {0x03, 0x04, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00}
+    };
+
+    @TempDir
+    File directory;
+
+    @Override
+    protected String logDataFilename() {
+        return "bmi160_log_dl";
+    }
+
+    private void streamSamples(Recorder recorder) throws Exception {
+        Task<Route> task = mwBoard.getModule(Accelerometer.class).acceleration().addRouteAsync(source -> source.stream(recorder.channel("acc")));
+        task.waitForCompletion();
+
+        for(byte[] it: SAMPLES) {
+            sendMockResponse(it);
+        }
+        task.getResult().remove();
+    }
+
+    @Test
+    public void streamRawBytes() throws Exception {
+        try (Recorder recorder = new JseRecorder(directory)) {
+            streamSamples(recorder);
+            assertEquals(SAMPLES.length * 6, recorder.bytesRecorded());
+            assertEquals(Collections.singleton("acc"), recorder.channels());
+
+            byte[] buffer = new byte[20];
+            try (Recorder.Cursor cursor = recorder.open("acc")) {
+                assertEquals("acceleration", cursor.identifier());
+                assertEquals(SAMPLES.length, cursor.size());
+
+                for(byte[] it: SAMPLES) {
+                    assertTrue(cursor.next());
+                    assertEquals(6, cursor.length());
+                    assertEquals(6, cursor.read(buffer));
+                    assertArrayEquals(Arrays.copyOfRange(it, 2, it.length), Arrays.copyOf(buffer, 6));
+                    assertEquals(it[3], cursor.get(1));
+                }
+                assertFalse(cursor.next());
+            }
+        }
+    }
+
+    @Test
+    public void resumeChannel() throws Exception {
+        try (Recorder recorder = new JseRecorder(directory)) {
+            streamSamples(recorder);
+        }
+        try (Recorder recorder = new JseRecorder(directory)) {
+            streamSamples(recorder);
+        }
+
+        try (Recorder.Cursor cursor = new JseRecorder(directory).open("acc")) {
+            assertEquals(SAMPLES.length * 2, cursor.size());
+
+            int count = 0;
+            long previous = Long.MIN_VALUE;
+            while(cursor.next()) {
+                assertEquals(SAMPLES[count % SAMPLES.length][7], cursor.get(5));
+                assertTrue(cursor.epochMillis() >= previous);
+                previous = cursor.epochMillis();
+                count++;
+            }
+            assertEquals(SAMPLES.length * 2, count);
+
+            cursor.rewind();
+            assertTrue(cursor.next());
+            assertEquals(SAMPLES[0][2], cursor.get(0));
+        }
+    }
+
+    @Test
+    public void truncateSegments() throws Exception {
+        try (Recorder recorder = new JseRecorder(directory)) {
+            streamSamples(recorder);
+        }
+
+        File channel = new File(directory, "acc");
+        assertEquals(8 + SAMPLES.length * 8, new File(channel, "00000.time").length());
+        assertEquals(SAMPLES.length * 2, new File(channel, "00000.length").length());
+        assertEquals(SAMPLES.length * 6, new File(channel, "00000.data").length());
+    }
+
+    @Test
+    public void logRawBytes() throws Exception {
+        long expected = readAccelerationValues("bmi160_expected_values").length;
+
+        try (Recorder recorder = new JseRecorder(directory)) {
+            Task<Route> task = mwBoard.getModule(Accelerometer.class).acceleration().addRouteAsync(source -> source.log(recorder.channel("acc")));
+            task.waitForCompletion();
+
+            Task<Void> dlTask = mwBoard.getModule(Logging.class).downloadAsync();
+            for(byte[] response: downloadResponses) {
+                sendMockResponse(response);
+            }
+            dlTask.waitForCompletion();
+            recorder.flush();
+
+            try (Recorder.Cursor cursor = recorder.open("acc")) {
+                assertEquals(expected, cursor.size());
+
+                long previous = Long.MIN_VALUE;
+                while(cursor.next()) {
+                    assertEquals(6, cursor.length());
+                    assertTrue(cursor.epochMillis() >= previous);
+                    previous = cursor.epochMillis();
+                }
+            }
+        }
+    }
+}
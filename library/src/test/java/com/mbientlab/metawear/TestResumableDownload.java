@@ -0,0 +1,216 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mbientlab.metawear.data.Acceleration;
+import com.mbientlab.metawear.impl.JseMetaWearBoard;
+import com.mbientlab.metawear.module.Accelerometer;
+import com.mbientlab.metawear.module.Logging;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import bolts.Task;
+
+public class TestResumableDownload extends TestLogDataBase {
+    private static final Subscriber COLLECT_ACCELERATION = (data, env) -> ((List<Acceleration>) env[0]).add(data.value(Acceleration.class));
+
+    // splits inside a readout packet pair, right after a page completed notification, and in the middle of the log
+    private static Stream<Integer> splits() {
+        return Stream.of(1, 5, 6, 7, 40);
+    }
+
+    @Override
+    protected String logDataFilename() {
+        return "bmi160_log_dl";
+    }
+
+    private List<Acceleration> addLogger(MetaWearBoard board) throws Exception {
+        board.getModule(Accelerometer.class).configure()
+                .range(8f)
+                .commit();
+        Task<Route> task = board.getModule(Accelerometer.class).acceleration().addRouteAsync(source -> source.log(COLLECT_ACCELERATION));
+        task.waitForCompletion();
+
+        List<Acceleration> received = new ArrayList<>();
+        task.getResult().setEnvironment(0, received);
+        return received;
+    }
+
+    private void sendResponses(int from, int to) {
+        for(byte[] response: downloadResponses.subList(from, to)) {
+            sendMockResponse(response);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("splits")
+    public void resumeAfterDisconnect(int split) throws Exception {
+        final Acceleration[] expected = readAccelerationValues("bmi160_expected_values");
+        List<Acceleration> received = addLogger(mwBoard);
+
+        Logging logging = mwBoard.getModule(Logging.class);
+        logging.setResumableDownload(true);
+        Task<Void> task = logging.downloadAsync();
+        sendResponses(0, split);
+
+        disconnected();
+        assertFalse(task.isCompleted());
+
+        // the board reads out the log again from the start
+        connectToBoard();
+        sendResponses(0, downloadResponses.size());
+        task.waitForCompletion();
+
+        assertNull(task.getError());
+        assertArrayEquals(expected, received.toArray());
+    }
+
+    @Test
+    public void resumeAfterRestart() throws Exception {
+        final Acceleration[] expected = readAccelerationValues("bmi160_expected_values");
+        List<Acceleration> received = addLogger(mwBoard);
+        final int split = 7;
+
+        ByteArrayOutputStream state = new ByteArrayOutputStream();
+        mwBoard.serialize(state);
+
+        Logging logging = mwBoard.getModule(Logging.class);
+        logging.setResumableDownload(true);
+        logging.downloadAsync();
+        sendResponses(0, split);
+        disconnected();
+
+        // a new board object restored from the state saved before the download, as if the app was restarted
+        MetaWearBoard restored = new JseMetaWearBoard(junitPlatform, junitPlatform, "CB:B7:49:BF:27:33", "3.5.0");
+        restored.deserialize(new ByteArrayInputStream(state.toByteArray()));
+        Task<Void> connect = restored.connectAsync();
+        connect.waitForCompletion();
+
+        List<Acceleration> resumed = new ArrayList<>();
+        restored.lookupRoute(0).setEnvironment(0, resumed);
+        restored.getModule(Logging.class).setResumableDownload(true);
+        Task<Void> task = restored.getModule(Logging.class).downloadAsync();
+        sendResponses(0, downloadResponses.size());
+        task.waitForCompletion();
+
+        received.addAll(resumed);
+        assertTrue(task.isCompleted());
+        assertArrayEquals(expected, received.toArray());
+    }
+
+    @Test
+    public void reconnectTimeout() throws Exception {
+        final Acceleration[] expected = readAccelerationValues("bmi160_expected_values");
+        List<Acceleration> received = addLogger(mwBoard);
+
+        Logging logging = mwBoard.getModule(Logging.class);
+        logging.setResumableDownload(true, 50L);
+        Task<Void> task = logging.downloadAsync();
+        sendResponses(0, 7);
+        disconnected();
+
+        task.waitForCompletion();
+        assertInstanceOf(TaskTimeoutException.class, task.getError());
+
+        // the next download picks up from the saved progress
+        connectToBoard();
+        task = logging.downloadAsync();
+        sendResponses(0, downloadResponses.size());
+        task.waitForCompletion();
+
+        assertNull(task.getError());
+        assertArrayEquals(expected, received.toArray());
+    }
+
+    @Test
+    public void cancelWhileDisconnected() throws Exception {
+        addLogger(mwBoard);
+
+        Logging logging = mwBoard.getModule(Logging.class);
+        logging.setResumableDownload(true);
+        Task<Void> task = logging.downloadAsync();
+        sendResponses(0, 7);
+        disconnected();
+
+        logging.cancelDownload();
+        assertTrue(task.isCancelled());
+
+        // reconnecting no longer restarts the readout
+        junitPlatform.commandHistory.clear();
+        connectToBoard();
+        assertFalse(Arrays.stream(junitPlatform.getCommands()).anyMatch(it -> Arrays.equals(new byte[] {0x0b, (byte) 0x85}, it)));
+    }
+
+    @Test
+    public void throttledCheckpoints() throws Exception {
+        addLogger(mwBoard);
+
+        Logging logging = mwBoard.getModule(Logging.class);
+        logging.setResumableDownload(true);
+        junitPlatform.savedKeys.clear();
+        Task<Void> task = logging.downloadAsync();
+        sendResponses(0, downloadResponses.size());
+        task.waitForCompletion();
+
+        // the readout finishes within a few checkpoint intervals, not one save per page or progress update
+        assertTrue(junitPlatform.savedKeys.stream().filter(it -> it.endsWith("DOWNLOAD_CHECKPOINT")).count() <= 2);
+    }
+
+    @Test
+    public void checkpointCleared() throws Exception {
+        final Acceleration[] expected = readAccelerationValues("bmi160_expected_values");
+        List<Acceleration> received = addLogger(mwBoard);
+
+        Logging logging = mwBoard.getModule(Logging.class);
+        logging.setResumableDownload(true);
+        Task<Void> task = logging.downloadAsync();
+        sendResponses(0, downloadResponses.size());
+        task.waitForCompletion();
+
+        // a completed download leaves no progress behind, the next download starts over
+        task = logging.downloadAsync();
+        sendResponses(0, downloadResponses.size());
+        task.waitForCompletion();
+
+        Acceleration[] twice = Arrays.copyOf(expected, expected.length * 2);
+        System.arraycopy(expected, 0, twice, expected.length, expected.length);
+        assertArrayEquals(twice, received.toArray());
+    }
+}
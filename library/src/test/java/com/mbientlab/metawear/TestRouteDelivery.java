@@ -0,0 +1,290 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mbientlab.metawear.data.Acceleration;
+import com.mbientlab.metawear.module.AccelerometerBmi160;
+import com.mbientlab.metawear.module.Switch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import bolts.Task;
+
+public class TestRouteDelivery extends UnitTestBase {
+    private static final int SAMPLES = 200;
+
+    private ExecutorService executor;
+    private Route route;
+    private final List<Long> received = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private CountDownLatch done;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        junitPlatform.boardInfo= new MetaWearBoardInfo(Switch.class, AccelerometerBmi160.class);
+        connectToBoard();
+
+        executor = Executors.newFixedThreadPool(4);
+        done = new CountDownLatch(SAMPLES);
+
+        Task<Route> task = mwBoard.getModule(Switch.class).state().addRouteAsync(source -> source.stream((data, env) -> {
+            received.add(data.value(Long.class));
+            threads.add(Thread.currentThread());
+            done.countDown();
+        }));
+        task.waitForCompletion();
+        route = task.getResult();
+    }
+
+    private final List<Long> drops = new ArrayList<>();
+
+    /**
+     * Sends 10 packets while the executor is held up, then lets the subscriber catch up
+     */
+    private void sendWhileBlocked(Route route) throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        route.setDeliveryExecutor(command -> executor.execute(() -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException ignored) {
+            }
+            command.run();
+        }));
+
+        for(int i = 0; i < 10; i++) {
+            sendMockResponse(new byte[] {0x1, 0x1, (byte) i});
+        }
+        blocked.countDown();
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void keepsOrder() throws InterruptedException {
+        route.setDeliveryExecutor(executor);
+        for(int i = 0; i < SAMPLES; i++) {
+            sendMockResponse(new byte[] {0x1, 0x1, (byte) i});
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for(int i = 0; i < SAMPLES; i++) {
+            assertEquals(i, received.get(i).longValue());
+            assertNotSame(Thread.currentThread(), threads.get(i));
+        }
+    }
+
+    @Test
+    public void copiesPacket() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        route.setDeliveryExecutor(command -> executor.execute(() -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException ignored) {
+            }
+            command.run();
+        }));
+
+        byte[] buffer = new byte[] {0x1, 0x1, 0x1};
+        sendMockResponse(buffer);
+        buffer[2] = 0x0;
+        blocked.countDown();
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1L, received.get(0).longValue());
+    }
+
+    @Test
+    public void metrics() throws InterruptedException {
+        assertNull(route.deliveryMetrics());
+
+        route.setDeliveryExecutor(executor);
+        for(int i = 0; i < SAMPLES; i++) {
+            sendMockResponse(new byte[] {0x1, 0x1, (byte) i});
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        Route.DeliveryMetrics metrics = route.deliveryMetrics();
+        assertEquals(0, metrics.queued);
+        assertEquals(SAMPLES, metrics.delivered);
+        assertTrue(metrics.maxQueued >= 1);
+        assertTrue(metrics.maxDwell >= metrics.meanDwell);
+    }
+
+    @Test
+    public void switchExecutor() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        route.setDeliveryExecutor(command -> executor.execute(() -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException ignored) {
+            }
+            command.run();
+        }));
+        for(int i = 0; i < SAMPLES / 2; i++) {
+            sendMockResponse(new byte[] {0x1, 0x1, (byte) i});
+        }
+
+        route.setDeliveryExecutor(Runnable::run);
+        for(int i = SAMPLES / 2; i < SAMPLES; i++) {
+            sendMockResponse(new byte[] {0x1, 0x1, (byte) i});
+        }
+        blocked.countDown();
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        for(int i = 0; i < SAMPLES; i++) {
+            assertEquals(i, received.get(i).longValue());
+        }
+        assertEquals(SAMPLES, route.deliveryMetrics().delivered);
+    }
+
+    @Test
+    public void restoreCallbackDelivery() {
+        route.setDeliveryExecutor(executor);
+        route.setDeliveryExecutor(null);
+
+        sendMockResponse(new byte[] {0x1, 0x1, 0x1});
+        assertEquals(1, received.size());
+        assertSame(Thread.currentThread(), threads.get(0));
+        assertNull(route.deliveryMetrics());
+    }
+
+    @Test
+    public void dropNewest() throws InterruptedException {
+        assertTrue(route.setBackpressure(0, 3, Route.Overflow.DROP_NEWEST, (pos, count) -> drops.add(count)));
+        sendWhileBlocked(route);
+
+        assertArrayEquals(new Long[] {0L, 1L, 2L}, received.toArray());
+        assertEquals(7, route.deliveryMetrics().dropped);
+        assertArrayEquals(new Long[] {7L}, drops.toArray());
+    }
+
+    @Test
+    public void dropOldest() throws InterruptedException {
+        assertTrue(route.setBackpressure(0, 3, Route.Overflow.DROP_OLDEST, (pos, count) -> drops.add(count)));
+        sendWhileBlocked(route);
+
+        assertArrayEquals(new Long[] {7L, 8L, 9L}, received.toArray());
+        assertArrayEquals(new Long[] {7L}, drops.toArray());
+        assertEquals(7, route.deliveryMetrics().dropped);
+        assertEquals(3, route.deliveryMetrics().delivered);
+    }
+
+    @Test
+    public void boundedWhileBlocked() throws InterruptedException {
+        assertTrue(route.setBackpressure(0, 3, Route.Overflow.DROP_OLDEST, null));
+        CountDownLatch blocked = new CountDownLatch(1);
+        route.setDeliveryExecutor(command -> executor.execute(() -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException ignored) {
+            }
+            command.run();
+        }));
+
+        for(int i = 0; i < SAMPLES; i++) {
+            sendMockResponse(new byte[] {0x1, 0x1, (byte) i});
+        }
+        // only the buffered packets wait for the subscriber, superseded ones are not kept around
+        assertEquals(3, route.deliveryMetrics().queued);
+        assertEquals(3, route.deliveryMetrics().maxQueued);
+        blocked.countDown();
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertArrayEquals(new Long[] {197L, 198L, 199L}, received.toArray());
+    }
+
+    @Test
+    public void dropsReportedAfterDrain() throws InterruptedException {
+        assertTrue(route.setBackpressure(0, 3, Route.Overflow.DROP_OLDEST, (pos, count) -> drops.add((long) received.size())));
+        sendWhileBlocked(route);
+
+        assertArrayEquals(new Long[] {3L}, drops.toArray());
+    }
+
+    @Test
+    public void keepLatest() throws InterruptedException {
+        assertTrue(route.setBackpressure(0, 0, Route.Overflow.KEEP_LATEST, (pos, count) -> drops.add(count)));
+        sendWhileBlocked(route);
+
+        assertArrayEquals(new Long[] {9L}, received.toArray());
+        assertArrayEquals(new Long[] {9L}, drops.toArray());
+    }
+
+    @Test
+    public void invalidPosition() {
+        assertFalse(route.setBackpressure(1, 3, Route.Overflow.DROP_OLDEST, null));
+    }
+
+    @Test
+    public void conflatePacked() throws InterruptedException {
+        final List<Acceleration> actual = new ArrayList<>();
+        AccelerometerBmi160 accelerometer = mwBoard.getModule(AccelerometerBmi160.class);
+        accelerometer.configure()
+                .range(8f)
+                .commit();
+        Task<Route> task = accelerometer.packedAcceleration().addRouteAsync(source -> source.stream((data, env) -> actual.add(data.value(Acceleration.class))));
+        task.waitForCompletion();
+
+        Route packed = task.getResult();
+        packed.setBackpressure(0, 0, Route.Overflow.CONFLATE, null);
+        packed.setDeliveryExecutor(executor);
+        sendMockResponse(new byte[] {0x03, 0x1c, 0x62, (byte) 0xb7, 0x53, 0x0d, (byte) 0xe9, (byte) 0xfd, 0x16, (byte) 0xd0, 0x4d,
+                0x0e, 0x57, 0x02, (byte) 0x8a, (byte) 0xff, (byte) 0xa1, 0x05, 0x0a, 0x01});
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertArrayEquals(new Acceleration[] {
+                new Acceleration(Float.intBitsToFloat(0xbcec0000), Float.intBitsToFloat(0x3eb42000), Float.intBitsToFloat(0x3d850000))
+        }, actual.toArray());
+    }
+}
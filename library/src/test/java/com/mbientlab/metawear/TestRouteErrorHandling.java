@@ -43,6 +43,8 @@ import com.mbientlab.metawear.module.Timer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.TimeoutException;
+
 import bolts.Task;
 
 /**
@@ -136,6 +138,61 @@ public class TestRouteErrorHandling extends UnitTestBase {
         assertArrayEquals(expected, junitPlatform.getCommands());
     }
 
+    @Test
+    public void batchedProcessorRemoval() throws InterruptedException {
+        byte[][] expected= {
+                {0x09, 0x02, 0x01, 0x01, (byte) 0xff, 0x00, 0x06, 0x00, 0x00, 0x00, 0x01, 0x00, 0x00, 0x00},
+                {0x09, 0x02, 0x01, 0x01, (byte) 0xff, 0x00, 0x06, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00},
+                {0x09, 0x02, 0x01, 0x01, (byte) 0xff, 0x00, 0x06, 0x00, 0x00, 0x00, 0x02, 0x00, 0x00, 0x00},
+                {0x09, 0x06, 0x00},
+                {0x09, 0x06, 0x01}
+        };
+
+        junitPlatform.maxProcessors= 2;
+        Task<Route> actual = mwBoard.getModule(Switch.class).state().addRouteAsync(source -> source.multicast()
+                .to().filter(Comparison.EQ, 1)
+                .to().filter(Comparison.EQ, 0)
+                .to().filter(Comparison.EQ, 2)
+                .end());
+        actual.waitForCompletion();
+
+        assertInstanceOf(TimeoutException.class, actual.getError());
+        assertArrayEquals(expected, junitPlatform.getCommands());
+    }
+
+    @Test
+    public void routeAfterProcessorTimeout() throws InterruptedException {
+        junitPlatform.maxProcessors= 0;
+        Task<Route> failed = mwBoard.getModule(Switch.class).state().addRouteAsync(source -> source.filter(Comparison.EQ, 1));
+        failed.waitForCompletion();
+        assertInstanceOf(TimeoutException.class, failed.getError());
+
+        junitPlatform.maxProcessors= 10;
+        junitPlatform.commandHistory.clear();
+        Task<Route> actual = mwBoard.getModule(Switch.class).state().addRouteAsync(source -> source.filter(Comparison.EQ, 1));
+        actual.waitForCompletion();
+
+        assertNull(actual.getError());
+        assertArrayEquals(new byte[][] {
+                {0x09, 0x02, 0x01, 0x01, (byte) 0xff, 0x00, 0x06, 0x00, 0x00, 0x00, 0x01, 0x00, 0x00, 0x00}
+        }, junitPlatform.getCommands());
+    }
+
+    @Test
+    public void lateProcessorIdRemoved() throws InterruptedException {
+        junitPlatform.maxProcessors= 0;
+        Task<Route> failed = mwBoard.getModule(Switch.class).state().addRouteAsync(source -> source.filter(Comparison.EQ, 1));
+        failed.waitForCompletion();
+        assertInstanceOf(TimeoutException.class, failed.getError());
+
+        junitPlatform.commandHistory.clear();
+        sendMockResponse(new byte[] {0x09, 0x02, 0x05});
+
+        assertArrayEquals(new byte[][] {
+                {0x09, 0x06, 0x05}
+        }, junitPlatform.getCommands());
+    }
+
     @Test
     public void actualLoggingRemoval() throws Exception {
         byte[][] expected= {
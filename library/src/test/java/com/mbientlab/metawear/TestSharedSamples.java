@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.mbientlab.metawear.builder.RouteBuilder;
+import com.mbientlab.metawear.builder.filter.Comparison;
+import com.mbientlab.metawear.data.Acceleration;
+import com.mbientlab.metawear.module.Accelerometer;
+import com.mbientlab.metawear.module.AccelerometerBmi160;
+import com.mbientlab.metawear.module.Switch;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * Checks that subscribers of the same data share the samples decoded from a notification
+ */
+public class TestSharedSamples extends UnitTestBase {
+    private final List<Data> first = new ArrayList<>(), second = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() throws Exception {
+        junitPlatform.boardInfo= new MetaWearBoardInfo(Switch.class, AccelerometerBmi160.class);
+        connectToBoard();
+    }
+
+    private void createRoutes(DataProducer producer, RouteBuilder builder, RouteBuilder other) throws InterruptedException {
+        producer.addRouteAsync(builder).waitForCompletion();
+        producer.addRouteAsync(other).waitForCompletion();
+    }
+
+    @Test
+    public void sameProducer() throws InterruptedException {
+        createRoutes(mwBoard.getModule(Switch.class).state(),
+                source -> source.stream((data, env) -> first.add(data)),
+                source -> source.stream((data, env) -> second.add(data)));
+
+        sendMockResponse(new byte[] {0x01, 0x01, 0x01});
+        sendMockResponse(new byte[] {0x01, 0x01, 0x00});
+
+        assertEquals(2, first.size());
+        assertSame(first.get(0), second.get(0));
+        assertSame(first.get(1), second.get(1));
+        assertEquals(0L, (long) second.get(1).value(Long.class));
+    }
+
+    @Test
+    public void sharedProcessor() throws InterruptedException {
+        createRoutes(mwBoard.getModule(Switch.class).state(),
+                source -> source.filter(Comparison.EQ, 1).stream((data, env) -> first.add(data)),
+                source -> source.filter(Comparison.EQ, 1).stream((data, env) -> second.add(data)));
+
+        sendMockResponse(new byte[] {0x09, 0x03, 0x00, 0x01});
+
+        assertEquals(1, first.size());
+        assertSame(first.get(0), second.get(0));
+    }
+
+    @Test
+    public void packedSamples() throws InterruptedException {
+        createRoutes(mwBoard.getModule(Accelerometer.class).packedAcceleration(),
+                source -> source.stream((data, env) -> first.add(data)),
+                source -> source.stream((data, env) -> second.add(data)));
+
+        sendMockResponse(new byte[] {0x03, 0x1c,
+                0x1b, 0x00, 0x32, 0x00, (byte) 0xf0, 0x3f,
+                0x2b, 0x00, 0x12, 0x00, (byte) 0xf0, 0x3f,
+                0x3b, 0x00, 0x22, 0x00, (byte) 0xf0, 0x3f});
+
+        assertEquals(3, first.size());
+        for(int i = 0; i < first.size(); i++) {
+            assertSame(first.get(i), second.get(i));
+        }
+        assertFalse(Arrays.equals(first.get(0).bytes(), first.get(1).bytes()));
+    }
+
+    @Test
+    public void differentData() throws InterruptedException {
+        createRoutes(mwBoard.getModule(Accelerometer.class).acceleration(),
+                source -> source.stream((data, env) -> first.add(data)),
+                source -> source.split().index(0).stream((data, env) -> second.add(data)));
+
+        sendMockResponse(new byte[] {0x03, 0x04, 0x16, (byte) 0xc4, (byte) 0x94, (byte) 0xa2, 0x2a, (byte) 0xd0});
+
+        assertNotSame(first.get(0), second.get(0));
+        assertEquals(first.get(0).value(Acceleration.class).x(), second.get(0).value(Float.class), 0.001f);
+    }
+
+    @Test
+    public void copiedAccessors() throws InterruptedException {
+        final List<Long> timestamps = new ArrayList<>();
+        final List<byte[]> values = new ArrayList<>();
+        createRoutes(mwBoard.getModule(Switch.class).state(),
+                source -> source.stream((data, env) -> {
+                    data.timestamp().add(Calendar.HOUR, 1);
+                    data.bytes()[0] = 0x7f;
+                }),
+                source -> source.stream((data, env) -> {
+                    timestamps.add(data.timestamp().getTimeInMillis());
+                    values.add(data.bytes());
+                    first.add(data);
+                }));
+
+        sendMockResponse(new byte[] {0x01, 0x01, 0x01});
+
+        assertEquals(first.get(0).epochMillis(), (long) timestamps.get(0));
+        assertArrayEquals(new byte[] {0x01}, values.get(0));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mbientlab.metawear.data.Acceleration;
+import com.mbientlab.metawear.data.Quaternion;
+import com.mbientlab.metawear.impl.JseMetaWearBoard;
+import com.mbientlab.metawear.impl.JseSimulator;
+import com.mbientlab.metawear.module.Accelerometer;
+import com.mbientlab.metawear.module.Logging;
+import com.mbientlab.metawear.module.SensorFusionBosch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import bolts.Task;
+
+public class TestSimulator {
+    private JseSimulator simulator;
+    private MetaWearBoard board;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        simulator = new JseSimulator();
+        board = new JseMetaWearBoard(simulator, simulator, "CB:B7:49:BF:27:33", "3.5.0");
+
+        Task<Void> task = board.connectAsync();
+        task.waitForCompletion();
+        assertNull(task.getError());
+    }
+
+    @AfterEach
+    public void teardown() {
+        simulator.close();
+    }
+
+    @Test
+    public void streamAcceleration() throws Exception {
+        final List<Acceleration> received = Collections.synchronizedList(new ArrayList<>());
+        Accelerometer acc = board.getModule(Accelerometer.class);
+        acc.configure()
+                .odr(100f)
+                .range(4f)
+                .commit();
+        acc.acceleration().addRouteAsync(source -> source.stream((data, env) -> received.add(data.value(Acceleration.class))))
+                .waitForCompletion();
+        acc.acceleration().start();
+        acc.start();
+
+        simulator.advance(1000);
+
+        assertTrue(received.size() >= 100 && received.size() < 110, "Received " + received.size() + " samples");
+        assertEquals(1f, received.get(0).z(), 0.001f);
+    }
+
+    @Test
+    public void streamQuaternion() throws Exception {
+        final List<Quaternion> received = Collections.synchronizedList(new ArrayList<>());
+        SensorFusionBosch fusion = board.getModule(SensorFusionBosch.class);
+        fusion.configure()
+                .mode(SensorFusionBosch.Mode.NDOF)
+                .commit();
+        fusion.quaternion().addRouteAsync(source -> source.stream((data, env) -> received.add(data.value(Quaternion.class))))
+                .waitForCompletion();
+        fusion.quaternion().start();
+        fusion.start();
+
+        simulator.advance(500);
+
+        assertTrue(received.size() >= 50, "Received " + received.size() + " samples");
+        for(Quaternion it: received) {
+            assertEquals(1f, it.w() * it.w() + it.x() * it.x() + it.y() * it.y() + it.z() * it.z(), 0.0001f);
+        }
+    }
+
+    @Test
+    public void downloadLog() throws Exception {
+        final List<Long> timestamps = Collections.synchronizedList(new ArrayList<>());
+        Accelerometer acc = board.getModule(Accelerometer.class);
+        Logging logging = board.getModule(Logging.class);
+        acc.configure()
+                .odr(50f)
+                .commit();
+        acc.acceleration().addRouteAsync(source -> source.log((data, env) -> timestamps.add(data.epochMillis())))
+                .waitForCompletion();
+        logging.start(false);
+        acc.acceleration().start();
+        acc.start();
+
+        simulator.advance(2000);
+        acc.stop();
+        logging.stop();
+        // handle the stop commands before counting the entries
+        simulator.advance(0);
+        int entries = simulator.logLength();
+        assertTrue(entries >= 200, "Logged " + entries + " entries");
+
+        Task<Void> task = logging.downloadAsync();
+        task.waitForCompletion();
+        assertNull(task.getError());
+
+        assertEquals(entries / 2, timestamps.size());
+        for(int i = 1; i < timestamps.size(); i++) {
+            assertTrue(timestamps.get(i) >= timestamps.get(i - 1));
+        }
+    }
+}
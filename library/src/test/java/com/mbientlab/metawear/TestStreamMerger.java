@@ -0,0 +1,143 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestStreamMerger {
+    private final List<Long> timestamps = new ArrayList<>();
+    private final List<Integer> sources = new ArrayList<>();
+    private final List<Float> xValues = new ArrayList<>();
+    private StreamMerger merger;
+
+    @BeforeEach
+    public void setup() {
+        merger = new StreamMerger(3, 3, 50, (source, epochMillis, values) -> {
+            sources.add(source);
+            timestamps.add(epochMillis);
+            xValues.add(values[0]);
+        });
+    }
+
+    private static SampleBatch batch(long[] epochMillis, float[] x) {
+        return new SampleBatch() {
+            @Override
+            public int size() {
+                return epochMillis.length;
+            }
+
+            @Override
+            public int columns() {
+                return 3;
+            }
+
+            @Override
+            public long[] epochMillis() {
+                return epochMillis;
+            }
+
+            @Override
+            public float[] column(int index) {
+                return index == 0 ? x : new float[x.length];
+            }
+
+            @Override
+            public float[] x() {
+                return column(0);
+            }
+
+            @Override
+            public float[] y() {
+                return column(1);
+            }
+
+            @Override
+            public float[] z() {
+                return column(2);
+            }
+        };
+    }
+
+    @Test
+    public void mergeInOrder() {
+        merger.input(0).apply(batch(new long[] {0, 30, 60}, new float[] {0f, 3f, 6f}));
+        merger.input(1).apply(batch(new long[] {10, 40, 70}, new float[] {1f, 4f, 7f}));
+        merger.input(2).apply(batch(new long[] {20, 50, 80}, new float[] {2f, 5f, 8f}));
+        merger.flush();
+
+        assertEquals(List.of(0L, 10L, 20L, 30L, 40L, 50L, 60L, 70L, 80L), timestamps);
+        assertEquals(List.of(0, 1, 2, 0, 1, 2, 0, 1, 2), sources);
+        assertEquals(List.of(0f, 1f, 2f, 3f, 4f, 5f, 6f, 7f, 8f), xValues);
+    }
+
+    @Test
+    public void emitWhenAllSourcesBuffered() {
+        merger.add(0, 10, 0f, 0f, 0f);
+        merger.add(1, 5, 0f, 0f, 0f);
+        assertEquals(List.of(), timestamps);
+
+        merger.add(2, 7, 0f, 0f, 0f);
+        assertEquals(List.of(5L), timestamps);
+        assertEquals(2, merger.pending());
+
+        merger.add(1, 8, 0f, 0f, 0f);
+        assertEquals(List.of(5L, 7L), timestamps);
+    }
+
+    @Test
+    public void boundedLatency() {
+        for(long i = 0; i <= 100; i += 10) {
+            merger.add(0, i, (float) i, 0f, 0f);
+        }
+
+        // sources 1 and 2 are silent so only samples at least 50ms older than the newest are released
+        assertEquals(List.of(0L, 10L, 20L, 30L, 40L, 50L), timestamps);
+        assertEquals(5, merger.pending());
+    }
+
+    @Test
+    public void growBuffer() {
+        for(long i = 0; i < 1000; i++) {
+            merger.add(1, i, (float) i, 0f, 0f);
+            merger.add(2, i, (float) i, 0f, 0f);
+        }
+        merger.flush();
+
+        assertEquals(2000, timestamps.size());
+        long[] expected = new long[2000], actual = new long[2000];
+        for(int i = 0; i < 2000; i++) {
+            expected[i] = i / 2;
+            actual[i] = timestamps.get(i);
+        }
+        assertArrayEquals(expected, actual);
+    }
+}
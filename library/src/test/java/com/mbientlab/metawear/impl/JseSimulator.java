@@ -0,0 +1,955 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import com.mbientlab.metawear.MetaWearBoard;
+import com.mbientlab.metawear.impl.platform.BatteryService;
+import com.mbientlab.metawear.impl.platform.BtleGatt;
+import com.mbientlab.metawear.impl.platform.BtleGattCharacteristic;
+import com.mbientlab.metawear.impl.platform.DeviceInformationService;
+import com.mbientlab.metawear.impl.platform.IO;
+import com.mbientlab.metawear.module.AccelerometerBosch.AccRange;
+import com.mbientlab.metawear.module.Gyro;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import bolts.Task;
+import bolts.TaskCompletionSource;
+
+import static com.mbientlab.metawear.impl.Constant.Module.ACCELEROMETER;
+import static com.mbientlab.metawear.impl.Constant.Module.DATA_PROCESSOR;
+import static com.mbientlab.metawear.impl.Constant.Module.DEBUG;
+import static com.mbientlab.metawear.impl.Constant.Module.EVENT;
+import static com.mbientlab.metawear.impl.Constant.Module.GYRO;
+import static com.mbientlab.metawear.impl.Constant.Module.LOGGING;
+import static com.mbientlab.metawear.impl.Constant.Module.MACRO;
+import static com.mbientlab.metawear.impl.Constant.Module.SENSOR_FUSION;
+import static com.mbientlab.metawear.impl.Constant.Module.TIMER;
+
+/**
+ * Simulated MetaMotion R that implements the GATT and IO operations the API needs, so the SDK can be load tested
+ * without hardware.  The simulator works at the protocol level: it reports its modules, hands out data processor,
+ * logger, timer, event and macro ids, streams synthetic accelerometer, gyro, and sensor fusion data at the configured
+ * output data rates, logs to a simulated NAND, and answers log readouts.  Data processors, timers, events and macros
+ * are allocated but not run.
+ * <p>
+ * Like the firmware, the simulator handles commands and sends notifications once per connection interval, and keeps
+ * sampling and logging while disconnected.  Sensor values come from a {@link Signal} per {@link Source}, which can
+ * be replaced to generate recorded or edge case data.
+ */
+public class JseSimulator implements BtleGatt, IO {
+    /**
+     * Generates a sensor's values
+     */
+    public interface Signal {
+        /**
+         * Called for every sample the simulated sensor produces
+         * @param seconds    Time of the sample, in seconds since the board was reset
+         * @param values     Array to write the values to, in the units the API reports them in
+         */
+        void sample(double seconds, float[] values);
+    }
+
+    /**
+     * Data sources the simulator generates
+     */
+    public enum Source {
+        /** Acceleration, in units of g */
+        ACCELERATION(ACCELEROMETER.id, ACC_DATA, 3),
+        /** Angular velocity, in degrees per second */
+        ANGULAR_VELOCITY(GYRO.id, GYRO_DATA, 3),
+        /** Sensor fusion corrected acceleration, in units of g */
+        CORRECTED_ACCELERATION(SENSOR_FUSION.id, (byte) 0x4, 3),
+        /** Sensor fusion corrected angular velocity, in degrees per second */
+        CORRECTED_ANGULAR_VELOCITY(SENSOR_FUSION.id, (byte) 0x5, 3),
+        /** Sensor fusion corrected magnetic field, in Tesla */
+        CORRECTED_MAGNETIC_FIELD(SENSOR_FUSION.id, (byte) 0x6, 3),
+        /** Orientation as a unit quaternion, ordered w, x, y, z */
+        QUATERNION(SENSOR_FUSION.id, (byte) 0x7, 4),
+        /** Orientation as heading, pitch, roll, and yaw, in degrees */
+        EULER_ANGLES(SENSOR_FUSION.id, (byte) 0x8, 4),
+        /** Gravity vector, in units of g */
+        GRAVITY(SENSOR_FUSION.id, (byte) 0x9, 3),
+        /** Linear acceleration, in units of g */
+        LINEAR_ACCELERATION(SENSOR_FUSION.id, (byte) 0xa, 3);
+
+        final byte module, register;
+        final int components;
+
+        Source(byte module, byte register, int components) {
+            this.module = module;
+            this.register = register;
+            this.components = components;
+        }
+    }
+
+    private static final byte[][] MODULE_INFO = new byte[][] {
+            {0x01, (byte) 0x80, 0x00, 0x00},
+            {0x02, (byte) 0x80, 0x00, 0x00},
+            {0x03, (byte) 0x80, 0x01, 0x01},
+            {0x04, (byte) 0x80, 0x01, 0x00, 0x00, 0x03, 0x01, 0x02},
+            {0x05, (byte) 0x80, 0x00, 0x00, 0x03, 0x03, 0x03, 0x03, 0x01, 0x01, 0x01, 0x01},
+            {0x08, (byte) 0x80, 0x00, 0x00},
+            {0x09, (byte) 0x80, 0x00, 0x03, 0x1c},
+            {0x0a, (byte) 0x80, 0x00, 0x00, 0x1c},
+            {0x0b, (byte) 0x80, 0x00, 0x02, 0x08, (byte) 0x80, 0x2d, 0x00, 0x00},
+            {0x0c, (byte) 0x80, 0x00, 0x00, 0x08},
+            {0x0d, (byte) 0x80, 0x00, 0x01},
+            {0x0f, (byte) 0x80, 0x00, 0x01, 0x08},
+            {0x11, (byte) 0x80, 0x00, 0x05, 0x03},
+            {0x12, (byte) 0x80, 0x00, 0x00},
+            {0x13, (byte) 0x80, 0x00, 0x01},
+            {0x14, (byte) 0x80, 0x00, 0x00},
+            {0x15, (byte) 0x80, 0x00, 0x01},
+            {0x19, (byte) 0x80, 0x00, 0x00, 0x03, 0x00, 0x06, 0x00, 0x02, 0x00, 0x01, 0x00},
+            {(byte) 0xfe, (byte) 0x80, 0x00, 0x00}
+    };
+    private static final String FIRMWARE = "1.5.0", MODEL_NUMBER = "5", HARDWARE_REVISION = "0.1";
+    private static final byte MAX_PROCESSORS = 28, MAX_EVENTS = 28, MAX_LOGGERS = 8, MAX_TIMERS = 8, MAX_MACROS = 8;
+
+    private static final long CONNECTION_INTERVAL = 7500L;
+    private static final double TICK_TIME_STEP = (48.0 / 32768.0) * 1000.0, FUSION_ODR = 100.0, MSS_TO_G = 9.80665;
+    private static final int ENTRY_SIZE = 9, PAGE_ENTRIES = 0x2000;
+
+    private static final byte POWER_MODE = 1, DATA_INTERRUPT_ENABLE = 2, DATA_CONFIG = 3,
+            ACC_DATA = 4, ACC_PACKED_DATA = 0x1c, GYRO_DATA = 5, GYRO_PACKED_DATA = 7;
+    private static final byte FUSION_ENABLE = 1, FUSION_OUTPUT_ENABLE = 3;
+    private static final byte LOG_ENABLE = 1, LOG_TRIGGER = 2, LOG_REMOVE = 3, LOG_TIME = 4, LOG_LENGTH = 5,
+            LOG_READOUT = 6, LOG_READOUT_NOTIFY = 7, LOG_READOUT_PROGRESS = 8, LOG_REMOVE_ENTRIES = 9, LOG_REMOVE_ALL = 0xa,
+            LOG_CIRCULAR_BUFFER = 0xb, LOG_READOUT_PAGE_COMPLETED = 0xd;
+    private static final byte ADD_ENTRY = 2, PROCESSOR_REMOVE = 6, PROCESSOR_REMOVE_ALL = 8,
+            EVENT_PARAMETERS = 3, EVENT_REMOVE = 4, EVENT_REMOVE_ALL = 5,
+            TIMER_REMOVE = 5, MACRO_ERASE_ALL = 8,
+            DEBUG_RESET = 1, DEBUG_RESET_AFTER_GC = 5, DEBUG_DISCONNECT = 6;
+
+    private static final ScheduledExecutorService DEFAULT_EXECUTOR = Executors.newScheduledThreadPool(
+            Runtime.getRuntime().availableProcessors(), r -> {
+                Thread thread = new Thread(r, "metawear-simulator");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private static float[] rotation(double seconds) {
+        double yaw = 36.0 * seconds % 360.0, half = Math.toRadians(yaw) / 2.0;
+        return new float[] {(float) Math.cos(half), 0f, 0f, (float) Math.sin(half), (float) yaw};
+    }
+
+    private static final Map<Source, Signal> DEFAULT_SIGNALS = new EnumMap<>(Source.class);
+    static {
+        DEFAULT_SIGNALS.put(Source.ACCELERATION, (seconds, values) -> {
+            values[0] = (float) (0.5 * Math.sin(Math.PI * seconds));
+            values[1] = (float) (0.5 * Math.cos(Math.PI * seconds));
+            values[2] = 1f;
+        });
+        DEFAULT_SIGNALS.put(Source.ANGULAR_VELOCITY, (seconds, values) -> {
+            values[0] = (float) (90.0 * Math.sin(Math.PI * seconds / 2.0));
+            values[1] = (float) (45.0 * Math.cos(Math.PI * seconds / 2.0));
+            values[2] = 36f;
+        });
+        DEFAULT_SIGNALS.put(Source.CORRECTED_ACCELERATION, (seconds, values) -> DEFAULT_SIGNALS.get(Source.ACCELERATION).sample(seconds, values));
+        DEFAULT_SIGNALS.put(Source.CORRECTED_ANGULAR_VELOCITY, (seconds, values) -> DEFAULT_SIGNALS.get(Source.ANGULAR_VELOCITY).sample(seconds, values));
+        DEFAULT_SIGNALS.put(Source.CORRECTED_MAGNETIC_FIELD, (seconds, values) -> {
+            float[] q = rotation(seconds);
+            double yaw = Math.toRadians(q[4]);
+            values[0] = (float) (25e-6 * Math.cos(yaw));
+            values[1] = (float) (-25e-6 * Math.sin(yaw));
+            values[2] = -40e-6f;
+        });
+        DEFAULT_SIGNALS.put(Source.QUATERNION, (seconds, values) -> System.arraycopy(rotation(seconds), 0, values, 0, 4));
+        DEFAULT_SIGNALS.put(Source.EULER_ANGLES, (seconds, values) -> {
+            float yaw = rotation(seconds)[4];
+            values[0] = yaw;
+            values[1] = 0f;
+            values[2] = 0f;
+            values[3] = yaw;
+        });
+        DEFAULT_SIGNALS.put(Source.GRAVITY, (seconds, values) -> {
+            values[0] = 0f;
+            values[1] = 0f;
+            values[2] = 1f;
+        });
+        DEFAULT_SIGNALS.put(Source.LINEAR_ACCELERATION, (seconds, values) -> {
+            DEFAULT_SIGNALS.get(Source.ACCELERATION).sample(seconds, values);
+            values[2] = 0f;
+        });
+    }
+
+    /**
+     * Sampling state of one data source
+     */
+    private static final class Stream {
+        final Source source;
+        final float[] values;
+        final ByteBuffer payload;
+        final byte[] packed;
+        Signal signal;
+        boolean active;
+        double odr;
+        long started, produced;
+        int nPacked;
+
+        Stream(Source source) {
+            this.source = source;
+            this.signal = DEFAULT_SIGNALS.get(source);
+            this.values = new float[source.components];
+
+            int size = source.module == SENSOR_FUSION.id ? source.components * 4 : source.components * 2;
+            if (source.register >= 0x4 && source.register <= 0x6 && source.module == SENSOR_FUSION.id) {
+                // corrected values are followed by their accuracy
+                size++;
+            }
+            this.payload = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+            this.packed = source.module == SENSOR_FUSION.id ? null : new byte[2 + 3 * size];
+        }
+    }
+
+    private final ScheduledExecutorService executor;
+    private final Map<Source, Stream> streams = new EnumMap<>(Source.class);
+    private final Queue<byte[]> commands = new ConcurrentLinkedQueue<>();
+    private final Map<String, byte[]> localData = new ConcurrentHashMap<>();
+    private final Set<Integer> notifications = new HashSet<>();
+    private final ScheduledFuture<?> interval;
+
+    private volatile NotificationListener listener;
+    private volatile DisconnectHandler dcHandler;
+    private volatile boolean connected;
+    private TaskCompletionSource<Void> remoteDisconnect;
+
+    private final long origin = System.nanoTime();
+    private long skipped, resetAt, lastInterval;
+    private byte resetUid;
+
+    private float accScale = AccRange.AR_2G.scale, gyroScale = Gyro.Range.FSR_2000.scale;
+    private double accOdr = 100.0, gyroOdr = 100.0;
+    private boolean accPowered, accInterrupt, gyroPowered, gyroInterrupt, fusionEnabled;
+    private byte fusionOutputs;
+
+    private final boolean[] processors = new boolean[MAX_PROCESSORS], events = new boolean[MAX_EVENTS],
+            timers = new boolean[MAX_TIMERS];
+    private final byte[][] loggers = new byte[MAX_LOGGERS][], processorConfigs = new byte[MAX_PROCESSORS][];
+    private byte macros;
+
+    private final int logCapacity;
+    private byte[] nand = new byte[ENTRY_SIZE * 1024];
+    private int logHead, logCount, readoutPackets = 8;
+    private boolean logging, circularBuffer, pageCompletedNotify;
+    private long readoutRemaining, readoutDelta, readoutSinceProgress;
+    private int readoutPosition, readoutSincePage;
+
+    private long sentNotifications;
+
+    /**
+     * Creates a simulator that runs on a shared thread pool and logs up to 1M entries
+     */
+    public JseSimulator() {
+        this(DEFAULT_EXECUTOR, 1 << 20);
+    }
+
+    /**
+     * Creates a simulator
+     * @param executor       Executor to run the connection intervals on, can be shared by many simulators
+     * @param logCapacity    Number of entries the simulated NAND can hold
+     */
+    public JseSimulator(ScheduledExecutorService executor, int logCapacity) {
+        this.executor = executor;
+        this.logCapacity = logCapacity;
+        for(Source it: Source.values()) {
+            streams.put(it, new Stream(it));
+        }
+        interval = executor.scheduleAtFixedRate(() -> {
+            try {
+                runInterval();
+            } catch (RuntimeException e) {
+                logWarn("metawear-simulator", "Error running connection interval", e);
+            }
+        }, CONNECTION_INTERVAL, CONNECTION_INTERVAL, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Replaces the values generated for a data source
+     * @param source    Source to change
+     * @param signal    Signal to generate the values from
+     */
+    public synchronized void setSignal(Source source, Signal signal) {
+        streams.get(source).signal = signal;
+    }
+
+    /**
+     * Sets how many readout packets are sent per connection interval, which bounds the log download rate
+     * @param packets    Number of packets per connection interval
+     */
+    public synchronized void setReadoutThroughput(int packets) {
+        readoutPackets = Math.max(1, packets);
+    }
+
+    /**
+     * Moves the simulated clock forward without waiting, running the sensors and loggers for the skipped time.  The
+     * notifications for the skipped samples are sent on the calling thread.
+     * @param millis    How far to move the clock, in milliseconds
+     */
+    public void advance(long millis) {
+        synchronized (this) {
+            skipped += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+        runInterval();
+    }
+
+    /**
+     * Gets the number of entries in the simulated NAND
+     * @return Number of log entries
+     */
+    public synchronized int logLength() {
+        return logCount;
+    }
+
+    /**
+     * Gets the number of notifications sent to the API
+     * @return Number of notifications
+     */
+    public synchronized long notifications() {
+        return sentNotifications;
+    }
+
+    /**
+     * Powers off the simulated board, stopping its clock
+     */
+    public void close() {
+        interval.cancel(false);
+        disconnect(false);
+    }
+
+    private long now() {
+        return System.nanoTime() - origin + skipped;
+    }
+
+    private long tick(long nanos) {
+        return (long) ((nanos - resetAt) / 1000000.0 / TICK_TIME_STEP);
+    }
+
+    private synchronized void runInterval() {
+        byte[] next;
+        while((next = commands.poll()) != null) {
+            handleCommand(next);
+        }
+
+        long time = now();
+        for(Stream it: streams.values()) {
+            sample(it, time);
+        }
+        lastInterval = time;
+
+        if (readoutRemaining > 0) {
+            readout();
+        }
+    }
+
+    private boolean isActive(Source source) {
+        switch(source) {
+            case ACCELERATION:
+                return accPowered && accInterrupt;
+            case ANGULAR_VELOCITY:
+                return gyroPowered && gyroInterrupt;
+            default:
+                return fusionEnabled && (fusionOutputs & (1 << (source.register - 0x4))) != 0;
+        }
+    }
+
+    private double odr(Source source) {
+        switch(source) {
+            case ACCELERATION:
+                return accOdr;
+            case ANGULAR_VELOCITY:
+                return gyroOdr;
+            default:
+                return FUSION_ODR;
+        }
+    }
+
+    private void sample(Stream stream, long time) {
+        boolean active = isActive(stream.source);
+        double odr = odr(stream.source);
+        if (!active) {
+            stream.active = false;
+            return;
+        }
+        if (!stream.active || stream.odr != odr) {
+            stream.active = true;
+            stream.odr = odr;
+            stream.started = lastInterval;
+            stream.produced = 0;
+        }
+
+        long due = (long) ((time - stream.started) / 1e9 * odr);
+        for(; stream.produced < due; stream.produced++) {
+            long sampleTime = stream.started + (long) ((stream.produced + 1) * 1e9 / odr);
+            stream.signal.sample((sampleTime - resetAt) / 1e9, stream.values);
+            encode(stream);
+            emit(stream, tick(sampleTime));
+        }
+    }
+
+    private void encode(Stream stream) {
+        ByteBuffer payload = stream.payload;
+        float[] values = stream.values;
+        payload.clear();
+
+        switch(stream.source) {
+            case ACCELERATION:
+                for(float it: values) {
+                    payload.putShort(toShort(it * accScale));
+                }
+                break;
+            case ANGULAR_VELOCITY:
+                for(float it: values) {
+                    payload.putShort(toShort(it * gyroScale));
+                }
+                break;
+            case CORRECTED_ACCELERATION:
+                for(float it: values) {
+                    payload.putFloat(it * 1000f);
+                }
+                payload.put((byte) 3);
+                break;
+            case CORRECTED_ANGULAR_VELOCITY:
+                for(float it: values) {
+                    payload.putFloat(it);
+                }
+                payload.put((byte) 3);
+                break;
+            case CORRECTED_MAGNETIC_FIELD:
+                for(float it: values) {
+                    payload.putFloat(it * 1000000f);
+                }
+                payload.put((byte) 3);
+                break;
+            case GRAVITY:
+            case LINEAR_ACCELERATION:
+                for(float it: values) {
+                    payload.putFloat((float) (it * MSS_TO_G));
+                }
+                break;
+            default:
+                for(float it: values) {
+                    payload.putFloat(it);
+                }
+                break;
+        }
+    }
+
+    private static short toShort(float value) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value)));
+    }
+
+    private void emit(Stream stream, long tick) {
+        Source source = stream.source;
+        byte[] payload = stream.payload.array();
+
+        if (notifications.contains(notifyKey(source.module, source.register))) {
+            byte[] packet = new byte[payload.length + 2];
+            packet[0] = source.module;
+            packet[1] = source.register;
+            System.arraycopy(payload, 0, packet, 2, payload.length);
+            send(packet);
+        }
+
+        if (stream.packed != null) {
+            byte packedRegister = source == Source.ACCELERATION ? ACC_PACKED_DATA : GYRO_PACKED_DATA;
+            if (notifications.contains(notifyKey(source.module, packedRegister))) {
+                System.arraycopy(payload, 0, stream.packed, 2 + stream.nPacked * payload.length, payload.length);
+                stream.nPacked++;
+                if (stream.nPacked == 3) {
+                    stream.packed[0] = source.module;
+                    stream.packed[1] = packedRegister;
+                    send(Arrays.copyOf(stream.packed, stream.packed.length));
+                    stream.nPacked = 0;
+                }
+            }
+        }
+
+        if (logging) {
+            for(byte i = 0; i < MAX_LOGGERS; i++) {
+                byte[] trigger = loggers[i];
+                if (trigger != null && trigger[0] == source.module && trigger[1] == source.register) {
+                    int offset = trigger[3] & 0x1f, length = ((trigger[3] >> 5) & 0x7) + 1;
+                    log(i, tick, payload, offset, Math.min(length, payload.length - offset));
+                }
+            }
+        }
+    }
+
+    private static int notifyKey(byte module, byte register) {
+        return ((module & 0xff) << 8) | (register & 0xff);
+    }
+
+    private void send(byte[] packet) {
+        NotificationListener current = listener;
+        if (connected && current != null) {
+            sentNotifications++;
+            current.onChange(packet);
+        }
+    }
+
+    private void log(byte id, long tick, byte[] data, int offset, int length) {
+        int position;
+        if (logCount == logCapacity) {
+            if (!circularBuffer) {
+                return;
+            }
+            position = logHead;
+            logHead = (logHead + 1) % logCapacity;
+        } else {
+            position = (logHead + logCount) % logCapacity;
+            logCount++;
+        }
+
+        int end = (position + 1) * ENTRY_SIZE;
+        if (end > nand.length) {
+            nand = Arrays.copyOf(nand, (int) Math.min((long) logCapacity * ENTRY_SIZE, Math.max(end, 2L * nand.length)));
+        }
+
+        int start = position * ENTRY_SIZE;
+        nand[start] = (byte) ((id & 0x1f) | (resetUid << 5));
+        for(int i = 0; i < 4; i++) {
+            nand[start + 1 + i] = (byte) (tick >> (8 * i));
+        }
+        Arrays.fill(nand, start + 5, start + ENTRY_SIZE, (byte) 0);
+        System.arraycopy(data, offset, nand, start + 5, length);
+    }
+
+    private void readout() {
+        for(int i = 0; i < readoutPackets && readoutRemaining > 0; i++) {
+            int entries = (int) Math.min(2, readoutRemaining);
+            byte[] packet = new byte[2 + entries * ENTRY_SIZE];
+            packet[0] = LOGGING.id;
+            packet[1] = LOG_READOUT_NOTIFY;
+            for(int j = 0; j < entries; j++) {
+                int position = (logHead + readoutPosition) % logCapacity;
+                System.arraycopy(nand, position * ENTRY_SIZE, packet, 2 + j * ENTRY_SIZE, ENTRY_SIZE);
+                readoutPosition++;
+            }
+            send(packet);
+
+            readoutRemaining -= entries;
+            readoutSinceProgress += entries;
+            readoutSincePage += entries;
+            if (pageCompletedNotify && readoutSincePage >= PAGE_ENTRIES && readoutRemaining > 0) {
+                readoutSincePage = 0;
+                send(new byte[] {LOGGING.id, LOG_READOUT_PAGE_COMPLETED});
+            }
+            if (readoutRemaining == 0 || readoutDelta > 0 && readoutSinceProgress >= readoutDelta) {
+                readoutSinceProgress = 0;
+                sendProgress(readoutRemaining);
+            }
+        }
+    }
+
+    private void sendProgress(long remaining) {
+        send(ByteBuffer.allocate(6).order(ByteOrder.LITTLE_ENDIAN)
+                .put(LOGGING.id).put(LOG_READOUT_PROGRESS).putInt((int) remaining)
+                .array());
+    }
+
+    private void respond(byte... response) {
+        send(response);
+    }
+
+    private static byte allocate(boolean[] used) {
+        for(byte i = 0; i < used.length; i++) {
+            if (!used[i]) {
+                used[i] = true;
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void handleCommand(byte[] command) {
+        if (command.length < 2) {
+            return;
+        }
+
+        final byte module = command[0], register = command[1];
+        if (register == Util.setRead((byte) 0)) {
+            for(byte[] it: MODULE_INFO) {
+                if (it[0] == module) {
+                    respond(it);
+                    return;
+                }
+            }
+            respond(module, register);
+        } else if (module == ACCELEROMETER.id) {
+            handleAccelerometer(command);
+        } else if (module == GYRO.id) {
+            handleGyro(command);
+        } else if (module == SENSOR_FUSION.id) {
+            if (register == FUSION_ENABLE) {
+                fusionEnabled = command[2] != 0;
+            } else if (register == FUSION_OUTPUT_ENABLE) {
+                fusionOutputs = (byte) ((fusionOutputs | command[2]) & ~command[3]);
+            } else {
+                updateNotifications(command, register >= 0x4 && register <= 0xa);
+            }
+        } else if (module == LOGGING.id) {
+            handleLogging(command);
+        } else if (module == DATA_PROCESSOR.id) {
+            if (register == ADD_ENTRY) {
+                byte id = allocate(processors);
+                if (id != -1) {
+                    processorConfigs[id] = Arrays.copyOfRange(command, 2, command.length);
+                    respond(module, register, id);
+                }
+            } else if (register == Util.setRead(ADD_ENTRY)) {
+                byte id = command[2];
+                byte[] config = id >= 0 && id < MAX_PROCESSORS ? processorConfigs[id] : null;
+                byte[] response = new byte[2 + (config == null ? 0 : config.length)];
+                response[0] = module;
+                response[1] = register;
+                if (config != null) {
+                    System.arraycopy(config, 0, response, 2, config.length);
+                }
+                respond(response);
+            } else if (register == PROCESSOR_REMOVE) {
+                free(processors, command[2]);
+            } else if (register == PROCESSOR_REMOVE_ALL) {
+                Arrays.fill(processors, false);
+            }
+        } else if (module == EVENT.id) {
+            if (register == EVENT_PARAMETERS) {
+                byte id = allocate(events);
+                if (id != -1) {
+                    respond(module, ADD_ENTRY, id);
+                }
+            } else if (register == EVENT_REMOVE) {
+                free(events, command[2]);
+            } else if (register == EVENT_REMOVE_ALL) {
+                Arrays.fill(events, false);
+            }
+        } else if (module == TIMER.id) {
+            if (register == ADD_ENTRY) {
+                byte id = allocate(timers);
+                if (id != -1) {
+                    respond(module, register, id);
+                }
+            } else if (register == TIMER_REMOVE) {
+                free(timers, command[2]);
+            }
+        } else if (module == MACRO.id) {
+            if (register == ADD_ENTRY && macros < MAX_MACROS) {
+                respond(module, register, macros);
+                macros++;
+            } else if (register == MACRO_ERASE_ALL) {
+                macros = 0;
+            }
+        } else if (module == DEBUG.id) {
+            if (register == DEBUG_RESET || register == DEBUG_RESET_AFTER_GC) {
+                reset();
+                disconnect(true);
+            } else if (register == DEBUG_DISCONNECT) {
+                disconnect(true);
+            }
+        }
+    }
+
+    private static void free(boolean[] used, byte id) {
+        if (id >= 0 && id < used.length) {
+            used[id] = false;
+        }
+    }
+
+    private void updateNotifications(byte[] command, boolean dataRegister) {
+        if (dataRegister && command.length == 3) {
+            if (command[2] != 0) {
+                notifications.add(notifyKey(command[0], command[1]));
+            } else {
+                notifications.remove(notifyKey(command[0], command[1]));
+            }
+        }
+    }
+
+    private void handleAccelerometer(byte[] command) {
+        switch(command[1]) {
+            case POWER_MODE:
+                accPowered = command[2] != 0;
+                break;
+            case DATA_INTERRUPT_ENABLE:
+                accInterrupt = (accInterrupt || command[2] != 0) && command[3] == 0;
+                break;
+            case DATA_CONFIG:
+                accOdr = 1600.0 / (1 << (12 - (command[2] & 0x0f)));
+                AccRange range = AccRange.bitMaskToRange((byte) (command[3] & 0x0f));
+                if (range != null) {
+                    accScale = range.scale;
+                }
+                break;
+            default:
+                updateNotifications(command, command[1] == ACC_DATA || command[1] == ACC_PACKED_DATA);
+                break;
+        }
+    }
+
+    private void handleGyro(byte[] command) {
+        switch(command[1]) {
+            case POWER_MODE:
+                gyroPowered = command[2] != 0;
+                break;
+            case DATA_INTERRUPT_ENABLE:
+                gyroInterrupt = (gyroInterrupt || command[2] != 0) && command[3] == 0;
+                break;
+            case DATA_CONFIG:
+                gyroOdr = 25.0 * Math.pow(2, (command[2] & 0x0f) - 6);
+                Gyro.Range range = Gyro.Range.bitMaskToRange((byte) (command[3] & 0x07));
+                if (range != null) {
+                    gyroScale = range.scale;
+                }
+                break;
+            default:
+                updateNotifications(command, command[1] == GYRO_DATA || command[1] == GYRO_PACKED_DATA);
+                break;
+        }
+    }
+
+    private void handleLogging(byte[] command) {
+        final byte register = command[1];
+        if (register == Util.setRead(LOG_TIME)) {
+            long tick = tick(now());
+            respond(LOGGING.id, register, (byte) tick, (byte) (tick >> 8), (byte) (tick >> 16), (byte) (tick >> 24), resetUid);
+        } else if (register == Util.setRead(LOG_LENGTH)) {
+            respond(LOGGING.id, register, (byte) logCount, (byte) (logCount >> 8), (byte) (logCount >> 16), (byte) (logCount >> 24));
+        } else if (register == Util.setRead(LOG_TRIGGER)) {
+            byte id = command[2];
+            byte[] trigger = id >= 0 && id < MAX_LOGGERS ? loggers[id] : null;
+            if (trigger == null) {
+                respond(LOGGING.id, register);
+            } else {
+                respond(LOGGING.id, register, trigger[0], trigger[1], trigger[2], trigger[3]);
+            }
+        } else if (register == LOG_TRIGGER) {
+            for(byte i = 0; i < MAX_LOGGERS; i++) {
+                if (loggers[i] == null) {
+                    loggers[i] = Arrays.copyOfRange(command, 2, 6);
+                    respond(LOGGING.id, register, i);
+                    return;
+                }
+            }
+        } else if (register == LOG_REMOVE) {
+            if (command[2] >= 0 && command[2] < MAX_LOGGERS) {
+                loggers[command[2]] = null;
+            }
+        } else if (register == LOG_REMOVE_ALL) {
+            Arrays.fill(loggers, null);
+        } else if (register == LOG_ENABLE) {
+            logging = command[2] != 0;
+        } else if (register == LOG_CIRCULAR_BUFFER) {
+            circularBuffer = command[2] != 0;
+        } else if (register == LOG_READOUT_PAGE_COMPLETED) {
+            pageCompletedNotify = command.length > 2 && command[2] != 0;
+        } else if (register == LOG_READOUT) {
+            ByteBuffer buffer = ByteBuffer.wrap(command, 2, command.length - 2).order(ByteOrder.LITTLE_ENDIAN);
+            readoutRemaining = Math.min(buffer.getInt() & 0xffffffffL, logCount);
+            readoutDelta = buffer.remaining() >= 4 ? buffer.getInt() & 0xffffffffL : 0;
+            readoutPosition = 0;
+            readoutSincePage = 0;
+            readoutSinceProgress = 0;
+            if (readoutRemaining == 0) {
+                sendProgress(0);
+            }
+        } else if (register == LOG_REMOVE_ENTRIES) {
+            long count = ByteBuffer.wrap(command, 2, 4).order(ByteOrder.LITTLE_ENDIAN).getInt() & 0xffffffffL;
+            int removed = (int) Math.min(count, logCount);
+            logHead = (logHead + removed) % logCapacity;
+            logCount -= removed;
+        }
+    }
+
+    private void reset() {
+        resetAt = now();
+        resetUid = (byte) ((resetUid + 1) & 0x7);
+        accPowered = accInterrupt = gyroPowered = gyroInterrupt = fusionEnabled = logging = false;
+        fusionOutputs = 0;
+        notifications.clear();
+        Arrays.fill(loggers, null);
+        Arrays.fill(processors, false);
+        Arrays.fill(events, false);
+        Arrays.fill(timers, false);
+    }
+
+    private void disconnect(boolean remote) {
+        final TaskCompletionSource<Void> pending;
+        synchronized (this) {
+            if (!connected) {
+                return;
+            }
+            connected = false;
+            readoutRemaining = 0;
+            notifications.clear();
+            pending = remoteDisconnect;
+            remoteDisconnect = null;
+        }
+
+        DisconnectHandler handler = dcHandler;
+        if (handler != null) {
+            if (remote && pending == null) {
+                handler.onUnexpectedDisconnect(19);
+            } else {
+                handler.onDisconnect();
+            }
+        }
+        if (pending != null) {
+            pending.trySetResult(null);
+        }
+    }
+
+    @Override
+    public void onDisconnect(DisconnectHandler handler) {
+        dcHandler = handler;
+    }
+
+    @Override
+    public boolean serviceExists(UUID gattService) {
+        return gattService.equals(MetaWearBoard.METAWEAR_GATT_SERVICE);
+    }
+
+    @Override
+    public Task<Void> writeCharacteristicAsync(BtleGattCharacteristic characteristic, WriteType type, byte[] value) {
+        if (!connected) {
+            return Task.forError(new IllegalStateException("Simulated board is not connected"));
+        }
+        commands.add(value);
+        return Task.forResult(null);
+    }
+
+    @Override
+    public Task<byte[][]> readCharacteristicAsync(BtleGattCharacteristic[] characteristics) {
+        final byte[][] values = new byte[characteristics.length][];
+        for(int i = 0; i < characteristics.length; i++) {
+            values[i] = valueOf(characteristics[i]);
+        }
+        return Task.forResult(values);
+    }
+
+    @Override
+    public Task<byte[]> readCharacteristicAsync(BtleGattCharacteristic characteristic) {
+        return Task.forResult(valueOf(characteristic));
+    }
+
+    private static byte[] valueOf(BtleGattCharacteristic characteristic) {
+        if (characteristic.equals(DeviceInformationService.FIRMWARE_REVISION)) {
+            return FIRMWARE.getBytes();
+        } else if (characteristic.equals(DeviceInformationService.MODEL_NUMBER)) {
+            return MODEL_NUMBER.getBytes();
+        } else if (characteristic.equals(DeviceInformationService.HARDWARE_REVISION)) {
+            return HARDWARE_REVISION.getBytes();
+        } else if (characteristic.equals(DeviceInformationService.MANUFACTURER_NAME)) {
+            return "MbientLab Inc".getBytes();
+        } else if (characteristic.equals(DeviceInformationService.SERIAL_NUMBER)) {
+            return "000000".getBytes();
+        } else if (characteristic.equals(BatteryService.BATTERY_LEVEL)) {
+            return new byte[] {100};
+        }
+        return new byte[0];
+    }
+
+    @Override
+    public Task<Void> enableNotificationsAsync(BtleGattCharacteristic characteristic, NotificationListener listener) {
+        this.listener = listener;
+        return Task.forResult(null);
+    }
+
+    @Override
+    public Task<Void> localDisconnectAsync() {
+        disconnect(false);
+        return Task.forResult(null);
+    }
+
+    @Override
+    public synchronized Task<Void> remoteDisconnectAsync() {
+        if (!connected) {
+            return Task.forResult(null);
+        }
+        if (remoteDisconnect == null) {
+            remoteDisconnect = new TaskCompletionSource<>();
+        }
+        return remoteDisconnect.getTask();
+    }
+
+    @Override
+    public Task<Void> connectAsync() {
+        if (interval.isCancelled()) {
+            return Task.forError(new IllegalStateException("Simulated board is powered off"));
+        }
+        commands.clear();
+        connected = true;
+        return Task.forResult(null);
+    }
+
+    @Override
+    public Task<Integer> readRssiAsync() {
+        return Task.forResult(-55);
+    }
+
+    @Override
+    public void localSave(String key, byte[] data) {
+        localData.put(key, data);
+    }
+
+    @Override
+    public InputStream localRetrieve(String key) {
+        byte[] data = localData.get(key);
+        return data == null ? null : new ByteArrayInputStream(data);
+    }
+
+    @Override
+    public Task<File> downloadFileAsync(String srcUrl, String dest) {
+        return Task.forError(new UnsupportedOperationException("Simulated boards cannot download files"));
+    }
+
+    @Override
+    public File findDownloadedFile(String filename) {
+        return new File(new File(System.getProperty("java.io.tmpdir"), "metawear-simulator"), filename);
+    }
+
+    @Override
+    public void logWarn(String tag, String message) { }
+
+    @Override
+    public void logWarn(String tag, String message, Throwable tr) { }
+}
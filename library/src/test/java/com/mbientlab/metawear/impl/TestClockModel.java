@@ -0,0 +1,90 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class TestClockModel {
+    private static final long EPOCH = 1700000000000L;
+
+    @Test
+    public void estimateDrift() {
+        ClockModel model = new ClockModel(16);
+        for(int i = 0; i < 16; i++) {
+            double board = 1000.0 + i * 60000.0;
+            model.add((byte) 0, board, EPOCH + Math.round(board * (1 + 50e-6)));
+        }
+
+        assertEquals(50.0, model.drift(), 0.1);
+        double board = 1000.0 + 20 * 60000.0;
+        assertEquals(EPOCH + Math.round(board * (1 + 50e-6)), model.toEpochMillis(board), 1);
+    }
+
+    @Test
+    public void singleReference() {
+        ClockModel model = new ClockModel(16);
+        model.add((byte) 0, 500.0, EPOCH);
+
+        assertEquals(0.0, model.drift(), 0.0);
+        assertEquals(EPOCH + 1000, model.toEpochMillis(1500.0));
+        assertEquals(EPOCH - 500, model.offset());
+    }
+
+    @Test
+    public void clampDrift() {
+        ClockModel model = new ClockModel(16);
+        model.add((byte) 0, 0.0, EPOCH);
+        model.add((byte) 0, 10.0, EPOCH + 50);
+
+        assertEquals(1000.0, model.drift(), 0.001);
+    }
+
+    @Test
+    public void resetClearsReferences() {
+        ClockModel model = new ClockModel(16);
+        model.add((byte) 0, 0.0, EPOCH);
+        model.add((byte) 0, 1000.0, EPOCH + 1000);
+        model.add((byte) 1, 10.0, EPOCH + 5000);
+
+        assertEquals(1, model.size());
+        assertEquals(EPOCH + 5990, model.toEpochMillis(1000.0));
+    }
+
+    @Test
+    public void windowKeepsLatest() {
+        ClockModel model = new ClockModel(4);
+        for(int i = 0; i < 4; i++) {
+            model.add((byte) 0, i * 1000.0, EPOCH + i * 1000 + 100000);
+        }
+        for(int i = 4; i < 8; i++) {
+            model.add((byte) 0, i * 1000.0, EPOCH + i * 1000);
+        }
+
+        assertEquals(4, model.size());
+        assertEquals(EPOCH + 10000, model.toEpochMillis(10000.0));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mbientlab.metawear.impl.JseMetaWearBoard.RegisterResponseHandler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+public class TestNotificationDispatcher {
+    private NotificationDispatcher dispatcher;
+    private int dataCount, responseCount;
+    private final RegisterResponseHandler dataHandler = response -> dataCount++,
+            responseHandler = response -> responseCount++;
+
+    @BeforeEach
+    public void setup() {
+        dispatcher = new NotificationDispatcher();
+        dataCount = 0;
+        responseCount = 0;
+    }
+
+    @Test
+    public void dataIdRouting() {
+        dispatcher.addDataIdHeader((byte) 0x9, (byte) 0x3);
+        dispatcher.addDataHandler((byte) 0x9, (byte) 0x3, (byte) 0x1, dataHandler);
+
+        assertTrue(dispatcher.dispatch(new byte[] {0x9, 0x3, 0x1, 0x2a}));
+        assertFalse(dispatcher.dispatch(new byte[] {0x9, 0x3, 0x2, 0x2a}));
+        assertEquals(1, dataCount);
+    }
+
+    @Test
+    public void dataHandlerPrecedence() {
+        dispatcher.addResponseHandler((byte) 0x3, (byte) 0x4, responseHandler);
+        assertTrue(dispatcher.dispatch(new byte[] {0x3, 0x4, 0x0, 0x0}));
+
+        dispatcher.addDataHandler((byte) 0x3, (byte) 0x4, DataTypeBase.NO_DATA_ID, dataHandler);
+        dispatcher.dispatch(new byte[] {0x3, 0x4, 0x0, 0x0});
+        assertEquals(1, responseCount);
+        assertEquals(1, dataCount);
+    }
+
+    @Test
+    public void removeHandler() {
+        dispatcher.addDataHandler((byte) 0x3, (byte) 0x4, DataTypeBase.NO_DATA_ID, dataHandler);
+        dispatcher.addDataHandler((byte) 0x3, (byte) 0x4, DataTypeBase.NO_DATA_ID, dataHandler);
+        assertEquals(1, dispatcher.numDataHandlers((byte) 0x3, (byte) 0x4, DataTypeBase.NO_DATA_ID));
+
+        dispatcher.removeDataHandler((byte) 0x3, (byte) 0x4, DataTypeBase.NO_DATA_ID, dataHandler);
+        assertEquals(0, dispatcher.numDataHandlers((byte) 0x3, (byte) 0x4, DataTypeBase.NO_DATA_ID));
+    }
+
+    @Test
+    public void clearKeepsResponseHandlers() {
+        dispatcher.addResponseHandler((byte) 0xb, (byte) 0x7, responseHandler);
+        dispatcher.addDataHandler((byte) 0xb, (byte) 0x7, DataTypeBase.NO_DATA_ID, dataHandler);
+        dispatcher.clearDataHandlers();
+
+        dispatcher.dispatch(new byte[] {0xb, 0x7, 0x0});
+        assertEquals(0, dataCount);
+        assertEquals(1, responseCount);
+    }
+
+    @Test
+    public void dispatchDoesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+
+        dispatcher.addDataIdHeader((byte) 0x9, (byte) 0x3);
+        dispatcher.addDataHandler((byte) 0x9, (byte) 0x3, (byte) 0x1, dataHandler);
+        byte[] packet = new byte[] {0x9, 0x3, 0x1, 0x2a, 0x0, 0x0, 0x0};
+        for(int i = 0; i < 100000; i++) {
+            dispatcher.dispatch(packet);
+        }
+
+        long threadId = Thread.currentThread().getId(), start = threadBean.getThreadAllocatedBytes(threadId);
+        for(int i = 0; i < 100000; i++) {
+            dispatcher.dispatch(packet);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - start;
+
+        // leave headroom for the allocation counter itself
+        assertTrue(allocated < 1024, "Dispatching allocated " + allocated + " bytes");
+    }
+}
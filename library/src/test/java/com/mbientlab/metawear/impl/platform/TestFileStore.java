@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014-2015 MbientLab Inc. All rights reserved.
+ *
+ * IMPORTANT: Your use of this Software is limited to those specific rights granted under the terms of a software
+ * license agreement between the user who downloaded the software, his/her employer (which must be your
+ * employer) and MbientLab Inc, (the "License").  You may not use this Software unless you agree to abide by the
+ * terms of the License which can be found at www.mbientlab.com/terms.  The License limits your use, and you
+ * acknowledge, that the Software may be modified, copied, and distributed when used in conjunction with an
+ * MbientLab Inc, product.  Other than for the foregoing purpose, you may not use, reproduce, copy, prepare
+ * derivative works of, modify, distribute, perform, display or sell this Software and/or its documentation for any
+ * purpose.
+ *
+ * YOU FURTHER ACKNOWLEDGE AND AGREE THAT THE SOFTWARE AND DOCUMENTATION ARE PROVIDED "AS IS" WITHOUT WARRANTY
+ * OF ANY KIND, EITHER EXPRESS OR IMPLIED, INCLUDING WITHOUT LIMITATION, ANY WARRANTY OF MERCHANTABILITY, TITLE,
+ * NON-INFRINGEMENT AND FITNESS FOR A PARTICULAR PURPOSE. IN NO EVENT SHALL MBIENTLAB OR ITS LICENSORS BE LIABLE OR
+ * OBLIGATED UNDER CONTRACT, NEGLIGENCE, STRICT LIABILITY, CONTRIBUTION, BREACH OF WARRANTY, OR OTHER LEGAL EQUITABLE
+ * THEORY ANY DIRECT OR INDIRECT DAMAGES OR EXPENSES INCLUDING BUT NOT LIMITED TO ANY INCIDENTAL, SPECIAL, INDIRECT,
+ * PUNITIVE OR CONSEQUENTIAL DAMAGES, LOST PROFITS OR LOST DATA, COST OF PROCUREMENT OF SUBSTITUTE GOODS, TECHNOLOGY,
+ * SERVICES, OR ANY CLAIMS BY THIRD PARTIES (INCLUDING BUT NOT LIMITED TO ANY DEFENSE THEREOF), OR OTHER SIMILAR COSTS.
+ *
+ * Should you have any questions regarding your right to use this Software, contact MbientLab via email:
+ * hello@mbientlab.com.
+ */
+
+package com.mbientlab.metawear.impl.platform;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class TestFileStore {
+    @TempDir
+    File tempDir;
+
+    private File root;
+    private FileStore store;
+
+    @BeforeEach
+    public void setup() {
+        root = new File(tempDir, "CB:B7:49:BF:27:33");
+        store = new FileStore(root);
+    }
+
+    private static byte[] read(InputStream ins) throws IOException {
+        try (InputStream it = ins) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[16];
+            int n;
+            while ((n = it.read(chunk)) != -1) {
+                buffer.write(chunk, 0, n);
+            }
+            return buffer.toByteArray();
+        }
+    }
+
+    @Test
+    public void missingKey() throws IOException {
+        assertNull(store.retrieve("com.mbientlab.metawear.impl.JseMetaWearBoard.BOARD_STATE"));
+        assertFalse(store.contains("com.mbientlab.metawear.impl.JseMetaWearBoard.BOARD_STATE"));
+    }
+
+    @Test
+    public void saveRetrieve() throws IOException {
+        byte[] expected = new byte[] {0x4d, 0x57, 0x42, 0x53, 0x00, 0x01, (byte) 0xff};
+        store.save("com.mbientlab.metawear.impl.JseMetaWearBoard.BOARD_STATE", expected);
+
+        assertArrayEquals(expected, read(store.retrieve("com.mbientlab.metawear.impl.JseMetaWearBoard.BOARD_STATE")));
+    }
+
+    @Test
+    public void overwrite() throws IOException {
+        byte[] expected = new byte[] {0x1, 0x2};
+        store.save("state", new byte[] {0x1, 0x2, 0x3, 0x4});
+        store.save("state", expected);
+
+        assertArrayEquals(expected, read(store.retrieve("state")));
+        // only the value is left behind, the temporary file was renamed over it
+        assertEquals(1, root.listFiles().length);
+    }
+
+    @Test
+    public void shortKey() throws IOException {
+        byte[] expected = new byte[] {0x1};
+        store.save("k", expected);
+
+        assertArrayEquals(expected, read(store.retrieve("k")));
+    }
+
+    @Test
+    public void distinctFiles() {
+        assertNotEquals(store.fileFor("a/b"), store.fileFor("a_b"));
+        assertNotEquals(store.fileFor("~state"), store.fileFor("%7Estate"));
+        assertEquals(root, store.fileFor("../state").getParentFile());
+        assertEquals(root, store.fileFor("..").getParentFile());
+    }
+
+    @Test
+    public void removeAndClear() throws IOException {
+        store.save("info", new byte[] {0x1});
+        store.save("state", new byte[] {0x2});
+
+        store.remove("info");
+        assertFalse(store.contains("info"));
+        assertTrue(store.contains("state"));
+
+        store.clear();
+        assertFalse(store.contains("state"));
+    }
+}